@@ -14,9 +14,18 @@
 
 package msp.simulator;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
@@ -27,21 +36,39 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import msp.simulator.dynamic.Dynamic;
+import msp.simulator.dynamic.torques.TorqueProviderEnum;
+import msp.simulator.dynamic.torques.Torques;
 import msp.simulator.environment.Environment;
 import msp.simulator.groundStation.GroundStation;
 import msp.simulator.satellite.Satellite;
+import msp.simulator.satellite.io.IO;
 import msp.simulator.user.Dashboard;
 import msp.simulator.utils.architecture.OrekitConfiguration;
+import msp.simulator.utils.checkpoint.Checkpoint;
+import msp.simulator.utils.checkpoint.Checkpointable;
 import msp.simulator.utils.logs.CustomLoggingTools;
 import msp.simulator.utils.logs.ephemeris.EphemerisGenerator;
+import msp.simulator.utils.noise.NoiseGenerator;
 
 /**
  * This class is responsible to create the instance of the
  * numerical simulator. 
+ * <p>
+ * The state of a running simulation can be saved in a checkpoint 
+ * and a new simulation, built with the same configuration, can be
+ * initialized from this checkpoint to resume the processing.
+ * <p>
+ * A running simulation can also be forked in several branches,
+ * e.g. with different torque scenarios or noise seeds, which 
+ * share the processing of the common prefix and are then 
+ * processed concurrently.
+ * 
+ * @see Checkpoint
+ * @see SimulationBranch
  * 
  * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
  */
-public class NumericalSimulator {
+public class NumericalSimulator implements Checkpointable {
 
 	/* ******* Public Static Attributes ******* */
 
@@ -56,6 +83,13 @@ public class NumericalSimulator {
 	 * This enables to avoid failure due to any numerical approximation. */
 	public static final double EPSILON = 1e-10;
 
+	/** Period of the automatic checkpoint of the simulation, or 0 
+	 * to disable the checkpoint. (s) */
+	public static double checkpointPeriod = 0;
+
+	/** Checkpoint file of the automatic checkpoint. */
+	public static String checkpointFile = null;
+
 	/* **************************************** */
 
 	/** Logger of the instance. */
@@ -64,6 +98,9 @@ public class NumericalSimulator {
 	/** Private real-time processing flag. */
 	private boolean realTimeProcessing;
 
+	/** Checkpoint file of the instance, or null. */
+	private String checkpointLocation;
+
 	/* The different modules of the simulator. */
 	/** Environment Instance in the Simulation. */
 	private Environment environment;
@@ -80,6 +117,12 @@ public class NumericalSimulator {
 	/** Ground Station Instance of the simulator. */
 	private GroundStation groundStation;
 
+	/** Main loop task of the simulation. */
+	private MainSimulationTask mainSimulationTask;
+
+	/** Seed of the noise generators of the simulation. */
+	private long noiseSeed;
+
 	/** Execution status of the simulation.
 	 * TODO: Enumerate the execution status of the simulator.
 	 * (but also normalize the exception handling)
@@ -96,6 +139,7 @@ public class NumericalSimulator {
 	public NumericalSimulator() {
 		this.startDate = LocalDateTime.now();
 		this.realTimeProcessing = NumericalSimulator.realTimeUserFlag;
+		this.checkpointLocation = NumericalSimulator.checkpointFile;
 
 		NumericalSimulator.logger.info("Simulation Instance Created.");
 	}
@@ -123,38 +167,11 @@ public class NumericalSimulator {
 		NumericalSimulator.logger.info(CustomLoggingTools.indentMsg(logger,
 				"Initialization in Process..."));
 
-		/* Checking the user configuration first. */
-		Dashboard.checkConfiguration();
-
-		/* Instance of the Simulator. */
-		this.executionStatus = 1;
-
-		/* Configure OreKit. */
-		OrekitConfiguration.processConfiguration();
-
 		try {
-			/* Building the Environment Module. */
-			this.environment = new msp.simulator.environment.Environment();
-
-			/* Building the Satellite Module. */
-			this.satellite = new msp.simulator.satellite.Satellite(
-					this.environment
-					);
-
-			/* Building the Dynamic Module. */
-			this.dynamic = new msp.simulator.dynamic.Dynamic(
-					this.environment,
-					this.satellite
-					);
-
-			/* Ground Station Module */
-			this.groundStation = new GroundStation(
-					this.environment,
-					this.satellite
-					);
+			/* Building the modules of the simulation. */
+			this.buildModules();
 
 			/* Ephemeris Generator Module */
-			this.ephemerisGenerator = new EphemerisGenerator();
 			this.ephemerisGenerator.start();
 
 
@@ -180,23 +197,144 @@ public class NumericalSimulator {
 	}
 
 	/**
-	 * Execute the main processing of the simulation.
-	 * @throws Exception 
+	 * Initialize the simulation from a checkpoint, i.e. the 
+	 * processing resumes from the state of the checkpoint.
+	 * <p>
+	 * The configuration of the simulation should be the same
+	 * as the one of the checkpointed simulation.
+	 * @param checkpoint The checkpoint file
+	 * @throws Exception when the initialization of a module fails
+	 * or the checkpoint can not be restored
 	 */
-	public void process() {
-		if (this.executionStatus == 1) {
-			NumericalSimulator.logger.info(CustomLoggingTools.indentMsg(logger,
-					"Processing the Simulation..."));
+	public void initialize(File checkpoint) throws Exception {
+		NumericalSimulator.logger.info(CustomLoggingTools.indentMsg(logger,
+				"Initialization from the checkpoint " + checkpoint + "..."));
+
+		try {
+			/* Building the modules of the simulation. */
+			this.buildModules();
+
+			/* Restoring the state of the modules. */
+			Checkpoint.restore(this, checkpoint);
+
+			/* Pushing the restored state into the VTS socket. */
+			if (this.satellite.getIO().isConnectedToVts()) {
+				this.satellite.getIO().exportToVts(
+						this.satellite.getStates().getCurrentState()
+						);
+			}
+
+		} catch (OrekitException e) {
+			e.printStackTrace();
 		}
+	}
+
+	/**
+	 * Build the modules of the simulation in their initial state.
+	 * @throws Exception when the building of a module fails
+	 */
+	private void buildModules() throws Exception {
+		/* Checking the user configuration first. */
+		Dashboard.checkConfiguration();
+
+		/* Instance of the Simulator. */
+		this.executionStatus = 1;
+
+		/* Configure OreKit. */
+		OrekitConfiguration.processConfiguration();
+
+		/* Building the Environment Module. */
+		this.environment = new msp.simulator.environment.Environment();
+
+		/* Building the Satellite Module. */
+		this.satellite = new msp.simulator.satellite.Satellite(
+				this.environment
+				);
+
+		/* Building the Dynamic Module. */
+		this.dynamic = new msp.simulator.dynamic.Dynamic(
+				this.environment,
+				this.satellite
+				);
+
+		/* Ground Station Module */
+		this.groundStation = new GroundStation(
+				this.environment,
+				this.satellite
+				);
+
+		/* Ephemeris Generator Module */
+		this.ephemerisGenerator = new EphemerisGenerator();
+
+		/* Seeding the noise generators of the modules. */
+		this.setNoiseSeed(NoiseGenerator.newSimulationSeed());
+		NumericalSimulator.logger.info(CustomLoggingTools.indentMsg(logger,
+				"Noise Seed of the Simulation: " + this.noiseSeed));
 
 		/* Creating the main simulation loop task. */
-		MainSimulationTask mainSimulationTask = new MainSimulationTask(
+		this.mainSimulationTask = new MainSimulationTask(
 				this.environment,
 				this.dynamic,
 				this.satellite,
 				this.groundStation,
 				this.ephemerisGenerator
 				);
+	}
+
+	/** 
+	 * {@inheritDoc}
+	 * <p>
+	 * The state of the main loop is saved first, then the state
+	 * of each module in a fixed order.
+	 */
+	@Override
+	public void writeCheckpoint(ObjectOutput out) throws IOException {
+		out.writeDouble(this.mainSimulationTask.integrationTimeStep);
+		out.writeDouble(this.mainSimulationTask.currentOffset);
+		out.writeInt(this.mainSimulationTask.ephemerisStepCounter);
+		out.writeLong(this.noiseSeed);
+
+		this.satellite.getStates().writeCheckpoint(out);
+		this.dynamic.getPropagation().writeCheckpoint(out);
+		this.dynamic.getTorques().writeCheckpoint(out);
+		this.groundStation.writeCheckpoint(out);
+		this.satellite.getSensors().writeCheckpoint(out);
+		this.ephemerisGenerator.writeCheckpoint(out);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void readCheckpoint(ObjectInput in) throws IOException, ClassNotFoundException {
+		double integrationTimeStep = in.readDouble();
+		if (integrationTimeStep != this.mainSimulationTask.integrationTimeStep) {
+			throw new IOException("The integration time step of the checkpoint ("
+					+ integrationTimeStep + " s.) does not match the configuration.");
+		}
+		this.mainSimulationTask.currentOffset = in.readDouble();
+		this.mainSimulationTask.ephemerisStepCounter = in.readInt();
+		/* The generators themselves are restored by the modules. */
+		this.noiseSeed = in.readLong();
+
+		this.satellite.getStates().readCheckpoint(in);
+		this.dynamic.getPropagation().readCheckpoint(in);
+		this.dynamic.getTorques().readCheckpoint(in);
+		this.groundStation.readCheckpoint(in);
+		this.satellite.getSensors().readCheckpoint(in);
+		this.ephemerisGenerator.readCheckpoint(in);
+	}
+
+	/**
+	 * Execute the main processing of the simulation.
+	 * @throws Exception 
+	 */
+	public void process() {
+		if (this.executionStatus == 1) {
+			NumericalSimulator.logger.info(CustomLoggingTools.indentMsg(logger,
+					"Processing the Simulation..."));
+		}
+
+		/* The main simulation loop task resumes from its current offset. */
+		MainSimulationTask mainSimulationTask = this.mainSimulationTask;
 
 		/* Wall clock processing. */
 		if (!this.realTimeProcessing) {
@@ -261,6 +399,125 @@ public class NumericalSimulator {
 				"End of Processing Stage."));	
 	}
 
+	/**
+	 * Process the simulation in wall clock until the given offset
+	 * from the simulation start, or the end of the simulation. The
+	 * processing can then be resumed or forked.
+	 * @param offset Offset from the simulation start (s)
+	 */
+	public void processUntil(double offset) {
+		this.mainSimulationTask.stopOffset = offset;
+		while (this.mainSimulationTask.isRunning()) {
+			this.mainSimulationTask.run();
+		}
+		this.mainSimulationTask.stopOffset = Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * Fork the simulation in several branches processed concurrently
+	 * until the end of the simulation.
+	 * <p>
+	 * Each branch is restored from a checkpoint of the current state 
+	 * of this simulation then modified as described, so the common
+	 * prefix is processed only once. The ephemeris of a branch are
+	 * copied from the current ones and prefixed by the branch name.
+	 * Branches are not connected to VTS and are always processed in
+	 * wall clock. This simulation is left unchanged and can resume.
+	 * @param branches Description of the branches
+	 * @param threads Number of threads processing the branches
+	 * @return The simulations of the branches, after their exit
+	 * @throws Exception when a branch can not be built or processed
+	 */
+	public List<NumericalSimulator> fork(List<SimulationBranch> branches, int threads) 
+			throws Exception {
+		NumericalSimulator.logger.info(CustomLoggingTools.indentMsg(logger,
+				"Forking the simulation in " + branches.size() + " branches..."));
+
+		/* Saving the common prefix once. */
+		byte[] prefix = Checkpoint.toBytes(this);
+
+		/* Building the branches one after the other as the modules 
+		 * are configured from the static user configuration. */
+		List<NumericalSimulator> simulations = new ArrayList<NumericalSimulator>();
+		boolean connectVts = IO.connectVts;
+		IO.connectVts = false;
+		try {
+			for (SimulationBranch branch : branches) {
+				simulations.add(this.buildBranch(prefix, branch));
+			}
+		} finally {
+			IO.connectVts = connectVts;
+		}
+
+		/* Processing the branches concurrently. */
+		ExecutorService pool = Executors.newFixedThreadPool(FastMath.max(1, threads));
+		try {
+			List<Future<?>> results = new ArrayList<Future<?>>();
+			for (final NumericalSimulator simulation : simulations) {
+				results.add(pool.submit(new Runnable() {
+					public void run() {
+						simulation.process();
+						simulation.exit();
+					}
+				}));
+			}
+			for (Future<?> result : results) {
+				result.get();
+			}
+		} catch (ExecutionException e) {
+			logger.error("Processing of a branch failed: " + e.getCause());
+			throw e;
+		} finally {
+			pool.shutdown();
+		}
+
+		return simulations;
+	}
+
+	/**
+	 * Build a branch of the simulation from a checkpoint.
+	 * @param prefix Checkpoint of the forked simulation
+	 * @param branch Description of the branch
+	 * @return The simulation of the branch, ready to be processed
+	 * @throws Exception when the branch can not be built
+	 */
+	private NumericalSimulator buildBranch(byte[] prefix, SimulationBranch branch) 
+			throws Exception {
+		if (branch.getTorqueScenario() != null 
+				&& Torques.commandTorqueProvider != TorqueProviderEnum.SCENARIO) {
+			throw new Exception("The branch " + branch.getName() 
+			+ " defines a torque scenario but the scenario provider is not in use.");
+		}
+
+		NumericalSimulator simulation = new NumericalSimulator();
+		simulation.realTimeProcessing = false;
+		simulation.checkpointLocation = (this.checkpointLocation == null) ?
+				null : this.checkpointLocation + "-" + branch.getName();
+
+		simulation.buildModules();
+		Checkpoint.fromBytes(simulation, prefix);
+		simulation.ephemerisGenerator.branch(branch.getName());
+
+		if (branch.getTorqueScenario() != null) {
+			simulation.dynamic.getTorques().setTorqueScenario(branch.getTorqueScenario());
+		}
+		if (branch.getNoiseSeed() != null) {
+			simulation.setNoiseSeed(branch.getNoiseSeed());
+		}
+
+		return simulation;
+	}
+
+	/**
+	 * Seed the noise generators of the modules.
+	 * @param seed Seed of the simulation
+	 */
+	private void setNoiseSeed(long seed) {
+		this.noiseSeed = seed;
+		this.satellite.getSensors().setSeed(seed);
+		this.dynamic.getTorques().setDisturbancesSeed(seed);
+	}
+
 	/**
 	 * Performs the exit processing of the simulation.
 	 */
@@ -269,6 +526,10 @@ public class NumericalSimulator {
 		NumericalSimulator.logger.info(CustomLoggingTools.indentMsg(logger,
 				"Shutting down the Satellite IO interfaces."));
 		this.satellite.getIO().stop();
+		this.dynamic.getTorques().close();
+
+		/* Accuracy of the cached ephemerides. */
+		this.environment.getSolarSystem().logEphemerisCacheErrors();
 
 		/* End of execution statistics. */
 		this.endDate = LocalDateTime.now();
@@ -329,6 +590,9 @@ public class NumericalSimulator {
 		/** Counter of steps before the ephemeris generation. */
 		private int ephemerisStepCounter;
 
+		/** Offset where the processing is paused. */
+		private double stopOffset;
+
 		/**
 		 * Create the main simulation loop task as a runnable object ready to
 		 * be scheduled periodically.
@@ -358,6 +622,7 @@ public class NumericalSimulator {
 					EphemerisGenerator.ephemerisTimeStep  / this.integrationTimeStep
 					);
 			this.ephemerisStepCounter = 1;
+			this.stopOffset = Double.POSITIVE_INFINITY;
 		}
 
 		/**
@@ -410,6 +675,18 @@ public class NumericalSimulator {
 				ephemerisStepCounter++;
 				/* **************************************************************	*/
 
+
+				/* ************ Checkpoint the Simulation ************ */
+				if (checkpointPeriod > 0 && checkpointLocation != null 
+						&& this.isCheckpointStep()) {
+					try {
+						Checkpoint.save(NumericalSimulator.this, new File(checkpointLocation));
+					} catch (IOException e) {
+						logger.error("Checkpoint of the simulation failed: " + e.getMessage());
+					}
+				}
+				/* *************************************************** */
+
 			} else {
 				try {
 					throw (new Exception());
@@ -418,18 +695,38 @@ public class NumericalSimulator {
 			}
 		}
 
+		/**
+		 * Assert if the current step is a checkpoint step. The steps are
+		 * counted from the offset so the checkpoint period does not 
+		 * depend on the restoration of a previous checkpoint.
+		 * @return True if the simulation should be checkpointed.
+		 */
+		private boolean isCheckpointStep() {
+			long step = FastMath.round(currentOffset / integrationTimeStep);
+			long period = FastMath.max(1, FastMath.round(checkpointPeriod / integrationTimeStep));
+			return step % period == 0;
+		}
+
 		/**
 		 * Assert if the primary task of the simulation is running.
 		 * @return True if running, false otherwise.
 		 */
 		public boolean isRunning() {
 			/* Basically run until the end of the simulation duration. */
-			boolean status = (currentOffset + EPSILON < simulationDuration);
+			boolean status = (currentOffset + EPSILON < simulationDuration)
+					&& (currentOffset + EPSILON < stopOffset);
 
 			return status;
 		}
 	} /* End of nested class */
 
+	/**
+	 * @return The seed of the noise generators of the simulation.
+	 */
+	public long getNoiseSeed() {
+		return noiseSeed;
+	}
+
 	/**
 	 * @return The space environment of the simulation.
 	 */
@@ -0,0 +1,79 @@
+/* Copyright 20017-2018 Melbourne Space Program
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package msp.simulator;
+
+import java.util.ArrayList;
+
+import msp.simulator.dynamic.torques.TorqueOverTimeScenarioProvider.Step;
+
+/**
+ * This class describes a branch of a simulation, i.e. the 
+ * variations applied to a copy of a running simulation from
+ * the date it is forked.
+ * <p>
+ * The offsets of the torque scenario remain relative to the 
+ * start of the simulation, so the steps of a branch should 
+ * start after the fork to have an effect.
+ *
+ * @see NumericalSimulator#fork(java.util.List, int)
+ * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
+ */
+public class SimulationBranch {
+
+	/** Name of the branch, prefixed to its ephemeris. */
+	private final String name;
+
+	/** Torque scenario of the branch, or null to keep the scenario 
+	 * of the forked simulation. */
+	private final ArrayList<Step> torqueScenario;
+
+	/** Seed of the noise generators of the branch, or null to keep 
+	 * the generators of the forked simulation. */
+	private final Long noiseSeed;
+
+	/**
+	 * Create a branch description.
+	 * @param name Name of the branch
+	 * @param torqueScenario Torque scenario of the branch, or null
+	 * @param noiseSeed Seed of the noise generators, or null
+	 */
+	public SimulationBranch(String name, ArrayList<Step> torqueScenario, Long noiseSeed) {
+		this.name = name;
+		this.torqueScenario = torqueScenario;
+		this.noiseSeed = noiseSeed;
+	}
+
+	/**
+	 * @return The name of the branch.
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return The torque scenario of the branch, or null.
+	 */
+	public ArrayList<Step> getTorqueScenario() {
+		return torqueScenario;
+	}
+
+	/**
+	 * @return The seed of the noise generators, or null.
+	 */
+	public Long getNoiseSeed() {
+		return noiseSeed;
+	}
+
+}
@@ -16,6 +16,7 @@ package msp.simulator.dynamic.forces;
 
 import java.util.ArrayList;
 
+import org.orekit.errors.OrekitException;
 import org.orekit.forces.ForceModel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -50,6 +51,9 @@ public class Forces {
 	/** Instance of Earth Ghravity Attraction force model. */
 	private EarthGravityAttraction earthGravityAttraction;
 	
+	/** Instance of the analytical J2 gravity attraction force model. */
+	private J2GravityAttraction j2GravityAttraction;
+	
 	/** Instance of the gravity attraction of a third body. */
 	private MoonThirdBodyAttraction moonThirdBodyAttraction;
 	
@@ -59,14 +63,30 @@ public class Forces {
 		
 		this.atmosphericDrag = new AtmosphericDrag(environment, satellite);
 		this.solarRadiationPressure = new RadiationPressure(environment, satellite);
-		this.earthGravityAttraction = new EarthGravityAttraction(environment);
+		if (environment.getGravitationalPotential().isJ2Only()) {
+			/* Analytical fast path of the truncated field. */
+			try {
+				this.j2GravityAttraction = new J2GravityAttraction(environment);
+			} catch (OrekitException e) {
+				/* Fall back on the general model of the same field. */
+				Forces.logger.error("J2 gravity attraction unavailable, "
+						+ "using the general gravity model: " + e.getMessage());
+				this.earthGravityAttraction = new EarthGravityAttraction(environment);
+			}
+		} else {
+			this.earthGravityAttraction = new EarthGravityAttraction(environment);
+		}
 		this.moonThirdBodyAttraction = new MoonThirdBodyAttraction(environment);
 		
 		/* Build a list of implemented forces. */
 		this.listOfForces = new ArrayList<ForceModel>() ;
 		this.listOfForces.add(this.atmosphericDrag);
 		this.listOfForces.add(this.solarRadiationPressure);
-		this.listOfForces.add(this.earthGravityAttraction);
+		if (this.j2GravityAttraction != null) {
+			this.listOfForces.add(this.j2GravityAttraction);
+		} else {
+			this.listOfForces.add(this.earthGravityAttraction);
+		}
 
 	}
 
@@ -85,12 +105,21 @@ public class Forces {
 	}
 
 	/**
-	 * @return the Earth Gravity Attraction Force Model.
+	 * @return the Earth Gravity Attraction Force Model, null
+	 * if the analytical J2 model is used instead.
 	 */
 	public EarthGravityAttraction getEarthGravityAttraction() {
 		return earthGravityAttraction;
 	}
 
+	/**
+	 * @return the J2 Gravity Attraction Force Model, null
+	 * if the gravity field is not restricted to J2.
+	 */
+	public J2GravityAttraction getJ2GravityAttraction() {
+		return j2GravityAttraction;
+	}
+
 	/**
 	 * @return ArrayList of the implemented Force Models.
 	 */
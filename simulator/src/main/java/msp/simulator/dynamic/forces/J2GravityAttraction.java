@@ -0,0 +1,154 @@
+/* Copyright 20017-2018 Melbourne Space Program
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package msp.simulator.dynamic.forces;
+
+import java.util.stream.Stream;
+
+import org.hipparchus.Field;
+import org.hipparchus.RealFieldElement;
+import org.hipparchus.geometry.euclidean.threed.FieldVector3D;
+import org.hipparchus.geometry.euclidean.threed.Vector3D;
+import org.hipparchus.util.FastMath;
+import org.orekit.errors.OrekitException;
+import org.orekit.forces.AbstractForceModel;
+import org.orekit.frames.FieldTransform;
+import org.orekit.frames.Frame;
+import org.orekit.frames.Transform;
+import org.orekit.propagation.FieldSpacecraftState;
+import org.orekit.propagation.SpacecraftState;
+import org.orekit.propagation.events.EventDetector;
+import org.orekit.propagation.events.FieldEventDetector;
+import org.orekit.utils.ParameterDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import msp.simulator.environment.Environment;
+import msp.simulator.utils.logs.CustomLoggingTools;
+
+/**
+ * This class implements the analytical perturbation of the
+ * Earth flattening (J2) on the satellite.
+ * <p>
+ * It is equivalent to the Holmes Featherstone model truncated
+ * to the degree 2 and order 0 but with a closed-form expression
+ * of the acceleration. As for the Holmes Featherstone model, the
+ * central attraction is not included.
+ * 
+ * @see EarthGravityAttraction
+ * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
+ */
+public class J2GravityAttraction extends AbstractForceModel {
+
+	/** Instance of the Logger of the class. */
+	private static final Logger logger = LoggerFactory.getLogger(
+			J2GravityAttraction.class);
+
+	/** Earth rotating frame, the Z axis being the pole. */
+	private final Frame bodyFrame;
+
+	/** Product -3/2 J2 mu ae^2. (m^5/s^2) */
+	private final double factor;
+
+	/**
+	 * Construct the J2 Gravity Attraction Force Model.
+	 * @param environment The Space Environment in the simulation
+	 * @throws OrekitException if the J2 coefficient can not be retrieved
+	 */
+	public J2GravityAttraction(Environment environment) throws OrekitException {
+		this.bodyFrame = environment.getSolarSystem().getEarth().getRotatingFrame();
+
+		double mu = environment.getGravitationalPotential()
+				.getNormalizedSphericalHarmonicCoeffProvider().getMu();
+		double ae = environment.getGravitationalPotential()
+				.getNormalizedSphericalHarmonicCoeffProvider().getAe();
+		double j2 = environment.getGravitationalPotential().getJ2();
+		this.factor = -1.5 * j2 * mu * ae * ae;
+
+		J2GravityAttraction.logger.info(CustomLoggingTools.indentMsg(logger, 
+				" -> Building J2 Gravity Attraction: Succeed."));
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public boolean dependsOnPositionOnly() {
+		return true;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public Vector3D acceleration(SpacecraftState s, double[] parameters)
+			throws OrekitException {
+		Transform toBody = s.getFrame().getTransformTo(this.bodyFrame, s.getDate());
+		Vector3D p = toBody.transformPosition(s.getPVCoordinates().getPosition());
+
+		double r2 = p.getNormSq();
+		double r = FastMath.sqrt(r2);
+		double z2OnR2 = p.getZ() * p.getZ() / r2;
+		double k = this.factor / (r2 * r2 * r);
+
+		double kxy = k * (1. - 5. * z2OnR2);
+		Vector3D accInBody = new Vector3D(
+				kxy * p.getX(),
+				kxy * p.getY(),
+				k * (3. - 5. * z2OnR2) * p.getZ());
+
+		return toBody.getRotation().applyInverseTo(accInBody);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public <T extends RealFieldElement<T>> FieldVector3D<T> acceleration(
+			FieldSpacecraftState<T> s, T[] parameters) throws OrekitException {
+		FieldTransform<T> toBody = s.getFrame().getTransformTo(this.bodyFrame, s.getDate());
+		FieldVector3D<T> p = toBody.transformPosition(s.getPVCoordinates().getPosition());
+
+		T r2 = p.getNormSq();
+		T r = r2.sqrt();
+		T z2OnR2 = p.getZ().multiply(p.getZ()).divide(r2);
+		T k = r2.multiply(r2).multiply(r).reciprocal().multiply(this.factor);
+
+		T kxy = k.multiply(z2OnR2.multiply(-5.).add(1.));
+		FieldVector3D<T> accInBody = new FieldVector3D<T>(
+				kxy.multiply(p.getX()),
+				kxy.multiply(p.getY()),
+				k.multiply(z2OnR2.multiply(-5.).add(3.)).multiply(p.getZ()));
+
+		return toBody.getRotation().applyInverseTo(accInBody);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public Stream<EventDetector> getEventsDetectors() {
+		return Stream.empty();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public <T extends RealFieldElement<T>> Stream<FieldEventDetector<T>> getFieldEventsDetectors(
+			Field<T> field) {
+		return Stream.empty();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public ParameterDriver[] getParametersDrivers() {
+		return new ParameterDriver[0];
+	}
+
+	@Override
+	public String toString() {
+		return new String("J2 Gravity Attraction");
+	}
+}
@@ -14,6 +14,10 @@
 
 package msp.simulator.dynamic.propagation;
 
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
 import org.hipparchus.complex.Quaternion;
 import org.hipparchus.geometry.euclidean.threed.Rotation;
 import org.hipparchus.geometry.euclidean.threed.Vector3D;
@@ -35,6 +39,7 @@ import msp.simulator.dynamic.torques.Torques;
 import msp.simulator.environment.Environment;
 import msp.simulator.satellite.Satellite;
 import msp.simulator.satellite.assembly.SatelliteStates;
+import msp.simulator.utils.checkpoint.Checkpointable;
 import msp.simulator.utils.logs.CustomLoggingTools;
 
 /**
@@ -50,7 +55,7 @@ import msp.simulator.utils.logs.CustomLoggingTools;
  *
  * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
  */
-public class Propagation {
+public class Propagation implements Checkpointable {
 
 	/** Instance of the Logger of the class. */
 	private static final Logger logger = LoggerFactory.getLogger(Propagation.class);
@@ -129,13 +134,18 @@ public class Propagation {
 			this.propagator.setAttitudeProvider(
 					guidance.getAttitudeProvider());
 
-			/*  + Additional Provided State		*/
-			this.propagator.addAdditionalStateProvider(
-					this.integrationManager.getRotAccProvider());
-
-			/*  + Additional Integrated States	*/
-			this.propagator.addAdditionalEquations(
-					this.integrationManager.getSecondaryStatesEquation());
+			/* The geometric integrator handles the rotational state on its
+			 * own, so that the torques are only evaluated at its stages.
+			 */
+			if (this.integrationManager.getLieGroupIntegrator() == null) {
+				/*  + Additional Provided State		*/
+				this.propagator.addAdditionalStateProvider(
+						this.integrationManager.getRotAccProvider());
+
+				/*  + Additional Integrated States	*/
+				this.propagator.addAdditionalEquations(
+						this.integrationManager.getSecondaryStatesEquation());
+			}
 
 		} catch (OrekitException e) {
 			e.printStackTrace();
@@ -181,7 +191,15 @@ public class Propagation {
 
 
 			/* Propagate the attitude. */
-			propagatedState = this.propagateAttitude(s_t, s_t_dt);
+			if (this.integrationManager.getLieGroupIntegrator() == null) {
+				propagatedState = this.propagateAttitude(s_t, s_t_dt);
+			} else {
+				propagatedState = this.integrationManager.getLieGroupIntegrator()
+						.integrate(s_t, s_t_dt);
+
+				/* The rotational state is not managed by the propagator. */
+				this.propagator.resetInitialState(propagatedState);
+			}
 
 			/* Set the updated satellite state. */
 			this.satelliteStates.setCurrentState(
@@ -390,6 +408,32 @@ public class Propagation {
 		return Qf;
 	}
 
+	/** 
+	 * {@inheritDoc}
+	 * <p>
+	 * The propagator restarts each step from its own last state,
+	 * whose attitude is the one of the guidance, so this state is
+	 * saved as well as the satellite states.
+	 */
+	@Override
+	public void writeCheckpoint(ObjectOutput out) throws IOException {
+		try {
+			out.writeObject(this.propagator.getInitialState());
+		} catch (OrekitException e) {
+			throw new IOException("Saving the propagator failed: " + e.getMessage(), e);
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void readCheckpoint(ObjectInput in) throws IOException, ClassNotFoundException {
+		try {
+			this.propagator.setInitialState((SpacecraftState) in.readObject());
+		} catch (OrekitException e) {
+			throw new IOException("Restoring the propagator failed: " + e.getMessage(), e);
+		}
+	}
+
 	/**
 	 * @return the integrationManager
 	 */
@@ -0,0 +1,33 @@
+/* Copyright 20017-2018 Melbourne Space Program
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package msp.simulator.dynamic.propagation.integration;
+
+/**
+ * Enumerate the integrators of the rotational state available
+ * in the simulator.
+ *
+ * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
+ */
+public enum AttitudeIntegratorEnum {
+	/** The spin and the angle vector are integrated as secondary
+	 * states by the propagator, and the quaternion is updated by
+	 * the Wilcox algorithm. */
+	WILCOX,
+
+	/** The attitude and the spin are integrated on the rotation
+	 * group by the Runge-Kutta-Munthe-Kaas method of order 4. */
+	RKMK4
+	;
+}
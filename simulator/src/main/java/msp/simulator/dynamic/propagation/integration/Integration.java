@@ -19,6 +19,7 @@ import org.hipparchus.ode.nonstiff.ClassicalRungeKuttaIntegrator;
 
 import msp.simulator.dynamic.torques.Torques;
 import msp.simulator.satellite.Satellite;
+import msp.simulator.satellite.actuators.ReactionWheels;
 
 /**
  * This class gathers and manage all of the integration tools
@@ -36,6 +37,13 @@ public class Integration {
 	 * */
 	public static double integrationTimeStep = 0.1 ;
 
+	/** Integrator of the rotational state.
+	 * <p>Default is {@link AttitudeIntegratorEnum#WILCOX}. The
+	 * {@link AttitudeIntegratorEnum#RKMK4} integrator keeps its
+	 * accuracy at steps of 0.5 s to 1 s.
+	 */
+	public static AttitudeIntegratorEnum attitudeIntegrator = AttitudeIntegratorEnum.WILCOX;
+
 	/* **************************************** */
 
 	/** Instance of the rotational acceleration Provider. */
@@ -43,6 +51,9 @@ public class Integration {
 
 	/** Instance of the additional equation leading the spin. */
 	private SecondaryStatesODE secondaryStatesEquation;
+
+	/** Instance of the geometric integrator of the rotational state, or null. */
+	private LieGroupIntegrator lieGroupIntegrator;
 	
 	/** Instance of the integrator. */
 	private ODEIntegrator integrator;
@@ -63,11 +74,25 @@ public class Integration {
 		/* Providers for additional states. */
 		this.rotAccProvider = new RotAccProvider(
 				torquesManager.getTorqueProviders(),
-				satellite.getAssembly().getBody());
+				satellite.getAssembly().getBody(),
+				torquesManager.getContext());
+		
+		/* The reaction wheels are integrated with the secondary states. */
+		ReactionWheels reactionWheels = null;
+		if (ReactionWheels.enabled) {
+			reactionWheels = satellite.getActuators().getReactionWheels();
+			this.rotAccProvider.setReactionWheels(reactionWheels);
+		}
 		
 		/* Equation for additional states. */
 		this.secondaryStatesEquation = new SecondaryStatesODE(
-				rotAccProvider);
+				rotAccProvider, reactionWheels);
+		
+		/* Geometric integrator of the rotational state. */
+		if (attitudeIntegrator == AttitudeIntegratorEnum.RKMK4) {
+			this.lieGroupIntegrator = new LieGroupIntegrator(
+					rotAccProvider, reactionWheels);
+		}
 	}
 
 	/**
@@ -84,6 +109,14 @@ public class Integration {
 		return rotAccProvider;
 	}
 
+	/**
+	 * @return the geometric integrator of the rotational state, or null
+	 * if the Wilcox integration is in use
+	 */
+	public LieGroupIntegrator getLieGroupIntegrator() {
+		return lieGroupIntegrator;
+	}
+
 	/**
 	 * @return the integrator
 	 */
@@ -0,0 +1,214 @@
+/* Copyright 20017-2018 Melbourne Space Program
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package msp.simulator.dynamic.propagation.integration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.hipparchus.geometry.euclidean.threed.Rotation;
+import org.hipparchus.geometry.euclidean.threed.Vector3D;
+import org.hipparchus.util.FastMath;
+import org.orekit.attitudes.Attitude;
+import org.orekit.errors.OrekitException;
+import org.orekit.orbits.Orbit;
+import org.orekit.propagation.SpacecraftState;
+import org.orekit.utils.AngularCoordinates;
+
+import msp.simulator.satellite.actuators.ReactionWheels;
+
+/**
+ * This class integrates the rotational state of the satellite, i.e.
+ * the attitude quaternion and the spin, on the rotation group by the
+ * Runge-Kutta-Munthe-Kaas method of order 4 (RKMK4).
+ * <p>
+ * The attitude of each stage is the attitude of the beginning of the
+ * step composed with the exponential of a rotation vector u, i.e.
+ * q = q(t) * exp(u), so that the quaternion stays a rotation at any
+ * step size. The rotation vector follows the Bortz equation
+ * du/dt = w + u x w / 2 + u x (u x w) / 12, truncated at the order of
+ * the method, and the spin follows the Euler equations evaluated by
+ * the rotational acceleration provider at the attitude and the spin
+ * of each stage. The method is then of order 4 on the whole
+ * rotational state, where the Wilcox update is limited by the
+ * attitude of the stages extrapolated from the beginning of the step.
+ * <p>
+ * The orbit of the first and last stages is the one of the beginning
+ * and the end of the step, as propagated by the main integration. The
+ * orbit of the middle stages is the Keplerian shift of the beginning
+ * orbit by half a step, which is only used by the torque models.
+ *
+ * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
+ */
+public class LieGroupIntegrator {
+
+	/** Provider of the rotational acceleration. */
+	private final RotAccProvider rotAccProvider;
+
+	/** Reaction wheels of the satellite, or null. */
+	private final ReactionWheels reactionWheels;
+
+	/** Derivative of the secondary states for the reaction wheels. */
+	private final double[] pDot;
+
+	/** Derivatives of the rotation vector and of the spin at each stage. */
+	private final double[][] ku, kw;
+
+	/**
+	 * Create the integrator.
+	 * @param rotAccProvider Provider of the rotational acceleration
+	 * @param reactionWheels Reaction wheels of the satellite, or null
+	 */
+	public LieGroupIntegrator(RotAccProvider rotAccProvider, ReactionWheels reactionWheels) {
+		this.rotAccProvider = rotAccProvider;
+		this.reactionWheels = reactionWheels;
+		this.pDot = new double[SecondaryStates.getFullArraySize()];
+		this.ku = new double[4][3];
+		this.kw = new double[4][3];
+	}
+
+	/**
+	 * Integrate the rotational state over a step.
+	 * @param currentState The state s(t), i.e. the one before integration
+	 * @param integratedState The state s(t + dt) resulting from the
+	 * integration of the orbit
+	 * @return The fully updated state s(t + dt)
+	 * @throws OrekitException if a stage state can not be built
+	 */
+	public SpacecraftState integrate(SpacecraftState currentState,
+			SpacecraftState integratedState) throws OrekitException {
+		double h = integratedState.getDate().durationFrom(currentState.getDate());
+		Rotation r = currentState.getAttitude().getRotation();
+		double[] q = new double[] {r.getQ0(), r.getQ1(), r.getQ2(), r.getQ3()};
+		Vector3D spin = currentState.getAttitude().getSpin();
+		double[] w0 = new double[] {spin.getX(), spin.getY(), spin.getZ()};
+
+		Orbit middleOrbit = currentState.getOrbit().shiftedBy(h / 2);
+		Orbit[] orbits = new Orbit[] {
+				currentState.getOrbit(),
+				middleOrbit,
+				middleOrbit,
+				integratedState.getOrbit()
+		};
+		double[] c = new double[] {0., h / 2, h / 2, h};
+
+		double[] u = new double[3];
+		double[] w = new double[3];
+		double[] stageQ = new double[4];
+		for (int s = 0; s < 4; s++) {
+			/* Rotation vector and spin of the stage. */
+			for (int i = 0; i < 3; i++) {
+				u[i] = (s == 0) ? 0. : c[s] * this.ku[s - 1][i];
+				w[i] = (s == 0) ? w0[i] : w0[i] + c[s] * this.kw[s - 1][i];
+			}
+			exp(q, u, stageQ);
+
+			/* Rotational acceleration at the stage. */
+			SpacecraftState stage = new SpacecraftState(
+					orbits[s],
+					new Attitude(
+							orbits[s].getDate(),
+							orbits[s].getFrame(),
+							new AngularCoordinates(
+									new Rotation(stageQ[0], stageQ[1], stageQ[2], stageQ[3], false),
+									new Vector3D(w[0], w[1], w[2]),
+									Vector3D.ZERO)),
+					currentState.getMass());
+			double[] rotAcc = this.rotAccProvider.getAdditionalState(stage);
+			System.arraycopy(rotAcc, 0, this.kw[s], 0, 3);
+
+			/* Derivative of the rotation vector: inverse of the
+			 * differential of the exponential map. */
+			double cx = u[1] * w[2] - u[2] * w[1];
+			double cy = u[2] * w[0] - u[0] * w[2];
+			double cz = u[0] * w[1] - u[1] * w[0];
+			double ccx = u[1] * cz - u[2] * cy;
+			double ccy = u[2] * cx - u[0] * cz;
+			double ccz = u[0] * cy - u[1] * cx;
+			this.ku[s][0] = w[0] + cx / 2 + ccx / 12;
+			this.ku[s][1] = w[1] + cy / 2 + ccy / 12;
+			this.ku[s][2] = w[2] + cz / 2 + ccz / 12;
+		}
+
+		/* Combination of the stages. */
+		for (int i = 0; i < 3; i++) {
+			u[i] = h / 6 * (this.ku[0][i] + 2 * this.ku[1][i] + 2 * this.ku[2][i] + this.ku[3][i]);
+			w[i] = w0[i] + h / 6 * (this.kw[0][i] + 2 * this.kw[1][i] + 2 * this.kw[2][i]
+					+ this.kw[3][i]);
+		}
+		exp(q, u, stageQ);
+
+		/* Secondary states: spin, angle vector and wheel speeds. */
+		double[] secondary = SecondaryStates.getArray(currentState).clone();
+		int spinIndex = SecondaryStates.SPIN.getIndex();
+		int thetaIndex = SecondaryStates.THETA.getIndex();
+		for (int i = 0; i < 3; i++) {
+			secondary[spinIndex + i] = w[i];
+			secondary[thetaIndex + i] += u[i];
+		}
+		if (this.reactionWheels != null) {
+			this.reactionWheels.computeDerivatives(this.pDot);
+			int wheelIndex = SecondaryStates.WHEEL_SPEED.getIndex();
+			for (int i = 0; i < SecondaryStates.WHEEL_SPEED.getSize(); i++) {
+				secondary[wheelIndex + i] += h * this.pDot[wheelIndex + i];
+			}
+		}
+
+		/* The acceleration of the last stage stands for the final one. */
+		Map<String, double[]> additional =
+				new HashMap<String, double[]>(integratedState.getAdditionalStates());
+		additional.put(this.rotAccProvider.getName(), this.kw[3].clone());
+		additional.put(SecondaryStates.key, secondary);
+
+		Attitude attitude = new Attitude(
+				integratedState.getDate(),
+				integratedState.getFrame(),
+				new AngularCoordinates(
+						new Rotation(stageQ[0], stageQ[1], stageQ[2], stageQ[3], true),
+						new Vector3D(w[0], w[1], w[2]),
+						new Vector3D(this.kw[3][0], this.kw[3][1], this.kw[3][2])));
+
+		return new SpacecraftState(
+				integratedState.getOrbit(),
+				attitude,
+				integratedState.getMass(),
+				additional);
+	}
+
+	/**
+	 * Compose a quaternion with the exponential of a rotation vector,
+	 * i.e. q * exp(u), as the Wilcox update.
+	 * @param q Quaternion (q0, q1, q2, q3)
+	 * @param u Rotation vector (rad)
+	 * @param result Normalized quaternion q * exp(u)
+	 */
+	private static void exp(double[] q, double[] u, double[] result) {
+		double angle = FastMath.sqrt(u[0] * u[0] + u[1] * u[1] + u[2] * u[2]);
+		double e0 = FastMath.cos(angle / 2);
+		double s = (angle < 1e-8) ? 0.5 - angle * angle / 48 : FastMath.sin(angle / 2) / angle;
+		double e1 = s * u[0];
+		double e2 = s * u[1];
+		double e3 = s * u[2];
+
+		double r0 = q[0] * e0 - q[1] * e1 - q[2] * e2 - q[3] * e3;
+		double r1 = q[0] * e1 + q[1] * e0 + q[2] * e3 - q[3] * e2;
+		double r2 = q[0] * e2 - q[1] * e3 + q[2] * e0 + q[3] * e1;
+		double r3 = q[0] * e3 + q[1] * e2 - q[2] * e1 + q[3] * e0;
+		double norm = FastMath.sqrt(r0 * r0 + r1 * r1 + r2 * r2 + r3 * r3);
+		result[0] = r0 / norm;
+		result[1] = r1 / norm;
+		result[2] = r2 / norm;
+		result[3] = r3 / norm;
+	}
+}
@@ -24,7 +24,11 @@ import org.orekit.propagation.SpacecraftState;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import msp.simulator.dynamic.torques.StageTorqueProvider;
+import msp.simulator.dynamic.torques.TorqueContext;
 import msp.simulator.dynamic.torques.TorqueProvider;
+import msp.simulator.satellite.actuators.ReactionWheels;
+import msp.simulator.satellite.assembly.InertiaTensor;
 import msp.simulator.satellite.assembly.SatelliteBody;
 
 /**
@@ -47,14 +51,45 @@ public class RotAccProvider implements AdditionalStateProvider {
 	/** Satellite body instance in the simulation. */
 	private SatelliteBody satelliteBody;
 
+	/** Context of the stage shared by the torque providers, or null. */
+	private TorqueContext context;
+
+	/** Accumulator of the overall torque of a stage. */
+	private final double[] torque = new double[3];
+
+	/** Torque providers in use, resolved from the list. */
+	private TorqueProvider[] providers;
+
+	/** Stage interface of each provider in use, or null. */
+	private StageTorqueProvider[] stageProviders;
+
+	/** Reaction wheels of the satellite, or null. */
+	private ReactionWheels reactionWheels;
+
+	/** Momentum of the reaction wheels at the stage. */
+	private final double[] wheelMomentum = new double[3];
+
 	/**
 	 * Constructor of the provider.
 	 * @param torqueProvider Instance of the simulation in use
 	 * @param satelliteBody Instance of the simulation
 	 */
 	public RotAccProvider(ArrayList<TorqueProvider> torqueProviders, SatelliteBody satelliteBody) {
+		this(torqueProviders, satelliteBody, null);
+	}
+
+	/**
+	 * Constructor of the provider updating the context shared by
+	 * the torque providers at each stage.
+	 * @param torqueProviders Torque providers in use
+	 * @param satelliteBody Instance of the simulation
+	 * @param context Context of the stage shared by the torque providers
+	 */
+	public RotAccProvider(ArrayList<TorqueProvider> torqueProviders, SatelliteBody satelliteBody,
+			TorqueContext context) {
 		this.torqueProviders = torqueProviders;
 		this.satelliteBody = satelliteBody;
+		this.context = context;
 	}
 
 	/** Name of the additional state provider.
@@ -80,28 +115,81 @@ public class RotAccProvider implements AdditionalStateProvider {
 	@Override
 	public double[] getAdditionalState(SpacecraftState state) throws OrekitException {
 
-		/* Compute the overall interaction of all of the registered torques
-		 * in the satellite frame. */
-		Vector3D overallTorque = Vector3D.ZERO;
-		for (TorqueProvider provider : this.torqueProviders) {
-			overallTorque = overallTorque.add(
-					provider.getTorque(state.getDate())
-					);
-		}
+		/* Update once the environment shared by the torque models. */
+		if (this.context != null) {
+			this.context.update(state);
+		}
 
+		/* Compute the overall interaction of all of the registered torques
+		 * in the satellite frame. The stage providers are evaluated from
+		 * the state of the stage and accumulate their torque in place. */
+		if (this.providers == null || this.providers.length != this.torqueProviders.size()) {
+			this.resolveProviders();
+		}
+		this.torque[0] = 0;
+		this.torque[1] = 0;
+		this.torque[2] = 0;
+		for (int i = 0; i < this.providers.length; i++) {
+			if (this.stageProviders[i] != null) {
+				this.stageProviders[i].addTorque(state, this.torque);
+			} else {
+				Vector3D providedTorque = this.providers[i].getTorque(state.getDate());
+				this.torque[0] += providedTorque.getX();
+				this.torque[1] += providedTorque.getY();
+				this.torque[2] += providedTorque.getZ();
+			}
+		}
+
 		/* Compute the rotational acceleration from the overall torque interaction. */
-		double[] rotAcc = computeEulerEquations(
-				overallTorque, 
-				state.getAttitude().getSpin(), 
-				this.satelliteBody.getInertiaMatrix()
-				);
+		double[] rotAcc;
+		if (this.reactionWheels == null) {
+			rotAcc = computeEulerEquations(
+					this.torque, 
+					state.getAttitude().getSpin(), 
+					this.satelliteBody.getInertiaTensor()
+					);
+		} else {
+			this.reactionWheels.getMomentum(state.getDate(), this.wheelMomentum);
+			rotAcc = computeEulerEquations(
+					this.torque, 
+					state.getAttitude().getSpin(), 
+					this.wheelMomentum,
+					this.satelliteBody.getInertiaTensor()
+					);
+		}
 
-		logger.debug("Acc Provided - " + state.getDate().toString() + " - " +
-				Arrays.toString(rotAcc));
+		if (logger.isDebugEnabled()) {
+			logger.debug("Acc Provided - " + state.getDate().toString() + " - " +
+					Arrays.toString(rotAcc));
+		}
 
 		return rotAcc;
 	}
 
+	/**
+	 * Set the reaction wheels whose momentum is coupled to the
+	 * rotational dynamic.
+	 * @param reactionWheels Reaction wheels of the satellite, or null
+	 */
+	public void setReactionWheels(ReactionWheels reactionWheels) {
+		this.reactionWheels = reactionWheels;
+	}
+
+	/**
+	 * Resolve once the interface of the torque providers, so that
+	 * no type check is done at each stage.
+	 */
+	private void resolveProviders() {
+		int size = this.torqueProviders.size();
+		this.providers = this.torqueProviders.toArray(new TorqueProvider[size]);
+		this.stageProviders = new StageTorqueProvider[size];
+		for (int i = 0; i < size; i++) {
+			if (this.providers[i] instanceof StageTorqueProvider) {
+				this.stageProviders[i] = (StageTorqueProvider) this.providers[i];
+			}
+		}
+	}
+
 	/**
 	 * Compute the rotational acceleration through the Euler equations
 	 * of motion for a rotating rigid body.
@@ -115,31 +203,91 @@ public class RotAccProvider implements AdditionalStateProvider {
 			Vector3D torque, 
 			Vector3D spin, 
 			double[][] inertiaMatrix) {
+		return computeEulerEquations(
+				new double[] {torque.getX(), torque.getY(), torque.getZ()},
+				spin, inertiaMatrix);
+	}
 
-		/* Rotational acceleration array to complete. */
-		double[] rotAcc = new double[3];
+	/**
+	 * Compute the rotational acceleration through the Euler equations
+	 * of motion for a rigid body carrying spinning wheels, whose
+	 * momentum adds the gyroscopic torque - spin x momentum.
+	 * <p>
+	 * The reaction of the motor torques of the wheels is expected
+	 * to be part of the given torque.
+	 * 
+	 * @param torque Current interaction (x, y, z) in satellite frame. The
+	 * gyroscopic torque is added in place to this array.
+	 * @param spin Current rotational speed in satellite frame.
+	 * @param wheelMomentum Momentum (x, y, z) of the wheels relatively
+	 * to the satellite, in satellite frame.
+	 * @param inertia Inertia tensor of the satellite
+	 * @return The corresponding rotational acceleration vector as an array.
+	 */
+	public static double[] computeEulerEquations(
+			double[] torque, 
+			Vector3D spin, 
+			double[] wheelMomentum,
+			InertiaTensor inertia) {
 
-		/* Rotational speed */
 		double W1 = spin.getX();
 		double W2 = spin.getY();
 		double W3 = spin.getZ();
+		double H1 = wheelMomentum[0];
+		double H2 = wheelMomentum[1];
+		double H3 = wheelMomentum[2];
+
+		/* Gyroscopic coupling of the wheel momentum. */
+		torque[0] -= W2 * H3 - W3 * H2;
+		torque[1] -= W3 * H1 - W1 * H3;
+		torque[2] -= W1 * H2 - W2 * H1;
+
+		return computeEulerEquations(torque, spin, inertia);
+	}
+
+	/**
+	 * Compute the rotational acceleration through the Euler equations
+	 * of motion for a rotating rigid body.
+	 * <p>
+	 * The inertia tensor is inverted at each call: the propagation
+	 * uses the tensor of the satellite body, built once.
+	 * 
+	 * @param torque Current interaction (x, y, z) in satellite frame
+	 * @param spin Current rotational speed in satellite frame.
+	 * @param inertiaMatrix of the satellite
+	 * @return The corresponding rotational acceleration vector as an array.
+	 */
+	public static double[] computeEulerEquations(
+			double[] torque, 
+			Vector3D spin, 
+			double[][] inertiaMatrix) {
+		return computeEulerEquations(torque, spin, new InertiaTensor(inertiaMatrix));
+	}
 
-		/* Torque interaction in the satellite frame. */
-		double M1 = torque.getX();
-		double M2 = torque.getY();
-		double M3 = torque.getZ();
+	/**
+	 * Compute the rotational acceleration through the Euler equations
+	 * of motion for a rotating rigid body, dw/dt = I^-1 (M - w x Iw).
+	 * 
+	 * @param torque Current interaction (x, y, z) in satellite frame
+	 * @param spin Current rotational speed in satellite frame.
+	 * @param inertia Inertia tensor of the satellite
+	 * @return The corresponding rotational acceleration vector as an array.
+	 */
+	public static double[] computeEulerEquations(
+			double[] torque, 
+			Vector3D spin, 
+			InertiaTensor inertia) {
 
-		/* Inertia Matrix of the satellite. */
-		double I1 = inertiaMatrix[0][0];
-		double I2 = inertiaMatrix[1][1];
-		double I3 = inertiaMatrix[2][2];
+		/* Rotational acceleration array to complete. */
+		double[] rotAcc = new double[3];
 
 		/* To explain the coupling between the different axis, one can refer to 
 		 * the Euler Equations of motion for a rotating rigid body. 
 		 */
-		rotAcc[0] = (M1 - (I3 - I2) * W2 * W3) / I1 ;
-		rotAcc[1] = (M2 - (I1 - I3) * W3 * W1) / I1 ; 
-		rotAcc[2] = (M3 - (I2 - I1) * W1 * W2) / I1 ;
+		inertia.computeEulerEquations(
+				torque[0], torque[1], torque[2],
+				spin.getX(), spin.getY(), spin.getZ(),
+				rotAcc);
 
 		return rotAcc;
 	}
@@ -14,15 +14,24 @@
 
 package msp.simulator.dynamic.propagation.integration;
 
+import org.orekit.propagation.SpacecraftState;
+
 /**
  * Defines the additional states leaded by a differential
  * equation (ODE) that need to be integrated along the propagation.
+ * <p>
+ * All of the states share a single array, each state being a
+ * slice of the array. Adding a state only requires a new slice:
+ * the modules read the values in place, at the index of the
+ * state, through {@link #getArray(SpacecraftState)}.
  *
  * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
  */
 public enum SecondaryStates {
 	SPIN (0, 3),
-	THETA (3, 3);
+	THETA (3, 3),
+	/** Speed of the reaction wheels relatively to the satellite. (rad/s) */
+	WHEEL_SPEED (6, 3);
 
 	private int index;
 	private int size;
@@ -81,6 +90,17 @@ public enum SecondaryStates {
 		return extraction;
 	}
 
+	/**
+	 * Return the full secondary array of a state without copying it,
+	 * unlike {@link SpacecraftState#getAdditionalState(String)}. The
+	 * array is owned by the state and should only be read.
+	 * @param state State holding the secondary states
+	 * @return The secondary array of the state
+	 */
+	public static final double[] getArray(SpacecraftState state) {
+		return state.getAdditionalStates().get(key);
+	}
+
 	/* ***** End Public Static Attributes ***** */
 	/* **************************************** */	
 	
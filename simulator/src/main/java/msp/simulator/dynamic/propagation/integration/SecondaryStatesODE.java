@@ -14,12 +14,17 @@
 
 package msp.simulator.dynamic.propagation.integration;
 
+import java.util.Arrays;
+import java.util.Map;
+
 import org.orekit.errors.OrekitException;
 import org.orekit.propagation.SpacecraftState;
 import org.orekit.propagation.integration.AdditionalEquations;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import msp.simulator.satellite.actuators.ReactionWheels;
+
 /**
  * This class implements the additional equation that lead
  * the behavior of the secondary additional states. Only
@@ -35,6 +40,12 @@ import org.slf4j.LoggerFactory;
  * The overall torque being responsible for the rotational
  * acceleration through the satellite inertia, this data is
  * stored in the additional state "RotAcc".
+ * <p>
+ * The speeds of the reaction wheels, if any, are integrated in
+ * the same pass from their motor torques.
+ * <p>
+ * The states are read in place, without copying the arrays of
+ * the state at each stage.
  *
  * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
  */
@@ -48,11 +59,23 @@ public class SecondaryStatesODE implements AdditionalEquations {
 	/** Provider of the rotationnal acceleration. */
 	private RotAccProvider rotAccProvider;
 
+	/** Reaction wheels of the satellite, or null. */
+	private ReactionWheels reactionWheels;
+
 	/** Constructor of the secondary states equation. 
 	 * @param rotAccProvider Provider of the rotational acceleration in use
 	 */
 	public SecondaryStatesODE(RotAccProvider rotAccProvider) {
+		this(rotAccProvider, null);
+	}
+
+	/** Constructor of the secondary states equation with reaction wheels.
+	 * @param rotAccProvider Provider of the rotational acceleration in use
+	 * @param reactionWheels Reaction wheels of the satellite, or null
+	 */
+	public SecondaryStatesODE(RotAccProvider rotAccProvider, ReactionWheels reactionWheels) {
 		this.rotAccProvider = rotAccProvider;
+		this.reactionWheels = reactionWheels;
 	}
 
 	/** Name of the Equation.
@@ -93,25 +116,39 @@ public class SecondaryStatesODE implements AdditionalEquations {
 	 */
 	@Override
 	public double[] computeDerivatives(SpacecraftState s, double[] pDot) throws OrekitException {
-				
-				/* Compute the spin derivative: torque provider. */
-				System.arraycopy(
-						s.getAdditionalState(this.rotAccProvider.getName()),
-						0, 
-						pDot, 
-						SecondaryStates.SPIN.getIndex(), 
-						SecondaryStates.SPIN.getSize()
-						);
-				
-				/* Compute the theta derivative: spin. */
-				System.arraycopy(
-						s.getAdditionalState(SecondaryStates.key), 
-						SecondaryStates.SPIN.getIndex(), 
-						pDot,
-						SecondaryStates.THETA.getIndex(), 
-						SecondaryStates.THETA.getSize()
-						);
-				
+
+		/* Read the states in place. */
+		Map<String, double[]> states = s.getAdditionalStates();
+
+		/* Compute the spin derivative: torque provider. */
+		System.arraycopy(
+				states.get(this.rotAccProvider.getName()),
+				0, 
+				pDot, 
+				SecondaryStates.SPIN.getIndex(), 
+				SecondaryStates.SPIN.getSize()
+				);
+
+		/* Compute the theta derivative: spin. */
+		System.arraycopy(
+				states.get(SecondaryStates.key), 
+				SecondaryStates.SPIN.getIndex(), 
+				pDot,
+				SecondaryStates.THETA.getIndex(), 
+				SecondaryStates.THETA.getSize()
+				);
+
+		/* Compute the wheel speed derivative: motor torques. */
+		if (this.reactionWheels != null) {
+			this.reactionWheels.computeDerivatives(pDot);
+		} else {
+			Arrays.fill(pDot, 
+					SecondaryStates.WHEEL_SPEED.getIndex(), 
+					SecondaryStates.WHEEL_SPEED.getIndex()
+					+ SecondaryStates.WHEEL_SPEED.getSize(), 
+					0.);
+		}
+
 
 		/* 
 		 * Return the potentially new updated main propagation state, i.e.
@@ -14,7 +14,12 @@
 
 package msp.simulator.dynamic.torques;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.nio.ByteBuffer;
+import java.nio.file.Paths;
 
 import org.hipparchus.geometry.euclidean.threed.Vector3D;
 import org.orekit.time.AbsoluteDate;
@@ -25,21 +30,24 @@ import msp.simulator.dynamic.propagation.integration.Integration;
 import msp.simulator.satellite.Satellite;
 import msp.simulator.satellite.assembly.SatelliteStates;
 import msp.simulator.satellite.io.IO;
-import msp.simulator.satellite.io.MemcachedRawTranscoder;
+import msp.simulator.satellite.io.MemcachedChannel;
+import msp.simulator.utils.checkpoint.Checkpointable;
 import msp.simulator.utils.logs.CustomLoggingTools;
-import net.spy.memcached.MemcachedClient;
 
 /**
  *
  * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
  */
-public class MemCachedTorqueProvider implements TorqueProvider {
+public class MemCachedTorqueProvider implements TorqueProvider, Checkpointable, Closeable {
 
 	/* ******* Public Static Attributes ******* */
 
 	/** Public key to access the MemCached hash table. */
 	public static String torqueCommandKey = "Simulation_Torque_";
 
+	/** Path of the log recording the acquired torques, or null. */
+	public static String torqueLogFile = null;
+
 	/* **************************************** */
 	
 	/** Private Key to store the public key. */
@@ -49,11 +57,8 @@ public class MemCachedTorqueProvider implements TorqueProvider {
 	private static final Logger logger = LoggerFactory.getLogger(
 			MemCachedTorqueProvider.class);
 
-	/** Instance of the MemCached Client of the simulation. */
-	private MemcachedClient memcached;
-
-	/** Instance of the "raw data" transcoder of the IO. */
-	private MemcachedRawTranscoder memcachedTranscoder;
+	/** Channel of the simulation to the MemCached common memory. */
+	private MemcachedChannel memcached;
 
 	/** Buffered date of the beginning of the step. */
 	private AbsoluteDate stepStart;
@@ -72,6 +77,9 @@ public class MemCachedTorqueProvider implements TorqueProvider {
 	/** Copy of the fixed integration time step. */
 	private final double stepSize = Integration.integrationTimeStep;
 
+	/** Recorder of the acquired torques, or null. */
+	private TorqueLog.Recorder recorder;
+
 	/**
 	 * Create the instance of memcached torque provider.
 	 * Note that the MemCached connection should be enable
@@ -91,8 +99,16 @@ public class MemCachedTorqueProvider implements TorqueProvider {
 			this.stepTorque = Vector3D.ZERO;
 
 			this.torqueKey = MemCachedTorqueProvider.torqueCommandKey;
-			this.memcached = satellite.getIO().getMemcached();
-			this.memcachedTranscoder = satellite.getIO().getRawTranscoder();
+			this.memcached = satellite.getIO().getMemcachedChannel();
+
+			if (MemCachedTorqueProvider.torqueLogFile != null) {
+				try {
+					this.recorder = new TorqueLog.Recorder(
+							Paths.get(MemCachedTorqueProvider.torqueLogFile), this.stepSize);
+				} catch (IOException e) {
+					logger.error("Torque log unavailable: " + e.getMessage());
+				}
+			}
 
 		} else {
 			logger.error(CustomLoggingTools.indentMsg(logger,
@@ -133,21 +149,15 @@ public class MemCachedTorqueProvider implements TorqueProvider {
 				Vector3D torqueCommand;
 
 				double torque_x = ByteBuffer.wrap(
-						this.memcached.get(
-								this.torqueKey + "X",
-								this.memcachedTranscoder))
+						this.memcached.get(this.torqueKey + "X"))
 						.getDouble();
 
 				double torque_y = ByteBuffer.wrap(
-						this.memcached.get(
-								this.torqueKey + "Y",
-								this.memcachedTranscoder))
+						this.memcached.get(this.torqueKey + "Y"))
 						.getDouble();
 
 				double torque_z = ByteBuffer.wrap(
-						this.memcached.get(
-								this.torqueKey + "Z",
-								this.memcachedTranscoder))
+						this.memcached.get(this.torqueKey + "Z"))
 						.getDouble();
 
 				torqueCommand = new Vector3D(
@@ -164,6 +174,13 @@ public class MemCachedTorqueProvider implements TorqueProvider {
 				/* Then update the buffered data. */
 				this.nextAcquisitionDate = this.stepStart.shiftedBy(this.stepSize);
 				this.stepTorque = torqueCommand;
+
+				/* Record the command for a later replay. */
+				if (this.recorder != null) {
+					this.recorder.record(
+							this.stepStart.durationFrom(this.satState.getInitialState().getDate()),
+							torqueCommand);
+				}
 				
 			} catch (Exception e) {
 				e.printStackTrace();
@@ -183,4 +200,36 @@ public class MemCachedTorqueProvider implements TorqueProvider {
 		return this.stepTorque;
 	}
 
+	/** {@inheritDoc} */
+	@Override
+	public void close() throws IOException {
+		if (this.recorder != null) {
+			this.recorder.close();
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void writeCheckpoint(ObjectOutput out) throws IOException {
+		out.writeObject(this.nextAcquisitionDate);
+		out.writeObject(this.stepTorque);
+		/* Position of the flushed torque log, so that a resumed recording
+		 * keeps the records written before the checkpoint. */
+		if (this.recorder != null) {
+			this.recorder.flush();
+		}
+		out.writeLong(this.recorder == null ? -1 : this.recorder.getPosition());
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void readCheckpoint(ObjectInput in) throws IOException, ClassNotFoundException {
+		this.nextAcquisitionDate = (AbsoluteDate) in.readObject();
+		this.stepTorque = (Vector3D) in.readObject();
+		long logPosition = in.readLong();
+		if (this.recorder != null && logPosition >= 0) {
+			this.recorder.resume(logPosition);
+		}
+	}
+
 }
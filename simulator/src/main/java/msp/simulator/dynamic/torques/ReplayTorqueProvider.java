@@ -0,0 +1,110 @@
+/* Copyright 20017-2018 Melbourne Space Program
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package msp.simulator.dynamic.torques;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.hipparchus.geometry.euclidean.threed.Vector3D;
+import org.orekit.time.AbsoluteDate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import msp.simulator.satellite.Satellite;
+import msp.simulator.satellite.assembly.SatelliteStates;
+import msp.simulator.utils.logs.CustomLoggingTools;
+
+/**
+ * This class replays a torque log recorded by the MemCached torque
+ * provider, e.g. during a hardware in the loop session, without any
+ * MemCached server nor flight software.
+ * <p>
+ * As for the MemCached provider, the torque is constant along a
+ * step and is the command acquired at the beginning of the step. A
+ * simulation replaying a log with the same configuration thus
+ * reproduces the recorded session, at full speed.
+ *
+ * @see TorqueLog
+ * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
+ */
+public class ReplayTorqueProvider implements TorqueProvider {
+
+	/* ******* Public Static Attributes ******* */
+
+	/** Path of the torque log to replay. */
+	public static String replayFile = null;
+
+	/* **************************************** */
+
+	/** Logger of the class */
+	private static final Logger logger = LoggerFactory.getLogger(
+			ReplayTorqueProvider.class);
+
+	/** Satellite states giving the start date of the current step. */
+	private final SatelliteStates satState;
+
+	/** Start date of the simulation. */
+	private final AbsoluteDate startDate;
+
+	/** Log to replay, or null if unavailable. */
+	private TorqueLog log;
+
+	/** Start date of the step of the buffered torque. */
+	private AbsoluteDate stepStart;
+
+	/** Buffered torque for the current step. */
+	private Vector3D stepTorque;
+
+	/**
+	 * Create the provider replaying the default torque log.
+	 * @param satellite Instance of the simulation
+	 */
+	public ReplayTorqueProvider(Satellite satellite) {
+		this(satellite.getStates(), Paths.get(ReplayTorqueProvider.replayFile));
+	}
+
+	/**
+	 * Create the provider replaying a torque log.
+	 * @param satState States of the satellite
+	 * @param path Path of the torque log
+	 */
+	public ReplayTorqueProvider(SatelliteStates satState, Path path) {
+		logger.info(CustomLoggingTools.indentMsg(logger,
+				" -> Replaying the torque log " + path + "..."));
+		this.satState = satState;
+		this.startDate = satState.getInitialState().getDate();
+		this.stepStart = null;
+		this.stepTorque = Vector3D.ZERO;
+		try {
+			this.log = new TorqueLog(path);
+		} catch (IOException e) {
+			logger.error("Torque log unavailable: " + e.getMessage());
+			this.log = null;
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public Vector3D getTorque(AbsoluteDate date) {
+		AbsoluteDate currentStep = this.satState.getCurrentState().getDate();
+		if (this.log != null && !currentStep.equals(this.stepStart)) {
+			int index = this.log.indexOf(currentStep.durationFrom(this.startDate));
+			this.stepTorque = (index < 0) ? Vector3D.ZERO : this.log.getTorque(index);
+			this.stepStart = currentStep;
+		}
+		return this.stepTorque;
+	}
+}
@@ -0,0 +1,42 @@
+/* Copyright 20017-2018 Melbourne Space Program
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package msp.simulator.dynamic.torques;
+
+import org.orekit.propagation.SpacecraftState;
+
+/**
+ * Interface of the torque providers evaluated from the state of
+ * the satellite at each stage of the integration.
+ * <p>
+ * Unlike {@link TorqueProvider#getTorque(org.orekit.time.AbsoluteDate)}, the
+ * provider receives the state of the stage, i.e. the position and
+ * the attitude at the intermediate dates of the integrator rather
+ * than the ones of the beginning of the step, and accumulates its
+ * torque into an array of the caller without any allocation.
+ *
+ * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
+ */
+public interface StageTorqueProvider extends TorqueProvider {
+
+	/**
+	 * Add the torque interaction on the satellite at the given
+	 * integration stage, in the satellite frame.
+	 * @param state State of the satellite at the stage
+	 * @param torque Accumulated torque (x, y, z) in the satellite
+	 * frame, incremented by the torque of the provider (N.m)
+	 */
+	public void addTorque(SpacecraftState state, double[] torque);
+
+}
@@ -0,0 +1,284 @@
+/* Copyright 20017-2018 Melbourne Space Program
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package msp.simulator.dynamic.torques;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import org.hipparchus.geometry.euclidean.threed.Vector3D;
+import org.orekit.time.AbsoluteDate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import msp.simulator.utils.checkpoint.Checkpointable;
+import msp.simulator.utils.logs.CustomLoggingTools;
+
+/**
+ * This class provides the torque commands of a scenario file,
+ * e.g. a flight recorded torque history, streamed from the file
+ * along the simulation.
+ * <p>
+ * Only a window of the commands is held in memory: the commands
+ * starting before the current offset plus a look-ahead duration are
+ * read in advance, and the commands ended for more than a retention
+ * duration before the latest offset are released. Where several
+ * commands of the window overlap, the first one of the file applies,
+ * as for the steps of the torque scenario.
+ * <p>
+ * As for the torque scenario, the command is the one in effect at
+ * the date of each integration stage, not the one of the step start:
+ * a command starting within a step applies from its later stages.
+ * <p>
+ * The file is closed at its end or when the provider is closed,
+ * e.g. when the simulation exits before the end of the file.
+ *
+ * @see TorqueScenarioFile
+ * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
+ */
+public class StreamedTorqueScenarioProvider implements TorqueProvider, Checkpointable,
+		Closeable {
+
+	/* ******* Public Static Attributes ******* */
+
+	/** Path of the torque scenario file. */
+	public static String scenarioFile = null;
+
+	/** Duration of the commands read in advance. (s) */
+	public static double lookAhead = 60.;
+
+	/** Duration the ended commands are kept before being released. (s) */
+	public static double retention = 10.;
+
+	/* **************************************** */
+
+	/** Logger of the class */
+	private static final Logger logger = LoggerFactory.getLogger(
+			StreamedTorqueScenarioProvider.class);
+
+	/** Absolute start date of the scenario in the simulation. */
+	private AbsoluteDate startDate;
+
+	/** Path of the file in use. */
+	private final Path path;
+
+	/** Reader of the file. */
+	private TorqueScenarioFile file;
+
+	/** Buffer of a command read from the file. */
+	private final double[] command;
+
+	/** True when the whole file has been read. */
+	private boolean endOfFile;
+
+	/** Start and end offsets of the commands of the window. (s) */
+	private double[] starts, ends;
+
+	/** Torque of the commands of the window. (N.m) */
+	private Vector3D[] torques;
+
+	/** Number of commands in the window. */
+	private int size;
+
+	/** Latest offset requested. (s) */
+	private double latestOffset;
+
+	/**
+	 * Build the provider of the default scenario file.
+	 * @param startDate Absolute date to start the scenario in the simulation
+	 */
+	public StreamedTorqueScenarioProvider(AbsoluteDate startDate) {
+		this(startDate, Paths.get(StreamedTorqueScenarioProvider.scenarioFile));
+	}
+
+	/**
+	 * Build the provider of a scenario file.
+	 * @param startDate Absolute date to start the scenario in the simulation
+	 * @param path Path of the torque scenario file
+	 */
+	public StreamedTorqueScenarioProvider(AbsoluteDate startDate, Path path) {
+		logger.info(CustomLoggingTools.indentMsg(logger,
+				" -> Streaming the torque scenario " + path + "..."));
+		this.startDate = startDate;
+		this.path = path;
+		this.command = new double[TorqueScenarioFile.RECORD_SIZE];
+		this.starts = new double[16];
+		this.ends = new double[16];
+		this.torques = new Vector3D[16];
+		this.latestOffset = Double.NEGATIVE_INFINITY;
+		this.open(0);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public Vector3D getTorque(AbsoluteDate date) {
+		double offset = date.durationFrom(this.startDate);
+		if (offset > this.latestOffset) {
+			this.latestOffset = offset;
+			this.release();
+		}
+		this.load(offset + lookAhead);
+
+		for (int i = 0; i < this.size; i++) {
+			if (this.starts[i] > offset) {
+				break;
+			}
+			if (offset < this.ends[i]) {
+				return this.torques[i];
+			}
+		}
+		return Vector3D.ZERO;
+	}
+
+	/**
+	 * Read the commands starting before the given offset.
+	 * @param horizon Offset up to which the commands are read (s)
+	 */
+	private void load(double horizon) {
+		while (!this.endOfFile
+				&& (this.size == 0 || this.starts[this.size - 1] <= horizon)) {
+			try {
+				if (!this.file.next(this.command)) {
+					this.endOfFile = true;
+					this.file.close();
+					break;
+				}
+			} catch (IOException e) {
+				logger.error("Torque scenario file aborted: " + e.getMessage());
+				this.endOfFile = true;
+				break;
+			}
+			this.add(this.command[0], this.command[0] + this.command[1],
+					new Vector3D(this.command[2], this.command[3], this.command[4]));
+		}
+	}
+
+	/**
+	 * Release the commands ended before the retention duration.
+	 */
+	private void release() {
+		double limit = this.latestOffset - retention;
+		int kept = 0;
+		for (int i = 0; i < this.size; i++) {
+			if (this.ends[i] > limit) {
+				this.starts[kept] = this.starts[i];
+				this.ends[kept] = this.ends[i];
+				this.torques[kept] = this.torques[i];
+				kept++;
+			}
+		}
+		Arrays.fill(this.torques, kept, this.size, null);
+		this.size = kept;
+	}
+
+	/**
+	 * Add a command at the end of the window.
+	 * @param start Start offset (s)
+	 * @param end End offset (s)
+	 * @param torque Torque (N.m)
+	 */
+	private void add(double start, double end, Vector3D torque) {
+		if (this.size == this.starts.length) {
+			this.starts = Arrays.copyOf(this.starts, 2 * this.size);
+			this.ends = Arrays.copyOf(this.ends, 2 * this.size);
+			this.torques = Arrays.copyOf(this.torques, 2 * this.size);
+		}
+		this.starts[this.size] = start;
+		this.ends[this.size] = end;
+		this.torques[this.size] = torque;
+		this.size++;
+	}
+
+	/**
+	 * Open the file and skip the given number of commands.
+	 * @param skipped Number of commands to skip
+	 */
+	private void open(long skipped) {
+		this.endOfFile = false;
+		this.file = null;
+		try {
+			this.file = new TorqueScenarioFile(this.path);
+			this.file.skip(skipped);
+		} catch (IOException e) {
+			logger.error("Torque scenario file unavailable: " + e.getMessage());
+			this.endOfFile = true;
+		}
+	}
+
+	/**
+	 * Close the file. The commands already held in memory are
+	 * still provided.
+	 * @throws IOException if the file can not be closed
+	 */
+	@Override
+	public void close() throws IOException {
+		this.endOfFile = true;
+		if (this.file != null) {
+			this.file.close();
+		}
+	}
+
+	/**
+	 * @return The number of commands held in memory.
+	 */
+	public int getWindowSize() {
+		return this.size;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void writeCheckpoint(ObjectOutput out) throws IOException {
+		out.writeObject(this.startDate);
+		out.writeUTF(this.path.toString());
+		out.writeLong((this.file == null) ? 0 : this.file.getCount());
+		out.writeBoolean(this.endOfFile);
+		out.writeDouble(this.latestOffset);
+		out.writeInt(this.size);
+		for (int i = 0; i < this.size; i++) {
+			out.writeDouble(this.starts[i]);
+			out.writeDouble(this.ends[i]);
+			out.writeObject(this.torques[i]);
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void readCheckpoint(ObjectInput in) throws IOException, ClassNotFoundException {
+		this.startDate = (AbsoluteDate) in.readObject();
+		if (!this.path.toString().equals(in.readUTF())) {
+			throw new IOException("The torque scenario file does not match the checkpoint.");
+		}
+		long count = in.readLong();
+		boolean ended = in.readBoolean();
+		this.latestOffset = in.readDouble();
+		int n = in.readInt();
+		this.size = 0;
+		for (int i = 0; i < n; i++) {
+			this.add(in.readDouble(), in.readDouble(), (Vector3D) in.readObject());
+		}
+		if (this.file != null) {
+			this.file.close();
+		}
+		this.open(count);
+		if (ended && this.file != null) {
+			this.file.close();
+			this.endOfFile = true;
+		}
+	}
+}
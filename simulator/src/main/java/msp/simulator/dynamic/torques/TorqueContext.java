@@ -0,0 +1,325 @@
+/* Copyright 20017-2018 Melbourne Space Program
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package msp.simulator.dynamic.torques;
+
+import org.hipparchus.geometry.euclidean.threed.Rotation;
+import org.hipparchus.geometry.euclidean.threed.Vector3D;
+import org.hipparchus.util.FastMath;
+import org.orekit.bodies.GeodeticPoint;
+import org.orekit.errors.OrekitException;
+import org.orekit.frames.Frame;
+import org.orekit.propagation.SpacecraftState;
+import org.orekit.time.AbsoluteDate;
+import org.orekit.utils.Constants;
+import org.orekit.utils.PVCoordinatesProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import msp.simulator.environment.Environment;
+import msp.simulator.environment.atmosphere.Atmosphere;
+import msp.simulator.environment.geomagneticField.EarthMagneticField;
+import msp.simulator.environment.solarSystem.Earth;
+
+/**
+ * This class gathers the environment of the satellite shared by
+ * the torque models at an integration stage, e.g. the direction
+ * of the Earth and of the Sun, the atmospheric density or the
+ * geomagnetic field in the satellite frame.
+ * <p>
+ * The context is updated once per stage by the rotational
+ * acceleration provider before the torque models are called.
+ * Each quantity is then computed on its first request only, so
+ * that several models share the same evaluation and the models
+ * not in use cost nothing.
+ *
+ * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
+ */
+public class TorqueContext {
+
+	/** Logger of the class */
+	private static final Logger logger = LoggerFactory.getLogger(TorqueContext.class);
+
+	/** Mean distance from the Earth to the Sun. (m) */
+	private static final double ASTRONOMICAL_UNIT = Constants.IAU_2012_ASTRONOMICAL_UNIT;
+
+	/** Earth of the simulation. */
+	private final Earth earth;
+
+	/** Provider of the Sun position. */
+	private final PVCoordinatesProvider sun;
+
+	/** Atmosphere of the simulation. */
+	private final Atmosphere atmosphere;
+
+	/** Geomagnetic field of the simulation. */
+	private final EarthMagneticField geomagField;
+
+	/** State of the current stage. */
+	private SpacecraftState state;
+
+	/** Date of the current stage. */
+	private AbsoluteDate date;
+
+	/** Inertial frame of the current stage. */
+	private Frame frame;
+
+	/** Rotation from the inertial frame to the satellite frame. */
+	private Rotation rotation;
+
+	/** Inertial position and velocity of the satellite. (m, m/s) */
+	private Vector3D position, velocity;
+
+	/** Distance to the Earth center. (m) */
+	private double radius;
+
+	/** Unit vector from the satellite to the Earth center, in the satellite frame. */
+	private final double[] nadir;
+
+	/** Unit vector from the satellite to the Sun, in the satellite frame. */
+	private final double[] sunDirection;
+
+	/** Solar flux ratio to the flux at one astronomical unit, zero in the shadow. */
+	private double sunFlux;
+
+	/** Atmospheric density. (kg/m^3) */
+	private double density;
+
+	/** Velocity relatively to the atmosphere, in the satellite frame. (m/s) */
+	private final double[] airVelocity;
+
+	/** Geomagnetic field in the satellite frame. (T) */
+	private final double[] magneticField;
+
+	/** Flags of the quantities computed for the current stage. */
+	private boolean nadirReady, sunReady, densityReady, airReady, fieldReady;
+
+	/** Number of stages processed. */
+	private long stages;
+
+	/**
+	 * Create the context of the torque models.
+	 * @param environment Instance of the simulation
+	 */
+	public TorqueContext(Environment environment) {
+		this.earth = environment.getSolarSystem().getEarth();
+		this.sun = environment.getSolarSystem().getSun().getPvCoordinateProvider();
+		this.atmosphere = environment.getAtmosphere();
+		this.geomagField = environment.getGeoMagneticField();
+		this.nadir = new double[3];
+		this.sunDirection = new double[3];
+		this.airVelocity = new double[3];
+		this.magneticField = new double[3];
+		this.stages = 0;
+	}
+
+	/**
+	 * Update the context for a new integration stage. Nothing is
+	 * done if the state is the one of the current stage.
+	 * @param stageState State of the satellite at the stage
+	 */
+	public void update(SpacecraftState stageState) {
+		if (stageState == this.state) {
+			return;
+		}
+		this.state = stageState;
+		this.date = stageState.getDate();
+		this.frame = stageState.getFrame();
+		this.rotation = stageState.getAttitude().getRotation();
+		this.position = stageState.getPVCoordinates().getPosition();
+		this.velocity = stageState.getPVCoordinates().getVelocity();
+		this.radius = this.position.getNorm();
+		this.nadirReady = false;
+		this.sunReady = false;
+		this.densityReady = false;
+		this.airReady = false;
+		this.fieldReady = false;
+		this.stages++;
+	}
+
+	/**
+	 * Rotate an inertial vector into the satellite frame.
+	 * @param x X component of the inertial vector
+	 * @param y Y component of the inertial vector
+	 * @param z Z component of the inertial vector
+	 * @param scale Factor applied to the vector
+	 * @param out Rotated vector
+	 */
+	private void toSatelliteFrame(double x, double y, double z, double scale, double[] out) {
+		Rotation r = this.rotation;
+		double q0 = r.getQ0();
+		double q1 = r.getQ1();
+		double q2 = r.getQ2();
+		double q3 = r.getQ3();
+		double s = q1 * x + q2 * y + q3 * z;
+		out[0] = scale * (2 * (q0 * (x * q0 - (q2 * z - q3 * y)) + s * q1) - x);
+		out[1] = scale * (2 * (q0 * (y * q0 - (q3 * x - q1 * z)) + s * q2) - y);
+		out[2] = scale * (2 * (q0 * (z * q0 - (q1 * y - q2 * x)) + s * q3) - z);
+	}
+
+	/**
+	 * @return The unit vector from the satellite to the Earth center,
+	 * in the satellite frame.
+	 */
+	public double[] getNadir() {
+		if (!this.nadirReady) {
+			this.toSatelliteFrame(this.position.getX(), this.position.getY(),
+					this.position.getZ(), -1. / this.radius, this.nadir);
+			this.nadirReady = true;
+		}
+		return this.nadir;
+	}
+
+	/**
+	 * @return The unit vector from the satellite to the Sun, in the
+	 * satellite frame.
+	 */
+	public double[] getSunDirection() {
+		if (!this.sunReady) {
+			this.computeSun();
+		}
+		return this.sunDirection;
+	}
+
+	/**
+	 * @return The solar flux relatively to the flux at one
+	 * astronomical unit, zero in the Earth shadow.
+	 */
+	public double getSunFlux() {
+		if (!this.sunReady) {
+			this.computeSun();
+		}
+		return this.sunFlux;
+	}
+
+	/**
+	 * Compute the Sun direction and the solar flux, the shadow of
+	 * the Earth being modeled as a cylinder.
+	 */
+	private void computeSun() {
+		Vector3D sunPosition = Vector3D.ZERO;
+		try {
+			sunPosition = this.sun.getPVCoordinates(this.date, this.frame).getPosition();
+		} catch (OrekitException e) {
+			logger.error("Sun position unavailable: " + e.getMessage());
+		}
+		double dx = sunPosition.getX() - this.position.getX();
+		double dy = sunPosition.getY() - this.position.getY();
+		double dz = sunPosition.getZ() - this.position.getZ();
+		double distance = FastMath.sqrt(dx * dx + dy * dy + dz * dz);
+		this.toSatelliteFrame(dx, dy, dz, 1. / distance, this.sunDirection);
+
+		/* Cylindrical shadow behind the Earth. */
+		double along = (this.position.getX() * dx + this.position.getY() * dy
+				+ this.position.getZ() * dz) / distance;
+		double radial2 = this.radius * this.radius - along * along;
+		double earthRadius = this.earth.getRadius();
+		boolean shadow = along < 0 && radial2 < earthRadius * earthRadius;
+
+		double ratio = ASTRONOMICAL_UNIT / distance;
+		this.sunFlux = shadow ? 0. : ratio * ratio;
+		this.sunReady = true;
+	}
+
+	/**
+	 * @return The atmospheric density at the satellite. (kg/m^3)
+	 */
+	public double getDensity() {
+		if (!this.densityReady) {
+			try {
+				this.density = this.atmosphere.getDensity(this.date, this.position, this.frame);
+			} catch (OrekitException e) {
+				logger.error("Atmospheric density unavailable: " + e.getMessage());
+				this.density = 0;
+			}
+			this.densityReady = true;
+		}
+		return this.density;
+	}
+
+	/**
+	 * @return The velocity of the satellite relatively to the
+	 * atmosphere rotating with the Earth, in the satellite frame. (m/s)
+	 */
+	public double[] getAirVelocity() {
+		if (!this.airReady) {
+			double w = Constants.WGS84_EARTH_ANGULAR_VELOCITY;
+			this.toSatelliteFrame(
+					this.velocity.getX() + w * this.position.getY(),
+					this.velocity.getY() - w * this.position.getX(),
+					this.velocity.getZ(),
+					1., this.airVelocity);
+			this.airReady = true;
+		}
+		return this.airVelocity;
+	}
+
+	/**
+	 * Return the geomagnetic field in the satellite frame. The local
+	 * North-East-Down field of the model is expressed in the inertial
+	 * frame of the stage before the rotation of the attitude.
+	 * @return The geomagnetic field in the satellite frame. (T)
+	 */
+	public double[] getMagneticField() {
+		if (!this.fieldReady) {
+			Vector3D field = Vector3D.ZERO;
+			try {
+				GeodeticPoint point = this.earth.getEllipsoid().transform(
+						this.position, this.frame, this.date);
+				Vector3D fieldNed = this.geomagField.calculateField(
+						FastMath.toDegrees(point.getLatitude()),
+						FastMath.toDegrees(point.getLongitude()),
+						point.getAltitude() / 1e3);
+
+				/* The model gives the local North-East-Down components. */
+				field = EarthMagneticField.toFrame(fieldNed, point,
+						this.earth.getEllipsoid().getBodyFrame(), this.frame, this.date);
+			} catch (OrekitException e) {
+				logger.error("Geomagnetic field unavailable: " + e.getMessage());
+			}
+			this.toSatelliteFrame(field.getX(), field.getY(), field.getZ(), 1e-9,
+					this.magneticField);
+			this.fieldReady = true;
+		}
+		return this.magneticField;
+	}
+
+	/**
+	 * @return The distance from the satellite to the Earth center. (m)
+	 */
+	public double getRadius() {
+		return this.radius;
+	}
+
+	/**
+	 * @return The date of the current stage.
+	 */
+	public AbsoluteDate getDate() {
+		return this.date;
+	}
+
+	/**
+	 * @return The state of the current stage.
+	 */
+	public SpacecraftState getState() {
+		return this.state;
+	}
+
+	/**
+	 * @return The number of stages processed by the context.
+	 */
+	public long getStageCount() {
+		return this.stages;
+	}
+}
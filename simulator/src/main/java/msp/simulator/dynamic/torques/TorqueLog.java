@@ -0,0 +1,267 @@
+/* Copyright 20017-2018 Melbourne Space Program
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package msp.simulator.dynamic.torques;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.hipparchus.geometry.euclidean.threed.Vector3D;
+import org.hipparchus.util.FastMath;
+
+/**
+ * This class represents a log of the torque commands acquired
+ * once per integration step, typically from the flight software
+ * through MemCached during a hardware in the loop session.
+ * <p>
+ * The log is a binary file made of the magic number {@link #MAGIC},
+ * the period of the acquisitions, then one record per acquisition
+ * of four big-endian doubles: the offset of the step from the start
+ * of the simulation and the three components of the torque (N.m).
+ * <p>
+ * The log is mapped in memory for the replay, and a record is
+ * directly found from its offset as the acquisitions are periodic.
+ * A binary search is only used around the missing acquisitions.
+ *
+ * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
+ */
+public class TorqueLog {
+
+	/** Magic number of the file. */
+	public static final long MAGIC = 0x4D5350544C473031L; /* "MSPTLG01" */
+
+	/** Size of the header. (bytes) */
+	private static final int HEADER = 2 * Double.BYTES;
+
+	/** Size of a record. (bytes) */
+	private static final int RECORD = 4 * Double.BYTES;
+
+	/** Tolerance on the offsets, relatively to the period. */
+	private static final double TOLERANCE = 1e-6;
+
+	/** Mapped content of the file. */
+	private final MappedByteBuffer content;
+
+	/** Period of the acquisitions. (s) */
+	private final double period;
+
+	/** Number of records. */
+	private final int size;
+
+	/**
+	 * Open a torque log.
+	 * @param path Path of the log
+	 * @throws IOException If the file cannot be read or is not a torque log
+	 */
+	public TorqueLog(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long length = channel.size();
+			if (length < HEADER || length > Integer.MAX_VALUE) {
+				throw new IOException("Not a torque log: " + path);
+			}
+			this.content = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+		}
+		if (this.content.getLong(0) != MAGIC) {
+			throw new IOException("Not a torque log: " + path);
+		}
+		this.period = this.content.getDouble(Long.BYTES);
+		this.size = (this.content.capacity() - HEADER) / RECORD;
+	}
+
+	/**
+	 * Find the record in effect at the given offset, i.e. the last
+	 * acquisition before the offset.
+	 * @param offset Offset from the start of the simulation (s)
+	 * @return The index of the record, or -1 before the first one.
+	 */
+	public int indexOf(double offset) {
+		if (this.size == 0) {
+			return -1;
+		}
+		double first = this.getOffset(0);
+		double position = (offset - first) / this.period + TOLERANCE;
+		if (position < 0) {
+			return -1;
+		}
+
+		/* Direct access to the periodic acquisitions. */
+		int index = (int) FastMath.min(FastMath.floor(position), this.size - 1);
+		double limit = offset + TOLERANCE * this.period;
+		if (this.getOffset(index) <= limit
+				&& (index + 1 == this.size || this.getOffset(index + 1) > limit)) {
+			return index;
+		}
+
+		/* Binary search around the missing acquisitions. */
+		int low = 0;
+		int high = this.size - 1;
+		while (low < high) {
+			int middle = (low + high + 1) >>> 1;
+			if (this.getOffset(middle) <= limit) {
+				low = middle;
+			} else {
+				high = middle - 1;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * @param index Index of the record
+	 * @return The offset of the record from the start of the simulation. (s)
+	 */
+	public double getOffset(int index) {
+		return this.content.getDouble(HEADER + index * RECORD);
+	}
+
+	/**
+	 * @param index Index of the record
+	 * @return The torque of the record. (N.m)
+	 */
+	public Vector3D getTorque(int index) {
+		int position = HEADER + index * RECORD;
+		return new Vector3D(
+				this.content.getDouble(position + Double.BYTES),
+				this.content.getDouble(position + 2 * Double.BYTES),
+				this.content.getDouble(position + 3 * Double.BYTES));
+	}
+
+	/**
+	 * @return The period of the acquisitions. (s)
+	 */
+	public double getPeriod() {
+		return this.period;
+	}
+
+	/**
+	 * @return The number of records.
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * This class records the torque commands into a log.
+	 * <p>
+	 * The existing file is only truncated when the first records are
+	 * written, at the position of the recorder: a recorder resumed from
+	 * the position of a checkpoint keeps the records written before it.
+	 *
+	 * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
+	 */
+	public static class Recorder implements Closeable {
+
+		/** Number of records buffered before being written. */
+		private static final int BLOCK = 256;
+
+		/** Channel of the file. */
+		private final FileChannel channel;
+
+		/** Buffer of the records. */
+		private final ByteBuffer buffer;
+
+		/** Position in the file of the beginning of the buffer. (bytes) */
+		private long start;
+
+		/** True once the file is truncated at the position of the recorder. */
+		private boolean truncated;
+
+		/**
+		 * Create a new torque log, replacing any existing file once
+		 * the first records are written.
+		 * @param path Path of the log
+		 * @param period Period of the acquisitions (s)
+		 * @throws IOException If the file cannot be written
+		 */
+		public Recorder(Path path, double period) throws IOException {
+			this.channel = FileChannel.open(path, StandardOpenOption.WRITE,
+					StandardOpenOption.CREATE);
+			this.buffer = ByteBuffer.allocateDirect(BLOCK * RECORD);
+			this.buffer.putLong(MAGIC);
+			this.buffer.putDouble(period);
+			this.start = 0;
+			this.truncated = false;
+		}
+
+		/**
+		 * @return The position in the log of the next record. (bytes)
+		 */
+		public long getPosition() {
+			return this.start + this.buffer.position();
+		}
+
+		/**
+		 * Resume the log at the given position, e.g. the one saved in
+		 * a checkpoint: the records before it are kept and the ones
+		 * after it are replaced.
+		 * @param position Position in the log of the next record (bytes)
+		 * @throws IOException If the log is shorter than the position
+		 */
+		public void resume(long position) throws IOException {
+			if (position < HEADER || position > this.channel.size()) {
+				throw new IOException("Torque log shorter than the resumed position "
+						+ position);
+			}
+			this.buffer.clear();
+			this.start = position;
+			this.truncated = false;
+		}
+
+		/**
+		 * Record a torque command.
+		 * @param offset Offset of the acquisition from the start of the simulation (s)
+		 * @param torque Torque command (N.m)
+		 * @throws IOException If the file cannot be written
+		 */
+		public void record(double offset, Vector3D torque) throws IOException {
+			if (this.buffer.remaining() < RECORD) {
+				this.flush();
+			}
+			this.buffer.putDouble(offset);
+			this.buffer.putDouble(torque.getX());
+			this.buffer.putDouble(torque.getY());
+			this.buffer.putDouble(torque.getZ());
+		}
+
+		/**
+		 * Write the buffered records into the file.
+		 * @throws IOException If the file cannot be written
+		 */
+		public void flush() throws IOException {
+			if (!this.truncated) {
+				this.channel.truncate(this.start);
+				this.truncated = true;
+			}
+			this.buffer.flip();
+			while (this.buffer.hasRemaining()) {
+				this.start += this.channel.write(this.buffer, this.start);
+			}
+			this.buffer.clear();
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public void close() throws IOException {
+			if (this.channel.isOpen()) {
+				this.flush();
+				this.channel.close();
+			}
+		}
+	}
+}
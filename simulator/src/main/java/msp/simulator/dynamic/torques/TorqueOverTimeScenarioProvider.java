@@ -14,11 +14,20 @@
 
 package msp.simulator.dynamic.torques;
 
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.PriorityQueue;
 
 import org.hipparchus.geometry.euclidean.threed.Vector3D;
+import org.orekit.propagation.SpacecraftState;
 import org.orekit.time.AbsoluteDate;
 
+import msp.simulator.utils.checkpoint.Checkpointable;
+
 /**
  * This class implements a simple torque maneuver 
  * over time in a MGT-like way: ON/OFF at the maximum
@@ -30,7 +39,7 @@ import org.orekit.time.AbsoluteDate;
  *
  * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
  */
-public class TorqueOverTimeScenarioProvider implements TorqueProvider {
+public class TorqueOverTimeScenarioProvider implements StageTorqueProvider, Checkpointable {
 
 	/* ******* Public Static Elements ******* */
 
@@ -75,6 +84,26 @@ public class TorqueOverTimeScenarioProvider implements TorqueProvider {
 	/** List of the torque steps over time. */
 	private ArrayList<Step> scenario = null;
 
+	/* ***** Compiled scenario. ***** */
+
+	/** Number of steps of the scenario when compiled, or -1 to compile it. */
+	private int compiledSize;
+
+	/** Start offset of each interval of constant torque, sorted. (s) */
+	private double[] starts;
+
+	/** End offset of each interval of constant torque. (s) */
+	private double[] ends;
+
+	/** Components of the scaled torque of each interval. (N.m) */
+	private double[] torqueX, torqueY, torqueZ;
+
+	/** Scaled torque of each interval. */
+	private Vector3D[] torques;
+
+	/** Index of the last interval found. */
+	private int cursor;
+
 	/** Default torque intensity to apply to the satellite. */
 	private static final double maxTorqueIntensity = 1e-1 /* N.m */ ;
 
@@ -94,6 +123,7 @@ public class TorqueOverTimeScenarioProvider implements TorqueProvider {
 	public TorqueOverTimeScenarioProvider(AbsoluteDate startDate, ArrayList<Step> scenario) {
 		this.scenario = scenario;
 		this.startDate = startDate;
+		this.compile();
 	}
 
 	/**
@@ -104,34 +134,185 @@ public class TorqueOverTimeScenarioProvider implements TorqueProvider {
 	 * @return true (as specified by Collection.add)
 	 */
 	public boolean addStep(double startOffset, double duration, Vector3D nRotation) {
+		this.compiledSize = -1;
 		return this.scenario.add(new Step(startOffset, duration, nRotation));
 	}
 
+	/**
+	 * Replace the torque scenario, e.g. to branch a simulation
+	 * on a different maneuver. The start date is kept so the
+	 * offsets of the steps remain relative to the simulation start.
+	 * @param scenario List of the torque steps.
+	 */
+	public void setScenario(ArrayList<Step> scenario) {
+		this.scenario = scenario;
+		this.compile();
+	}
+
+	/**
+	 * Compile the scenario into sorted intervals of constant torque.
+	 * <p>
+	 * Where several steps overlap, the first one in the list of the
+	 * scenario applies, so that the lookup of an offset in the sorted
+	 * intervals returns the same torque as a scan of the list.
+	 */
+	private void compile() {
+		int n = this.scenario.size();
+
+		/* Sorted boundaries of the elementary intervals. */
+		double[] bounds = new double[2 * n];
+		for (int i = 0; i < n; i++) {
+			Step step = this.scenario.get(i);
+			bounds[2 * i] = step.getStart();
+			bounds[2 * i + 1] = step.getStart() + step.getDuration();
+		}
+		Arrays.sort(bounds);
+
+		/* Steps sorted by start, then swept over the boundaries with the
+		 * active steps ordered by their index in the scenario. */
+		Integer[] byStart = new Integer[n];
+		for (int i = 0; i < n; i++) {
+			byStart[i] = i;
+		}
+		final ArrayList<Step> steps = this.scenario;
+		Arrays.sort(byStart, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				return Double.compare(steps.get(a).getStart(), steps.get(b).getStart());
+			}
+		});
+		PriorityQueue<Integer> active = new PriorityQueue<Integer>();
+
+		double[] s = new double[2 * n];
+		double[] e = new double[2 * n];
+		int[] owner = new int[2 * n];
+		int size = 0;
+		int next = 0;
+		for (int k = 0; k + 1 < bounds.length; k++) {
+			double lower = bounds[k];
+			double upper = bounds[k + 1];
+			if (!(lower < upper)) {
+				continue;
+			}
+			while (next < n && this.scenario.get(byStart[next]).getStart() <= lower) {
+				active.add(byStart[next++]);
+			}
+			while (!active.isEmpty()) {
+				Step first = this.scenario.get(active.peek());
+				if (first.getStart() + first.getDuration() > lower) {
+					break;
+				}
+				active.poll();
+			}
+			if (active.isEmpty()) {
+				continue;
+			}
+			int index = active.peek();
+			if (size > 0 && owner[size - 1] == index && e[size - 1] == lower) {
+				e[size - 1] = upper;
+			} else {
+				s[size] = lower;
+				e[size] = upper;
+				owner[size] = index;
+				size++;
+			}
+		}
+
+		this.starts = Arrays.copyOf(s, size);
+		this.ends = Arrays.copyOf(e, size);
+		this.torqueX = new double[size];
+		this.torqueY = new double[size];
+		this.torqueZ = new double[size];
+		this.torques = new Vector3D[size];
+		for (int i = 0; i < size; i++) {
+			this.torques[i] = this.scenario.get(owner[i]).getRotVector()
+					.scalarMultiply(maxTorqueIntensity);
+			this.torqueX[i] = this.torques[i].getX();
+			this.torqueY[i] = this.torques[i].getY();
+			this.torqueZ[i] = this.torques[i].getZ();
+		}
+		this.cursor = 0;
+		this.compiledSize = n;
+	}
+
+	/**
+	 * Find the interval of constant torque containing the given offset.
+	 * <p>
+	 * The search starts from the last interval found, as the offsets
+	 * mostly increase with the integration, and falls back to a binary 
+	 * search otherwise.
+	 * @param offset Offset from the start date (s)
+	 * @return The index of the interval, or -1 if no step applies.
+	 */
+	private int find(double offset) {
+		if (this.compiledSize != this.scenario.size()) {
+			this.compile();
+		}
+		int size = this.starts.length;
+		if (size == 0 || offset < this.starts[0]) {
+			return -1;
+		}
+
+		/* Last interval starting before the offset. */
+		int i = this.cursor;
+		if (this.starts[i] <= offset) {
+			if (i + 1 < size && this.starts[i + 1] <= offset) {
+				i++;
+				if (i + 1 < size && this.starts[i + 1] <= offset) {
+					i = this.search(offset);
+				}
+			}
+		} else {
+			i = (i > 0 && this.starts[i - 1] <= offset) ? i - 1 : this.search(offset);
+		}
+		this.cursor = i;
+		return (offset < this.ends[i]) ? i : -1;
+	}
+
+	/**
+	 * @param offset Offset from the start date, not before the first interval (s)
+	 * @return The index of the last interval starting before the offset.
+	 */
+	private int search(double offset) {
+		int index = Arrays.binarySearch(this.starts, offset);
+		return (index >= 0) ? index : -index - 2;
+	}
+
 	/** {@inheritDoc} */
 	@Override
 	public Vector3D getTorque(AbsoluteDate currentDate) {
-		Vector3D torque;
-		double offset = currentDate.durationFrom(this.startDate);
-		boolean success = false;
-		Step step = null;
-		/* Iterate the scenario to find the first applicable step. */
-		for (int i = 0; i < this.scenario.size(); i++) {
-			step = this.scenario.get(i);
-			/* If we find a currently operating step, it's a success. */
-			if (	    (step.getStart() <= offset)
-					&&
-					(step.getStart() + step.getDuration() > offset)) 
-			{
-				success = true;
-				break;
-			}
+		int index = this.find(currentDate.durationFrom(this.startDate));
+		return (index < 0) ? Vector3D.ZERO : this.torques[index];
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void addTorque(SpacecraftState state, double[] torque) {
+		int index = this.find(state.getDate().durationFrom(this.startDate));
+		if (index >= 0) {
+			torque[0] += this.torqueX[index];
+			torque[1] += this.torqueY[index];
+			torque[2] += this.torqueZ[index];
 		}
-		if (success) {
-			torque = step.getRotVector().scalarMultiply(maxTorqueIntensity);
-		} else {
-			torque = Vector3D.ZERO;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void writeCheckpoint(ObjectOutput out) throws IOException {
+		out.writeObject(this.startDate);
+		out.writeInt(this.scenario.size());
+		out.writeInt(this.cursor);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void readCheckpoint(ObjectInput in) throws IOException, ClassNotFoundException {
+		this.startDate = (AbsoluteDate) in.readObject();
+		if (in.readInt() != this.scenario.size()) {
+			throw new IOException("The torque scenario does not match the checkpoint.");
 		}
-		return torque;
+		int index = in.readInt();
+		this.cursor = (index < this.starts.length) ? index : 0;
 	}
 
 	/**
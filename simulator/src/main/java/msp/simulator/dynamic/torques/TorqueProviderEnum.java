@@ -23,6 +23,8 @@ public enum TorqueProviderEnum {
 	/* Command torque provider. */
 	MEMCACHED(0),
 	SCENARIO(0),
+	SCENARIO_FILE(0),
+	REPLAY(0),
 	
 	/* Disturbances. */
 	GRAVITY(1),
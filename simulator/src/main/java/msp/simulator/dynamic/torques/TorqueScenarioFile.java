@@ -0,0 +1,299 @@
+/* Copyright 20017-2018 Melbourne Space Program
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package msp.simulator.dynamic.torques;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class reads the commands of a torque scenario file one
+ * after the other, without loading the file in memory.
+ * <p>
+ * Each command applies a torque from a start offset and during a
+ * duration, as the steps of the torque scenario, but the torque is
+ * given in N.m. The commands are sorted by start offset. Two formats
+ * are supported:
+ * <ul>
+ * <li>CSV (extension .csv): one command per line as
+ * "start,duration,x,y,z", the empty lines and the lines beginning
+ * with # being ignored.</li>
+ * <li>Binary (any other extension): the magic number {@link #MAGIC}
+ * then one command per record of five big-endian doubles in the
+ * same order.</li>
+ * </ul>
+ *
+ * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
+ */
+public class TorqueScenarioFile implements Closeable {
+
+	/** Magic number of the binary format. */
+	public static final long MAGIC = 0x4D53505452513031L; /* "MSPTRQ01" */
+
+	/** Number of values of a command. */
+	public static final int RECORD_SIZE = 5;
+
+	/** Size of the buffer of the binary format, in commands. */
+	private static final int BLOCK = 4096;
+
+	/** Path of the file. */
+	private final Path path;
+
+	/** Reader of the CSV format, or null. */
+	private BufferedReader csv;
+
+	/** Channel of the binary format, or null. */
+	private FileChannel channel;
+
+	/** Buffer of the binary format. */
+	private ByteBuffer buffer;
+
+	/** Number of commands read so far. */
+	private long count;
+
+	/** Start offset of the last command read. */
+	private double lastStart;
+
+	/**
+	 * Open a torque scenario file.
+	 * @param path Path of the file
+	 * @throws IOException If the file cannot be opened or is not a
+	 * torque scenario
+	 */
+	public TorqueScenarioFile(Path path) throws IOException {
+		this.path = path;
+		this.count = 0;
+		this.lastStart = Double.NEGATIVE_INFINITY;
+		if (isCsv(path)) {
+			this.csv = Files.newBufferedReader(path, StandardCharsets.US_ASCII);
+		} else {
+			this.channel = FileChannel.open(path, StandardOpenOption.READ);
+			this.buffer = ByteBuffer.allocateDirect(BLOCK * RECORD_SIZE * Double.BYTES);
+			this.buffer.flip();
+			if (!this.fill(Long.BYTES) || this.buffer.getLong() != MAGIC) {
+				this.close();
+				throw new IOException("Not a torque scenario file: " + path);
+			}
+		}
+	}
+
+	/**
+	 * Read the next command of the file.
+	 * @param command Array filled with the start offset (s), the
+	 * duration (s) and the torque (N.m) of the command
+	 * @return False at the end of the file
+	 * @throws IOException If the file cannot be read or is not sorted
+	 */
+	public boolean next(double[] command) throws IOException {
+		boolean read = (this.csv != null) ? this.nextCsv(command) : this.nextBinary(command);
+		if (read) {
+			if (command[0] < this.lastStart) {
+				throw new IOException("Torque commands not sorted by start at command "
+						+ this.count + " of " + this.path);
+			}
+			this.lastStart = command[0];
+			this.count++;
+		}
+		return read;
+	}
+
+	/**
+	 * Skip the given number of commands.
+	 * @param commands Number of commands to skip
+	 * @throws IOException If the file cannot be read or is too short
+	 */
+	public void skip(long commands) throws IOException {
+		if (this.channel != null) {
+			long position = this.channel.position() - this.buffer.remaining()
+					+ commands * RECORD_SIZE * Double.BYTES;
+			if (position > this.channel.size()) {
+				throw new IOException("Torque scenario shorter than " + commands
+						+ " commands: " + this.path);
+			}
+			this.channel.position(position);
+			this.buffer.clear();
+			this.buffer.flip();
+			this.count += commands;
+		} else {
+			double[] command = new double[RECORD_SIZE];
+			for (long i = 0; i < commands; i++) {
+				if (!this.next(command)) {
+					throw new IOException("Torque scenario shorter than " + commands
+							+ " commands: " + this.path);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return The number of commands read or skipped so far.
+	 */
+	public long getCount() {
+		return this.count;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void close() throws IOException {
+		if (this.csv != null) {
+			this.csv.close();
+		}
+		if (this.channel != null) {
+			this.channel.close();
+		}
+	}
+
+	/**
+	 * Read the next command of a CSV file.
+	 * @param command Array filled with the command
+	 * @return False at the end of the file
+	 * @throws IOException If the file cannot be read
+	 */
+	private boolean nextCsv(double[] command) throws IOException {
+		String line;
+		do {
+			line = this.csv.readLine();
+			if (line == null) {
+				return false;
+			}
+			line = line.trim();
+		} while (line.isEmpty() || line.charAt(0) == '#');
+
+		int from = 0;
+		for (int i = 0; i < RECORD_SIZE; i++) {
+			int to = (i < RECORD_SIZE - 1) ? line.indexOf(',', from) : line.length();
+			if (to < 0) {
+				throw new IOException("Wrong torque command: \"" + line + "\" in " + this.path);
+			}
+			try {
+				command[i] = Double.parseDouble(line.substring(from, to).trim());
+			} catch (NumberFormatException e) {
+				throw new IOException("Wrong torque command: \"" + line + "\" in " + this.path, e);
+			}
+			from = to + 1;
+		}
+		return true;
+	}
+
+	/**
+	 * Read the next command of a binary file.
+	 * @param command Array filled with the command
+	 * @return False at the end of the file
+	 * @throws IOException If the file cannot be read or is truncated
+	 */
+	private boolean nextBinary(double[] command) throws IOException {
+		if (!this.fill(RECORD_SIZE * Double.BYTES)) {
+			if (this.buffer.hasRemaining()) {
+				throw new IOException("Truncated torque scenario: " + this.path);
+			}
+			return false;
+		}
+		for (int i = 0; i < RECORD_SIZE; i++) {
+			command[i] = this.buffer.getDouble();
+		}
+		return true;
+	}
+
+	/**
+	 * Ensure the buffer holds at least the given number of bytes.
+	 * @param bytes Number of bytes
+	 * @return False if the end of the file is reached before
+	 * @throws IOException If the file cannot be read
+	 */
+	private boolean fill(int bytes) throws IOException {
+		if (this.buffer.remaining() >= bytes) {
+			return true;
+		}
+		this.buffer.compact();
+		while (this.buffer.position() < bytes) {
+			if (this.channel.read(this.buffer) < 0) {
+				break;
+			}
+		}
+		this.buffer.flip();
+		return this.buffer.remaining() >= bytes;
+	}
+
+	/**
+	 * @param path Path of a torque scenario file
+	 * @return True if the file is in the CSV format.
+	 */
+	public static boolean isCsv(Path path) {
+		return path.getFileName().toString().toLowerCase().endsWith(".csv");
+	}
+
+	/**
+	 * Convert a torque scenario file into the other format, e.g. a
+	 * flight recorded CSV history into the binary format.
+	 * @param source File to convert
+	 * @param target Converted file, whose extension gives the format
+	 * @return The number of converted commands
+	 * @throws IOException If a file cannot be read or written
+	 */
+	public static long convert(Path source, Path target) throws IOException {
+		double[] command = new double[RECORD_SIZE];
+		try (TorqueScenarioFile in = new TorqueScenarioFile(source)) {
+			if (isCsv(target)) {
+				try (BufferedWriter out = Files.newBufferedWriter(
+						target, StandardCharsets.US_ASCII)) {
+					out.write("# start (s), duration (s), torque x, y, z (N.m)");
+					out.newLine();
+					while (in.next(command)) {
+						out.write(command[0] + "," + command[1] + "," + command[2]
+								+ "," + command[3] + "," + command[4]);
+						out.newLine();
+					}
+				}
+			} else {
+				try (FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE,
+						StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+					ByteBuffer block = ByteBuffer.allocateDirect(BLOCK * RECORD_SIZE * Double.BYTES);
+					block.putLong(MAGIC);
+					while (in.next(command)) {
+						if (block.remaining() < RECORD_SIZE * Double.BYTES) {
+							write(out, block);
+						}
+						for (int i = 0; i < RECORD_SIZE; i++) {
+							block.putDouble(command[i]);
+						}
+					}
+					write(out, block);
+				}
+			}
+			return in.getCount();
+		}
+	}
+
+	/**
+	 * Write the content of a buffer into a channel and clear it.
+	 * @param out Channel to write
+	 * @param block Buffer to write
+	 * @throws IOException If the channel cannot be written
+	 */
+	private static void write(FileChannel out, ByteBuffer block) throws IOException {
+		block.flip();
+		while (block.hasRemaining()) {
+			out.write(block);
+		}
+		block.clear();
+	}
+}
@@ -14,14 +14,26 @@
 
 package msp.simulator.dynamic.torques;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.util.ArrayList;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import msp.simulator.dynamic.torques.TorqueOverTimeScenarioProvider.Step;
+import msp.simulator.dynamic.torques.disturbances.AerodynamicTorque;
+import msp.simulator.dynamic.torques.disturbances.GravityGradientTorque;
+import msp.simulator.dynamic.torques.disturbances.ResidualDipoleTorque;
 import msp.simulator.dynamic.torques.disturbances.SimpleTorqueDisturbances;
+import msp.simulator.dynamic.torques.disturbances.SolarPressureTorque;
 import msp.simulator.environment.Environment;
 import msp.simulator.satellite.Satellite;
+import msp.simulator.satellite.actuators.MagnetoTorquers;
+import msp.simulator.satellite.actuators.ReactionWheels;
+import msp.simulator.utils.checkpoint.Checkpointable;
 import msp.simulator.utils.logs.CustomLoggingTools;
 
 /**
@@ -32,13 +44,20 @@ import msp.simulator.utils.logs.CustomLoggingTools;
  *
  * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
  */
-public class Torques {
+public class Torques implements Checkpointable {
 
 	/* ******* Public Static Attributes ******* */
 
 	/** Set the torque provider in use by the simulator. */
 	public static TorqueProviderEnum commandTorqueProvider = TorqueProviderEnum.SCENARIO;
 
+	/** Set the physical disturbance models in use by the simulator,
+	 * among GRAVITY, ATMOSPHERIC, MAGNETIC and SOLAR_PRESSURE. */
+	public static TorqueProviderEnum[] disturbanceModels = new TorqueProviderEnum[0];
+
+	/** Flag to add the random noise disturbance. */
+	public static boolean randomDisturbances = true;
+
 	/* **************************************** */
 
 	/** Instance of the Logger of the class. */
@@ -46,6 +65,9 @@ public class Torques {
 
 	/** Instance of Torque Provider. */
 	private ArrayList<TorqueProvider> torqueProviders;
+
+	/** Context of the current integration stage shared by the torque models. */
+	private TorqueContext context;
 
 	/**
 	 * Build the Main Torque Provider of the dynamic module.
@@ -58,6 +80,7 @@ public class Torques {
 
 		/* Build the torque providers in use in the simulation. 	*/
 		this.torqueProviders = new ArrayList<TorqueProvider>();
+		this.context = new TorqueContext(environment);
 		
 		/*  - Register the command provider.						*/
 		switch (Torques.commandTorqueProvider) {
@@ -74,13 +97,96 @@ public class Torques {
 							satellite.getAssembly().getStates().getInitialState().getDate())
 					);
 			break;
+		case REPLAY:
+			this.torqueProviders.add(
+					TorqueProviderEnum.REPLAY.getIndex(),
+					new ReplayTorqueProvider(satellite)
+					);
+			break;
+		case SCENARIO_FILE:
+			this.torqueProviders.add(
+					TorqueProviderEnum.SCENARIO_FILE.getIndex(),
+					new StreamedTorqueScenarioProvider(
+							satellite.getAssembly().getStates().getInitialState().getDate())
+					);
+			break;
 		default:
 			break;
 		}
 
+		/*  - Register the actuators.								*/
+		if (MagnetoTorquers.enabled) {
+			logger.info(CustomLoggingTools.indentMsg(logger,
+					" -> Registering the magnetorquers..."));
+			this.torqueProviders.add(satellite.getActuators().getMagnetoTorquers());
+		}
+		if (ReactionWheels.enabled) {
+			logger.info(CustomLoggingTools.indentMsg(logger,
+					" -> Registering the reaction wheels..."));
+			this.torqueProviders.add(satellite.getActuators().getReactionWheels());
+		}
+
 		/*  - Register the disturbances.							*/
-		this.torqueProviders.add(new SimpleTorqueDisturbances());
+		for (TorqueProviderEnum model : TorqueProviderEnum.values()) {
+			if (model.getIndex() > 0 && this.isDisturbanceModel(model)) {
+				this.torqueProviders.add(
+						this.createDisturbance(model, environment, satellite));
+			}
+		}
+		if (Torques.randomDisturbances) {
+			this.torqueProviders.add(new SimpleTorqueDisturbances());
+		}
+
+	}
 
+	/**
+	 * @param model Torque provider
+	 * @return True if the model is one of the disturbance models in use.
+	 */
+	private boolean isDisturbanceModel(TorqueProviderEnum model) {
+		for (TorqueProviderEnum disturbance : Torques.disturbanceModels) {
+			if (disturbance == model) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Create a physical disturbance model sharing the stage context.
+	 * @param model Disturbance model
+	 * @param environment The Environment of Simulation
+	 * @param satellite The Satellite in the simulation.
+	 * @return The torque provider of the model
+	 */
+	private TorqueProvider createDisturbance(TorqueProviderEnum model,
+			Environment environment, Satellite satellite) {
+		logger.info(CustomLoggingTools.indentMsg(logger,
+				" -> Registering the " + model + " disturbance model..."));
+		switch (model) {
+		case GRAVITY:
+			return new GravityGradientTorque(this.context,
+					environment.getSolarSystem().getEarth().getAttractCoeffMu(),
+					satellite.getAssembly().getBody().getInertiaMatrix());
+		case ATMOSPHERIC:
+			return new AerodynamicTorque(this.context,
+					satellite.getAssembly().getBody().getSatBoxSize());
+		case MAGNETIC:
+			return new ResidualDipoleTorque(this.context);
+		case SOLAR_PRESSURE:
+			return new SolarPressureTorque(this.context,
+					satellite.getAssembly().getBody().getSatBoxSize());
+		default:
+			throw new IllegalArgumentException("Not a disturbance model: " + model);
+		}
+	}
+
+	/**
+	 * @return The context of the integration stage shared by the
+	 * torque models.
+	 */
+	public TorqueContext getContext() {
+		return this.context;
 	}
 
 	/**
@@ -91,4 +197,76 @@ public class Torques {
 		return this.torqueProviders;
 	}
 
+	/**
+	 * Replace the torque scenario of the scenario provider.
+	 * @param scenario List of the torque steps.
+	 * @return True if a scenario provider is registered, false otherwise.
+	 */
+	public boolean setTorqueScenario(ArrayList<Step> scenario) {
+		boolean found = false;
+		for (TorqueProvider provider : this.torqueProviders) {
+			if (provider instanceof TorqueOverTimeScenarioProvider) {
+				((TorqueOverTimeScenarioProvider) provider).setScenario(scenario);
+				found = true;
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Close the torque providers holding resources, e.g. the
+	 * torque log of the MemCached provider.
+	 */
+	public void close() {
+		for (TorqueProvider provider : this.torqueProviders) {
+			if (provider instanceof Closeable) {
+				try {
+					((Closeable) provider).close();
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reset the random generator of the disturbances.
+	 * @param seed Seed of the generator
+	 */
+	public void setDisturbancesSeed(long seed) {
+		for (TorqueProvider provider : this.torqueProviders) {
+			if (provider instanceof SimpleTorqueDisturbances) {
+				((SimpleTorqueDisturbances) provider).setSeed(seed);
+			}
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void writeCheckpoint(ObjectOutput out) throws IOException {
+		out.writeInt(this.torqueProviders.size());
+		for (TorqueProvider provider : this.torqueProviders) {
+			out.writeUTF(provider.getClass().getName());
+			if (provider instanceof Checkpointable) {
+				((Checkpointable) provider).writeCheckpoint(out);
+			}
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void readCheckpoint(ObjectInput in) throws IOException, ClassNotFoundException {
+		if (in.readInt() != this.torqueProviders.size()) {
+			throw new IOException("The torque providers do not match the checkpoint.");
+		}
+		for (TorqueProvider provider : this.torqueProviders) {
+			if (!provider.getClass().getName().equals(in.readUTF())) {
+				throw new IOException("The torque providers do not match the checkpoint.");
+			}
+			if (provider instanceof Checkpointable) {
+				((Checkpointable) provider).readCheckpoint(in);
+			}
+		}
+	}
+
 }
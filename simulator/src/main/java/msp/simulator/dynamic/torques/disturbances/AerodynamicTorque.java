@@ -0,0 +1,124 @@
+/* Copyright 20017-2018 Melbourne Space Program
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package msp.simulator.dynamic.torques.disturbances;
+
+import org.hipparchus.geometry.euclidean.threed.Vector3D;
+import org.hipparchus.util.FastMath;
+import org.orekit.propagation.SpacecraftState;
+import org.orekit.time.AbsoluteDate;
+
+import msp.simulator.dynamic.torques.TorqueContext;
+import msp.simulator.dynamic.torques.StageTorqueProvider;
+
+/**
+ * This class provides the aerodynamic torque on the satellite box,
+ * due to the offset between the center of pressure and the center
+ * of mass:
+ * <p>
+ * F = - 1/2 rho Cd A |v| v and T = c x F
+ * <p>
+ * where v is the velocity relatively to the atmosphere, A the
+ * area of the box projected along v and c the position of the
+ * center of pressure from the center of mass, in the satellite
+ * frame.
+ *
+ * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
+ */
+public class AerodynamicTorque implements StageTorqueProvider {
+
+	/* ******* Public Static Attributes ******* */
+
+	/** Drag coefficient of the satellite. */
+	public static double dragCoefficient = 2.2;
+
+	/** Position of the center of pressure from the center of mass
+	 * in the satellite frame. (m) */
+	public static Vector3D pressureCenter = new Vector3D(1e-3, 1e-3, 1e-3);
+
+	/* **************************************** */
+
+	/** Shared context of the current stage. */
+	private final TorqueContext context;
+
+	/** Areas of the faces of the box normal to X, Y and Z. (m^2) */
+	private final double areaX, areaY, areaZ;
+
+	/** Drag coefficient in use. */
+	private final double cd;
+
+	/** Center of pressure in use. (m) */
+	private final double cx, cy, cz;
+
+	/**
+	 * Create the aerodynamic torque model.
+	 * @param context Shared context of the torque models
+	 * @param boxSize Size of the satellite box (m)
+	 */
+	public AerodynamicTorque(TorqueContext context, double[] boxSize) {
+		this.context = context;
+		this.areaX = boxSize[1] * boxSize[2];
+		this.areaY = boxSize[0] * boxSize[2];
+		this.areaZ = boxSize[0] * boxSize[1];
+		this.cd = AerodynamicTorque.dragCoefficient;
+		this.cx = AerodynamicTorque.pressureCenter.getX();
+		this.cy = AerodynamicTorque.pressureCenter.getY();
+		this.cz = AerodynamicTorque.pressureCenter.getZ();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void addTorque(SpacecraftState state, double[] torque) {
+		this.context.update(state);
+		double rho = this.context.getDensity();
+		if (rho == 0) {
+			return;
+		}
+		double[] v = this.context.getAirVelocity();
+		double speed = FastMath.sqrt(v[0] * v[0] + v[1] * v[1] + v[2] * v[2]);
+		if (speed == 0) {
+			return;
+		}
+
+		/* Area of the box projected along the velocity, times the speed. */
+		double areaSpeed = FastMath.abs(v[0]) * this.areaX
+				+ FastMath.abs(v[1]) * this.areaY
+				+ FastMath.abs(v[2]) * this.areaZ;
+
+		/* F = - 1/2 rho Cd A |v| v */
+		double k = -0.5 * rho * this.cd * areaSpeed;
+		double fx = k * v[0];
+		double fy = k * v[1];
+		double fz = k * v[2];
+
+		torque[0] += this.cy * fz - this.cz * fy;
+		torque[1] += this.cz * fx - this.cx * fz;
+		torque[2] += this.cx * fy - this.cy * fx;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The torque is evaluated at the latest stage of the context.
+	 */
+	@Override
+	public Vector3D getTorque(AbsoluteDate date) {
+		SpacecraftState state = this.context.getState();
+		double[] torque = new double[3];
+		if (state != null) {
+			this.addTorque(state, torque);
+		}
+		return new Vector3D(torque);
+	}
+}
@@ -0,0 +1,92 @@
+/* Copyright 20017-2018 Melbourne Space Program
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package msp.simulator.dynamic.torques.disturbances;
+
+import org.hipparchus.geometry.euclidean.threed.Vector3D;
+import org.orekit.propagation.SpacecraftState;
+import org.orekit.time.AbsoluteDate;
+
+import msp.simulator.dynamic.torques.TorqueContext;
+import msp.simulator.dynamic.torques.StageTorqueProvider;
+
+/**
+ * This class provides the gravity gradient torque, due to the
+ * difference of attraction between the parts of the satellite
+ * closer to and further from the Earth:
+ * <p>
+ * T = 3 mu / r^3 . n x (I n)
+ * <p>
+ * where n is the unit vector to the Earth center and I the
+ * inertia matrix, in the satellite frame.
+ *
+ * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
+ */
+public class GravityGradientTorque implements StageTorqueProvider {
+
+	/** Shared context of the current stage. */
+	private final TorqueContext context;
+
+	/** Gravitational parameter of the Earth. (m^3/s^2) */
+	private final double mu;
+
+	/** Inertia matrix of the satellite. (kg.m^2) */
+	private final double[][] inertia;
+
+	/**
+	 * Create the gravity gradient torque model.
+	 * @param context Shared context of the torque models
+	 * @param mu Gravitational parameter of the Earth (m^3/s^2)
+	 * @param inertia Inertia matrix of the satellite (kg.m^2)
+	 */
+	public GravityGradientTorque(TorqueContext context, double mu, double[][] inertia) {
+		this.context = context;
+		this.mu = mu;
+		this.inertia = inertia;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void addTorque(SpacecraftState state, double[] torque) {
+		this.context.update(state);
+		double[] n = this.context.getNadir();
+		double[][] i = this.inertia;
+		double r = this.context.getRadius();
+		double k = 3 * this.mu / (r * r * r);
+
+		/* I n */
+		double in0 = i[0][0] * n[0] + i[0][1] * n[1] + i[0][2] * n[2];
+		double in1 = i[1][0] * n[0] + i[1][1] * n[1] + i[1][2] * n[2];
+		double in2 = i[2][0] * n[0] + i[2][1] * n[1] + i[2][2] * n[2];
+
+		torque[0] += k * (n[1] * in2 - n[2] * in1);
+		torque[1] += k * (n[2] * in0 - n[0] * in2);
+		torque[2] += k * (n[0] * in1 - n[1] * in0);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The torque is evaluated at the latest stage of the context.
+	 */
+	@Override
+	public Vector3D getTorque(AbsoluteDate date) {
+		SpacecraftState state = this.context.getState();
+		double[] torque = new double[3];
+		if (state != null) {
+			this.addTorque(state, torque);
+		}
+		return new Vector3D(torque);
+	}
+}
@@ -0,0 +1,83 @@
+/* Copyright 20017-2018 Melbourne Space Program
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package msp.simulator.dynamic.torques.disturbances;
+
+import org.hipparchus.geometry.euclidean.threed.Vector3D;
+import org.orekit.propagation.SpacecraftState;
+import org.orekit.time.AbsoluteDate;
+
+import msp.simulator.dynamic.torques.TorqueContext;
+import msp.simulator.dynamic.torques.StageTorqueProvider;
+
+/**
+ * This class provides the torque of the residual magnetic dipole
+ * of the satellite, e.g. due to the current loops of the
+ * electronics, in the geomagnetic field:
+ * <p>
+ * T = m x B
+ *
+ * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
+ */
+public class ResidualDipoleTorque implements StageTorqueProvider {
+
+	/* ******* Public Static Attributes ******* */
+
+	/** Residual magnetic dipole in the satellite frame. (A.m^2) */
+	public static Vector3D residualDipole = new Vector3D(1e-3, 1e-3, 1e-3);
+
+	/* **************************************** */
+
+	/** Shared context of the current stage. */
+	private final TorqueContext context;
+
+	/** Residual dipole in use. (A.m^2) */
+	private final double mx, my, mz;
+
+	/**
+	 * Create the residual dipole torque model.
+	 * @param context Shared context of the torque models
+	 */
+	public ResidualDipoleTorque(TorqueContext context) {
+		this.context = context;
+		this.mx = ResidualDipoleTorque.residualDipole.getX();
+		this.my = ResidualDipoleTorque.residualDipole.getY();
+		this.mz = ResidualDipoleTorque.residualDipole.getZ();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void addTorque(SpacecraftState state, double[] torque) {
+		this.context.update(state);
+		double[] b = this.context.getMagneticField();
+		torque[0] += this.my * b[2] - this.mz * b[1];
+		torque[1] += this.mz * b[0] - this.mx * b[2];
+		torque[2] += this.mx * b[1] - this.my * b[0];
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The torque is evaluated at the latest stage of the context.
+	 */
+	@Override
+	public Vector3D getTorque(AbsoluteDate date) {
+		SpacecraftState state = this.context.getState();
+		double[] torque = new double[3];
+		if (state != null) {
+			this.addTorque(state, torque);
+		}
+		return new Vector3D(torque);
+	}
+}
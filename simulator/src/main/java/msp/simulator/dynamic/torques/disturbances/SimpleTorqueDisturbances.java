@@ -13,24 +13,33 @@
  */
 package msp.simulator.dynamic.torques.disturbances;
 
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
 import org.hipparchus.geometry.euclidean.threed.Vector3D;
-import org.hipparchus.util.FastMath;
+import org.orekit.propagation.SpacecraftState;
 import org.orekit.time.AbsoluteDate;
 
-import msp.simulator.dynamic.torques.TorqueProvider;
+import msp.simulator.dynamic.torques.StageTorqueProvider;
+import msp.simulator.utils.checkpoint.Checkpointable;
+import msp.simulator.utils.noise.NoiseGenerator;
 
 /**
  * Describe a minimal torque disturbances provider.
  * 
  * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
  */
-public class SimpleTorqueDisturbances implements TorqueProvider {
+public class SimpleTorqueDisturbances implements StageTorqueProvider, Checkpointable {
+
+	/** Random generator of the disturbances. */
+	private NoiseGenerator noise;
 
 	/**
 	 * Simple constructor.
 	 */
 	public SimpleTorqueDisturbances() {
-		
+		this.noise = new NoiseGenerator("disturbances");
 	}
 
 	/** Create a simple random normal noise to perturb the overall torque. */
@@ -38,12 +47,41 @@ public class SimpleTorqueDisturbances implements TorqueProvider {
 	public Vector3D getTorque(AbsoluteDate date) {
 		
 		Vector3D disturbance = new Vector3D(
-				2 * (FastMath.random() - 0.5) * 1e-3,
-				2 * (FastMath.random() - 0.5) * 1e-3,
-				2 * (FastMath.random() - 0.5) * 1e-3
+				this.noise.nextNoise(1e-3),
+				this.noise.nextNoise(1e-3),
+				this.noise.nextNoise(1e-3)
 				);
 		
 		return disturbance;
 	}
 
+	/** {@inheritDoc} */
+	@Override
+	public void addTorque(SpacecraftState state, double[] torque) {
+		torque[0] += this.noise.nextNoise(1e-3);
+		torque[1] += this.noise.nextNoise(1e-3);
+		torque[2] += this.noise.nextNoise(1e-3);
+	}
+
+	/**
+	 * Reset the random generator of the disturbances for the given
+	 * simulation seed.
+	 * @param seed Seed of the simulation
+	 */
+	public void setSeed(long seed) {
+		this.noise.setSeed(seed);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void writeCheckpoint(ObjectOutput out) throws IOException {
+		out.writeObject(this.noise);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void readCheckpoint(ObjectInput in) throws IOException, ClassNotFoundException {
+		this.noise = (NoiseGenerator) in.readObject();
+	}
+
 }
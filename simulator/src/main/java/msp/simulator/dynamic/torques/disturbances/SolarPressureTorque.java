@@ -0,0 +1,124 @@
+/* Copyright 20017-2018 Melbourne Space Program
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package msp.simulator.dynamic.torques.disturbances;
+
+import org.hipparchus.geometry.euclidean.threed.Vector3D;
+import org.hipparchus.util.FastMath;
+import org.orekit.propagation.SpacecraftState;
+import org.orekit.time.AbsoluteDate;
+
+import msp.simulator.dynamic.torques.TorqueContext;
+import msp.simulator.dynamic.torques.StageTorqueProvider;
+
+/**
+ * This class provides the solar radiation pressure torque on the
+ * satellite box, due to the offset between the center of pressure
+ * and the center of mass:
+ * <p>
+ * F = - P Cr A s and T = c x F
+ * <p>
+ * where s is the unit vector to the Sun, P the solar pressure at
+ * the satellite, zero in the Earth shadow, A the area of the box
+ * projected along s and c the position of the center of pressure
+ * from the center of mass, in the satellite frame.
+ *
+ * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
+ */
+public class SolarPressureTorque implements StageTorqueProvider {
+
+	/* ******* Public Static Attributes ******* */
+
+	/** Radiation pressure coefficient of the satellite, from 1
+	 * (absorbing) to 2 (reflecting). */
+	public static double reflectivityCoefficient = 1.5;
+
+	/** Position of the center of pressure from the center of mass
+	 * in the satellite frame. (m) */
+	public static Vector3D pressureCenter = new Vector3D(1e-3, 1e-3, 1e-3);
+
+	/* **************************************** */
+
+	/** Solar radiation pressure at one astronomical unit. (N/m^2) */
+	private static final double SOLAR_PRESSURE = 4.56e-6;
+
+	/** Shared context of the current stage. */
+	private final TorqueContext context;
+
+	/** Areas of the faces of the box normal to X, Y and Z. (m^2) */
+	private final double areaX, areaY, areaZ;
+
+	/** Radiation pressure coefficient in use. */
+	private final double cr;
+
+	/** Center of pressure in use. (m) */
+	private final double cx, cy, cz;
+
+	/**
+	 * Create the solar radiation pressure torque model.
+	 * @param context Shared context of the torque models
+	 * @param boxSize Size of the satellite box (m)
+	 */
+	public SolarPressureTorque(TorqueContext context, double[] boxSize) {
+		this.context = context;
+		this.areaX = boxSize[1] * boxSize[2];
+		this.areaY = boxSize[0] * boxSize[2];
+		this.areaZ = boxSize[0] * boxSize[1];
+		this.cr = SolarPressureTorque.reflectivityCoefficient;
+		this.cx = SolarPressureTorque.pressureCenter.getX();
+		this.cy = SolarPressureTorque.pressureCenter.getY();
+		this.cz = SolarPressureTorque.pressureCenter.getZ();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void addTorque(SpacecraftState state, double[] torque) {
+		this.context.update(state);
+		double flux = this.context.getSunFlux();
+		if (flux == 0) {
+			return;
+		}
+		double[] s = this.context.getSunDirection();
+
+		/* Area of the box projected along the Sun direction. */
+		double area = FastMath.abs(s[0]) * this.areaX
+				+ FastMath.abs(s[1]) * this.areaY
+				+ FastMath.abs(s[2]) * this.areaZ;
+
+		/* F = - P Cr A s */
+		double k = -SOLAR_PRESSURE * flux * this.cr * area;
+		double fx = k * s[0];
+		double fy = k * s[1];
+		double fz = k * s[2];
+
+		torque[0] += this.cy * fz - this.cz * fy;
+		torque[1] += this.cz * fx - this.cx * fz;
+		torque[2] += this.cx * fy - this.cy * fx;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The torque is evaluated at the latest stage of the context.
+	 */
+	@Override
+	public Vector3D getTorque(AbsoluteDate date) {
+		SpacecraftState state = this.context.getState();
+		double[] torque = new double[3];
+		if (state != null) {
+			this.addTorque(state, torque);
+		}
+		return new Vector3D(torque);
+	}
+}
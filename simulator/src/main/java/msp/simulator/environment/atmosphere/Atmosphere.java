@@ -14,8 +14,14 @@
 
 package msp.simulator.environment.atmosphere;
 
+import org.hipparchus.geometry.euclidean.threed.Vector3D;
+import org.hipparchus.util.FastMath;
+import org.orekit.bodies.OneAxisEllipsoid;
 import org.orekit.errors.OrekitException;
 import org.orekit.forces.drag.atmosphere.HarrisPriester;
+import org.orekit.frames.Frame;
+import org.orekit.time.AbsoluteDate;
+import org.orekit.utils.PVCoordinatesProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -34,6 +40,13 @@ import msp.simulator.utils.logs.CustomLoggingTools;
  * understanding of the modules of the simulator, it is extended
  * here.<p>
  * It also provides some other methods and tools to the simulator.
+ * <p>
+ * As an option, the density can be interpolated in a table built
+ * at initialization over the altitude and the cosine of the angle 
+ * between the satellite and the diurnal bulge, the two variables of 
+ * the Harris-Priester model. The table is refined until the relative
+ * interpolation error is below the tolerance. The exact evaluation
+ * remains the default for validation purpose.
  * 
  * @see org.orekit.forces.drag.atmosphere.HarrisPriester
  * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
@@ -43,9 +56,67 @@ public final class Atmosphere extends HarrisPriester {
 	/** Generated Serial Version UID. */
 	private static final long serialVersionUID = -1497026274240688235L;
 	
+	/* ******* Public Static Attributes ******* */
+
+	/** Interpolate the density in a precomputed table. */
+	public static boolean useDensityTable = false;
+
+	/** Accepted relative error of the density table. */
+	public static double densityTableTolerance = 1e-3;
+
+	/* **************************************** */
+
 	/** Logger of the instance of the class. */
 	private final static Logger logger = LoggerFactory.getLogger(Atmosphere.class);
 	
+	/** Cosine exponent of the model: 2 (low inclinaison) to 6 (Polar Orbit). */
+	private static final double COSINE_EXPONENT = 5;	/* Arbitrary set. */
+
+	/** Lag angle of the diurnal bulge, as used by the Harris-Priester model. */
+	private static final double LAG = FastMath.toRadians(30.0);
+
+	/** Cosine of the lag angle. */
+	private static final double COSLAG = FastMath.cos(LAG);
+
+	/** Sine of the lag angle. */
+	private static final double SINLAG = FastMath.sin(LAG);
+
+	/** Maximum number of nodes of the table (4 MB). */
+	private static final int MAX_NODES = 1 << 19;
+
+	/** Sun position provider. */
+	private final PVCoordinatesProvider sunProvider;
+
+	/** Earth shape. */
+	private final OneAxisEllipsoid earthShape;
+
+	/** Logarithm of the density (kg/m3) on the table nodes, the cosine
+	 * index running first. The densities are exponential in altitude so
+	 * their logarithm is interpolated.
+	 */
+	private double[] densityTable;
+
+	/** Altitude / density table of the model, used to build the table. */
+	private double[][] modelTable;
+
+	/** Altitude step of the table. (m) */
+	private double altitudeStep;
+
+	/** Cosine step of the table. */
+	private double cosineStep;
+
+	/** Number of altitude nodes of the table. */
+	private int nAltitude;
+
+	/** Number of cosine nodes of the table. */
+	private int nCosine;
+
+	/** Date of the last Sun position. */
+	private transient AbsoluteDate lastSunDate;
+
+	/** Last Sun position in the Earth frame. */
+	private transient Vector3D lastSunInEarth;
+
 	/**
 	 * Constructor of the instance of Earth atmosphere.
 	 * @param earth The Earth Instance of the simulation.
@@ -62,11 +133,207 @@ public final class Atmosphere extends HarrisPriester {
 		 */
 		super(	sun.getPvCoordinateProvider(),
 				earth.getEllipsoid(),
-				5		/* Arbitrary set. */
+				COSINE_EXPONENT
 				);
+		this.sunProvider = sun.getPvCoordinateProvider();
+		this.earthShape = earth.getEllipsoid();
+
+		if (Atmosphere.useDensityTable) {
+			this.buildDensityTable(Atmosphere.densityTableTolerance);
+		}
 		
+		this.modelTable = null;
 		logger.info(CustomLoggingTools.indentMsg(logger, 
 				"Building the Earth Atmosphere: success."));
 	}
+
+	/** {@inheritDoc} 
+	 * <p>
+	 * The density is interpolated in the table when enabled.
+	 */
+	@Override
+	public double getDensity(AbsoluteDate date, Vector3D position, Frame frame)
+			throws OrekitException {
+		if (this.densityTable == null) {
+			return super.getDensity(date, position, frame);
+		}
+
+		/* Position and Sun in the Earth frame. */
+		Frame earthFrame = this.earthShape.getBodyFrame();
+		Vector3D posInEarth = frame.getTransformTo(earthFrame, date).transformPosition(position);
+		if (!date.equals(this.lastSunDate)) {
+			this.lastSunInEarth = this.sunProvider.getPVCoordinates(date, earthFrame).getPosition();
+			this.lastSunDate = date;
+		}
+
+		double altitude = this.earthShape.transform(posInEarth, earthFrame, date).getAltitude();
+		if (altitude < this.getMinAlt() || altitude > this.getMaxAlt()) {
+			/* Out of the table: the model raises the appropriate error or value. */
+			return super.getDensity(this.lastSunInEarth, posInEarth);
+		}
+
+		return this.interpolateDensity(altitude, 
+				Atmosphere.bulgeCosine(this.lastSunInEarth, posInEarth));
+	}
+
+	/**
+	 * Compute the cosine of the angle between the position and the
+	 * apex of the diurnal bulge, as done by the Harris-Priester model.
+	 * @param sunInEarth Sun position in the Earth frame
+	 * @param posInEarth Satellite position in the Earth frame
+	 * @return The cosine of the angle to the bulge
+	 */
+	private static double bulgeCosine(Vector3D sunInEarth, Vector3D posInEarth) {
+		Vector3D sunPos = sunInEarth.normalize();
+		Vector3D bulge = new Vector3D(
+				sunPos.getX() * COSLAG - sunPos.getY() * SINLAG,
+				sunPos.getX() * SINLAG + sunPos.getY() * COSLAG,
+				sunPos.getZ());
+		return bulge.normalize().dotProduct(posInEarth.normalize());
+	}
+
+	/**
+	 * Evaluate the Harris-Priester density from its two variables.
+	 * @param altitude Altitude of the satellite (m)
+	 * @param cosPsi Cosine of the angle to the diurnal bulge
+	 * @return The density (kg/m3)
+	 */
+	private double computeDensity(double altitude, double cosPsi) {
+		double[][] tab = this.modelTable;
+
+		final double c2Psi2 = (1. + cosPsi) / 2.;
+		final double cPsi2 = FastMath.sqrt(c2Psi2);
+		final double cosPow = (cPsi2 > 1e-12) ? 
+				c2Psi2 * FastMath.pow(cPsi2, COSINE_EXPONENT - 2) : 0.;
+
+		int ia = 0;
+		while (ia < tab.length - 2 && altitude > tab[ia + 1][0]) {
+			ia++;
+		}
+		final double dH = (tab[ia][0] - altitude) / (tab[ia][0] - tab[ia + 1][0]);
+		final double rhoMin = tab[ia][1] * FastMath.pow(tab[ia + 1][1] / tab[ia][1], dH);
+		final double rhoMax = tab[ia][2] * FastMath.pow(tab[ia + 1][2] / tab[ia][2], dH);
+
+		return rhoMin + (rhoMax - rhoMin) * cosPow;
+	}
+
+	/**
+	 * Build the density table, halving the altitude or the cosine
+	 * step until the error at the middle of the cells is below the
+	 * tolerance. If the tolerance can not be reached within the
+	 * maximum number of nodes, the table is dropped and the model 
+	 * is evaluated instead.
+	 * @param tolerance Accepted relative error
+	 */
+	private void buildDensityTable(double tolerance) {
+		this.modelTable = this.getTabDensity();
+		/* The nodes of the Harris-Priester table are multiples of 10 km:
+		 * keeping them on the grid avoids interpolating across a kink. */
+		double altitudeSpan = this.getMaxAlt() - this.getMinAlt();
+		int altitudeIntervals = (int) FastMath.round(altitudeSpan / 10e3);
+		int cosineIntervals = 8;
+		double error = Double.POSITIVE_INFINITY;
+
+		while (true) {
+			this.fillDensityTable(altitudeSpan / altitudeIntervals, 2. / cosineIntervals);
+
+			double altitudeError = 0;
+			double cosineError = 0;
+			for (int ia = 0; ia < this.nAltitude - 1; ia++) {
+				for (int ic = 0; ic < this.nCosine - 1; ic++) {
+					double h = this.getMinAlt() + ia * this.altitudeStep;
+					double c = -1. + ic * this.cosineStep;
+					altitudeError = FastMath.max(altitudeError,
+							this.relativeError(h + this.altitudeStep / 2, c));
+					cosineError = FastMath.max(cosineError,
+							this.relativeError(h, c + this.cosineStep / 2));
+				}
+			}
+			error = FastMath.max(altitudeError, cosineError);
+			if (error <= tolerance) {
+				break;
+			}
+			if (altitudeError >= cosineError) {
+				altitudeIntervals *= 2;
+			} else {
+				cosineIntervals *= 2;
+			}
+			if ((long) (altitudeIntervals + 1) * (cosineIntervals + 1) > MAX_NODES) {
+				this.densityTable = null;
+				this.modelTable = null;
+				logger.error("Density Table: tolerance " + tolerance + " not reached within "
+						+ MAX_NODES + " nodes (max. relative error " + error 
+						+ ") - the density is evaluated from the model.");
+				return;
+			}
+		}
+
+		this.modelTable = null;
+		logger.info(CustomLoggingTools.indentMsg(logger,
+				"Density Table: " + this.nAltitude + " x " + this.nCosine 
+				+ " nodes - max. relative error " + error));
+	}
+
+	/**
+	 * Fill the density table with a regular layout.
+	 * @param altitudeStep Altitude step (m)
+	 * @param cosineStep Cosine step
+	 */
+	private void fillDensityTable(double altitudeStep, double cosineStep) {
+		this.altitudeStep = altitudeStep;
+		this.cosineStep = cosineStep;
+		this.nAltitude = (int) FastMath.round((this.getMaxAlt() - this.getMinAlt()) / altitudeStep) + 1;
+		this.nCosine = (int) FastMath.round(2. / cosineStep) + 1;
+		this.densityTable = new double[this.nAltitude * this.nCosine];
+
+		for (int ia = 0; ia < this.nAltitude; ia++) {
+			double altitude = FastMath.min(this.getMinAlt() + ia * altitudeStep, this.getMaxAlt());
+			for (int ic = 0; ic < this.nCosine; ic++) {
+				double cosPsi = FastMath.min(-1. + ic * cosineStep, 1.);
+				this.densityTable[ia * this.nCosine + ic] = 
+						FastMath.log(this.computeDensity(altitude, cosPsi));
+			}
+		}
+	}
+
+	/**
+	 * @return The relative difference between the table and the model.
+	 */
+	private double relativeError(double altitude, double cosPsi) {
+		double exact = this.computeDensity(altitude, cosPsi);
+		return FastMath.abs(this.interpolateDensity(altitude, cosPsi) - exact) / exact;
+	}
+
+	/**
+	 * Bilinear interpolation of the density in the table.
+	 * @param altitude Altitude in the range of the model (m)
+	 * @param cosPsi Cosine of the angle to the diurnal bulge
+	 * @return The density (kg/m3)
+	 */
+	private double interpolateDensity(double altitude, double cosPsi) {
+		double u = FastMath.max(0., FastMath.min(
+				(altitude - this.getMinAlt()) / this.altitudeStep, this.nAltitude - 1));
+		double v = FastMath.max(0., FastMath.min(
+				(cosPsi + 1.) / this.cosineStep, this.nCosine - 1));
+		int ia = FastMath.min((int) u, this.nAltitude - 2);
+		int ic = FastMath.min((int) v, this.nCosine - 2);
+		double tu = u - ia;
+		double tv = v - ic;
+
+		int i = ia * this.nCosine + ic;
+		double low  = this.densityTable[i] 
+				+ tv * (this.densityTable[i + 1] - this.densityTable[i]);
+		double high = this.densityTable[i + this.nCosine] 
+				+ tv * (this.densityTable[i + this.nCosine + 1] - this.densityTable[i + this.nCosine]);
+
+		return FastMath.exp(low + tu * (high - low));
+	}
+
+	/**
+	 * @return True if the density is interpolated in the table.
+	 */
+	public boolean isDensityTableUsed() {
+		return this.densityTable != null;
+	}
 	
 }
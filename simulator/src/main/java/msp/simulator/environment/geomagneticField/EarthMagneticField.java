@@ -14,9 +14,18 @@
 
 package msp.simulator.environment.geomagneticField;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.hipparchus.geometry.euclidean.threed.Vector3D;
+import org.orekit.bodies.GeodeticPoint;
 import org.orekit.errors.OrekitException;
+import org.orekit.frames.Frame;
 import org.orekit.models.earth.GeoMagneticField;
 import org.orekit.models.earth.GeoMagneticFieldFactory;
+import org.orekit.time.AbsoluteDate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -38,38 +47,200 @@ import msp.simulator.utils.logs.CustomLoggingTools;
  */
 public class EarthMagneticField {
 	
+	/* ******* Public Static Attributes ******* */
+
+	/** Use a precomputed grid of the field instead of the
+	 * spherical harmonic model inside the altitude band. 
+	 */
+	public static boolean useFieldGrid = false;
+
+	/** Latitude and longitude step of the grid. It should 
+	 * divide 180 deg. (deg) 
+	 */
+	public static double gridAngularStep = 2.0;
+
+	/** Altitude band covered by the grid: {min, max} (km) */
+	public static double[] gridAltitudeBand = new double[] {400., 700.};
+
+	/** Altitude step of the grid. (km) */
+	public static double gridAltitudeStep = 50.;
+
+	/** Binary file used to cache the grid between runs, or
+	 * null to compute the grid at each start.
+	 */
+	public static String gridCacheFile = null;
+
+	/* **************************************** */
+
 	/** Logger of the class. */
 	private static final Logger logger = LoggerFactory.getLogger(
 			EarthMagneticField.class);
 	
-	/** Private instance of the GeoMagneticField. */
-	private GeoMagneticField geomagneticField;
+	/** Grids already built in the process, shared by the simulations. */
+	private static final Map<String, GeoMagneticFieldGrid> sharedGrids = 
+			new ConcurrentHashMap<String, GeoMagneticFieldGrid>();
+
+	/** Private instance of the GeoMagneticField, loaded on first use. */
+	private volatile GeoMagneticField geomagneticField;
+	
+	/** Grid of the field, null if not in use. Assigned before
+	 * the model is published.
+	 */
+	private GeoMagneticFieldGrid grid;
 	
 	
 	/**
 	 * Create the instance of Earth Magnetic Field following
 	 * the WMM data as the current Year.
+	 * <p>
+	 * The model and its grid are only loaded on the first
+	 * evaluation of the field.
 	 */
 	public EarthMagneticField() {
+		this.geomagneticField = null;
+		this.grid = null;
+	}
+
+	/**
+	 * Load the model, and its grid if enabled, on first use.
+	 */
+	private synchronized void load() {
+		if (this.geomagneticField != null) {
+			return;
+		}
 		logger.info(CustomLoggingTools.indentMsg(logger,
 				"Loading the Earth Magnetic Field..."));
+		GeoMagneticField field = null;
 		try {
-			/* Create and link the instance of GeoMagnetic Field. */
-			this.geomagneticField = GeoMagneticFieldFactory.
+			/* Create the instance of GeoMagnetic Field. */
+			field = GeoMagneticFieldFactory.
 					getWMM(OrekitConfiguration.GeoMagneticDataYear);
 		
 		} catch (OrekitException e) {
 			e.printStackTrace();
 		}
+
+		if (EarthMagneticField.useFieldGrid && field != null) {
+			this.grid = EarthMagneticField.getSharedGrid(field);
+		}
+
+		/* Publish the model last: a thread seeing it also sees the grid. */
+		this.geomagneticField = field;
+	}
+
+	/**
+	 * Provide the grid matching the current configuration, either
+	 * already built in the process, loaded from the cache file or
+	 * computed from the model.
+	 * @param field The geomagnetic model
+	 * @return The grid of the model
+	 */
+	private static GeoMagneticFieldGrid getSharedGrid(GeoMagneticField field) {
+		final double epoch = field.getEpoch();
+		final double step = EarthMagneticField.gridAngularStep;
+		final double altMin = EarthMagneticField.gridAltitudeBand[0];
+		final double altMax = EarthMagneticField.gridAltitudeBand[1];
+		final double altStep = EarthMagneticField.gridAltitudeStep;
+		final String key = epoch + "/" + step + "/" + altMin + "/" + altMax + "/" + altStep;
+
+		return sharedGrids.computeIfAbsent(key, k -> {
+			File cacheFile = (EarthMagneticField.gridCacheFile == null) ? 
+					null : new File(EarthMagneticField.gridCacheFile);
+
+			if (cacheFile != null && cacheFile.isFile()) {
+				try {
+					GeoMagneticFieldGrid loaded = GeoMagneticFieldGrid.load(cacheFile);
+					if (loaded.matches(epoch, step, altMin, altMax, altStep)) {
+						logger.info(CustomLoggingTools.indentMsg(logger,
+								"Geomagnetic Field Grid loaded from " + cacheFile));
+						return loaded;
+					}
+					logger.info(CustomLoggingTools.indentMsg(logger,
+							"Geomagnetic Field Grid cache does not match the configuration."));
+				} catch (IOException e) {
+					logger.error("Loading the Geomagnetic Field Grid failed: "
+							+ e.getMessage());
+				}
+			}
+
+			logger.info(CustomLoggingTools.indentMsg(logger,
+					"Computing the Geomagnetic Field Grid..."));
+			GeoMagneticFieldGrid computed = GeoMagneticFieldGrid.compute(
+					field, step, altMin, altMax, altStep);
+
+			if (cacheFile != null) {
+				try {
+					computed.save(cacheFile);
+				} catch (IOException e) {
+					logger.error("Saving the Geomagnetic Field Grid failed: "
+							+ e.getMessage());
+				}
+			}
+			return computed;
+		});
+	}
+
+	/**
+	 * Calculate the field vector at the given location, either
+	 * interpolated in the grid when enabled and covering the
+	 * altitude, or directly evaluated from the model.
+	 * @param latitude Latitude (decimal deg)
+	 * @param longitude Longitude (decimal deg)
+	 * @param altitude Altitude (km)
+	 * @return The field vector (nT)
+	 * @see GeoMagneticField#calculateField(double, double, double)
+	 */
+	public Vector3D calculateField(double latitude, double longitude, double altitude) {
+		if (this.geomagneticField == null) {
+			this.load();
+		}
+		if (this.grid != null && this.grid.covers(altitude)) {
+			return this.grid.interpolate(latitude, longitude, altitude);
+		}
+		return this.geomagneticField.calculateField(latitude, longitude, altitude)
+				.getFieldVector();
 	}
 	
+	/**
+	 * Express a field vector given in the local North-East-Down
+	 * frame of a geodetic point, as returned by
+	 * {@link #calculateField(double, double, double)}, in the
+	 * given frame.
+	 * @param ned Field vector in the North-East-Down frame
+	 * @param point Geodetic point of the field
+	 * @param earthFrame Frame of the Earth ellipsoid the point
+	 * is expressed in
+	 * @param frame Frame of the returned vector, e.g. inertial
+	 * @param date Date of the field
+	 * @return The field vector in the given frame, same unit
+	 * @throws OrekitException if the frames can not be related
+	 */
+	public static Vector3D toFrame(Vector3D ned, GeodeticPoint point,
+			Frame earthFrame, Frame frame, AbsoluteDate date) throws OrekitException {
+		Vector3D fieldEarth = new Vector3D(
+				ned.getX(), point.getNorth(),
+				ned.getY(), point.getEast(),
+				ned.getZ(), point.getNadir());
+		return earthFrame.getTransformTo(frame, date).transformVector(fieldEarth);
+	}
+
 	/**
 	 * Return the GeoMagneticField object.
 	 * @return GeoMagneticField
 	 * @see GeoMagneticField
 	 */
 	public GeoMagneticField getField() {
+		this.load();
 		return this.geomagneticField;
 	}
+
+	/**
+	 * Return the grid of the field.
+	 * @return The grid or null if not in use.
+	 */
+	public GeoMagneticFieldGrid getGrid() {
+		this.load();
+		return this.grid;
+	}
 	
 }
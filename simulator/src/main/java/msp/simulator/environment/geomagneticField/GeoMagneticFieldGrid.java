@@ -0,0 +1,313 @@
+/* Copyright 20017-2018 Melbourne Space Program
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package msp.simulator.environment.geomagneticField;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.hipparchus.geometry.euclidean.threed.Vector3D;
+import org.hipparchus.util.FastMath;
+import org.orekit.models.earth.GeoMagneticField;
+
+/**
+ * This class stores the geomagnetic field vectors of a
+ * model on a regular latitude / longitude / altitude grid
+ * and provides a trilinear interpolation of the field in
+ * between the nodes.
+ * <p>
+ * The grid is immutable once built so a single instance can
+ * be shared by several simulations running in parallel. It can
+ * be saved to and loaded back from a binary file to avoid the
+ * evaluation of the model at each start.
+ *
+ * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
+ */
+public class GeoMagneticFieldGrid {
+
+	/** Identifier at the head of the binary file. */
+	private static final int MAGIC = 0x4D41474E;
+
+	/** Size of the header of the binary file in bytes. */
+	private static final int HEADER_SIZE = 4 + 5 * 8 + 3 * 4;
+
+	/** Angular step of the grid in latitude and longitude. (deg) */
+	private final double angularStep;
+
+	/** Lowest altitude of the grid. (km) */
+	private final double altitudeMin;
+
+	/** Altitude step of the grid. (km) */
+	private final double altitudeStep;
+
+	/** Decimal year of the model. */
+	private final double epoch;
+
+	/** Number of latitude nodes, from -90 deg. */
+	private final int nLat;
+
+	/** Number of longitude nodes, from -180 deg to 180 deg. */
+	private final int nLon;
+
+	/** Number of altitude nodes. */
+	private final int nAlt;
+
+	/** Field components (nT), three per node, longitude first. */
+	private final float[] data;
+
+	/**
+	 * Private constructor: use {@link #compute} or {@link #load}.
+	 */
+	private GeoMagneticFieldGrid(double angularStep, double altitudeMin,
+			double altitudeStep, double epoch, int nLat, int nLon, int nAlt, float[] data) {
+		this.angularStep = angularStep;
+		this.altitudeMin = altitudeMin;
+		this.altitudeStep = altitudeStep;
+		this.epoch = epoch;
+		this.nLat = nLat;
+		this.nLon = nLon;
+		this.nAlt = nAlt;
+		this.data = data;
+	}
+
+	/**
+	 * Evaluate the model at each node of the grid.
+	 * @param field The geomagnetic model
+	 * @param angularStep Step in latitude and longitude (deg)
+	 * @param altitudeMin Lowest altitude of the band (km)
+	 * @param altitudeMax Highest altitude of the band (km)
+	 * @param altitudeStep Step in altitude (km)
+	 * @return The computed grid
+	 */
+	public static GeoMagneticFieldGrid compute(GeoMagneticField field,
+			double angularStep, double altitudeMin, double altitudeMax, double altitudeStep) {
+
+		int nLat = (int) FastMath.ceil(180. / angularStep) + 1;
+		int nLon = (int) FastMath.ceil(360. / angularStep) + 1;
+		int nAlt = FastMath.max(2,
+				(int) FastMath.ceil((altitudeMax - altitudeMin) / altitudeStep) + 1);
+
+		float[] data = new float[3 * nLat * nLon * nAlt];
+		int index = 0;
+		for (int iAlt = 0; iAlt < nAlt; iAlt++) {
+			double altitude = altitudeMin + iAlt * altitudeStep;
+			for (int iLat = 0; iLat < nLat; iLat++) {
+				/* The last node may overshoot the pole. */
+				double latitude = FastMath.min(-90. + iLat * angularStep, 90.);
+				for (int iLon = 0; iLon < nLon; iLon++) {
+					double longitude = FastMath.min(-180. + iLon * angularStep, 180.);
+					Vector3D b = field.calculateField(latitude, longitude, altitude)
+							.getFieldVector();
+					data[index++] = (float) b.getX();
+					data[index++] = (float) b.getY();
+					data[index++] = (float) b.getZ();
+				}
+			}
+		}
+
+		return new GeoMagneticFieldGrid(angularStep, altitudeMin, altitudeStep,
+				field.getEpoch(), nLat, nLon, nAlt, data);
+	}
+
+	/**
+	 * Load a grid previously saved in a binary file.
+	 * @param file The binary file
+	 * @return The grid
+	 * @throws IOException if the file can not be read or is corrupted
+	 */
+	public static GeoMagneticFieldGrid load(File file) throws IOException {
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+				FileChannel channel = raf.getChannel()) {
+
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			readFully(channel, header);
+			header.flip();
+			if (header.getInt() != MAGIC) {
+				throw new IOException("Not a geomagnetic field grid: " + file);
+			}
+			double angularStep = header.getDouble();
+			double altitudeMin = header.getDouble();
+			double altitudeStep = header.getDouble();
+			double epoch = header.getDouble();
+			header.getDouble(); /* Reserved. */
+			int nLat = header.getInt();
+			int nLon = header.getInt();
+			int nAlt = header.getInt();
+
+			float[] data = new float[3 * nLat * nLon * nAlt];
+			if (channel.size() != HEADER_SIZE + 4L * data.length) {
+				throw new IOException("Truncated geomagnetic field grid: " + file);
+			}
+			ByteBuffer body = ByteBuffer.allocate(4 * data.length);
+			readFully(channel, body);
+			body.flip();
+			body.asFloatBuffer().get(data);
+
+			return new GeoMagneticFieldGrid(angularStep, altitudeMin, altitudeStep,
+					epoch, nLat, nLon, nAlt, data);
+		}
+	}
+
+	/**
+	 * Save the grid in a binary file.
+	 * @param file The destination file
+	 * @throws IOException if the file can not be written
+	 */
+	public void save(File file) throws IOException {
+		if (file.getParentFile() != null) {
+			file.getParentFile().mkdirs();
+		}
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw");
+				FileChannel channel = raf.getChannel()) {
+			channel.truncate(0);
+
+			ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + 4 * this.data.length);
+			buffer.putInt(MAGIC)
+			.putDouble(this.angularStep)
+			.putDouble(this.altitudeMin)
+			.putDouble(this.altitudeStep)
+			.putDouble(this.epoch)
+			.putDouble(0.)
+			.putInt(this.nLat)
+			.putInt(this.nLon)
+			.putInt(this.nAlt);
+			buffer.asFloatBuffer().put(this.data);
+			buffer.position(buffer.limit());
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		}
+	}
+
+	/**
+	 * Read the channel until the buffer is full.
+	 * @param channel Source channel
+	 * @param buffer Destination buffer
+	 * @throws IOException if the end of the channel is reached first
+	 */
+	private static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer) < 0) {
+				throw new IOException("Unexpected end of the geomagnetic field grid.");
+			}
+		}
+	}
+
+	/**
+	 * Check that the grid was built with the given parameters.
+	 * @param epoch Decimal year of the model
+	 * @param angularStep Step in latitude and longitude (deg)
+	 * @param altitudeMin Lowest altitude of the band (km)
+	 * @param altitudeMax Highest altitude of the band (km)
+	 * @param altitudeStep Step in altitude (km)
+	 * @return True if the grid matches the parameters
+	 */
+	public boolean matches(double epoch, double angularStep,
+			double altitudeMin, double altitudeMax, double altitudeStep) {
+		return this.epoch == epoch
+				&& this.angularStep == angularStep
+				&& this.altitudeMin == altitudeMin
+				&& this.altitudeStep == altitudeStep
+				&& this.getAltitudeMax() >= altitudeMax;
+	}
+
+	/**
+	 * Check if an altitude is covered by the grid.
+	 * @param altitude Altitude (km)
+	 * @return True if the grid can interpolate at this altitude
+	 */
+	public boolean covers(double altitude) {
+		return altitude >= this.altitudeMin && altitude <= this.getAltitudeMax();
+	}
+
+	/**
+	 * Interpolate the field at the given location.
+	 * <p>
+	 * The altitude should be covered by the grid.
+	 *
+	 * @param latitude Latitude (decimal deg)
+	 * @param longitude Longitude (decimal deg)
+	 * @param altitude Altitude (km)
+	 * @return The field vector in the frame of the model (nT)
+	 * @see #covers(double)
+	 */
+	public Vector3D interpolate(double latitude, double longitude, double altitude) {
+
+		/* Locate the cell and the position inside the cell. */
+		double uLat = clamp((latitude + 90.) / this.angularStep, this.nLat - 1);
+		double uLon = clamp((longitude + 180.) / this.angularStep, this.nLon - 1);
+		double uAlt = clamp((altitude - this.altitudeMin) / this.altitudeStep, this.nAlt - 1);
+
+		int iLat = FastMath.min((int) uLat, this.nLat - 2);
+		int iLon = FastMath.min((int) uLon, this.nLon - 2);
+		int iAlt = FastMath.min((int) uAlt, this.nAlt - 2);
+
+		double tLat = uLat - iLat;
+		double tLon = uLon - iLon;
+		double tAlt = uAlt - iAlt;
+
+		/* Offsets of the neighbouring nodes. */
+		int dLon = 3;
+		int dLat = 3 * this.nLon;
+		int dAlt = 3 * this.nLon * this.nLat;
+		int i000 = iAlt * dAlt + iLat * dLat + iLon * dLon;
+
+		double[] b = new double[3];
+		for (int k = 0; k < 3; k++) {
+			int i = i000 + k;
+			double c00 = lerp(this.data[i],               this.data[i + dLon],               tLon);
+			double c10 = lerp(this.data[i + dLat],        this.data[i + dLat + dLon],        tLon);
+			double c01 = lerp(this.data[i + dAlt],        this.data[i + dAlt + dLon],        tLon);
+			double c11 = lerp(this.data[i + dAlt + dLat], this.data[i + dAlt + dLat + dLon], tLon);
+			b[k] = lerp(lerp(c00, c10, tLat), lerp(c01, c11, tLat), tAlt);
+		}
+
+		return new Vector3D(b);
+	}
+
+	/** Linear interpolation between a and b. */
+	private static double lerp(double a, double b, double t) {
+		return a + t * (b - a);
+	}
+
+	/** Bound a grid coordinate to [0, max]. */
+	private static double clamp(double u, int max) {
+		return FastMath.max(0., FastMath.min(u, max));
+	}
+
+	/**
+	 * @return The highest altitude of the grid (km)
+	 */
+	public double getAltitudeMax() {
+		return this.altitudeMin + (this.nAlt - 1) * this.altitudeStep;
+	}
+
+	/**
+	 * @return The decimal year of the model
+	 */
+	public double getEpoch() {
+		return epoch;
+	}
+
+	/**
+	 * @return The number of nodes of the grid
+	 */
+	public int getSize() {
+		return this.nLat * this.nLon * this.nAlt;
+	}
+}
@@ -14,10 +14,25 @@
 
 package msp.simulator.environment.gravitationalPotential;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.hipparchus.util.FastMath;
 import org.orekit.errors.OrekitException;
 import org.orekit.forces.gravity.potential.GravityFieldFactory;
 import org.orekit.forces.gravity.potential.ICGEMFormatReader;
 import org.orekit.forces.gravity.potential.NormalizedSphericalHarmonicsProvider;
+import org.orekit.forces.gravity.potential.NormalizedSphericalHarmonicsProvider.NormalizedSphericalHarmonics;
+import org.orekit.forces.gravity.potential.TideSystem;
+import org.orekit.time.AbsoluteDate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -32,32 +47,210 @@ import msp.simulator.utils.logs.CustomLoggingTools;
  * are linked here.
  * It also provides some other methods and tools useful to some other
  * modules of the simulator, e.g. the forces and the dynamic.
+ * <p>
+ * The coefficients of a given degree and order are read only once 
+ * in the process and shared by all the instances. They can also be
+ * saved in a binary snapshot file and reloaded from it, avoiding the
+ * parsing of the ICGEM file. The coefficients are loaded when the
+ * forces first request them.
  * 
  * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
  */
 public class GravitationalPotential {
 
+	/* ******* Public Static Attributes ******* */
+
+	/** Degree of the gravity field. */
+	public static int degree = 6;
+
+	/** Order of the gravity field. */
+	public static int order = 6;
+
+	/** Binary snapshot of the coefficients, or null to always read
+	 * the ICGEM file.
+	 */
+	public static String coefficientsSnapshotFile = null;
+
+	/* **************************************** */
+
 	/** Logger of the class. */
 	private static final Logger logger = LoggerFactory.getLogger(
 			GravitationalPotential.class);
 
+	/** Identifier at the head of the snapshot file. */
+	private static final int SNAPSHOT_MAGIC = 0x47524156;
+
+	/** Providers already loaded in the process, by degree and order. */
+	private static final Map<String, NormalizedSphericalHarmonicsProvider> sharedProviders =
+			new ConcurrentHashMap<String, NormalizedSphericalHarmonicsProvider>();
+
+	/** True once the ICGEM reader is registered in OreKit. */
+	private static boolean readerRegistered = false;
+
 	private NormalizedSphericalHarmonicsProvider spericalHarmonicProvider;
 
+	/** Degree of this instance. */
+	private final int fieldDegree;
+
+	/** Order of this instance. */
+	private final int fieldOrder;
+
+	/**
+	 * Create the potential with the current degree and order.
+	 * <p>
+	 * The coefficients are only loaded on first use.
+	 */
 	public GravitationalPotential() {
+		this.fieldDegree = GravitationalPotential.degree;
+		this.fieldOrder = GravitationalPotential.order;
+		this.spericalHarmonicProvider = null;
+	}
+
+	/**
+	 * Load the coefficients on first use.
+	 */
+	private synchronized void load() {
+		if (this.spericalHarmonicProvider != null) {
+			return;
+		}
 		logger.info(CustomLoggingTools.indentMsg(logger,
-				"Loading the Earth Potential Gravity Field..."));
-		
-		/* Loading the Earth Gravity Field in OreKit. */
-		GravityFieldFactory.addPotentialCoefficientsReader(
-				new ICGEMFormatReader(GravityFieldFactory.ICGEM_FILENAME, true));
+				"Loading the Earth Potential Gravity Field ("
+						+ this.fieldDegree + "x" + this.fieldOrder + ")..."));
 		try {
-			this.spericalHarmonicProvider = 
-					GravityFieldFactory.getConstantNormalizedProvider(6, 6);
+			this.spericalHarmonicProvider = GravitationalPotential.getSharedProvider(
+					this.fieldDegree, this.fieldOrder);
 		} catch (OrekitException e) {
 			e.printStackTrace();
 		}
 	}
 
+	/**
+	 * Provide the coefficients of the given degree and order, either
+	 * already loaded in the process, read from the snapshot or read
+	 * from the ICGEM file.
+	 * @param degree Degree of the field
+	 * @param order Order of the field
+	 * @return The provider of the coefficients
+	 * @throws OrekitException if the coefficients can not be read
+	 */
+	private static synchronized NormalizedSphericalHarmonicsProvider getSharedProvider(
+			int degree, int order) throws OrekitException {
+		String key = degree + "x" + order;
+		NormalizedSphericalHarmonicsProvider provider = sharedProviders.get(key);
+		if (provider != null) {
+			return provider;
+		}
+
+		File snapshot = (GravitationalPotential.coefficientsSnapshotFile == null) ?
+				null : new File(GravitationalPotential.coefficientsSnapshotFile);
+
+		if (snapshot != null && snapshot.isFile()) {
+			try {
+				provider = readSnapshot(snapshot, degree, order);
+				if (provider != null) {
+					logger.info(CustomLoggingTools.indentMsg(logger,
+							"Gravity field coefficients loaded from " + snapshot));
+				}
+			} catch (IOException e) {
+				logger.error("Loading the gravity field snapshot failed: " + e.getMessage());
+			}
+		}
+
+		if (provider == null) {
+			/* Loading the Earth Gravity Field in OreKit. */
+			if (!readerRegistered) {
+				GravityFieldFactory.addPotentialCoefficientsReader(
+						new ICGEMFormatReader(GravityFieldFactory.ICGEM_FILENAME, true));
+				readerRegistered = true;
+			}
+			provider = GravityFieldFactory.getConstantNormalizedProvider(degree, order);
+
+			if (snapshot != null) {
+				try {
+					writeSnapshot(snapshot, provider);
+				} catch (IOException e) {
+					logger.error("Saving the gravity field snapshot failed: " + e.getMessage());
+				}
+			}
+		}
+
+		sharedProviders.put(key, provider);
+		return provider;
+	}
+
+	/**
+	 * Save the coefficients of a constant provider in a binary file.
+	 * @param file Destination file
+	 * @param provider Provider of the coefficients
+	 * @throws IOException if the file can not be written
+	 * @throws OrekitException if the coefficients can not be retrieved
+	 */
+	private static void writeSnapshot(File file, NormalizedSphericalHarmonicsProvider provider)
+			throws IOException, OrekitException {
+		NormalizedSphericalHarmonics harmonics = provider.onDate(AbsoluteDate.J2000_EPOCH);
+		int maxDegree = provider.getMaxDegree();
+		int maxOrder = provider.getMaxOrder();
+
+		if (file.getParentFile() != null) {
+			file.getParentFile().mkdirs();
+		}
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(file)))) {
+			out.writeInt(SNAPSHOT_MAGIC);
+			out.writeInt(maxDegree);
+			out.writeInt(maxOrder);
+			out.writeDouble(provider.getAe());
+			out.writeDouble(provider.getMu());
+			out.writeUTF(provider.getTideSystem().name());
+			for (int n = 0; n <= maxDegree; n++) {
+				for (int m = 0; m <= FastMath.min(n, maxOrder); m++) {
+					out.writeDouble(harmonics.getNormalizedCnm(n, m));
+					out.writeDouble(harmonics.getNormalizedSnm(n, m));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Read the coefficients from a binary snapshot.
+	 * @param file Snapshot file
+	 * @param degree Expected degree
+	 * @param order Expected order
+	 * @return The provider, or null if the snapshot does not match
+	 * @throws IOException if the file can not be read
+	 */
+	private static NormalizedSphericalHarmonicsProvider readSnapshot(File file, 
+			int degree, int order) throws IOException {
+		try (DataInputStream in = new DataInputStream(
+				new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != SNAPSHOT_MAGIC) {
+				throw new IOException("Not a gravity field snapshot: " + file);
+			}
+			int maxDegree = in.readInt();
+			int maxOrder = in.readInt();
+			if (maxDegree != degree || maxOrder != order) {
+				logger.info(CustomLoggingTools.indentMsg(logger,
+						"Gravity field snapshot does not match the configuration."));
+				return null;
+			}
+			double ae = in.readDouble();
+			double mu = in.readDouble();
+			TideSystem tideSystem = TideSystem.valueOf(in.readUTF());
+
+			double[][] c = new double[maxDegree + 1][];
+			double[][] s = new double[maxDegree + 1][];
+			for (int n = 0; n <= maxDegree; n++) {
+				int size = FastMath.min(n, maxOrder) + 1;
+				c[n] = new double[size];
+				s[n] = new double[size];
+				for (int m = 0; m < size; m++) {
+					c[n][m] = in.readDouble();
+					s[n][m] = in.readDouble();
+				}
+			}
+			return GravityFieldFactory.getNormalizedProvider(ae, mu, tideSystem, c, s);
+		}
+	}
 
 	/**
 	 * Return the provider of the gravity model harmonic fields.
@@ -68,6 +261,26 @@ public class GravitationalPotential {
 	 */
 	public NormalizedSphericalHarmonicsProvider 
 	getNormalizedSphericalHarmonicCoeffProvider() {
+		this.load();
 		return this.spericalHarmonicProvider;
 	}
+
+	/**
+	 * Check if the field is reduced to the Earth flattening, in 
+	 * which case an analytical model can be used.
+	 * @return True if the degree is 2 and the order 0
+	 */
+	public boolean isJ2Only() {
+		return this.fieldDegree == 2 && this.fieldOrder == 0;
+	}
+
+	/**
+	 * Return the unnormalized J2 coefficient of the field.
+	 * @return J2 = -C20
+	 * @throws OrekitException if the coefficients can not be retrieved
+	 */
+	public double getJ2() throws OrekitException {
+		return -this.getNormalizedSphericalHarmonicCoeffProvider().onDate(AbsoluteDate.J2000_EPOCH)
+				.getNormalizedCnm(2, 0) * FastMath.sqrt(5.);
+	}
 }
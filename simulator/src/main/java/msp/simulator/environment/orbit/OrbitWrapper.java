@@ -106,6 +106,13 @@ public class OrbitWrapper {
 			this.trueLatitude = trueLatitude;
 			this.dateUtc = dateUtc;
 		}
+
+		/**
+		 * @return The UTC date of definition, e.g. "2018-12-21T22:23:00.000"
+		 */
+		public String getDateUtc() {
+			return this.dateUtc;
+		}
 	}
 
 	/** Local Orbital Frame related to the instance of the orbit. */
@@ -0,0 +1,285 @@
+/* Copyright 20017-2018 Melbourne Space Program
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package msp.simulator.environment.solarSystem;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.hipparchus.RealFieldElement;
+import org.hipparchus.analysis.interpolation.HermiteInterpolator;
+import org.hipparchus.geometry.euclidean.threed.Vector3D;
+import org.hipparchus.util.FastMath;
+import org.orekit.bodies.CelestialBody;
+import org.orekit.errors.OrekitException;
+import org.orekit.frames.Frame;
+import org.orekit.frames.FramesFactory;
+import org.orekit.time.AbsoluteDate;
+import org.orekit.time.FieldAbsoluteDate;
+import org.orekit.utils.TimeStampedFieldPVCoordinates;
+import org.orekit.utils.TimeStampedPVCoordinates;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class wraps a celestial body of OreKit and serves its
+ * position and velocity from samples taken on a regular time grid.
+ * <p>
+ * The samples are computed lazily in the inertial frame EME2000
+ * when the simulation reaches them, and the coordinates in between
+ * are interpolated with an Hermite polynomial using both positions
+ * and velocities. Each interval of the grid is checked once against
+ * the wrapped body at its middle, where the interpolation error is
+ * the largest, and the maximum error is reported.
+ *
+ * @see CelestialBody
+ * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
+ */
+public class CachedCelestialBody implements CelestialBody {
+
+	/** Generated Serial Version UID. */
+	private static final long serialVersionUID = -5823207046620514087L;
+
+	/* ******* Public Static Attributes ******* */
+
+	/** Serve the Sun and the Moon from the cache. */
+	public static boolean useEphemerisCache = false;
+
+	/** Time step between two samples. (s) */
+	public static double samplingStep = 3600. ;
+
+	/** Number of samples used by the interpolation (even). */
+	public static int interpolationPoints = 4;
+
+	/** Interpolation error beyond which a warning is logged. (m) */
+	public static double errorTolerance = 1.0 ;
+
+	/* **************************************** */
+
+	/** Logger of the class. */
+	private static final Logger logger = LoggerFactory.getLogger(
+			CachedCelestialBody.class);
+
+	/** The wrapped celestial body. */
+	private final CelestialBody body;
+
+	/** Frame of the samples. */
+	private final Frame sampleFrame;
+
+	/** Time step between two samples. (s) */
+	private final double step;
+
+	/** Number of samples used by the interpolation. */
+	private final int points;
+
+	/** Date of the sample of index 0. */
+	private AbsoluteDate reference;
+
+	/** Samples computed so far, by index on the grid. */
+	private final Map<Long, TimeStampedPVCoordinates> samples;
+
+	/** Intervals of the grid already checked. */
+	private final Set<Long> checkedIntervals;
+
+	/** Largest interpolation error observed. (m) */
+	private double maxInterpolationError;
+
+	/** Interpolating polynomial of the current interval. */
+	private transient HermiteInterpolator interpolator;
+
+	/** Index of the interval of the current polynomial. */
+	private long interpolatorInterval;
+
+	/** Last date served in the sample frame. */
+	private AbsoluteDate lastDate;
+
+	/** Last coordinates served in the sample frame. */
+	private TimeStampedPVCoordinates lastPV;
+
+	/**
+	 * Wrap a celestial body with the current static configuration.
+	 * @param body The body to wrap
+	 */
+	public CachedCelestialBody(CelestialBody body) {
+		this.body = body;
+		this.sampleFrame = FramesFactory.getEME2000();
+		this.step = CachedCelestialBody.samplingStep;
+		this.points = FastMath.max(2, 2 * (CachedCelestialBody.interpolationPoints / 2));
+		this.samples = new HashMap<Long, TimeStampedPVCoordinates>();
+		this.checkedIntervals = new HashSet<Long>();
+		this.maxInterpolationError = 0;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public TimeStampedPVCoordinates getPVCoordinates(AbsoluteDate date, Frame frame)
+			throws OrekitException {
+		TimeStampedPVCoordinates pv = this.getSamplePVCoordinates(date);
+		if (frame == this.sampleFrame) {
+			return pv;
+		}
+		return this.sampleFrame.getTransformTo(frame, date).transformPVCoordinates(pv);
+	}
+
+	/**
+	 * Interpolate the coordinates of the body in the sample frame.
+	 * @param date Date of the coordinates
+	 * @return The interpolated coordinates
+	 * @throws OrekitException if the wrapped body fails
+	 */
+	private synchronized TimeStampedPVCoordinates getSamplePVCoordinates(AbsoluteDate date)
+			throws OrekitException {
+
+		/* Same date requested by several models at a given stage. */
+		if (date.equals(this.lastDate)) {
+			return this.lastPV;
+		}
+
+		if (this.reference == null) {
+			this.reference = date;
+		}
+
+		long interval = (long) FastMath.floor(date.durationFrom(this.reference) / this.step);
+		TimeStampedPVCoordinates pv = this.interpolate(date, interval);
+
+		if (this.checkedIntervals.add(interval)) {
+			this.checkInterval(interval);
+		}
+
+		this.lastDate = date;
+		this.lastPV = pv;
+
+		return pv;
+	}
+
+	/**
+	 * Interpolate at a date from the samples around the interval.
+	 * <p>
+	 * The interpolating polynomial only depends on the interval, so
+	 * it is built once and reused for all the dates inside.
+	 *
+	 * @param date Date of the interpolation
+	 * @param interval Index of the interval containing the date
+	 * @return The interpolated coordinates
+	 * @throws OrekitException if the wrapped body fails
+	 */
+	private TimeStampedPVCoordinates interpolate(AbsoluteDate date, long interval)
+			throws OrekitException {
+		if (this.interpolator == null || interval != this.interpolatorInterval) {
+			HermiteInterpolator hermite = new HermiteInterpolator();
+			long first = interval - this.points / 2 + 1;
+			for (long k = first; k < first + this.points; k++) {
+				TimeStampedPVCoordinates sample = this.getSample(k);
+				hermite.addSamplePoint((k - interval) * this.step,
+						sample.getPosition().toArray(),
+						sample.getVelocity().toArray());
+			}
+			this.interpolator = hermite;
+			this.interpolatorInterval = interval;
+		}
+
+		double dt = date.durationFrom(this.reference) - interval * this.step;
+		double[][] pv = this.interpolator.derivatives(dt, 1);
+
+		return new TimeStampedPVCoordinates(date,
+				new Vector3D(pv[0]), new Vector3D(pv[1]), Vector3D.ZERO);
+	}
+
+	/**
+	 * Check the interpolation at the middle of an interval
+	 * against the wrapped body.
+	 * @param interval Index of the interval
+	 * @throws OrekitException if the wrapped body fails
+	 */
+	private void checkInterval(long interval) throws OrekitException {
+		AbsoluteDate middle = this.reference.shiftedBy((interval + 0.5) * this.step);
+		double error = this.interpolate(middle, interval).getPosition().distance(
+				this.body.getPVCoordinates(middle, this.sampleFrame).getPosition());
+
+		if (error > this.maxInterpolationError) {
+			if (error > CachedCelestialBody.errorTolerance
+					&& this.maxInterpolationError <= CachedCelestialBody.errorTolerance) {
+				logger.warn("Ephemeris interpolation error of the " + this.getName()
+				+ " exceeds the tolerance: " + error + " m. - Reduce the sampling step.");
+			}
+			this.maxInterpolationError = error;
+		}
+	}
+
+	/**
+	 * Return a sample of the grid, computing it on first use.
+	 * @param index Index of the sample on the grid
+	 * @return The sample
+	 * @throws OrekitException if the wrapped body fails
+	 */
+	private TimeStampedPVCoordinates getSample(long index) throws OrekitException {
+		TimeStampedPVCoordinates sample = this.samples.get(index);
+		if (sample == null) {
+			sample = this.body.getPVCoordinates(
+					this.reference.shiftedBy(index * this.step), this.sampleFrame);
+			this.samples.put(index, sample);
+		}
+		return sample;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public <T extends RealFieldElement<T>> TimeStampedFieldPVCoordinates<T> getPVCoordinates(
+			FieldAbsoluteDate<T> date, Frame frame) throws OrekitException {
+		return this.body.getPVCoordinates(date, frame);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public Frame getInertiallyOrientedFrame() throws OrekitException {
+		return this.body.getInertiallyOrientedFrame();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public Frame getBodyOrientedFrame() throws OrekitException {
+		return this.body.getBodyOrientedFrame();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public String getName() {
+		return this.body.getName();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public double getGM() {
+		return this.body.getGM();
+	}
+
+	/**
+	 * Return the largest interpolation error observed at the
+	 * middle of the intervals used so far.
+	 * @return The maximum position error (m)
+	 */
+	public synchronized double getMaxInterpolationError() {
+		return this.maxInterpolationError;
+	}
+
+	/**
+	 * @return The wrapped celestial body
+	 */
+	public CelestialBody getBody() {
+		return this.body;
+	}
+
+}
@@ -14,12 +14,21 @@
 
 package msp.simulator.environment.solarSystem;
 
+import org.hipparchus.RealFieldElement;
 import org.orekit.bodies.CelestialBody;
 import org.orekit.bodies.CelestialBodyFactory;
 import org.orekit.bodies.OneAxisEllipsoid;
 import org.orekit.errors.OrekitException;
-import org.orekit.frames.FactoryManagedFrame;
+import org.orekit.frames.FieldTransform;
+import org.orekit.frames.Frame;
 import org.orekit.frames.FramesFactory;
+import org.orekit.frames.ShiftingTransformProvider;
+import org.orekit.frames.Transform;
+import org.orekit.frames.TransformProvider;
+import org.orekit.time.AbsoluteDate;
+import org.orekit.time.FieldAbsoluteDate;
+import org.orekit.utils.AngularDerivativesFilter;
+import org.orekit.utils.CartesianDerivativesFilter;
 import org.orekit.utils.Constants;
 import org.orekit.utils.IERSConventions;
 import org.orekit.utils.PVCoordinatesProvider;
@@ -41,6 +50,22 @@ import msp.simulator.utils.logs.CustomLoggingTools;
  */
 public class Earth {
 
+	/* ******* Public Static Attributes ******* */
+
+	/** Use a cached rotating frame, i.e. the transforms from the 
+	 * inertial frame are interpolated on a time grid instead of
+	 * being computed from the IERS conventions at each request.
+	 */
+	public static boolean useRotatingFrameCache = false;
+
+	/** Time step of the rotating frame cache grid. (s) */
+	public static double rotatingFrameCacheStep = 60.;
+
+	/** Number of grid points used by the interpolation. */
+	public static int rotatingFrameCachePoints = 4;
+
+	/* **************************************** */
+
 	/** Logger of the Earth instance. */
 	private final Logger logger;
 	
@@ -58,10 +83,10 @@ public class Earth {
 	private CelestialBody celestialBody = null;
 	
 	/** Earth-centered and rotating frame. */
-	private FactoryManagedFrame rotatingFrame;
+	private Frame rotatingFrame = null;
 	
 	/** Body Shape of the Earth Celestial Body. */
-	private OneAxisEllipsoid ellipsoid = null;
+	private volatile OneAxisEllipsoid ellipsoid = null;
 	
 	/** The Earth Radius. */
 	private double radius;
@@ -94,8 +119,28 @@ public class Earth {
 			/*	-> Radius								*/
 			this.radius = Constants.WGS84_EARTH_EQUATORIAL_RADIUS;
 			
+			/*  -> The rotating frame and the ellipsoid are built on first use. */
+			
+		} catch (OrekitException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Build the rotating frame and the ellipsoid on first use, 
+	 * i.e. load the Earth orientation parameters only when needed.
+	 */
+	private synchronized void loadRotatingFrame() {
+		if (this.ellipsoid != null) {
+			return;
+		}
+		try {
 			/*  -> Earth Rotating Frame. */
-			this.rotatingFrame = FramesFactory.getITRF(IERSConventions.IERS_2010, true);
+			Frame itrf = FramesFactory.getITRF(IERSConventions.IERS_2010, true);
+			if (Earth.useRotatingFrameCache) {
+				itrf = Earth.buildCachedFrame(itrf);
+			}
+			this.rotatingFrame = itrf;
 			
 			/*	-> Ellipsoid								*/
 			this.ellipsoid = new OneAxisEllipsoid (
@@ -122,6 +167,9 @@ public class Earth {
 	 * @return OneAxisEllipsoid
 	 */
 	public OneAxisEllipsoid getEllipsoid() {
+		if (this.ellipsoid == null) {
+			this.loadRotatingFrame();
+		}
 		return this.ellipsoid;
 	}
 	
@@ -146,12 +194,79 @@ public class Earth {
 		return this.attractCoeff_mu;
 	}
 	
+	/**
+	 * Build a frame equivalent to the given Earth frame but directly
+	 * attached to EME2000, whose transforms are computed on a regular
+	 * time grid and shifted to the requested dates.
+	 * @param itrf The Earth frame to cache
+	 * @return The cached frame
+	 */
+	private static Frame buildCachedFrame(Frame itrf) {
+		Frame eme2000 = FramesFactory.getEME2000();
+
+		TransformProvider shifting = new ShiftingTransformProvider(
+				new DirectTransformProvider(eme2000, itrf),
+				CartesianDerivativesFilter.USE_PVA,
+				AngularDerivativesFilter.USE_RR,
+				Earth.rotatingFrameCachePoints,
+				Earth.rotatingFrameCacheStep,
+				org.orekit.utils.OrekitConfiguration.getCacheSlotsNumber(),
+				Constants.JULIAN_DAY,
+				Constants.JULIAN_DAY
+				);
+
+		return new Frame(eme2000, shifting, itrf.getName() + "-CACHED", false);
+	}
+
+	/**
+	 * Provide the transform between two frames through the
+	 * frames tree, i.e. without any cache.
+	 */
+	private static class DirectTransformProvider implements TransformProvider {
+
+		/** Generated Serial Version UID. */
+		private static final long serialVersionUID = 4528017309734616873L;
+
+		/** Origin frame. */
+		private final Frame from;
+
+		/** Destination frame. */
+		private final Frame to;
+
+		/**
+		 * @param from Origin frame
+		 * @param to Destination frame
+		 */
+		DirectTransformProvider(Frame from, Frame to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public Transform getTransform(AbsoluteDate date) throws OrekitException {
+			return this.from.getTransformTo(this.to, date);
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public <T extends RealFieldElement<T>> FieldTransform<T> getTransform(
+				FieldAbsoluteDate<T> date) throws OrekitException {
+			return this.from.getTransformTo(this.to, date);
+		}
+	}
+
 	/**
 	 * Return the Earth-centered rotating frame.<p>
-	 * FramesFactory.getITRF(IERSConventions.IERS_2010, true)
+	 * FramesFactory.getITRF(IERSConventions.IERS_2010, true), or
+	 * its cached equivalent if enabled.
 	 * @return ITRF Frame from IERS 2010 Convention
+	 * @see #useRotatingFrameCache
 	 */
-	public FactoryManagedFrame getRotatingFrame() {
+	public Frame getRotatingFrame() {
+		if (this.ellipsoid == null) {
+			this.loadRotatingFrame();
+		}
 		return this.rotatingFrame;
 	}
 	
@@ -43,6 +43,11 @@ public class Moon {
 	
 		try {
 			this.moonCelestialBody = CelestialBodyFactory.getMoon();
+
+			/* Serve the positions from sparse samples if required. */
+			if (CachedCelestialBody.useEphemerisCache) {
+				this.moonCelestialBody = new CachedCelestialBody(this.moonCelestialBody);
+			}
 			
 		} catch (OrekitException e) {
 			e.printStackTrace();
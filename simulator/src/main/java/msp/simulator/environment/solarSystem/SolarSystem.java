@@ -89,6 +89,27 @@ public class SolarSystem {
 		return this.moon;
 	}
 	
+	/**
+	 * Log the interpolation error of the celestial bodies served
+	 * from the ephemeris cache, if any.
+	 * @see CachedCelestialBody
+	 */
+	public void logEphemerisCacheErrors() {
+		Object[] bodies = new Object[] {
+				this.sun.getPvCoordinateProvider(),
+				this.moon.getMoonCelestialBody()
+		};
+		for (Object body : bodies) {
+			if (body instanceof CachedCelestialBody) {
+				CachedCelestialBody cached = (CachedCelestialBody) body;
+				logger.info(CustomLoggingTools.indentMsg(logger,
+						"Ephemeris Cache - " + cached.getName() 
+						+ ": max. interpolation error "
+						+ cached.getMaxInterpolationError() + " m."));
+			}
+		}
+	}
+	
 	/** Return the inertial frame of the Solar System,
 	 * i.e. the EME2000 singleton instance from OreKit.
 	 * @return FramesFactory.getEME2000()
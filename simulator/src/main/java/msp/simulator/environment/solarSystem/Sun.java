@@ -52,6 +52,11 @@ public class Sun {
 				"-> Building the Sun..."));
 		try {
 			this.sunCelestialBody = CelestialBodyFactory.getSun();
+
+			/* Serve the positions from sparse samples if required. */
+			if (CachedCelestialBody.useEphemerisCache) {
+				this.sunCelestialBody = new CachedCelestialBody(this.sunCelestialBody);
+			}
 		} catch (OrekitException e) {
 			e.printStackTrace();
 		}
@@ -14,6 +14,9 @@
 
 package msp.simulator.groundStation;
 
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.nio.ByteBuffer;
 
 import org.hipparchus.util.FastMath;
@@ -29,9 +32,10 @@ import org.slf4j.LoggerFactory;
 
 import msp.simulator.environment.Environment;
 import msp.simulator.satellite.Satellite;
+import msp.simulator.satellite.io.MemcachedChannel;
 import msp.simulator.satellite.io.MemcachedRawTranscoder;
+import msp.simulator.utils.checkpoint.Checkpointable;
 import msp.simulator.utils.logs.CustomLoggingTools;
-import net.spy.memcached.MemcachedClient;
 
 /**
  * Primary class managing the ground station segment of the numerical
@@ -39,7 +43,7 @@ import net.spy.memcached.MemcachedClient;
  * 
  * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
  */
-public class GroundStation {
+public class GroundStation implements Checkpointable {
 
 	/* ******* Public Static Attributes ******* */
 
@@ -126,7 +130,7 @@ public class GroundStation {
 			/* Export to MemCached. */
 			try {
 				if (this.satellite.getIO().isConnectedToMemCached()) {
-					MemcachedClient memcached = this.satellite.getIO().getMemcached();
+					MemcachedChannel memcached = this.satellite.getIO().getMemcachedChannel();
 
 					/* Because the board required the TLE format and OreKit only retrieve
 					 * the parameters on a space dynamic view, we need to parse the lines.
@@ -250,4 +254,16 @@ public class GroundStation {
 		return teamIsWorking;
 	}
 
+	/** {@inheritDoc} */
+	@Override
+	public void writeCheckpoint(ObjectOutput out) throws IOException {
+		out.writeObject(this.nextWorkingDate);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void readCheckpoint(ObjectInput in) throws IOException, ClassNotFoundException {
+		this.nextWorkingDate = (AbsoluteDate) in.readObject();
+	}
+
 }
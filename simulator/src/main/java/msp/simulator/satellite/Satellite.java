@@ -14,15 +14,16 @@
 
 package msp.simulator.satellite;
 
-import org.hipparchus.geometry.euclidean.threed.Vector3D;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import msp.simulator.environment.Environment;
+import msp.simulator.satellite.actuators.Actuators;
 import msp.simulator.satellite.assembly.Assembly;
 import msp.simulator.satellite.assembly.SatelliteStates;
 import msp.simulator.satellite.io.IO;
 import msp.simulator.satellite.io.MemcachedRawTranscoder;
+import msp.simulator.satellite.sensors.SensorFrame;
 import msp.simulator.satellite.sensors.Sensors;
 import msp.simulator.utils.logs.CustomLoggingTools;
 
@@ -44,6 +45,9 @@ public class Satellite {
 	/** Instance of the IO Manager of the satellite. */
 	private IO io;
 
+	/** Instance of the Actuators of the satellite. */
+	private Actuators actuators;
+
 	/**
 	 * Build the intance of the Satellite in the simulation and connect
 	 * the required IO.
@@ -64,6 +68,10 @@ public class Satellite {
 		Satellite.logger.info(CustomLoggingTools.indentMsg(Satellite.logger,
 				"  -> Connecting to the IO modules..."));
 		this.io.start();
+		this.io.setSimulationClock(this.assembly.getStates());
+
+		/* Building the actuators. */
+		this.actuators = new Actuators(this.sensors, this.assembly, this.io);
 
 	}
 
@@ -74,115 +82,29 @@ public class Satellite {
 	 */
 	public void executeStepMission() {
 
-		this.getSensors().getGyrometer().getData_rotAcc();
-
+		/* Sample the sensors at their own rate over the step. */
+		this.sensors.processStep(this.assembly.getStates().getCurrentState());
 
-		/* Export Sensor Measurements */
+		/* Export the latest available Sensor Measurements */
 		if (this.io.isConnectedToMemCached()) {
 
-			/* Magnetometer Measurement of the Geomagnetic field vector. */
-			/* This import is done once to avoid multiple noise computation.
-			 * But it actually does not matter.*/
-			Vector3D mmtMeasuredData = this.getSensors().getMagnetometer().getData_magField();
-
 			/* Note that the double types are converted into an array of bytes
 			 * before being send to the Memcached common memory to avoid both 
-			 * serialization and deserialization issues. */
-			byte[] rawMag_x = MemcachedRawTranscoder.toRawByteArray(mmtMeasuredData.getX());
-			byte[] rawMag_y = MemcachedRawTranscoder.toRawByteArray(mmtMeasuredData.getY());
-			byte[] rawMag_z = MemcachedRawTranscoder.toRawByteArray(mmtMeasuredData.getZ());
-
-			this.io.getMemcached().set(
-					"Simulation_Magnetometer_X", 0, 
-					rawMag_x
-					);
-			this.io.getMemcached().set(
-					"Simulation_Magnetometer_Y", 0, 
-					rawMag_y
-					);
-			this.io.getMemcached().set(
-					"Simulation_Magnetometer_Z", 0, 
-					rawMag_z
-					);		
-			
-			/* Gyrometer Sensor Measurement */
-			Vector3D gyroMeasure = this.getSensors().getGyrometer().getData_rotAcc();
-			byte[] rawGyro_x = MemcachedRawTranscoder.toRawByteArray(gyroMeasure.getX());
-			byte[] rawGyro_y = MemcachedRawTranscoder.toRawByteArray(gyroMeasure.getY());
-			byte[] rawGyro_z = MemcachedRawTranscoder.toRawByteArray(gyroMeasure.getZ());
-
-			this.io.getMemcached().set(
-					"Simulation_Gyrometer_X", 0, 
-					rawGyro_x
-					);
-			this.io.getMemcached().set(
-					"Simulation_Gyrometer_Y", 0, 
-					rawGyro_y
-					);
-			this.io.getMemcached().set(
-					"Simulation_Gyrometer_Z", 0, 
-					rawGyro_z
-					);
-			
-			/* Infrared Sensor Measurement */
-			Vector3D nadir_ecef = Vector3D.MINUS_K;
-			Vector3D nadir_body = this.assembly.getStates().getCurrentState()
-					.toTransform().transformVector(nadir_ecef);
-
-			double posXIR = this.sensors.getPosXIRSensor()
-					.calculateInfraredReading(nadir_body);
-			byte[] rawIR_xPos = MemcachedRawTranscoder.toRawByteArray(posXIR);
-			this.io.getMemcached().set(
-					"Simulation_IR_X_Pos", 0,
-					rawIR_xPos
-					);
-
-			double negXIR = this.sensors.getNegXIRSensor()
-					.calculateInfraredReading(nadir_body);
-			byte[] rawIR_xNeg = MemcachedRawTranscoder.toRawByteArray(negXIR);
-			this.io.getMemcached().set(
-					"Simulation_IR_X_Neg", 0,
-					rawIR_xNeg
-					);
-
-			double posYIR = this.sensors.getPosYIRSensor()
-					.calculateInfraredReading(nadir_body);
-			byte[] rawIR_yPos = MemcachedRawTranscoder.toRawByteArray(posYIR);
-			this.io.getMemcached().set(
-					"Simulation_IR_Y_Pos", 0,
-					rawIR_yPos
-					);
-
-			double negYIR = this.sensors.getNegYIRSensor()
-					.calculateInfraredReading(nadir_body);
-			byte[] rawIR_yNeg = MemcachedRawTranscoder.toRawByteArray(negYIR);
-			this.io.getMemcached().set(
-					"Simulation_IR_Y_Neg", 0,
-					rawIR_yNeg
-					);
-
-			double posZIR = this.sensors.getPosZIRSensor()
-					.calculateInfraredReading(nadir_body);
-			byte[] rawIR_zPos = MemcachedRawTranscoder.toRawByteArray(posZIR);
-			this.io.getMemcached().set(
-					"Simulation_IR_Z_Pos", 0,
-					rawIR_zPos
-					);
-
-			double negZIR = this.sensors.getNegZIRSensor()
-					.calculateInfraredReading(nadir_body);
-			byte[] rawIR_zNeg = MemcachedRawTranscoder.toRawByteArray(negZIR);
-			this.io.getMemcached().set(
-					"Simulation_IR_Z_Neg", 0,
-					rawIR_zNeg
-					);
+			 * serialization and deserialization issues. Only the channels 
+			 * updated during the step are sent. */
+			SensorFrame frame = this.sensors.getFrame();
+			for (int i = 0; i < frame.getChannelCount(); i++) {
+				if (frame.isUpdated(i)) {
+					this.io.getMemcachedChannel().set(
+							frame.getChannel(i), 0,
+							MemcachedRawTranscoder.toRawByteArray(frame.getValue(i))
+							);
+				}
+			}
 		}
 
 	}
 
-
-
-
 	/**
 	 * Return the assembly of the satellite.
 	 * @return Assembly
@@ -210,6 +132,15 @@ public class Satellite {
 		return this.sensors;
 	}
 
+	/**
+	 * Return the satellite actuators.
+	 * @return Actuators
+	 * @see msp.simulator.satellite.actuators.Actuators
+	 */
+	public Actuators getActuators() {
+		return this.actuators;
+	}
+
 	/**
 	 * Return the satellite IO manager.
 	 * @return IO Instance of the satellite.
@@ -17,23 +17,63 @@ package msp.simulator.satellite.actuators;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import msp.simulator.satellite.assembly.Assembly;
+import msp.simulator.satellite.io.IO;
+import msp.simulator.satellite.sensors.Sensors;
 import msp.simulator.utils.logs.CustomLoggingTools;
 
 /**
+ * This class gathers the actuators of the satellite. Their
+ * torques are registered in the torque engine of the dynamic.
  *
  * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
  */
 public class Actuators {
-	
+
 	/** Logger of the class */
 	private static final Logger logger = LoggerFactory.getLogger(Actuators.class);
 
+	/** Instance of the magnetorquers of the satellite. */
+	private MagnetoTorquers magnetoTorquers;
+
+	/** Instance of the reaction wheels of the satellite. */
+	private ReactionWheels reactionWheels;
+
 	/**
-	 * 
+	 * Build the actuators of the satellite. The IO should be
+	 * started prior to this constructor.
+	 * @param sensors Sensors of the satellite
+	 * @param assembly Assembly of the satellite
+	 * @param io IO Manager of the satellite
 	 */
-	public Actuators() {
+	public Actuators(Sensors sensors, Assembly assembly, IO io) {
 		logger.info(CustomLoggingTools.indentMsg(logger,
 				"Building the Actuators..."));
+
+		this.magnetoTorquers = new MagnetoTorquers(
+				assembly.getStates(),
+				sensors.getMagnetometer(),
+				io.isConnectedToMemCached() ? io.getMemcachedChannel() : null
+				);
+
+		this.reactionWheels = new ReactionWheels(
+				assembly.getStates(),
+				io.isConnectedToMemCached() ? io.getMemcachedChannel() : null
+				);
+	}
+
+	/**
+	 * @return The magnetorquers of the satellite.
+	 */
+	public MagnetoTorquers getMagnetoTorquers() {
+		return this.magnetoTorquers;
+	}
+
+	/**
+	 * @return The reaction wheels of the satellite.
+	 */
+	public ReactionWheels getReactionWheels() {
+		return this.reactionWheels;
 	}
 
 }
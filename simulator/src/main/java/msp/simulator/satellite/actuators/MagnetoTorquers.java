@@ -14,27 +14,315 @@
 
 package msp.simulator.satellite.actuators;
 
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.nio.ByteBuffer;
+
+import org.hipparchus.geometry.euclidean.threed.Rotation;
+import org.hipparchus.geometry.euclidean.threed.Vector3D;
+import org.hipparchus.util.FastMath;
+import org.orekit.errors.OrekitException;
+import org.orekit.propagation.SpacecraftState;
+import org.orekit.time.AbsoluteDate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import msp.simulator.dynamic.propagation.integration.Integration;
+import msp.simulator.dynamic.torques.StageTorqueProvider;
+import msp.simulator.satellite.assembly.SatelliteStates;
+import msp.simulator.satellite.io.MemcachedChannel;
+import msp.simulator.satellite.sensors.Magnetometer;
+import msp.simulator.utils.checkpoint.Checkpointable;
 import msp.simulator.utils.logs.CustomLoggingTools;
 
 /**
+ * This class models the three orthogonal magnetorquers of the
+ * satellite, producing the torque m x B of their dipole m in the
+ * geomagnetic field B.
+ * <p>
+ * The dipole command is acquired once at the beginning of each
+ * step, from the MemCached common memory when connected or as set
+ * by {@link #setDipoleCommand(Vector3D)}. Each axis is saturated at
+ * the maximum dipole and driven by a duty cycle, quantized to the
+ * resolution of the PWM. The dipole is either the mean dipole of
+ * the duty cycle or, if a PWM period is set, the mean of the on/off
+ * dipole over the step, computed from the on-time of the PWM cycles
+ * within the step. The cycles are aligned on the start of the
+ * simulation, so that a period shorter than the step does not alias
+ * with the integration stages.
+ * <p>
+ * The geomagnetic field of the step is the one already evaluated
+ * by the magnetometer, expressed once in the inertial frame and
+ * rotated in the satellite frame by the attitude of each stage. The torque is then only made of a few
+ * primitive operations per stage.
  *
  * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
  */
-public class MagnetoTorquers {
-	
+public class MagnetoTorquers implements StageTorqueProvider, Checkpointable {
+
+	/* ******* Public Static Attributes ******* */
+
+	/** Flag to register the magnetorquers in the torque engine. */
+	public static boolean enabled = false;
+
+	/** Maximum dipole of each magnetorquer. (A.m^2) */
+	public static double maxDipole = 0.2;
+
+	/** Period of the PWM, or 0 to apply the mean dipole of the duty cycle. (s) */
+	public static double pwmPeriod = 0.;
+
+	/** Number of levels of the duty cycle, or 0 for a continuous duty cycle. */
+	public static int pwmResolution = 0;
+
+	/** Public key to access the dipole command in the MemCached hash table. */
+	public static String dipoleCommandKey = "Simulation_Dipole_";
+
+	/* **************************************** */
 
 	/** Logger of the class */
 	private static final Logger logger = LoggerFactory.getLogger(MagnetoTorquers.class);
 
+	/** Satellite states giving the start date of the current step. */
+	private final SatelliteStates satState;
+
+	/** Magnetometer providing the geomagnetic field of the step. */
+	private final Magnetometer magnetometer;
+
+	/** Channel to the MemCached common memory, or null if not connected. */
+	private final MemcachedChannel memcached;
+
+	/** Copy of the maximum dipole. (A.m^2) */
+	private final double dipoleMax;
+
+	/** Copy of the PWM period. (s) */
+	private final double period;
+
+	/** Copy of the number of levels of the duty cycle. */
+	private final int levels;
+
+	/** Copy of the integration time step. (s) */
+	private final double stepSize;
+
+	/** Private key to store the public key. */
+	private final String dipoleKey;
+
+	/** Dipole command. (A.m^2) */
+	private final double[] command;
+
+	/** Signed duty cycle of each axis for the current step, in [-1, 1]. */
+	private final double[] duty;
+
+	/** Dipole applied over the current step. (A.m^2) */
+	private final double[] stepDipole;
+
+	/** Geomagnetic field of the current step in the inertial frame. (T) */
+	private final double[] field;
+
+	/** Start date of the current step. */
+	private AbsoluteDate stepStart;
+
 	/**
-	 * 
+	 * Create the magnetorquers.
+	 * @param satState States of the satellite
+	 * @param magnetometer Magnetometer of the satellite
+	 * @param memcached Channel to the MemCached common memory, or null
+	 * to only use the command set by {@link #setDipoleCommand(Vector3D)}
 	 */
-	public MagnetoTorquers() {
+	public MagnetoTorquers(SatelliteStates satState, Magnetometer magnetometer,
+			MemcachedChannel memcached) {
 		logger.info(CustomLoggingTools.indentMsg(logger,
-				"Building the MagnetoTorquers..."));
+				" -> Building the Magnetorquers..."));
+		this.satState = satState;
+		this.magnetometer = magnetometer;
+		this.memcached = memcached;
+		this.dipoleMax = MagnetoTorquers.maxDipole;
+		this.period = MagnetoTorquers.pwmPeriod;
+		this.levels = MagnetoTorquers.pwmResolution;
+		this.stepSize = Integration.integrationTimeStep;
+		this.dipoleKey = MagnetoTorquers.dipoleCommandKey;
+		this.command = new double[3];
+		this.duty = new double[3];
+		this.stepDipole = new double[3];
+		this.field = new double[3];
+		this.stepStart = null;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void addTorque(SpacecraftState state, double[] torque) {
+		SpacecraftState current = this.satState.getCurrentState();
+		if (!current.getDate().equals(this.stepStart)) {
+			this.startStep(current);
+		}
+
+		double mx = this.stepDipole[0];
+		double my = this.stepDipole[1];
+		double mz = this.stepDipole[2];
+
+		/* Field in the satellite frame, rotated by the stage attitude. */
+		Rotation r = state.getAttitude().getRotation();
+		double q0 = r.getQ0();
+		double q1 = r.getQ1();
+		double q2 = r.getQ2();
+		double q3 = r.getQ3();
+		double x = this.field[0];
+		double y = this.field[1];
+		double z = this.field[2];
+		double s = q1 * x + q2 * y + q3 * z;
+		double bx = 2 * (q0 * (x * q0 - (q2 * z - q3 * y)) + s * q1) - x;
+		double by = 2 * (q0 * (y * q0 - (q3 * x - q1 * z)) + s * q2) - y;
+		double bz = 2 * (q0 * (z * q0 - (q1 * y - q2 * x)) + s * q3) - z;
+
+		torque[0] += my * bz - mz * by;
+		torque[1] += mz * bx - mx * bz;
+		torque[2] += mx * by - my * bx;
+	}
+
+	/**
+	 * Acquire the dipole command and the geomagnetic field of a
+	 * new step, and update the duty cycles.
+	 * @param current State at the beginning of the step
+	 */
+	private void startStep(SpacecraftState current) {
+		if (this.memcached != null) {
+			this.acquireCommand();
+		}
+		for (int i = 0; i < 3; i++) {
+			double d = FastMath.max(-1., FastMath.min(1., this.command[i] / this.dipoleMax));
+			if (this.levels > 0) {
+				d = FastMath.rint(d * this.levels) / this.levels;
+			}
+			this.duty[i] = d;
+		}
+		this.stepStart = current.getDate();
+		this.computeStepDipole();
+		try {
+			Vector3D fieldInertial = this.magnetometer.getFieldInertial(current);
+			this.field[0] = fieldInertial.getX() * 1e-9;
+			this.field[1] = fieldInertial.getY() * 1e-9;
+			this.field[2] = fieldInertial.getZ() * 1e-9;
+		} catch (OrekitException e) {
+			logger.error("Geomagnetic field unavailable: " + e.getMessage());
+		}
+
+		logger.debug("Magnetorquers: " + this.stepStart + " - duty ("
+				+ this.duty[0] + ", " + this.duty[1] + ", " + this.duty[2] + ")");
+	}
+
+	/**
+	 * Compute the dipole applied over the current step from the duty
+	 * cycles, i.e. the mean dipole of the duty cycles or, with a PWM,
+	 * the on-time of the PWM cycles within the step.
+	 */
+	private void computeStepDipole() {
+		double a = 0;
+		double b = 0;
+		if (this.period > 0) {
+			a = this.stepStart.durationFrom(this.satState.getInitialState().getDate())
+					/ this.period;
+			b = a + this.stepSize / this.period;
+		}
+		for (int i = 0; i < 3; i++) {
+			double d = FastMath.abs(this.duty[i]);
+			double fraction = (this.period > 0) ?
+					(MagnetoTorquers.onCycles(b, d) - MagnetoTorquers.onCycles(a, d)) / (b - a) : d;
+			this.stepDipole[i] = FastMath.copySign(this.dipoleMax * fraction, this.duty[i]);
+		}
+	}
+
+	/**
+	 * Cumulated on-time of the PWM since the alignment of its cycles.
+	 * @param cycles Time since the alignment of the cycles (periods)
+	 * @param duty Duty cycle, in [0, 1]
+	 * @return The on-time (periods)
+	 */
+	private static double onCycles(double cycles, double duty) {
+		double n = FastMath.floor(cycles);
+		return n * duty + FastMath.min(cycles - n, duty);
+	}
+
+	/**
+	 * Read the dipole command from the MemCached common memory. The
+	 * previous command is kept if the transmission failed.
+	 */
+	private void acquireCommand() {
+		byte[] x = this.memcached.get(this.dipoleKey + "X");
+		byte[] y = this.memcached.get(this.dipoleKey + "Y");
+		byte[] z = this.memcached.get(this.dipoleKey + "Z");
+		if (x == null || y == null || z == null) {
+			logger.error("Dipole acquisition: MemCached transmission failed.");
+			return;
+		}
+		double mx = ByteBuffer.wrap(x).getDouble();
+		double my = ByteBuffer.wrap(y).getDouble();
+		double mz = ByteBuffer.wrap(z).getDouble();
+		if (Double.isNaN(mx + my + mz) || Double.isInfinite(mx + my + mz)) {
+			logger.error("Dipole acquisition: MemCached transmission failed.");
+			return;
+		}
+		this.command[0] = mx;
+		this.command[1] = my;
+		this.command[2] = mz;
+	}
+
+	/**
+	 * Return the torque of the magnetorquers at the current state
+	 * of the satellite.
+	 * @param date Unused, the torque is the one of the current state
+	 * @return The torque in the satellite frame (N.m)
+	 */
+	@Override
+	public Vector3D getTorque(AbsoluteDate date) {
+		double[] torque = new double[3];
+		this.addTorque(this.satState.getCurrentState(), torque);
+		return new Vector3D(torque);
+	}
+
+	/**
+	 * Set the dipole command, applied from the next step. When
+	 * connected to MemCached, the command is overwritten by the
+	 * acquired one.
+	 * @param dipole Dipole command in the satellite frame (A.m^2)
+	 */
+	public void setDipoleCommand(Vector3D dipole) {
+		this.command[0] = dipole.getX();
+		this.command[1] = dipole.getY();
+		this.command[2] = dipole.getZ();
+	}
+
+	/**
+	 * @return The mean dipole of the current step, after the
+	 * saturation and the quantization of the duty cycle. (A.m^2)
+	 */
+	public Vector3D getDipole() {
+		return new Vector3D(this.duty[0], this.duty[1], this.duty[2])
+				.scalarMultiply(this.dipoleMax);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void writeCheckpoint(ObjectOutput out) throws IOException {
+		out.writeObject(this.stepStart);
+		for (int i = 0; i < 3; i++) {
+			out.writeDouble(this.command[i]);
+			out.writeDouble(this.duty[i]);
+			out.writeDouble(this.field[i]);
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void readCheckpoint(ObjectInput in) throws IOException, ClassNotFoundException {
+		this.stepStart = (AbsoluteDate) in.readObject();
+		for (int i = 0; i < 3; i++) {
+			this.command[i] = in.readDouble();
+			this.duty[i] = in.readDouble();
+			this.field[i] = in.readDouble();
+		}
+		if (this.stepStart != null) {
+			this.computeStepDipole();
+		}
 	}
 
 }
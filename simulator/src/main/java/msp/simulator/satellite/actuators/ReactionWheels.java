@@ -0,0 +1,304 @@
+/* Copyright 20017-2018 Melbourne Space Program
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package msp.simulator.satellite.actuators;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.nio.ByteBuffer;
+
+import org.hipparchus.geometry.euclidean.threed.Vector3D;
+import org.hipparchus.util.FastMath;
+import org.orekit.propagation.SpacecraftState;
+import org.orekit.time.AbsoluteDate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import msp.simulator.dynamic.propagation.integration.Integration;
+import msp.simulator.dynamic.propagation.integration.SecondaryStates;
+import msp.simulator.dynamic.torques.StageTorqueProvider;
+import msp.simulator.satellite.assembly.SatelliteStates;
+import msp.simulator.satellite.io.MemcachedChannel;
+import msp.simulator.utils.checkpoint.Checkpointable;
+import msp.simulator.utils.logs.CustomLoggingTools;
+
+/**
+ * This class models three reaction wheels aligned with the axes
+ * of the satellite frame.
+ * <p>
+ * The speeds of the wheels are integrated with the other secondary
+ * states, in the same pass of the integrator, as the slice
+ * {@link SecondaryStates#WHEEL_SPEED}. The motor torque command is
+ * acquired once at the beginning of each step, from the MemCached
+ * common memory when connected or as set by
+ * {@link #setTorqueCommand(Vector3D)}. It is saturated at the
+ * maximum torque and limited so that no wheel is driven beyond its
+ * maximum speed by the end of the step.
+ * <p>
+ * The motor torque being constant over a step, the momentum of the
+ * wheels at any stage of the step is known from the beginning of
+ * the step, without reading the integrated states of the stage.
+ * The satellite receives the opposite of the motor torque and the
+ * gyroscopic coupling of the wheel momentum is taken into account
+ * by the Euler equations.
+ *
+ * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
+ */
+public class ReactionWheels implements StageTorqueProvider, Checkpointable {
+
+	/* ******* Public Static Attributes ******* */
+
+	/** Flag to integrate the reaction wheels in the dynamic. */
+	public static boolean enabled = false;
+
+	/** Inertia of each wheel around its axis. (kg.m^2) */
+	public static double wheelInertia = 1e-5;
+
+	/** Maximum motor torque of each wheel. (N.m) */
+	public static double maxTorque = 1e-3;
+
+	/** Maximum speed of each wheel relatively to the satellite. (rad/s) */
+	public static double maxSpeed = 650.;
+
+	/** Initial speed of the wheels relatively to the satellite. (rad/s) */
+	public static Vector3D initialSpeed = Vector3D.ZERO;
+
+	/** Public key to access the torque command in the MemCached hash table. */
+	public static String torqueCommandKey = "Simulation_Wheel_Torque_";
+
+	/* **************************************** */
+
+	/** Logger of the class */
+	private static final Logger logger = LoggerFactory.getLogger(ReactionWheels.class);
+
+	/** Index of the wheel speeds in the secondary array. */
+	private static final int SPEED = SecondaryStates.WHEEL_SPEED.getIndex();
+
+	/** Satellite states giving the start of the current step. */
+	private final SatelliteStates satState;
+
+	/** Channel to the MemCached common memory, or null if not connected. */
+	private final MemcachedChannel memcached;
+
+	/** Copy of the wheel inertia. (kg.m^2) */
+	private final double inertia;
+
+	/** Copy of the maximum motor torque. (N.m) */
+	private final double torqueMax;
+
+	/** Copy of the maximum wheel speed. (rad/s) */
+	private final double speedMax;
+
+	/** Copy of the integration time step. (s) */
+	private final double stepSize;
+
+	/** Private key to store the public key. */
+	private final String torqueKey;
+
+	/** Motor torque command. (N.m) */
+	private final double[] command;
+
+	/** Motor torque applied over the current step. (N.m) */
+	private final double[] motorTorque;
+
+	/** Momentum of the wheels at the beginning of the step. (N.m.s) */
+	private final double[] stepMomentum;
+
+	/** Start date of the current step. */
+	private AbsoluteDate stepStart;
+
+	/**
+	 * Create the reaction wheels.
+	 * @param satState States of the satellite
+	 * @param memcached Channel to the MemCached common memory, or null
+	 * to only use the command set by {@link #setTorqueCommand(Vector3D)}
+	 */
+	public ReactionWheels(SatelliteStates satState, MemcachedChannel memcached) {
+		logger.info(CustomLoggingTools.indentMsg(logger,
+				" -> Building the Reaction Wheels..."));
+		this.satState = satState;
+		this.memcached = memcached;
+		this.inertia = ReactionWheels.wheelInertia;
+		this.torqueMax = ReactionWheels.maxTorque;
+		this.speedMax = ReactionWheels.maxSpeed;
+		this.stepSize = Integration.integrationTimeStep;
+		this.torqueKey = ReactionWheels.torqueCommandKey;
+		this.command = new double[3];
+		this.motorTorque = new double[3];
+		this.stepMomentum = new double[3];
+		this.stepStart = null;
+	}
+
+	/**
+	 * Start a new step if the current state of the satellite changed.
+	 */
+	private void checkStep() {
+		SpacecraftState current = this.satState.getCurrentState();
+		if (!current.getDate().equals(this.stepStart)) {
+			this.startStep(current);
+		}
+	}
+
+	/**
+	 * Acquire the torque command and the wheel speeds of a new step,
+	 * and update the motor torques.
+	 * @param current State at the beginning of the step
+	 */
+	private void startStep(SpacecraftState current) {
+		if (this.memcached != null) {
+			this.acquireCommand();
+		}
+		double[] secondary = SecondaryStates.getArray(current);
+		for (int i = 0; i < 3; i++) {
+			double speed = secondary[SPEED + i];
+			double t = FastMath.max(-this.torqueMax, FastMath.min(this.torqueMax, this.command[i]));
+			/* Torques reaching the maximum speed at the end of the step,
+			 * null if the wheel already exceeds it. */
+			double upper = FastMath.max(0., (this.speedMax - speed) * this.inertia / this.stepSize);
+			double lower = FastMath.min(0., (-this.speedMax - speed) * this.inertia / this.stepSize);
+			this.motorTorque[i] = FastMath.max(lower, FastMath.min(upper, t));
+			this.stepMomentum[i] = this.inertia * speed;
+		}
+		this.stepStart = current.getDate();
+
+		logger.debug("Reaction Wheels: " + this.stepStart + " - torque ("
+				+ this.motorTorque[0] + ", " + this.motorTorque[1] + ", "
+				+ this.motorTorque[2] + ")");
+	}
+
+	/**
+	 * Read the torque command from the MemCached common memory. The
+	 * previous command is kept if the transmission failed.
+	 */
+	private void acquireCommand() {
+		byte[] x = this.memcached.get(this.torqueKey + "X");
+		byte[] y = this.memcached.get(this.torqueKey + "Y");
+		byte[] z = this.memcached.get(this.torqueKey + "Z");
+		if (x == null || y == null || z == null) {
+			logger.error("Wheel torque acquisition: MemCached transmission failed.");
+			return;
+		}
+		double tx = ByteBuffer.wrap(x).getDouble();
+		double ty = ByteBuffer.wrap(y).getDouble();
+		double tz = ByteBuffer.wrap(z).getDouble();
+		if (Double.isNaN(tx + ty + tz) || Double.isInfinite(tx + ty + tz)) {
+			logger.error("Wheel torque acquisition: MemCached transmission failed.");
+			return;
+		}
+		this.command[0] = tx;
+		this.command[1] = ty;
+		this.command[2] = tz;
+	}
+
+	/**
+	 * Add the reaction of the motor torques on the satellite.
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void addTorque(SpacecraftState state, double[] torque) {
+		this.checkStep();
+		torque[0] -= this.motorTorque[0];
+		torque[1] -= this.motorTorque[1];
+		torque[2] -= this.motorTorque[2];
+	}
+
+	/**
+	 * Provide the momentum of the wheels at a date of the current step.
+	 * @param date Date of the stage
+	 * @param momentum Momentum of the wheels in the satellite frame (N.m.s)
+	 */
+	public void getMomentum(AbsoluteDate date, double[] momentum) {
+		this.checkStep();
+		double dt = date.durationFrom(this.stepStart);
+		momentum[0] = this.stepMomentum[0] + this.motorTorque[0] * dt;
+		momentum[1] = this.stepMomentum[1] + this.motorTorque[1] * dt;
+		momentum[2] = this.stepMomentum[2] + this.motorTorque[2] * dt;
+	}
+
+	/**
+	 * Write the derivative of the wheel speeds in the derivative of
+	 * the secondary array.
+	 * @param pDot Derivative of the secondary array
+	 */
+	public void computeDerivatives(double[] pDot) {
+		this.checkStep();
+		pDot[SPEED]     = this.motorTorque[0] / this.inertia;
+		pDot[SPEED + 1] = this.motorTorque[1] / this.inertia;
+		pDot[SPEED + 2] = this.motorTorque[2] / this.inertia;
+	}
+
+	/**
+	 * Return the reaction torque of the wheels on the satellite for
+	 * the current step.
+	 * @param date Unused, the torque is constant over the step
+	 * @return The torque in the satellite frame (N.m)
+	 */
+	@Override
+	public Vector3D getTorque(AbsoluteDate date) {
+		this.checkStep();
+		return new Vector3D(-this.motorTorque[0], -this.motorTorque[1], -this.motorTorque[2]);
+	}
+
+	/**
+	 * Set the motor torque command, applied from the next step. When
+	 * connected to MemCached, the command is overwritten by the
+	 * acquired one.
+	 * @param torque Motor torque command in the satellite frame (N.m)
+	 */
+	public void setTorqueCommand(Vector3D torque) {
+		this.command[0] = torque.getX();
+		this.command[1] = torque.getY();
+		this.command[2] = torque.getZ();
+	}
+
+	/**
+	 * @return The speed of the wheels at the current state, relatively
+	 * to the satellite. (rad/s)
+	 */
+	public Vector3D getSpeed() {
+		double[] secondary = SecondaryStates.getArray(this.satState.getCurrentState());
+		return new Vector3D(secondary[SPEED], secondary[SPEED + 1], secondary[SPEED + 2]);
+	}
+
+	/**
+	 * @return The inertia of each wheel around its axis. (kg.m^2)
+	 */
+	public double getInertia() {
+		return this.inertia;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void writeCheckpoint(ObjectOutput out) throws IOException {
+		out.writeObject(this.stepStart);
+		for (int i = 0; i < 3; i++) {
+			out.writeDouble(this.command[i]);
+			out.writeDouble(this.motorTorque[i]);
+			out.writeDouble(this.stepMomentum[i]);
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void readCheckpoint(ObjectInput in) throws IOException, ClassNotFoundException {
+		this.stepStart = (AbsoluteDate) in.readObject();
+		for (int i = 0; i < 3; i++) {
+			this.command[i] = in.readDouble();
+			this.motorTorque[i] = in.readDouble();
+			this.stepMomentum[i] = in.readDouble();
+		}
+	}
+
+}
@@ -20,7 +20,9 @@ import org.orekit.frames.FramesFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import msp.simulator.dynamic.propagation.integration.SecondaryStates;
 import msp.simulator.environment.Environment;
+import msp.simulator.satellite.actuators.ReactionWheels;
 import msp.simulator.utils.logs.CustomLoggingTools;
 
 /**
@@ -40,6 +42,9 @@ public class Assembly {
 	/** Instance of the satellite initial state in space. */
 	private SatelliteStates satelliteStates;
 
+	/** Inertia of each reaction wheel, or 0 without wheels. (kg.m^2) */
+	private final double wheelInertia;
+
 	/**
 	 * Build the satellite as a body and a state vector.
 	 * 
@@ -52,6 +57,7 @@ public class Assembly {
 
 		this.satelliteBody = new SatelliteBody(environment);
 		this.satelliteStates = new SatelliteStates(environment, satelliteBody);
+		this.wheelInertia = ReactionWheels.enabled ? ReactionWheels.wheelInertia : 0.;
 	}
 
 	/**
@@ -87,7 +93,8 @@ public class Assembly {
 	}
 
 	/**
-	 * Calculate the current angular momentum of the satellite.
+	 * Calculate the current angular momentum of the satellite,
+	 * including the momentum of the reaction wheels if any.
 	 * @return Angular momentum vector
 	 */
 	public Vector3D getAngularMomentum() {
@@ -106,6 +113,16 @@ public class Assembly {
 				row2.dotProduct(rotationRate)
 				);
 
+		if (this.wheelInertia > 0) {
+			double[] secondary = SecondaryStates.getArray(
+					this.satelliteStates.getCurrentState());
+			int speed = SecondaryStates.WHEEL_SPEED.getIndex();
+			angularMomentum = angularMomentum.add(new Vector3D(
+					this.wheelInertia * secondary[speed],
+					this.wheelInertia * secondary[speed + 1],
+					this.wheelInertia * secondary[speed + 2]));
+		}
+
 		return angularMomentum;
 	}
 
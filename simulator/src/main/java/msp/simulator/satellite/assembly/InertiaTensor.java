@@ -0,0 +1,149 @@
+/* Copyright 20017-2018 Melbourne Space Program
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package msp.simulator.satellite.assembly;
+
+import org.hipparchus.linear.MatrixUtils;
+
+/**
+ * Inertia tensor of the satellite, with the terms of the Euler
+ * equations precomputed once.
+ * <p>
+ * The rotational acceleration is given by the Euler equations of
+ * a rigid body: dw/dt = I^-1 (M - w x Iw). For a diagonal tensor,
+ * detected at construction, it reduces to the diagonal fast path
+ * dw1/dt = M1 / I1 + (I2 - I3) / I1 . w2.w3 (and circular
+ * permutations), whose inverse terms and coupling coefficients are
+ * precomputed. Otherwise the full tensor and its inverse are used.
+ *
+ * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
+ */
+public class InertiaTensor {
+
+	/** Inertia tensor. (kg.m^2) */
+	private final double[][] matrix;
+
+	/** Inverse of the inertia tensor. (kg^-1.m^-2) */
+	private final double[][] inverse;
+
+	/** True if the off-diagonal terms are zero. */
+	private final boolean diagonal;
+
+	/** Terms of the tensor. */
+	private final double i11, i12, i13, i21, i22, i23, i31, i32, i33;
+
+	/** Terms of the inverse tensor. */
+	private final double j11, j12, j13, j21, j22, j23, j31, j32, j33;
+
+	/** Coupling coefficients of the diagonal tensor. */
+	private final double c1, c2, c3;
+
+	/**
+	 * Build the inertia tensor.
+	 * @param matrix Inertia matrix in the satellite frame (kg.m^2)
+	 * @throws org.hipparchus.exception.MathIllegalArgumentException if
+	 * the matrix is singular
+	 */
+	public InertiaTensor(double[][] matrix) {
+		this.matrix = matrix;
+		this.inverse = MatrixUtils.inverse(MatrixUtils.createRealMatrix(matrix)).getData();
+
+		this.i11 = matrix[0][0];
+		this.i12 = matrix[0][1];
+		this.i13 = matrix[0][2];
+		this.i21 = matrix[1][0];
+		this.i22 = matrix[1][1];
+		this.i23 = matrix[1][2];
+		this.i31 = matrix[2][0];
+		this.i32 = matrix[2][1];
+		this.i33 = matrix[2][2];
+
+		this.diagonal = this.i12 == 0 && this.i13 == 0 && this.i21 == 0
+				&& this.i23 == 0 && this.i31 == 0 && this.i32 == 0;
+
+		if (this.diagonal) {
+			/* Exact inverse of the diagonal terms. */
+			this.inverse[0][0] = 1. / this.i11;
+			this.inverse[1][1] = 1. / this.i22;
+			this.inverse[2][2] = 1. / this.i33;
+		}
+		this.j11 = this.inverse[0][0];
+		this.j12 = this.inverse[0][1];
+		this.j13 = this.inverse[0][2];
+		this.j21 = this.inverse[1][0];
+		this.j22 = this.inverse[1][1];
+		this.j23 = this.inverse[1][2];
+		this.j31 = this.inverse[2][0];
+		this.j32 = this.inverse[2][1];
+		this.j33 = this.inverse[2][2];
+
+		this.c1 = (this.i22 - this.i33) * this.j11;
+		this.c2 = (this.i33 - this.i11) * this.j22;
+		this.c3 = (this.i11 - this.i22) * this.j33;
+	}
+
+	/**
+	 * Compute the rotational acceleration through the Euler equations.
+	 * @param m1 Torque along X (N.m)
+	 * @param m2 Torque along Y (N.m)
+	 * @param m3 Torque along Z (N.m)
+	 * @param w1 Rotational speed along X (rad/s)
+	 * @param w2 Rotational speed along Y (rad/s)
+	 * @param w3 Rotational speed along Z (rad/s)
+	 * @param rotAcc Rotational acceleration (rad/s^2)
+	 */
+	public void computeEulerEquations(double m1, double m2, double m3,
+			double w1, double w2, double w3, double[] rotAcc) {
+		if (this.diagonal) {
+			rotAcc[0] = m1 * this.j11 + this.c1 * w2 * w3;
+			rotAcc[1] = m2 * this.j22 + this.c2 * w3 * w1;
+			rotAcc[2] = m3 * this.j33 + this.c3 * w1 * w2;
+		} else {
+			/* Angular momentum Iw. */
+			double l1 = this.i11 * w1 + this.i12 * w2 + this.i13 * w3;
+			double l2 = this.i21 * w1 + this.i22 * w2 + this.i23 * w3;
+			double l3 = this.i31 * w1 + this.i32 * w2 + this.i33 * w3;
+
+			/* M - w x Iw */
+			double t1 = m1 - (w2 * l3 - w3 * l2);
+			double t2 = m2 - (w3 * l1 - w1 * l3);
+			double t3 = m3 - (w1 * l2 - w2 * l1);
+
+			rotAcc[0] = this.j11 * t1 + this.j12 * t2 + this.j13 * t3;
+			rotAcc[1] = this.j21 * t1 + this.j22 * t2 + this.j23 * t3;
+			rotAcc[2] = this.j31 * t1 + this.j32 * t2 + this.j33 * t3;
+		}
+	}
+
+	/**
+	 * @return True if the tensor is diagonal.
+	 */
+	public boolean isDiagonal() {
+		return this.diagonal;
+	}
+
+	/**
+	 * @return The inertia matrix. (kg.m^2)
+	 */
+	public double[][] getMatrix() {
+		return this.matrix;
+	}
+
+	/**
+	 * @return The inverse of the inertia matrix. (kg^-1.m^-2)
+	 */
+	public double[][] getInverse() {
+		return this.inverse;
+	}
+}
@@ -69,6 +69,9 @@ public class SatelliteBody extends BoxAndSolarArraySpacecraft {
 	/** Inertia matrix of the satellite. */
 	private double[][] inertiaMatrix;
 
+	/** Inertia tensor of the satellite, with its precomputed terms. */
+	private InertiaTensor inertiaTensor;
+
 	/** 
 	 * Drag coefficient of the satellite.
 	 * <p>
@@ -102,6 +105,7 @@ public class SatelliteBody extends BoxAndSolarArraySpacecraft {
 		this.satBoxSize = SatelliteBody.satBoxSizeWithNoSolarPanel;
 		this.satMass = SatelliteBody.satelliteMass;
 		this.inertiaMatrix = SatelliteBody.satInertiaMatrix;
+		this.inertiaTensor = new InertiaTensor(this.inertiaMatrix);
 
 		SatelliteBody.logger.info(CustomLoggingTools.indentMsg(SatelliteBody.logger, 
 				" -> Building the CubeSat body: Success."));
@@ -131,4 +135,13 @@ public class SatelliteBody extends BoxAndSolarArraySpacecraft {
 		return inertiaMatrix;
 	}
 
+
+	/**
+	 * @return the inertia tensor, with the terms of the Euler equations
+	 * precomputed.
+	 */
+	public InertiaTensor getInertiaTensor() {
+		return inertiaTensor;
+	}
+
 }
@@ -14,6 +14,9 @@
 
 package msp.simulator.satellite.assembly;
 
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.util.Map;
 
 import org.hipparchus.complex.Quaternion;
@@ -30,7 +33,9 @@ import org.slf4j.LoggerFactory;
 
 import msp.simulator.dynamic.propagation.integration.SecondaryStates;
 import msp.simulator.environment.Environment;
+import msp.simulator.satellite.actuators.ReactionWheels;
 import msp.simulator.satellite.assembly.SatelliteBody;
+import msp.simulator.utils.checkpoint.Checkpointable;
 import msp.simulator.utils.logs.CustomLoggingTools;
 
 /**
@@ -47,7 +52,7 @@ import msp.simulator.utils.logs.CustomLoggingTools;
  * 
  * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
  */
-public class SatelliteStates {
+public class SatelliteStates implements Checkpointable {
 
 	/* ******* Public Static Attributes ******* */
 
@@ -152,6 +157,17 @@ public class SatelliteStates {
 				SecondaryStates.THETA.getSize()
 				);
 
+		/* Then initialize the speed of the reaction wheels, if any. */
+		if (ReactionWheels.enabled) {
+			System.arraycopy(
+					ReactionWheels.initialSpeed.toArray(), 
+					0, 
+					secondaryArray, 
+					SecondaryStates.WHEEL_SPEED.getIndex(), 
+					SecondaryStates.WHEEL_SPEED.getSize()
+					);
+		}
+
 		/* Then Update the state. */
 		this.initialState =	this.initialState.addAdditionalState(
 				SecondaryStates.key, 
@@ -235,6 +251,20 @@ public class SatelliteStates {
 	}
 
 
+	/** {@inheritDoc} */
+	@Override
+	public void writeCheckpoint(ObjectOutput out) throws IOException {
+		out.writeObject(this.initialState);
+		out.writeObject(this.currentState);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void readCheckpoint(ObjectInput in) throws IOException, ClassNotFoundException {
+		this.initialState = (SpacecraftState) in.readObject();
+		this.currentState = (SpacecraftState) in.readObject();
+	}
+
 	/**
 	 * Get the initial Attitude of the satellite.
 	 * @return Attitude at the initial state
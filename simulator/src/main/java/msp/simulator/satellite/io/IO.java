@@ -19,7 +19,7 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.net.InetSocketAddress;
 import java.net.Socket;
-import java.util.concurrent.TimeUnit;
+import java.nio.file.Paths;
 
 import org.orekit.errors.OrekitException;
 import org.orekit.propagation.SpacecraftState;
@@ -29,6 +29,7 @@ import org.orekit.utils.Constants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import msp.simulator.satellite.assembly.SatelliteStates;
 import msp.simulator.utils.logs.CustomLoggingTools;
 import net.spy.memcached.ConnectionFactory;
 import net.spy.memcached.ConnectionFactoryBuilder;
@@ -55,6 +56,10 @@ public class IO {
 	 */
 	public static String memcachedSocketAddress = "127.0.0.1:11211";
 
+	/** Path of the journal of the MemCached operations, or null
+	 * to disable the journal. */
+	public static String memcachedJournalFile = null;
+
 	/** Flag to activate the connection to the VTS visualization software. */
 	public static boolean connectVts = false;
 
@@ -79,6 +84,12 @@ public class IO {
 	/** Raw transcoder to deserialize Memcached data. */
 	private MemcachedRawTranscoder rawTranscoder;
 
+	/** Channel of the simulation to the MemCached common memory. */
+	private MemcachedChannel memcachedChannel;
+
+	/** Path of the journal of the MemCached operations, or null. */
+	private String memcachedJournalPath;
+
 	/** Flag to activate the connection to the VTS visualization software. */
 	private boolean connectToVts = false;
 
@@ -98,6 +109,7 @@ public class IO {
 		this.connectToMemCached = IO.connectMemCached;
 		this.memcachedHostAddress = IO.memcachedSocketAddress;
 		this.rawTranscoder = new MemcachedRawTranscoder();
+		this.memcachedJournalPath = IO.memcachedJournalFile;
 
 		this.connectToVts = IO.connectVts;
 	}
@@ -153,6 +165,17 @@ public class IO {
 				try {
 					this.memcached = new MemcachedClient(host);
 
+					MemcachedJournal journal = null;
+					if (this.memcachedJournalPath != null) {
+						try {
+							journal = new MemcachedJournal(Paths.get(this.memcachedJournalPath));
+						} catch (IOException e) {
+							logger.error("MemCached journal unavailable: " + e.getMessage());
+						}
+					}
+					this.memcachedChannel = new MemcachedChannel(
+							this.memcached, this.rawTranscoder, journal);
+
 				} catch (IOException ex) {
 					logger.error("Connection to the MemCached server failed.");
 				}
@@ -190,7 +213,9 @@ public class IO {
 		if (this.connectToMemCached) {
 			logger.info(CustomLoggingTools.indentMsg(logger, 
 					"Shutting Down MemCached Client..."));
-			this.memcached.shutdown((long) 300.0, TimeUnit.MILLISECONDS);
+			if (this.memcachedChannel != null) {
+				this.memcachedChannel.shutdown((long) 300.0);
+			}
 			this.connectToMemCached = false;
 		}
 		/* Shut down VTS connection. */
@@ -301,6 +326,25 @@ public class IO {
 		return memcached;
 	}
 
+	/**
+	 * @return The channel of the simulation to the MemCached common
+	 * memory, journaling the operations if required.
+	 */
+	public MemcachedChannel getMemcachedChannel() {
+		return memcachedChannel;
+	}
+
+	/**
+	 * Set the satellite states giving the simulation time of the
+	 * MemCached operations recorded in the journal.
+	 * @param clock States of the satellite
+	 */
+	public void setSimulationClock(SatelliteStates clock) {
+		if (this.memcachedChannel != null) {
+			this.memcachedChannel.setClock(clock);
+		}
+	}
+
 	/**
 	 * @return VTS Client output stream.
 	 */
@@ -0,0 +1,162 @@
+/* Copyright 20017-2018 Melbourne Space Program
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package msp.simulator.satellite.io;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import msp.simulator.satellite.assembly.SatelliteStates;
+import net.spy.memcached.MemcachedClient;
+
+/**
+ * This class is the channel of the simulation to the MemCached
+ * common memory. It forwards the operations to the MemCached client
+ * and records them into a journal if required.
+ *
+ * @see MemcachedJournal
+ * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
+ */
+public class MemcachedChannel {
+
+	/** Logger of the class */
+	private static final Logger logger = LoggerFactory.getLogger(MemcachedChannel.class);
+
+	/** MemCached client of the simulation. */
+	private final MemcachedClient client;
+
+	/** Raw transcoder to deserialize MemCached data. */
+	private final MemcachedRawTranscoder transcoder;
+
+	/** Journal of the operations, or null. */
+	private MemcachedJournal journal;
+
+	/** States of the satellite giving the simulation time, or null. */
+	private SatelliteStates clock;
+
+	/**
+	 * Create the channel.
+	 * @param client MemCached client of the simulation
+	 * @param transcoder Raw transcoder to deserialize MemCached data
+	 * @param journal Journal of the operations, or null
+	 */
+	public MemcachedChannel(MemcachedClient client, MemcachedRawTranscoder transcoder,
+			MemcachedJournal journal) {
+		this.client = client;
+		this.transcoder = transcoder;
+		this.journal = journal;
+		this.clock = null;
+	}
+
+	/**
+	 * Set a value in the common memory.
+	 * <p>
+	 * The value is set asynchronously by the client: the journaled
+	 * duration is the time to enqueue the operation, not to complete it.
+	 * @param key Key of the value
+	 * @param exp Expiration of the value, 0 to never expire (s)
+	 * @param value Raw value
+	 */
+	public void set(String key, int exp, byte[] value) {
+		long wallTime = (this.journal == null) ? 0 : System.nanoTime();
+		this.client.set(key, exp, value);
+		if (this.journal != null) {
+			this.record(MemcachedJournal.SET, key, wallTime, value);
+		}
+	}
+
+	/**
+	 * Get a value from the common memory.
+	 * @param key Key of the value
+	 * @return The raw value, or null if not found
+	 */
+	public byte[] get(String key) {
+		long wallTime = (this.journal == null) ? 0 : System.nanoTime();
+		byte[] value = this.client.get(key, this.transcoder);
+		if (this.journal != null) {
+			this.record(MemcachedJournal.GET, key, wallTime, value);
+		}
+		return value;
+	}
+
+	/**
+	 * Record an operation in the journal. The journal is closed on
+	 * the first failure.
+	 * @param operation Type of the operation
+	 * @param key Key of the value
+	 * @param wallTime Wall time at the beginning of the operation (ns)
+	 * @param value Value got or set
+	 */
+	private void record(byte operation, String key, long wallTime, byte[] value) {
+		try {
+			this.journal.record(operation, key, this.getSimulationTime(), wallTime, value);
+		} catch (IOException e) {
+			logger.error("MemCached journal aborted: " + e.getMessage());
+			this.closeJournal();
+		}
+	}
+
+	/**
+	 * @return The simulation time of the current step, or NaN
+	 * without clock. (s)
+	 */
+	private double getSimulationTime() {
+		if (this.clock == null) {
+			return Double.NaN;
+		}
+		return this.clock.getCurrentState().getDate().durationFrom(
+				this.clock.getInitialState().getDate());
+	}
+
+	/**
+	 * Set the clock giving the simulation time of the operations.
+	 * @param clock States of the satellite
+	 */
+	public void setClock(SatelliteStates clock) {
+		this.clock = clock;
+	}
+
+	/**
+	 * Shut down the client and close the journal.
+	 * @param timeout Time to wait for the pending operations (ms)
+	 */
+	public void shutdown(long timeout) {
+		this.client.shutdown(timeout, TimeUnit.MILLISECONDS);
+		this.closeJournal();
+	}
+
+	/**
+	 * Close the journal, if any.
+	 */
+	private void closeJournal() {
+		if (this.journal != null) {
+			try {
+				this.journal.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+			this.journal = null;
+		}
+	}
+
+	/**
+	 * @return The MemCached client of the channel.
+	 */
+	public MemcachedClient getClient() {
+		return this.client;
+	}
+}
@@ -0,0 +1,240 @@
+/* Copyright 20017-2018 Melbourne Space Program
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package msp.simulator.satellite.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import org.hipparchus.util.FastMath;
+
+/**
+ * This class journals the operations on the MemCached common memory
+ * into an append-only binary file, written through a memory-mapped
+ * region of the file.
+ * <p>
+ * The journal begins with the magic number {@link #MAGIC} and the
+ * wall clock time of its creation (ms since the epoch). Each key is
+ * defined once by a record {@link #DEFINE} giving its index and its
+ * name. Each operation is then a record {@link #GET} or {@link #SET}
+ * made of the index of the key, the simulation time (s), the wall
+ * time since the creation of the journal (ns), the duration of the
+ * operation (ns) and the value, a null value being of length -1.
+ * A value larger than a mapped region is written in a region of its
+ * own size.
+ * As the MemCached client sets the values asynchronously, the duration
+ * of a set is only the time to enqueue it, while the duration of a get
+ * covers its completion.
+ * <p>
+ * The journal is truncated to its content when closed. A journal 
+ * which was not closed ends with the zeros of its last region.
+ *
+ * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
+ */
+public class MemcachedJournal implements Closeable {
+
+	/** Magic number of the journal. */
+	public static final long MAGIC = 0x4D53504A524E3032L; /* "MSPJRN02" */
+
+	/** Record defining a key. */
+	public static final byte DEFINE = 0;
+
+	/** Record of a get operation. */
+	public static final byte GET = 1;
+
+	/** Record of a set operation. */
+	public static final byte SET = 2;
+
+	/** Size of the mapped regions of the file. (bytes) */
+	private static final int REGION = 8 << 20;
+
+	/** Size of an operation record without its value. (bytes) */
+	private static final int OPERATION = 1 + 2 + 8 + 8 + 8 + 4;
+
+	/** Channel of the file. */
+	private final FileChannel channel;
+
+	/** Mapped region being written. */
+	private MappedByteBuffer region;
+
+	/** Position of the mapped region in the file. */
+	private long regionStart;
+
+	/** Index of each defined key. */
+	private final HashMap<String, Integer> keys;
+
+	/** Wall time of the creation of the journal. (ns) */
+	private final long wallStart;
+
+	/**
+	 * Create a journal, replacing any existing file.
+	 * @param path Path of the journal
+	 * @throws IOException If the file cannot be written
+	 */
+	public MemcachedJournal(Path path) throws IOException {
+		this.channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE,
+				StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+		this.keys = new HashMap<String, Integer>();
+		this.regionStart = 0;
+		this.region = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, REGION);
+		this.region.putLong(MAGIC);
+		this.region.putLong(System.currentTimeMillis());
+		this.wallStart = System.nanoTime();
+	}
+
+	/**
+	 * Record an operation.
+	 * @param operation Type of the operation, {@link #GET} or {@link #SET}
+	 * @param key Key of the value
+	 * @param simulationTime Simulation time of the operation (s)
+	 * @param wallTime Wall time at the beginning of the operation, as
+	 * given by System.nanoTime() (ns)
+	 * @param value Value got or set, or null
+	 * @throws IOException If the file cannot be extended
+	 */
+	public synchronized void record(byte operation, String key, double simulationTime,
+			long wallTime, byte[] value) throws IOException {
+		long now = System.nanoTime();
+		Integer index = this.keys.get(key);
+		if (index == null) {
+			index = this.define(key);
+		}
+		int length = (value == null) ? -1 : value.length;
+		this.reserve(OPERATION + FastMath.max(length, 0));
+		this.region.put(operation);
+		this.region.putShort(index.shortValue());
+		this.region.putDouble(simulationTime);
+		this.region.putLong(wallTime - this.wallStart);
+		this.region.putLong(now - wallTime);
+		this.region.putInt(length);
+		if (value != null) {
+			this.region.put(value);
+		}
+	}
+
+	/**
+	 * Define a new key.
+	 * @param key Key to define
+	 * @return The index of the key
+	 * @throws IOException If the file cannot be extended
+	 */
+	private Integer define(String key) throws IOException {
+		Integer index = this.keys.size();
+		byte[] name = key.getBytes(StandardCharsets.UTF_8);
+		this.reserve(1 + 2 + 2 + name.length);
+		this.region.put(DEFINE);
+		this.region.putShort(index.shortValue());
+		this.region.putShort((short) name.length);
+		this.region.put(name);
+		this.keys.put(key, index);
+		return index;
+	}
+
+	/**
+	 * Map the next region of the file if the current one cannot hold
+	 * the given number of bytes, the region being enlarged to the 
+	 * number of bytes if needed.
+	 * @param bytes Number of bytes to write
+	 * @throws IOException If the file cannot be extended
+	 */
+	private void reserve(int bytes) throws IOException {
+		if (this.region.remaining() < bytes) {
+			this.regionStart += this.region.position();
+			this.region = this.channel.map(FileChannel.MapMode.READ_WRITE,
+					this.regionStart, FastMath.max(REGION, bytes));
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public synchronized void close() throws IOException {
+		if (this.channel.isOpen()) {
+			this.region.force();
+			this.channel.truncate(this.regionStart + this.region.position());
+			this.channel.close();
+		}
+	}
+
+	/**
+	 * Listener of the operations of a journal.
+	 */
+	public interface Listener {
+
+		/**
+		 * Called for each operation of the journal, in order.
+		 * @param operation Type of the operation, {@link #GET} or {@link #SET}
+		 * @param key Key of the value
+		 * @param simulationTime Simulation time of the operation (s)
+		 * @param wallTime Wall time since the creation of the journal (ns)
+		 * @param duration Duration of the operation, i.e. the enqueue
+		 * time of a set (ns)
+		 * @param value Value got or set, or null
+		 */
+		void operation(byte operation, String key, double simulationTime,
+				long wallTime, long duration, byte[] value);
+	}
+
+	/**
+	 * Read a journal.
+	 * @param path Path of the journal
+	 * @param listener Listener of the operations
+	 * @return The wall clock time of the creation of the journal (ms since the epoch)
+	 * @throws IOException If the file cannot be read or is not a journal
+	 */
+	public static long read(Path path, Listener listener) throws IOException {
+		MappedByteBuffer content;
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			content = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		if (content.remaining() < 16 || content.getLong() != MAGIC) {
+			throw new IOException("Not a MemCached journal: " + path);
+		}
+		long creation = content.getLong();
+		ArrayList<String> names = new ArrayList<String>();
+		while (content.hasRemaining()) {
+			byte operation = content.get();
+			int index = content.getShort();
+			if (operation == DEFINE) {
+				byte[] name = new byte[content.getShort()];
+				if (name.length == 0) {
+					/* Unused end of a journal which was not closed. */
+					break;
+				}
+				content.get(name);
+				names.add(new String(name, StandardCharsets.UTF_8));
+			} else {
+				double simulationTime = content.getDouble();
+				long wallTime = content.getLong();
+				long duration = content.getLong();
+				int length = content.getInt();
+				byte[] value = null;
+				if (length >= 0) {
+					value = new byte[length];
+					content.get(value);
+				}
+				listener.operation(operation, names.get(index), simulationTime,
+						wallTime, duration, value);
+			}
+		}
+		return creation;
+	}
+
+}
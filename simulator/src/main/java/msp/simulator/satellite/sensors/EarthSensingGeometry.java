@@ -0,0 +1,137 @@
+/* Copyright 20017-2018 Melbourne Space Program
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package msp.simulator.satellite.sensors;
+
+import org.hipparchus.geometry.euclidean.threed.Vector3D;
+import org.hipparchus.util.FastMath;
+import org.orekit.errors.OrekitException;
+import org.orekit.propagation.SpacecraftState;
+import org.orekit.utils.PVCoordinatesProvider;
+
+/**
+ * This class computes the geometry of the Earth as seen by the
+ * satellite, i.e. the Nadir direction in the satellite frame, the
+ * angular radius of the Earth disc and the illumination of the
+ * sub-satellite point by the Sun.
+ * <p>
+ * The geometry is updated once for a given state and then shared
+ * by all the Earth sensors, typically the infrared sensors of the
+ * faces of the satellite.
+ *
+ * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
+ */
+public class EarthSensingGeometry {
+
+	/** Radius of the Earth. (m) */
+	private final double earthRadius;
+
+	/** Provider of the position of the Sun, or null if not used. */
+	private final PVCoordinatesProvider sun;
+
+	/** Unit Nadir vector in the satellite frame. */
+	private Vector3D nadir;
+
+	/** Angular radius of the Earth disc. (rad) */
+	private double angularRadius;
+
+	/** Cosine of the zenith angle of the Sun at the sub-satellite point,
+	 * or 0 during the night. */
+	private double illumination;
+
+	/**
+	 * Build the geometry of the Earth.
+	 * @param earthRadius Radius of the Earth (m)
+	 * @param sun Provider of the position of the Sun, or null to
+	 * ignore the illumination of the Earth
+	 */
+	public EarthSensingGeometry(double earthRadius, PVCoordinatesProvider sun) {
+		this.earthRadius = earthRadius;
+		this.sun = sun;
+		this.nadir = Vector3D.MINUS_K;
+		this.angularRadius = 0;
+		this.illumination = 0;
+	}
+
+	/**
+	 * Update the geometry of the Earth for the given state.
+	 * @param state State of the satellite
+	 * @param withIllumination True to compute the illumination by the Sun
+	 */
+	public void update(SpacecraftState state, boolean withIllumination) {
+		Vector3D position = state.getPVCoordinates().getPosition();
+		double distance = position.getNorm();
+
+		/* Nadir from the orbital position, in the satellite frame. */
+		this.nadir = state.toTransform().transformVector(position.negate())
+				.scalarMultiply(1. / distance);
+
+		/* The Earth disc fills the whole sky below the surface. */
+		this.angularRadius = (distance > this.earthRadius) ?
+				FastMath.asin(this.earthRadius / distance) : FastMath.PI / 2;
+
+		this.illumination = 0;
+		if (withIllumination && this.sun != null) {
+			try {
+				Vector3D sunPosition = this.sun.getPVCoordinates(
+						state.getDate(), state.getFrame()).getPosition();
+				this.illumination = FastMath.max(0,
+						Vector3D.dotProduct(position, sunPosition)
+						/ (distance * sunPosition.getNorm()));
+			} catch (OrekitException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * Compute the fraction of the Earth disc lying in the half-space
+	 * in front of a face of the satellite, the disc being seen as a
+	 * flat disc cut by the plane of the face.
+	 * @param angle Angle between the normal of the face and Nadir (rad)
+	 * @param angularRadius Angular radius of the Earth disc (rad)
+	 * @return The visible fraction of the disc, between 0 and 1
+	 */
+	public static double coverage(double angle, double angularRadius) {
+		double d = (FastMath.PI / 2 - angle) / angularRadius;
+		if (d >= 1) {
+			return 1;
+		} else if (d <= -1) {
+			return 0;
+		}
+		return (FastMath.acos(-d) + d * FastMath.sqrt(1 - d * d)) / FastMath.PI;
+	}
+
+	/**
+	 * @return The unit Nadir vector in the satellite frame.
+	 */
+	public Vector3D getNadir() {
+		return this.nadir;
+	}
+
+	/**
+	 * @return The angular radius of the Earth disc. (rad)
+	 */
+	public double getAngularRadius() {
+		return this.angularRadius;
+	}
+
+	/**
+	 * @return The illumination of the sub-satellite point, between
+	 * 0 and 1.
+	 */
+	public double getIllumination() {
+		return this.illumination;
+	}
+}
@@ -13,21 +13,27 @@
  */
 package msp.simulator.satellite.sensors;
 
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
 import org.hipparchus.geometry.euclidean.threed.Vector3D;
-import org.hipparchus.util.FastMath;
+import org.orekit.propagation.SpacecraftState;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import msp.simulator.environment.Environment;
 import msp.simulator.satellite.assembly.Assembly;
+import msp.simulator.utils.checkpoint.Checkpointable;
 import msp.simulator.utils.logs.CustomLoggingTools;
+import msp.simulator.utils.noise.SensorNoise;
 
 /**
  * Modelize the gyrometer sensor of the satellite.
  *
  * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
  */
-public class Gyrometer {
+public class Gyrometer implements Sensor, Checkpointable {
 	
 	/* ******* Public Static Attributes ******* */
 
@@ -36,6 +42,20 @@ public class Gyrometer {
 	 */
 	public static double defaultGyroNoiseIntensity = 1e-3;
 
+	/** Intensity of the random walk of the gyrometer bias. 
+	 * A null value disables the bias. (rad/s^2/sqrt(s)) */
+	public static double defaultGyroBiasWalk = 0.;
+
+	/** Quantization step of the gyrometer measures, or 0. (rad/s^2) */
+	public static double defaultGyroQuantum = 0.;
+
+	/** Sample rate of the gyrometer, or 0 to sample once per 
+	 * integration step. (Hz) */
+	public static double defaultSampleRate = 0.;
+
+	/** Delay between a sample and its availability. (s) */
+	public static double defaultLatency = 0.;
+
 	/* **************************************** */
 
 	/** Logger of the class. */
@@ -48,17 +68,43 @@ public class Gyrometer {
 	/** Normal noise disturbing the gyrometer measures. */
 	private double gyroNoiseIntensity;
 
+	/** Noise model of the gyrometer. */
+	private SensorNoise noise;
+
+	/** Buffer of the measures. */
+	private final double[] measure;
+
+	/** Descriptor of the sensor. */
+	private final SensorDescriptor descriptor;
+
 	/**
 	 * Simple constructor of the gyrometer.
 	 * @param environment Instance of the simulation
 	 * @param assembly Instance of the simulation
 	 */
 	public Gyrometer(Environment environment, Assembly assembly) {
+		this(environment, assembly, "Gyrometer");
+	}
+
+	/**
+	 * Build a gyrometer, e.g. a redundant one, whose channels 
+	 * are exported as Simulation_[name]_X, _Y and _Z.
+	 * @param environment Instance of the simulation
+	 * @param assembly Instance of the simulation
+	 * @param name Name of the sensor, unique in the satellite
+	 */
+	public Gyrometer(Environment environment, Assembly assembly, String name) {
 		logger.info(CustomLoggingTools.indentMsg(logger,
-				" -> Building the Gyrometer..."));
+				" -> Building the " + name + "..."));
+
+		this.descriptor = SensorDescriptor.vector(name, "Simulation_" + name,
+				Gyrometer.defaultSampleRate, Gyrometer.defaultLatency);
 
 		this.assembly = assembly;
 		this.gyroNoiseIntensity = defaultGyroNoiseIntensity;
+		this.noise = new SensorNoise(name.toLowerCase(), 3, this.gyroNoiseIntensity,
+				Gyrometer.defaultGyroBiasWalk, Gyrometer.defaultGyroQuantum);
+		this.measure = new double[3];
 	}
 
 	/**
@@ -66,24 +112,79 @@ public class Gyrometer {
 	 * @return Rotational Acceleration
 	 */
 	public Vector3D getData_rotAcc() {
+		this.getData_rotAcc(this.measure);
+		return new Vector3D(this.measure);
+	}
+
+	/**
+	 * Retrieve the data from the sensor without allocation.
+	 * @param data Array filled with the rotational acceleration
+	 */
+	public void getData_rotAcc(double[] data) {
+		this.measure(this.assembly.getStates().getCurrentState(), data);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public SensorDescriptor getDescriptor() {
+		return this.descriptor;
+	}
+
+	/**
+	 * Measure the rotational acceleration for the given state.
+	 * @param state State of the satellite
+	 * @param data Array filled with the rotational acceleration
+	 */
+	@Override
+	public void measure(SpacecraftState state, double[] data) {
 		/* Get the acceleration from the satellite state. */
 		/* Note that these data are already in the satellite
 		 * body frame!
 		 */
-		Vector3D data = this.assembly.getStates()
-				.getCurrentState().getAttitude().getRotationAcceleration();
-		
+		Vector3D rotAcc = state.getAttitude().getRotationAcceleration();
+		data[0] = rotAcc.getX();
+		data[1] = rotAcc.getY();
+		data[2] = rotAcc.getZ();
+
 		/* Add the noise contribution. */
-		Vector3D noise = new Vector3D(
-				2 * (FastMath.random() - 0.5) * this.gyroNoiseIntensity,
-				2 * (FastMath.random() - 0.5) * this.gyroNoiseIntensity,
-				2 * (FastMath.random() - 0.5) * this.gyroNoiseIntensity
-				);
-		
-		data = data.add(noise);
-		
-		return data;
+		this.noise.corrupt(data, state.getDate());
 	}
 
+	/**
+	 * Oversample the sensor over the current step, i.e. the samples
+	 * of the current rotational acceleration are successively 
+	 * corrupted by the noise.
+	 * @param data Array filled with the samples, one after the other
+	 * @param samples Number of samples
+	 * @param samplePeriod Time between two samples (s)
+	 */
+	public void getData_rotAcc(double[] data, int samples, double samplePeriod) {
+		Vector3D rotAcc = this.assembly.getStates().getCurrentState()
+				.getAttitude().getRotationAcceleration();
+		for (int i = 0; i < samples; i++) {
+			data[3 * i] = rotAcc.getX();
+			data[3 * i + 1] = rotAcc.getY();
+			data[3 * i + 2] = rotAcc.getZ();
+		}
+		this.noise.corrupt(data, 0, samples, samplePeriod);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void setSeed(long seed) {
+		this.noise.setSeed(seed);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void writeCheckpoint(ObjectOutput out) throws IOException {
+		out.writeObject(this.noise);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void readCheckpoint(ObjectInput in) throws IOException, ClassNotFoundException {
+		this.noise = (SensorNoise) in.readObject();
+	}
 
 }
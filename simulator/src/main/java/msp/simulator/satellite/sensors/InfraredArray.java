@@ -0,0 +1,185 @@
+/* Copyright 20017-2018 Melbourne Space Program
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package msp.simulator.satellite.sensors;
+
+import org.hipparchus.geometry.euclidean.threed.Vector3D;
+import org.hipparchus.util.FastMath;
+import org.orekit.propagation.SpacecraftState;
+
+/**
+ * This class evaluates a set of infrared sensors, typically one on
+ * each face of the satellite, in a single pass.
+ * <p>
+ * The Nadir vector is normalized once for all the faces and the angle
+ * of a face whose normal is opposite to the one of a previous face is
+ * deduced from the angle of the latter, so that the six faces of the
+ * satellite only require three arc cosines. The readings are written
+ * into a caller-provided array in the order of the faces.
+ * <p>
+ * The array is registered in the sensors as a single sensor whose
+ * channels are the ones of its faces. The geometry of the Earth is
+ * then updated once per sample and shared by all the faces.
+ *
+ * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
+ */
+public class InfraredArray implements Sensor {
+
+	/** Infrared sensors of the array. */
+	private final InfraredSensor[] faces;
+
+	/** Components of the normal of each face. */
+	private final double[] normalX, normalY, normalZ;
+
+	/** Index of the previous face of opposite normal, or -1 if none. */
+	private final int[] opposite;
+
+	/** Angle to Nadir of each face for the last evaluation. (rad) */
+	private final double[] angles;
+
+	/** Descriptor of the array. */
+	private final SensorDescriptor descriptor;
+
+	/** Geometry of the Earth shared by the faces. */
+	private final EarthSensingGeometry geometry;
+
+	/**
+	 * Build the array of the given infrared sensors.
+	 * @param name Name of the array, unique in the satellite
+	 * @param geometry Geometry of the Earth shared by the faces
+	 * @param faces Infrared sensors of the array
+	 */
+	public InfraredArray(String name, EarthSensingGeometry geometry, InfraredSensor... faces) {
+		this.geometry = geometry;
+		this.faces = faces.clone();
+		this.normalX = new double[faces.length];
+		this.normalY = new double[faces.length];
+		this.normalZ = new double[faces.length];
+		this.opposite = new int[faces.length];
+		this.angles = new double[faces.length];
+
+		String[] channels = new String[faces.length];
+		for (int i = 0; i < faces.length; i++) {
+			Vector3D normal = faces[i].getSideNormal();
+			this.normalX[i] = normal.getX();
+			this.normalY[i] = normal.getY();
+			this.normalZ[i] = normal.getZ();
+			this.opposite[i] = -1;
+			for (int j = 0; j < i && this.opposite[i] < 0; j++) {
+				if (this.normalX[j] == -this.normalX[i]
+						&& this.normalY[j] == -this.normalY[i]
+						&& this.normalZ[j] == -this.normalZ[i]) {
+					this.opposite[i] = j;
+				}
+			}
+			channels[i] = faces[i].getDescriptor().getChannel(0);
+		}
+		this.descriptor = new SensorDescriptor(name, channels,
+				InfraredSensor.defaultSampleRate, InfraredSensor.defaultLatency);
+	}
+
+	/**
+	 * Compute the infrared reading of each face for the given Nadir
+	 * vector.
+	 * @param nadir Nadir vector in the satellite frame
+	 * @param readings Array filled with the reading of each face
+	 */
+	public void evaluate(Vector3D nadir, double[] readings) {
+		this.computeAngles(nadir);
+		for (int i = 0; i < this.faces.length; i++) {
+			readings[i] = InfraredSensor.angleToInfrared(this.angles[i]);
+			this.faces[i].setReading(this.angles[i], readings[i]);
+		}
+	}
+
+	/**
+	 * Compute the infrared reading of each face for the given 
+	 * geometry of the Earth, including the coverage of the Earth
+	 * disc and the albedo.
+	 * @param earth Geometry of the Earth seen by the satellite
+	 * @param readings Array filled with the reading of each face
+	 */
+	public void evaluate(EarthSensingGeometry earth, double[] readings) {
+		this.computeAngles(earth.getNadir());
+		for (int i = 0; i < this.faces.length; i++) {
+			readings[i] = InfraredSensor.earthReading(this.angles[i], earth);
+			this.faces[i].setReading(this.angles[i], readings[i]);
+		}
+	}
+
+	/**
+	 * Compute the angle to Nadir of each face.
+	 * @param nadir Nadir vector in the satellite frame
+	 */
+	private void computeAngles(Vector3D nadir) {
+		double norm = nadir.getNorm();
+		double x = nadir.getX() / norm;
+		double y = nadir.getY() / norm;
+		double z = nadir.getZ() / norm;
+
+		for (int i = 0; i < this.faces.length; i++) {
+			int j = this.opposite[i];
+			if (j < 0) {
+				/* The normalized dot product can exceed 1 by an ulp. */
+				double cos = x * this.normalX[i] + y * this.normalY[i] + z * this.normalZ[i];
+				this.angles[i] = FastMath.acos(FastMath.max(-1., FastMath.min(1., cos)));
+			} else {
+				this.angles[i] = FastMath.PI - this.angles[j];
+			}
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public SensorDescriptor getDescriptor() {
+		return this.descriptor;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void setSeed(long seed) {
+		for (InfraredSensor face : this.faces) {
+			face.setSeed(seed);
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void measure(SpacecraftState state, double[] data) {
+		this.geometry.update(state, InfraredSensor.albedo != 0);
+		this.evaluate(this.geometry, data);
+	}
+
+	/**
+	 * @param index Index of the face
+	 * @return The infrared sensor of the face.
+	 */
+	public InfraredSensor getFace(int index) {
+		return this.faces[index];
+	}
+
+	/**
+	 * @return The geometry of the Earth shared by the faces.
+	 */
+	public EarthSensingGeometry getGeometry() {
+		return this.geometry;
+	}
+
+	/**
+	 * @return The number of faces.
+	 */
+	public int getFaceCount() {
+		return this.faces.length;
+	}
+}
@@ -2,13 +2,15 @@ package msp.simulator.satellite.sensors;
 
 import org.hipparchus.geometry.euclidean.threed.*;
 import org.hipparchus.util.FastMath;
+import org.orekit.propagation.SpacecraftState;
+import org.orekit.utils.Constants;
 
 /**
  * This class represents the infrared sensor of the satellite
  *
  * @author Braeden BORG
  */
-public class InfraredSensor {
+public class InfraredSensor implements Sensor {
 
 	/**
 	 * Constants determined for a ninth-order polynomial that best represents the
@@ -17,8 +19,29 @@ public class InfraredSensor {
 	private static final double p1 = 0.007330053825571, p2 = -0.090570226260328, p3 = 0.445759574332216,
 			p4 = -1.123946349873612, p5 = 1.594507643864135, p6 = -1.440516312413851, p7 = 1.178825031933260,
 			p8 = -1.078355217581003, p9 = 0.182686213443513, p10 = 0.987208931556143;
+	/* ******* Public Static Attributes ******* */
+
+	/** Sample rate of the infrared sensors, or 0 to sample once per 
+	 * integration step. (Hz) */
+	public static double defaultSampleRate = 0.;
+
+	/** Delay between a sample and its availability. (s) */
+	public static double defaultLatency = 0.;
+
+	/** True to weight the readings by the fraction of the Earth disc 
+	 * in front of the face. */
+	public static boolean earthCoverage = true;
+
+	/** Reading added by the sunlit Earth seen at the zenith of the 
+	 * sub-satellite point, or 0 to ignore the albedo. */
+	public static double albedo = 0.;
+
+	/* **************************************** */
+
 	private double infraredReading, angleReading;
 	private Vector3D sideNormal;
+	private final SensorDescriptor descriptor;
+	private EarthSensingGeometry geometry;
 
 	/**
 	 * Creates an infrared sensor for a satellite side with an infrared reading and
@@ -28,9 +51,86 @@ public class InfraredSensor {
 	 *            Vector normal to a satellite side
 	 */
 	public InfraredSensor(Vector3D sideNormalVector) {
+		this(defaultName(sideNormalVector), sideNormalVector);
+	}
+
+	/**
+	 * Creates a named infrared sensor for a satellite side, whose channel
+	 * is exported as Simulation_[name]
+	 * 
+	 * @param name Name of the sensor, unique in the satellite
+	 * @param sideNormalVector Vector normal to a satellite side
+	 */
+	public InfraredSensor(String name, Vector3D sideNormalVector) {
 		infraredReading = 0;
 		angleReading = 0;
 		sideNormal = sideNormalVector;
+		descriptor = new SensorDescriptor(name, new String[] {"Simulation_" + name},
+				defaultSampleRate, defaultLatency);
+	}
+
+	/**
+	 * Name of a sensor from its side normal, e.g. IR_X_Pos for +X
+	 * 
+	 * @param sideNormal Vector normal to a satellite side
+	 * @return The name of the sensor
+	 */
+	private static String defaultName(Vector3D sideNormal) {
+		String[] axes = {"X", "Y", "Z"};
+		double[] components = sideNormal.toArray();
+		for (int i = 0; i < 3; i++) {
+			if (components[i] != 0 && components[(i + 1) % 3] == 0 && components[(i + 2) % 3] == 0) {
+				return "IR_" + axes[i] + (components[i] > 0 ? "_Pos" : "_Neg");
+			}
+		}
+		return "IR_" + sideNormal.toString();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public SensorDescriptor getDescriptor() {
+		return descriptor;
+	}
+
+	/** 
+	 * {@inheritDoc}
+	 * <p>
+	 * The infrared sensor has no noise.
+	 */
+	@Override
+	public void setSeed(long seed) {}
+
+	/**
+	 * Measure the infrared reading for the given state
+	 * 
+	 * @param state State of the satellite
+	 * @param data Array filled with the infrared reading
+	 */
+	@Override
+	public void measure(SpacecraftState state, double[] data) {
+		if (geometry == null) {
+			geometry = new EarthSensingGeometry(Constants.WGS84_EARTH_EQUATORIAL_RADIUS, null);
+		}
+		geometry.update(state, false);
+		angleReading = angleFromNadirVector(geometry.getNadir(), sideNormal);
+		infraredReading = earthReading(angleReading, geometry);
+		data[0] = infraredReading;
+	}
+
+	/**
+	 * Function to compute the infrared reading for a face of the satellite given
+	 * the angle to Nadir and the geometry of the Earth
+	 * 
+	 * @param angle Angle to Nadir vector along an axis plane
+	 * @param geometry Geometry of the Earth seen by the satellite
+	 * @return The corresponding infrared reading
+	 */
+	static double earthReading(double angle, EarthSensingGeometry geometry) {
+		double reading = angleToInfrared(angle) + albedo * geometry.getIllumination();
+		if (earthCoverage) {
+			reading *= EarthSensingGeometry.coverage(angle, geometry.getAngularRadius());
+		}
+		return reading;
 	}
 
 	/**
@@ -41,16 +141,14 @@ public class InfraredSensor {
 	 *            Angle to Nadir vector along an axis plane
 	 * @return result The corresponding infrared reading for the angle to Nadir
 	 */
-	private double angleToInfrared(double angle) {
-		double result, x = angle;
+	static double angleToInfrared(double angle) {
+		double x = angle;
 		/*
-		 * Uses a ninth-order polynomial of best fit to the model infrared curve
+		 * Uses a ninth-order polynomial of best fit to the model infrared curve,
+		 * evaluated in the Horner form.
 		 */
-		result = p1 * FastMath.pow(x, 9) + p2 * FastMath.pow(x, 8) + p3 * FastMath.pow(x, 7) + p4 * FastMath.pow(x, 6)
-				+ p5 * FastMath.pow(x, 5) + p6 * FastMath.pow(x, 4) + p7 * FastMath.pow(x, 3) + p8 * FastMath.pow(x, 2)
-				+ p9 * x + p10;
-
-		return result;
+		return ((((((((p1 * x + p2) * x + p3) * x + p4) * x + p5) * x + p6) * x + p7) * x + p8) * x + p9) * x
+				+ p10;
 	}
 
 	/**
@@ -78,6 +176,18 @@ public class InfraredSensor {
 		return infraredReading;
 	}
 
+	/**
+	 * Set the last values computed for the sensor by a batched evaluation
+	 * 
+	 * @param angle Angle to Nadir
+	 * @param reading Corresponding infrared reading
+	 * @see InfraredArray
+	 */
+	void setReading(double angle, double reading) {
+		angleReading = angle;
+		infraredReading = reading;
+	}
+
 	/**
 	 * Series of get and set functions for @testing purposes only
 	 */
@@ -14,6 +14,10 @@
 
 package msp.simulator.satellite.sensors;
 
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
 import org.hipparchus.geometry.euclidean.threed.Vector3D;
 import org.hipparchus.geometry.euclidean.threed.Rotation;
 import org.hipparchus.util.FastMath;
@@ -22,6 +26,7 @@ import org.orekit.errors.OrekitException;
 import org.orekit.models.earth.GeoMagneticElements;
 import org.orekit.propagation.SpacecraftState;
 import org.orekit.frames.Transform;
+import org.orekit.time.AbsoluteDate;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,7 +35,9 @@ import msp.simulator.environment.Environment;
 import msp.simulator.environment.geomagneticField.EarthMagneticField;
 import msp.simulator.environment.solarSystem.Earth;
 import msp.simulator.satellite.assembly.Assembly;
+import msp.simulator.utils.checkpoint.Checkpointable;
 import msp.simulator.utils.logs.CustomLoggingTools;
+import msp.simulator.utils.noise.SensorNoise;
 
 /**
  * This class represents the magnetometer sensor of the
@@ -38,7 +45,7 @@ import msp.simulator.utils.logs.CustomLoggingTools;
  *
  * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
  */
-public class Magnetometer {
+public class Magnetometer implements Sensor, Checkpointable {
 	
 	/* ******* Public Static Attributes ******* */
 
@@ -48,6 +55,33 @@ public class Magnetometer {
 	 */
 	public static double defaultMagnetoNoiseIntensity = 1e2 ;
 
+	/** Intensity of the random walk of the magnetometer bias.
+	 * A null value disables the bias. (nT/sqrt(s)) */
+	public static double defaultMagnetoBiasWalk = 0. ;
+
+	/** Quantization step of the magnetometer measures, or 0. (nT) */
+	public static double defaultMagnetoQuantum = 0. ;
+
+	/** Sample rate of the magnetometer, or 0 to sample once per 
+	 * integration step. (Hz) */
+	public static double defaultSampleRate = 0. ;
+
+	/** Delay between a sample and its availability. (s) */
+	public static double defaultLatency = 0. ;
+
+	/** Maximum period between two evaluations of the geomagnetic 
+	 * model. In between, the local field (North-East-Down) is linearly
+	 * extrapolated from the two last evaluations. A null value 
+	 * evaluates the model at each new date. (s)
+	 */
+	public static double defaultFieldUpdatePeriod = 0.0 ;
+
+	/** Accepted extrapolation error on the field. The update period
+	 * is shortened when exceeded and extended back when the error
+	 * is well below. (nanoTesla)
+	 */
+	public static double defaultFieldTolerance = 10.0 ;
+
 	/* **************************************** */
 
 	/** Logger of the class. */
@@ -66,9 +100,74 @@ public class Magnetometer {
 	/** Private attribute for the noise intensity. */
 	private double noiseIntensity;
 
+	/** Noise model of the magnetometer. */
+	private SensorNoise noise;
+
+	/** Buffer of the measures. */
+	private final double[] measure;
+
+	/** Lower bound of the adaptive update period. (s) */
+	private static final double minFieldUpdatePeriod = 1e-3;
+
+	/** Configured update period of the geomagnetic model, upper bound
+	 * of the adaptive update period. (s) */
+	private final double maxFieldUpdatePeriod;
+
+	/** Current update period of the geomagnetic model. (s) */
+	private double fieldUpdatePeriod;
+
+	/** Accepted extrapolation error. (nT) */
+	private double fieldTolerance;
+
+	/** Largest extrapolation error observed. (nT) */
+	private double maxFieldError;
+
+	/** Date of the last field provided. */
+	private AbsoluteDate cachedDate;
+
+	/** Position of the last field provided. (m) */
+	private Vector3D cachedPosition;
+
+	/** Last field provided in the North-East-Down frame. (nT) */
+	private Vector3D cachedField;
+
+	/** Date of the last evaluation of the model. */
+	private AbsoluteDate anchorDate;
+
+	/** Last evaluation of the model. (nT) */
+	private Vector3D anchorField;
+
+	/** Date of the evaluation before the last one. */
+	private AbsoluteDate previousAnchorDate;
+
+	/** Evaluation of the model before the last one. (nT) */
+	private Vector3D previousAnchorField;
+
+	/** Descriptor of the sensor. */
+	private final SensorDescriptor descriptor;
+
+	/**
+	 * Build the default magnetometer of the satellite.
+	 * @param environment Instance of the simulation
+	 * @param assembly Instance of the simulation
+	 */
 	public Magnetometer(Environment environment, Assembly assembly) {
+		this(environment, assembly, "Magnetometer");
+	}
+
+	/**
+	 * Build a magnetometer, e.g. a redundant one, whose channels 
+	 * are exported as Simulation_[name]_X, _Y and _Z.
+	 * @param environment Instance of the simulation
+	 * @param assembly Instance of the simulation
+	 * @param name Name of the sensor, unique in the satellite
+	 */
+	public Magnetometer(Environment environment, Assembly assembly, String name) {
 		logger.info(CustomLoggingTools.indentMsg(logger,
-				" -> Building the Magnetometer..."));
+				" -> Building the " + name + "..."));
+
+		this.descriptor = SensorDescriptor.vector(name, "Simulation_" + name,
+				Magnetometer.defaultSampleRate, Magnetometer.defaultLatency);
 
 		/* Linking the class to the rest of the simulation. */
 		this.geomagField = environment.getGeoMagneticField();
@@ -77,6 +176,13 @@ public class Magnetometer {
 
 		/* Initializing the class. */
 		this.noiseIntensity = Magnetometer.defaultMagnetoNoiseIntensity;
+		this.noise = new SensorNoise(name.toLowerCase(), 3, this.noiseIntensity,
+				Magnetometer.defaultMagnetoBiasWalk, Magnetometer.defaultMagnetoQuantum);
+		this.measure = new double[3];
+		this.maxFieldUpdatePeriod = Magnetometer.defaultFieldUpdatePeriod;
+		this.fieldUpdatePeriod = this.maxFieldUpdatePeriod;
+		this.fieldTolerance = Magnetometer.defaultFieldTolerance;
+		this.maxFieldError = 0;
 	}
 
 	/**
@@ -87,19 +193,26 @@ public class Magnetometer {
 	 * @see #retrievePerfectMeasurement()
 	 */
 	public GeoMagneticElements retrieveNoisyField() {
-		/* Perfect Measure. */
-		GeoMagneticElements perfectMeasure = this.retrievePerfectField();
+		return this.retrieveNoisyField(this.assembly.getStates().getCurrentState());
+	}
 
-		/* Normally distributed random noise contribution. */
-		Vector3D noise = new Vector3D ( new double[] { 
-				2 * (FastMath.random() - 0.5) * this.noiseIntensity,
-				2 * (FastMath.random() - 0.5) * this.noiseIntensity,
-				2 * (FastMath.random() - 0.5) * this.noiseIntensity
-		});
+	/**
+	 * Return a measurement disturbed by a random noise for the
+	 * given state.
+	 * @param satState The state of the satellite
+	 * @return GeoMagneticElements (where field vector is expressed in nT)
+	 */
+	public GeoMagneticElements retrieveNoisyField(SpacecraftState satState) {
+		/* Perfect Measure. */
+		GeoMagneticElements perfectMeasure = this.retrievePerfectField(satState);
 
 		/* Disturbing the perfect measurement. */
-		Vector3D noisyFieldVector = 
-				perfectMeasure.getFieldVector().add(noise);
+		Vector3D perfectFieldVector = perfectMeasure.getFieldVector();
+		this.measure[0] = perfectFieldVector.getX();
+		this.measure[1] = perfectFieldVector.getY();
+		this.measure[2] = perfectFieldVector.getZ();
+		this.noise.corrupt(this.measure, satState.getDate());
+		Vector3D noisyFieldVector = new Vector3D(this.measure);
 
 		/* Creating the noisy measure. */
 		GeoMagneticElements noisyMeasure = new GeoMagneticElements(noisyFieldVector);	
@@ -115,14 +228,168 @@ public class Magnetometer {
 	/**
 	 * Retrieve a perfect measured data from the sensors, i.e. an
 	 * ideal measurement without any noise or interference.
+	 * <p>
+	 * The local geomagnetic field (North-East-Down) is either evaluated
+	 * at each date or extrapolated between sparse evaluations of the
+	 * model, depending on the field update period.
 	 * 
 	 * @return GeoMagneticElements at the location of the satellite.
 	 * (where field vector is expressed in nT)
 	 * @see GeoMagneticElements 
+	 * @see #defaultFieldUpdatePeriod
 	 */
 	public GeoMagneticElements retrievePerfectField() {
+		return this.retrievePerfectField(this.assembly.getStates().getCurrentState());
+	}
+
+	/**
+	 * Retrieve a perfect measured data for the given state.
+	 * @param satState The state of the satellite
+	 * @return GeoMagneticElements at the location of the satellite.
+	 * (where field vector is expressed in nT)
+	 */
+	public GeoMagneticElements retrievePerfectField(SpacecraftState satState) {
+
+		Vector3D trueMagField_ecef = this.getFieldNed(satState);
+
+		/* Rotate the magnetic field reading into the body frame */
+		// Assuming WMM outputs vectors in Earth-centred-Earth-fixed frame
+		// This might be backwards
+		Rotation rotation_ecef_to_body = satState.getAttitude().getRotation();
+		Transform ecef_to_body = new Transform(null, rotation_ecef_to_body);
+		Vector3D trueMagField_body_vec =
+				ecef_to_body.transformVector(trueMagField_ecef);
+		GeoMagneticElements trueMagField_body = new GeoMagneticElements(
+				trueMagField_body_vec);
+
+		return trueMagField_body;
+	}
+
+	/**
+	 * Provide the magnetic field in the local North-East-Down
+	 * frame for the given state, reusing or extrapolating the
+	 * previous model evaluations when allowed by the update period.
+	 * <p>
+	 * The field of the latest date and position is kept, so that
+	 * the other modules of the step, e.g. the magnetorquers, share
+	 * the evaluation of the sensor. The position is part of the key
+	 * as the stages of an integration step may share a date.
+	 * 
+	 * @param satState The state of the satellite.
+	 * @return The magnetic field vector (North, East, Down) (nT)
+	 * @see #getFieldInertial(SpacecraftState)
+	 */
+	public Vector3D getFieldNed(SpacecraftState satState) {
+		AbsoluteDate date = satState.getDate();
+		Vector3D position = satState.getPVCoordinates().getPosition();
+
+		/* Several requests for the same state: reuse the last result. */
+		if (date.equals(this.cachedDate) && position.equals(this.cachedPosition)) {
+			return this.cachedField;
+		}
+
+		Vector3D field;
+		if (this.fieldUpdatePeriod <= 0
+				|| this.anchorDate == null
+				|| date.compareTo(this.anchorDate) < 0) {
+			/* Exact mode or no usable history (e.g. date going backward). */
+			field = this.computeFieldNed(satState);
+			this.resetAnchors(date, field);
 
-		SpacecraftState satState = this.assembly.getStates().getCurrentState() ;
+		} else if (date.durationFrom(this.anchorDate) <= this.fieldUpdatePeriod) {
+			/* Within the current period: extrapolate from the last evaluations. */
+			field = this.extrapolate(date);
+
+		} else {
+			/* End of the period: evaluate the model and adapt the period. */
+			field = this.computeFieldNed(satState);
+
+			if (this.previousAnchorDate != null) {
+				double error = this.extrapolate(date).distance(field);
+				this.maxFieldError = FastMath.max(this.maxFieldError, error);
+
+				if (error > this.fieldTolerance) {
+					this.fieldUpdatePeriod = FastMath.max(
+							this.fieldUpdatePeriod / 2, Magnetometer.minFieldUpdatePeriod);
+				} else if (error < this.fieldTolerance / 4) {
+					this.fieldUpdatePeriod = FastMath.min(
+							this.fieldUpdatePeriod * 2, this.maxFieldUpdatePeriod);
+				}
+			}
+			this.previousAnchorDate = this.anchorDate;
+			this.previousAnchorField = this.anchorField;
+			this.anchorDate = date;
+			this.anchorField = field;
+		}
+
+		this.cachedDate = date;
+		this.cachedPosition = position;
+		this.cachedField = field;
+
+		return field;
+	}
+
+	/**
+	 * Provide the magnetic field of {@link #getFieldNed(SpacecraftState)}
+	 * expressed in the inertial frame of the state.
+	 * 
+	 * @param satState The state of the satellite.
+	 * @return The magnetic field vector in the frame of the state (nT)
+	 * @throws OrekitException if the geodetic point or the frame
+	 * transform can not be computed
+	 */
+	public Vector3D getFieldInertial(SpacecraftState satState) throws OrekitException {
+		Vector3D fieldNed = this.getFieldNed(satState);
+		GeodeticPoint point = this.earth.getEllipsoid().transform(
+				satState.getPVCoordinates().getPosition(),
+				satState.getFrame(),
+				satState.getDate());
+		return EarthMagneticField.toFrame(fieldNed, point,
+				this.earth.getEllipsoid().getBodyFrame(),
+				satState.getFrame(),
+				satState.getDate());
+	}
+
+	/**
+	 * Linear extrapolation of the field from the two last
+	 * evaluations of the model. If only one evaluation is
+	 * available, the field is held constant.
+	 * 
+	 * @param date Date of the extrapolation
+	 * @return The extrapolated field vector (nT)
+	 */
+	private Vector3D extrapolate(AbsoluteDate date) {
+		if (this.previousAnchorDate == null) {
+			return this.anchorField;
+		}
+		double span = this.anchorDate.durationFrom(this.previousAnchorDate);
+		double ratio = date.durationFrom(this.anchorDate) / span;
+
+		return new Vector3D(
+				1 + ratio, this.anchorField,
+				-ratio, this.previousAnchorField);
+	}
+
+	/**
+	 * Restart the extrapolation history from a single evaluation.
+	 * @param date Date of the evaluation
+	 * @param field Exact field at this date (nT)
+	 */
+	private void resetAnchors(AbsoluteDate date, Vector3D field) {
+		this.previousAnchorDate = null;
+		this.previousAnchorField = null;
+		this.anchorDate = date;
+		this.anchorField = field;
+	}
+
+	/**
+	 * Evaluate the geomagnetic model at the position of the
+	 * satellite.
+	 * 
+	 * @param satState The state of the satellite.
+	 * @return The magnetic field in the North-East-Down frame (nT)
+	 */
+	private Vector3D computeFieldNed(SpacecraftState satState) {
 
 		Vector3D positionOnEarth = 
 				satState.getOrbit().getPVCoordinates().getPosition();
@@ -149,33 +416,22 @@ public class Magnetometer {
 		 * the altitude of the satellite is slightly shifted from the true 
 		 * one.
 		 */
-		GeoMagneticElements trueMagField_ecef = this.geomagField.getField().calculateField(
+		Vector3D trueMagField_ecef = this.geomagField.calculateField(
 				FastMath.toDegrees(geodeticPosition.getLatitude()),	/* decimal deg */
 				FastMath.toDegrees(geodeticPosition.getLongitude()),	/* decimal deg */
 				(satState.getA() - this.earth.getRadius()) / 1e3		/* km */
 				);
-		
-		logger.debug("Magnetometer Measurement: \n" +
-				"Latitude: " + FastMath.toDegrees(geodeticPosition.getLatitude()) + " °\n" +
-				"Longitud: " + FastMath.toDegrees(geodeticPosition.getLongitude()) + " °\n" +
-				"Altitude: " + (satState.getA() - this.earth.getRadius()) / 1e3 + " km\n" +
-				"True Geo ECEF" + trueMagField_ecef.toString()
-				);
-
 
-    /* Rotate the magnetic field reading into the body frame */
-    // Assuming WMM outputs vectors in Earth-centred-Earth-fixed frame
-    // This might be backwards
-    Rotation rotation_ecef_to_body =
-        this.assembly.getStates()
-        .getCurrentState().getAttitude().getRotation();
-    Transform ecef_to_body = new Transform(null, rotation_ecef_to_body);
-    Vector3D trueMagField_body_vec =
-        ecef_to_body.transformVector(trueMagField_ecef.getFieldVector());
-    GeoMagneticElements trueMagField_body = new GeoMagneticElements(
-        trueMagField_body_vec);
+		if (logger.isDebugEnabled()) {
+			logger.debug("Magnetometer Measurement: \n" +
+					"Latitude: " + FastMath.toDegrees(geodeticPosition.getLatitude()) + " deg\n" +
+					"Longitud: " + FastMath.toDegrees(geodeticPosition.getLongitude()) + " deg\n" +
+					"Altitude: " + (satState.getA() - this.earth.getRadius()) / 1e3 + " km\n" +
+					"True Geo ECEF: " + trueMagField_ecef.toString()
+					);
+		}
 
-		return trueMagField_body;
+		return trueMagField_ecef;
 	}
 	
 	/**
@@ -197,6 +453,25 @@ public class Magnetometer {
 		return data;
 	}
 
+	/** {@inheritDoc} */
+	@Override
+	public SensorDescriptor getDescriptor() {
+		return this.descriptor;
+	}
+
+	/**
+	 * Measure the geomagnetic field for the given state.
+	 * @param satState The state of the satellite
+	 * @param data Array filled with the field vector (in Tesla)
+	 */
+	@Override
+	public void measure(SpacecraftState satState, double[] data) {
+		Vector3D field = this.retrieveNoisyField(satState).getFieldVector();
+		data[0] = field.getX() * 1e-9;
+		data[1] = field.getY() * 1e-9;
+		data[2] = field.getZ() * 1e-9;
+	}
+
 	/**
 	 * @return The noise intensity in nTesla.
 	 */
@@ -204,4 +479,62 @@ public class Magnetometer {
 		return noiseIntensity;
 	}
 
+	/**
+	 * @return The current update period of the geomagnetic model (s)
+	 */
+	public double getFieldUpdatePeriod() {
+		return fieldUpdatePeriod;
+	}
+
+	/**
+	 * Return the largest difference observed between the
+	 * extrapolated field and the model at the end of an
+	 * update period.
+	 * @return The maximum extrapolation error (nT)
+	 */
+	public double getMaxFieldError() {
+		return maxFieldError;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void setSeed(long seed) {
+		this.noise.setSeed(seed);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The extrapolation state of the field is saved so that the
+	 * restored simulation evaluates the model at the same dates.
+	 */
+	@Override
+	public void writeCheckpoint(ObjectOutput out) throws IOException {
+		out.writeObject(this.noise);
+		out.writeDouble(this.fieldUpdatePeriod);
+		out.writeDouble(this.maxFieldError);
+		out.writeObject(this.cachedDate);
+		out.writeObject(this.cachedPosition);
+		out.writeObject(this.cachedField);
+		out.writeObject(this.anchorDate);
+		out.writeObject(this.anchorField);
+		out.writeObject(this.previousAnchorDate);
+		out.writeObject(this.previousAnchorField);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void readCheckpoint(ObjectInput in) throws IOException, ClassNotFoundException {
+		this.noise = (SensorNoise) in.readObject();
+		this.fieldUpdatePeriod = in.readDouble();
+		this.maxFieldError = in.readDouble();
+		this.cachedDate = (AbsoluteDate) in.readObject();
+		this.cachedPosition = (Vector3D) in.readObject();
+		this.cachedField = (Vector3D) in.readObject();
+		this.anchorDate = (AbsoluteDate) in.readObject();
+		this.anchorField = (Vector3D) in.readObject();
+		this.previousAnchorDate = (AbsoluteDate) in.readObject();
+		this.previousAnchorField = (Vector3D) in.readObject();
+	}
+
 }
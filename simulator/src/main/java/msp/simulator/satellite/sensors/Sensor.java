@@ -0,0 +1,52 @@
+/* Copyright 20017-2018 Melbourne Space Program
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package msp.simulator.satellite.sensors;
+
+import org.orekit.propagation.SpacecraftState;
+
+/**
+ * This interface represents a sensor of the satellite, i.e. a
+ * measurement of the state of the satellite on a fixed layout of
+ * channels described by the sensor descriptor.
+ * <p>
+ * A sensor registered in the satellite sensors is sampled at its
+ * own rate and exported channel by channel.
+ *
+ * @see Sensors#register(Sensor)
+ * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
+ */
+public interface Sensor extends SensorSchedule.Measurement {
+
+	/**
+	 * @return The descriptor of the sensor.
+	 */
+	SensorDescriptor getDescriptor();
+
+	/**
+	 * Measure the sensor data for the given state.
+	 * @param state State of the satellite at the sample date
+	 * @param data Array filled with the measurement, one value
+	 * per channel of the descriptor
+	 */
+	@Override
+	void measure(SpacecraftState state, double[] data);
+
+	/**
+	 * Reset the random generators of the noise of the sensor for the
+	 * given simulation seed. A sensor without noise ignores it.
+	 * @param seed Seed of the simulation
+	 */
+	void setSeed(long seed);
+}
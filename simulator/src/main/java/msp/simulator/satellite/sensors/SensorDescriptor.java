@@ -0,0 +1,88 @@
+/* Copyright 20017-2018 Melbourne Space Program
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package msp.simulator.satellite.sensors;
+
+/**
+ * This class describes a sensor: its name, the layout of its
+ * channels and its sampling.
+ *
+ * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
+ */
+public class SensorDescriptor {
+
+	/** Name of the sensor, unique in the satellite. */
+	private final String name;
+
+	/** Name of each channel, i.e. the export key of the channel. */
+	private final String[] channels;
+
+	/** Sample rate of the sensor, or 0 to sample once per 
+	 * integration step. (Hz) */
+	private final double sampleRate;
+
+	/** Delay between a sample and its availability. (s) */
+	private final double latency;
+
+	/**
+	 * Create the descriptor of a sensor.
+	 * @param name Name of the sensor, unique in the satellite
+	 * @param channels Name of each channel, i.e. its export key
+	 * @param sampleRate Sample rate of the sensor, or 0 to sample 
+	 * once per integration step (Hz)
+	 * @param latency Delay between a sample and its availability (s)
+	 */
+	public SensorDescriptor(String name, String[] channels, double sampleRate, 
+			double latency) {
+		this.name = name;
+		this.channels = channels.clone();
+		this.sampleRate = sampleRate;
+		this.latency = latency;
+	}
+
+	/**
+	 * Create the descriptor of a sensor measuring a vector on three
+	 * channels, suffixed by _X, _Y and _Z.
+	 * @param name Name of the sensor, unique in the satellite
+	 * @param prefix Prefix of the channels
+	 * @param sampleRate Sample rate of the sensor, or 0 to sample 
+	 * once per integration step (Hz)
+	 * @param latency Delay between a sample and its availability (s)
+	 * @return The descriptor
+	 */
+	public static SensorDescriptor vector(String name, String prefix, double sampleRate,
+			double latency) {
+		return new SensorDescriptor(name, 
+				new String[] {prefix + "_X", prefix + "_Y", prefix + "_Z"}, 
+				sampleRate, latency);
+	}
+
+	/** @return The name of the sensor. */
+	public String getName() {return name;}
+
+	/** @return The number of channels. */
+	public int getDimension() {return channels.length;}
+
+	/**
+	 * @param index Index of the channel
+	 * @return The name of the channel.
+	 */
+	public String getChannel(int index) {return channels[index];}
+
+	/** @return The sample rate (Hz), or 0. */
+	public double getSampleRate() {return sampleRate;}
+
+	/** @return The latency. (s) */
+	public double getLatency() {return latency;}
+}
@@ -0,0 +1,110 @@
+/* Copyright 20017-2018 Melbourne Space Program
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package msp.simulator.satellite.sensors;
+
+import java.util.List;
+
+import msp.simulator.satellite.sensors.SensorSchedule.Sample;
+
+/**
+ * This class gathers the latest released measurement of every 
+ * channel of the registered sensors in a single primitive frame.
+ * <p>
+ * The layout of the frame is built once from the descriptors of 
+ * the sensors, the sensors being laid out in the order of their 
+ * registration. The frame is then updated in place after each 
+ * step without any allocation, and flags the channels of the 
+ * sensors which released a sample during the step.
+ *
+ * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
+ */
+public class SensorFrame {
+
+	/** Name of each channel. */
+	private final String[] channels;
+
+	/** Offset of the first channel of each sensor. */
+	private final int[] offsets;
+
+	/** Latest value of each channel. */
+	private final double[] values;
+
+	/** True if the channel was updated during the last step. */
+	private final boolean[] updated;
+
+	/**
+	 * Build the frame of the given sensors.
+	 * @param sensors The registered sensors
+	 */
+	public SensorFrame(List<Sensor> sensors) {
+		int size = 0;
+		this.offsets = new int[sensors.size()];
+		for (int i = 0; i < sensors.size(); i++) {
+			this.offsets[i] = size;
+			size += sensors.get(i).getDescriptor().getDimension();
+		}
+		this.channels = new String[size];
+		for (int i = 0; i < sensors.size(); i++) {
+			SensorDescriptor descriptor = sensors.get(i).getDescriptor();
+			for (int k = 0; k < descriptor.getDimension(); k++) {
+				this.channels[this.offsets[i] + k] = descriptor.getChannel(k);
+			}
+		}
+		this.values = new double[size];
+		this.updated = new boolean[size];
+	}
+
+	/**
+	 * Update the frame from the schedules of the sensors, in the
+	 * order of the registration.
+	 * @param schedules The schedules of the sensors
+	 */
+	void update(List<SensorSchedule> schedules) {
+		for (int i = 0; i < schedules.size(); i++) {
+			SensorSchedule schedule = schedules.get(i);
+			int offset = this.offsets[i];
+			int dimension = schedule.getDimension();
+			boolean released = !schedule.getReleased().isEmpty();
+			if (released) {
+				Sample latest = schedule.getLatest();
+				System.arraycopy(latest.getValues(), 0, this.values, offset, dimension);
+			}
+			for (int k = 0; k < dimension; k++) {
+				this.updated[offset + k] = released;
+			}
+		}
+	}
+
+	/** @return The number of channels. */
+	public int getChannelCount() {return channels.length;}
+
+	/**
+	 * @param index Index of the channel
+	 * @return The name of the channel.
+	 */
+	public String getChannel(int index) {return channels[index];}
+
+	/**
+	 * @param index Index of the channel
+	 * @return The latest value of the channel.
+	 */
+	public double getValue(int index) {return values[index];}
+
+	/**
+	 * @param index Index of the channel
+	 * @return True if the channel was updated during the last step.
+	 */
+	public boolean isUpdated(int index) {return updated[index];}
+}
@@ -0,0 +1,326 @@
+/* Copyright 20017-2018 Melbourne Space Program
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package msp.simulator.satellite.sensors;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hipparchus.util.FastMath;
+import org.orekit.propagation.SpacecraftState;
+import org.orekit.time.AbsoluteDate;
+
+import msp.simulator.utils.checkpoint.Checkpointable;
+
+/**
+ * This class schedules the samples of a sensor at its own rate,
+ * independently of the integration step, and delivers them after
+ * the latency of the sensor.
+ * <p>
+ * After each integration step, the sensor is sampled at each of its
+ * sample dates within the step, the state of the satellite being
+ * shifted from the closest bound of the step. A null sample period 
+ * samples the sensor once per step, at the end of the step. A sample
+ * is released once its date plus the latency is reached, and the 
+ * latest released sample is the current output of the sensor.
+ * <p>
+ * The pending samples are kept in a ring of preallocated samples,
+ * which only grows while the latency is being filled, so that the
+ * sampling does not allocate any sample in the steady state. The
+ * released samples are then valid until the next step.
+ *
+ * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
+ */
+public class SensorSchedule implements Checkpointable {
+
+	/**
+	 * Measurement of a sensor for a given state of the satellite.
+	 */
+	public interface Measurement {
+
+		/**
+		 * Measure the sensor data.
+		 * @param state State of the satellite at the sample date
+		 * @param data Array filled with the measurement
+		 */
+		void measure(SpacecraftState state, double[] data);
+	}
+
+	/**
+	 * Sample of a sensor.
+	 */
+	public static class Sample implements Serializable {
+
+		/** Generated Serial Version UID. */
+		private static final long serialVersionUID = 2953014380622213436L;
+
+		/** Date of the sample. */
+		private AbsoluteDate date;
+
+		/** Measured data. */
+		private final double[] values;
+
+		/**
+		 * @param date Date of the sample
+		 * @param values Measured data
+		 */
+		public Sample(AbsoluteDate date, double[] values) {
+			this.date = date;
+			this.values = values;
+		}
+
+		/** @return The date of the sample. */
+		public AbsoluteDate getDate() {return date;}
+
+		/** @return The measured data. */
+		public double[] getValues() {return values;}
+
+		/**
+		 * Copy another sample of the same dimension in the sample.
+		 * @param sample The sample to copy
+		 */
+		void copy(Sample sample) {
+			this.date = sample.date;
+			System.arraycopy(sample.values, 0, this.values, 0, this.values.length);
+		}
+	}
+
+	/** Margin on the release date, avoiding the rounding of the dates. (s) */
+	private static final double NUMERICAL_MARGIN = 1e-9;
+
+	/** Initial capacity of the ring of pending samples. */
+	private static final int INITIAL_CAPACITY = 16;
+
+	/** Name of the sensor. */
+	private final String name;
+
+	/** Number of components of a measurement. */
+	private final int dimension;
+
+	/** Period between two samples, or 0 for one sample per step. (s) */
+	private final double samplePeriod;
+
+	/** Delay between the sample and its availability. (s) */
+	private final double latency;
+
+	/** Measurement of the sensor. */
+	private final Measurement measurement;
+
+	/** Date of the first sample. */
+	private AbsoluteDate firstSampleDate;
+
+	/** Index of the next sample from the first one. */
+	private long nextSampleIndex;
+
+	/** Ring of the samples waiting for their release. */
+	private Sample[] pending;
+
+	/** Index in the ring of the oldest pending sample. */
+	private int head;
+
+	/** Number of pending samples. */
+	private int count;
+
+	/** Samples released during the last step. */
+	private final ArrayList<Sample> released;
+
+	/** Latest released sample, or null if none. */
+	private Sample latest;
+
+	/**
+	 * Create the schedule of a sensor.
+	 * @param name Name of the sensor
+	 * @param dimension Number of components of a measurement
+	 * @param sampleRate Sample rate of the sensor, or 0 for one sample
+	 * per integration step (Hz)
+	 * @param latency Delay between the sample and its availability (s)
+	 * @param measurement Measurement of the sensor
+	 */
+	public SensorSchedule(String name, int dimension, double sampleRate, double latency,
+			Measurement measurement) {
+		this.name = name;
+		this.dimension = dimension;
+		this.samplePeriod = (sampleRate > 0) ? 1. / sampleRate : 0.;
+		this.latency = latency;
+		this.measurement = measurement;
+		this.firstSampleDate = null;
+		this.nextSampleIndex = 0;
+		this.pending = new Sample[0];
+		this.head = 0;
+		this.count = 0;
+		this.grow();
+		this.released = new ArrayList<Sample>();
+		this.latest = null;
+	}
+
+	/**
+	 * Sample the sensor within the last integration step and 
+	 * release the samples whose latency is elapsed.
+	 * @param previous State at the beginning of the step, or null
+	 * @param current State at the end of the step
+	 */
+	public void process(SpacecraftState previous, SpacecraftState current) {
+		AbsoluteDate end = current.getDate();
+		this.released.clear();
+
+		/* Sampling the sensor. */
+		if (this.samplePeriod <= 0) {
+			this.take(current);
+		} else {
+			if (this.firstSampleDate == null) {
+				this.firstSampleDate = (previous == null) ? end : previous.getDate();
+			}
+			AbsoluteDate date = this.firstSampleDate.shiftedBy(
+					this.nextSampleIndex * this.samplePeriod);
+			while (date.compareTo(end) <= 0) {
+				this.take(SensorSchedule.stateAt(previous, current, date));
+				this.nextSampleIndex++;
+				date = this.firstSampleDate.shiftedBy(this.nextSampleIndex * this.samplePeriod);
+			}
+		}
+
+		/* Releasing the samples. */
+		Sample last = null;
+		while (this.count > 0
+				&& this.pending[this.head].getDate().durationFrom(end) + this.latency 
+				<= NUMERICAL_MARGIN) {
+			last = this.pending[this.head];
+			this.released.add(last);
+			this.head = (this.head + 1) % this.pending.length;
+			this.count--;
+		}
+		if (last != null) {
+			if (this.latest == null) {
+				this.latest = new Sample(null, new double[this.dimension]);
+			}
+			this.latest.copy(last);
+		}
+	}
+
+	/**
+	 * Take a sample of the sensor in the next slot of the ring.
+	 * @param state State of the satellite at the sample date
+	 */
+	private void take(SpacecraftState state) {
+		if (this.count == this.pending.length) {
+			this.grow();
+		}
+		Sample sample = this.pending[(this.head + this.count) % this.pending.length];
+		sample.date = state.getDate();
+		this.measurement.measure(state, sample.values);
+		this.count++;
+	}
+
+	/**
+	 * Double the capacity of the ring, the samples of the current ring
+	 * being moved to its beginning from the oldest pending one.
+	 */
+	private void grow() {
+		int length = this.pending.length;
+		Sample[] ring = new Sample[FastMath.max(INITIAL_CAPACITY, 2 * length)];
+		for (int i = 0; i < ring.length; i++) {
+			ring[i] = (i < length) ? this.pending[(this.head + i) % length] :
+				new Sample(null, new double[this.dimension]);
+		}
+		this.pending = ring;
+		this.head = 0;
+	}
+
+	/**
+	 * Provide the state at a date within the step, shifted from the 
+	 * closest bound of the step.
+	 * @param previous State at the beginning of the step, or null
+	 * @param current State at the end of the step
+	 * @param date Date within the step
+	 * @return The state at the date
+	 */
+	private static SpacecraftState stateAt(SpacecraftState previous, 
+			SpacecraftState current, AbsoluteDate date) {
+		double toCurrent = date.durationFrom(current.getDate());
+		if (previous == null) {
+			return (toCurrent == 0) ? current : current.shiftedBy(toCurrent);
+		}
+		double fromPrevious = date.durationFrom(previous.getDate());
+		if (-toCurrent <= fromPrevious) {
+			return (toCurrent == 0) ? current : current.shiftedBy(toCurrent);
+		} else {
+			return (fromPrevious == 0) ? previous : previous.shiftedBy(fromPrevious);
+		}
+	}
+
+	/**
+	 * @return The latest released sample, or null if none.
+	 */
+	public Sample getLatest() {
+		return this.latest;
+	}
+
+	/**
+	 * @return The samples released during the last step, in 
+	 * chronological order.
+	 */
+	public List<Sample> getReleased() {
+		return this.released;
+	}
+
+	/**
+	 * @return The name of the sensor.
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * @return The number of components of a measurement.
+	 */
+	public int getDimension() {
+		return this.dimension;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void writeCheckpoint(ObjectOutput out) throws IOException {
+		out.writeObject(this.firstSampleDate);
+		out.writeLong(this.nextSampleIndex);
+		ArrayList<Sample> samples = new ArrayList<Sample>(this.count);
+		for (int i = 0; i < this.count; i++) {
+			samples.add(this.pending[(this.head + i) % this.pending.length]);
+		}
+		out.writeObject(samples);
+		out.writeObject(this.latest);
+	}
+
+	/** {@inheritDoc} */
+	@SuppressWarnings("unchecked")
+	@Override
+	public void readCheckpoint(ObjectInput in) throws IOException, ClassNotFoundException {
+		this.firstSampleDate = (AbsoluteDate) in.readObject();
+		this.nextSampleIndex = in.readLong();
+		ArrayList<Sample> samples = (ArrayList<Sample>) in.readObject();
+		this.head = 0;
+		this.count = 0;
+		for (Sample sample : samples) {
+			if (this.count == this.pending.length) {
+				this.grow();
+			}
+			this.pending[this.count++].copy(sample);
+		}
+		this.latest = (Sample) in.readObject();
+		this.released.clear();
+	}
+}
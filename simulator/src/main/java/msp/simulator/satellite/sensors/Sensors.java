@@ -14,12 +14,21 @@
 
 package msp.simulator.satellite.sensors;
 
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 import org.hipparchus.geometry.euclidean.threed.Vector3D;
+import org.orekit.propagation.SpacecraftState;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import msp.simulator.environment.Environment;
 import msp.simulator.satellite.assembly.Assembly;
+import msp.simulator.utils.checkpoint.Checkpointable;
 import msp.simulator.utils.logs.CustomLoggingTools;
 
 /**
@@ -27,7 +36,7 @@ import msp.simulator.utils.logs.CustomLoggingTools;
  * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
  * @author Braeden BORG
  */
-public class Sensors {
+public class Sensors implements Checkpointable {
 
 	/** Logger of the class. */
 	private static final Logger logger = 
@@ -52,10 +61,33 @@ public class Sensors {
 	negYIRSensor,
 	posZIRSensor,
 	negZIRSensor;
+
+	/** Geometry of the Earth shared by the infrared sensors. */
+	private EarthSensingGeometry earthGeometry;
+
+	/** Array evaluating the infrared sensors in a single pass. */
+	private InfraredArray infraredArray;
 	
 	/** Instance of gyrometer in the simulation. */
 	private Gyrometer gyrometer;
 
+	/* ***** Registry of the sensors. ***** */
+
+	/** Registered sensors, in the order of registration. */
+	private final ArrayList<Sensor> sensors;
+
+	/** Schedule of each registered sensor. */
+	private final ArrayList<SensorSchedule> schedules;
+
+	/** Frame of the latest measurements of the registered sensors. */
+	private SensorFrame frame;
+
+	/** State at the end of the last processed step. */
+	private SpacecraftState previousState;
+
+	/** Seed of the noise of the sensors. */
+	private long seed;
+
 	/**
 	 * Constructor of the satellite sensors.
 	 * 
@@ -70,10 +102,10 @@ public class Sensors {
 		this.environment = environment;
 		this.assembly = assembly;
 
-		/* TODO: Normalize the construction and the use of the sensors.
-		 * Typically by extending a minimal abstract class Sensor.
-		 */
-		
+		this.sensors = new ArrayList<Sensor>();
+		this.schedules = new ArrayList<SensorSchedule>();
+		this.seed = 0;
+
 		/* Building the sensors. */
 		this.magnetometer = new Magnetometer(this.environment, this.assembly);
 		this.gyrometer = new Gyrometer(this.environment, this.assembly);
@@ -84,6 +116,105 @@ public class Sensors {
 		this.negYIRSensor = new InfraredSensor(Vector3D.MINUS_J);
 		this.posZIRSensor = new InfraredSensor(Vector3D.PLUS_K);
 		this.negZIRSensor = new InfraredSensor(Vector3D.MINUS_K);
+		this.earthGeometry = new EarthSensingGeometry(
+				this.environment.getSolarSystem().getEarth().getRadius(),
+				this.environment.getSolarSystem().getSun().getPvCoordinateProvider());
+		this.infraredArray = new InfraredArray("Infrared", this.earthGeometry,
+				this.posXIRSensor, this.negXIRSensor,
+				this.posYIRSensor, this.negYIRSensor,
+				this.posZIRSensor, this.negZIRSensor);
+
+		/* Registering the sensors. */
+		this.register(this.magnetometer);
+		this.register(this.gyrometer);
+		this.register(this.infraredArray);
+
+		this.previousState = this.assembly.getStates().getInitialState();
+	}
+
+	/**
+	 * Register a sensor in the satellite. The sensor is then sampled 
+	 * at the rate of its descriptor and its channels are exported 
+	 * with the other sensors.
+	 * <p>
+	 * The sensors should be registered before the first step, and 
+	 * in the same order for a checkpoint to be restored. The noise
+	 * of the sensor is seeded with the seed of the simulation.
+	 * @param sensor The sensor to register
+	 */
+	public void register(Sensor sensor) {
+		SensorDescriptor descriptor = sensor.getDescriptor();
+		if (this.getSchedule(descriptor.getName()) != null) {
+			throw new IllegalArgumentException(
+					"Sensor already registered: " + descriptor.getName());
+		}
+		sensor.setSeed(this.seed);
+		this.sensors.add(sensor);
+		this.schedules.add(new SensorSchedule(descriptor.getName(), 
+				descriptor.getDimension(), descriptor.getSampleRate(), 
+				descriptor.getLatency(), sensor));
+		this.frame = new SensorFrame(this.sensors);
+	}
+
+	/**
+	 * Reset the noise of every registered sensor, and of the sensors
+	 * registered later, for the given simulation seed.
+	 * @param seed Seed of the simulation
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+		for (Sensor sensor : this.sensors) {
+			sensor.setSeed(seed);
+		}
+	}
+
+	/**
+	 * Sample each sensor at its own rate within the last integration
+	 * step, ending at the given state, and update the frame.
+	 * @param currentState State at the end of the step
+	 */
+	public void processStep(SpacecraftState currentState) {
+		for (int i = 0; i < this.schedules.size(); i++) {
+			this.schedules.get(i).process(this.previousState, currentState);
+		}
+		this.frame.update(this.schedules);
+		this.previousState = currentState;
+	}
+
+	/**
+	 * @return The registered sensors, in the order of registration.
+	 */
+	public List<Sensor> getSensors() {
+		return Collections.unmodifiableList(this.sensors);
+	}
+
+	/**
+	 * @param sensor A registered sensor
+	 * @return The schedule of the sensor, or null if not registered.
+	 */
+	public SensorSchedule getSchedule(Sensor sensor) {
+		int index = this.sensors.indexOf(sensor);
+		return (index < 0) ? null : this.schedules.get(index);
+	}
+
+	/**
+	 * @param name Name of a registered sensor
+	 * @return The schedule of the sensor, or null if not registered.
+	 */
+	public SensorSchedule getSchedule(String name) {
+		for (SensorSchedule schedule : this.schedules) {
+			if (schedule.getName().equals(name)) {
+				return schedule;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return The frame of the latest measurements.
+	 */
+	public SensorFrame getFrame() {
+		return frame;
 	}
 
 	/**
@@ -100,6 +231,13 @@ public class Sensors {
 		return gyrometer;
 	}
 
+	/**
+	 * @return The array of the infrared sensors of the sides.
+	 */
+	public InfraredArray getInfraredArray() {
+		return infraredArray;
+	}
+
 	/**
 	 * @return Infrared sensor for a side of the satellite
 	 */
@@ -126,4 +264,42 @@ public class Sensors {
 	public InfraredSensor getNegZIRSensor() {
 		return negZIRSensor;
 	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void writeCheckpoint(ObjectOutput out) throws IOException {
+		out.writeInt(this.sensors.size());
+		for (int i = 0; i < this.sensors.size(); i++) {
+			Sensor sensor = this.sensors.get(i);
+			out.writeUTF(sensor.getDescriptor().getName());
+			if (sensor instanceof Checkpointable) {
+				((Checkpointable) sensor).writeCheckpoint(out);
+			}
+			this.schedules.get(i).writeCheckpoint(out);
+		}
+		out.writeObject(this.previousState);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void readCheckpoint(ObjectInput in) throws IOException, ClassNotFoundException {
+		int count = in.readInt();
+		if (count != this.sensors.size()) {
+			throw new IOException("Checkpoint of " + count + " sensors, "
+					+ this.sensors.size() + " registered.");
+		}
+		for (int i = 0; i < count; i++) {
+			Sensor sensor = this.sensors.get(i);
+			String name = in.readUTF();
+			if (!name.equals(sensor.getDescriptor().getName())) {
+				throw new IOException("Checkpoint of the sensor " + name 
+						+ ", " + sensor.getDescriptor().getName() + " registered.");
+			}
+			if (sensor instanceof Checkpointable) {
+				((Checkpointable) sensor).readCheckpoint(in);
+			}
+			this.schedules.get(i).readCheckpoint(in);
+		}
+		this.previousState = (SpacecraftState) in.readObject();
+	}
 }
@@ -16,6 +16,8 @@ package msp.simulator.user;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.logging.LogManager;
@@ -27,23 +29,39 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import msp.simulator.NumericalSimulator;
+import msp.simulator.dynamic.propagation.integration.AttitudeIntegratorEnum;
 import msp.simulator.dynamic.propagation.integration.Integration;
 import msp.simulator.dynamic.propagation.integration.RotAccProvider;
 import msp.simulator.dynamic.torques.MemCachedTorqueProvider;
+import msp.simulator.dynamic.torques.ReplayTorqueProvider;
+import msp.simulator.dynamic.torques.StreamedTorqueScenarioProvider;
 import msp.simulator.dynamic.torques.TorqueOverTimeScenarioProvider;
 import msp.simulator.dynamic.torques.TorqueOverTimeScenarioProvider.Step;
 import msp.simulator.dynamic.torques.TorqueProviderEnum;
 import msp.simulator.dynamic.torques.Torques;
+import msp.simulator.dynamic.torques.disturbances.AerodynamicTorque;
+import msp.simulator.dynamic.torques.disturbances.ResidualDipoleTorque;
+import msp.simulator.dynamic.torques.disturbances.SolarPressureTorque;
+import msp.simulator.environment.atmosphere.Atmosphere;
+import msp.simulator.environment.geomagneticField.EarthMagneticField;
+import msp.simulator.environment.gravitationalPotential.GravitationalPotential;
 import msp.simulator.environment.orbit.OrbitWrapper;
+import msp.simulator.environment.solarSystem.CachedCelestialBody;
+import msp.simulator.environment.solarSystem.Earth;
 import msp.simulator.environment.orbit.OrbitWrapper.OrbitalParameters;
 import msp.simulator.groundStation.GroundStation;
+import msp.simulator.satellite.actuators.MagnetoTorquers;
+import msp.simulator.satellite.actuators.ReactionWheels;
 import msp.simulator.satellite.assembly.SatelliteBody;
 import msp.simulator.satellite.assembly.SatelliteStates;
 import msp.simulator.satellite.io.IO;
 import msp.simulator.satellite.sensors.Gyrometer;
+import msp.simulator.satellite.sensors.InfraredSensor;
 import msp.simulator.satellite.sensors.Magnetometer;
+import msp.simulator.utils.architecture.OrekitConfiguration;
 import msp.simulator.utils.logs.CustomLoggingTools;
 import msp.simulator.utils.logs.ephemeris.EphemerisGenerator;
+import msp.simulator.utils.noise.NoiseGenerator;
 
 /**
  * This class handles the user-configuration 
@@ -96,9 +114,11 @@ public class Dashboard {
 		/* **** Simulation Settings **** */
 		Dashboard.setRealTimeProcessing(false);
 		Dashboard.setIntegrationTimeStep(0.1);
+		Dashboard.setAttitudeIntegrator(AttitudeIntegratorEnum.WILCOX);
 		Dashboard.setEphemerisTimeStep(1.0);
 		Dashboard.setGroundStationWorkPeriod(10);
 		Dashboard.setSimulationDuration(10);
+		Dashboard.setCheckpoint(0, null);
 		Dashboard.setEphemerisFilesPath(
 				System.getProperty("user.dir") + System.getProperty("file.separator") 
 				+ "src" + System.getProperty("file.separator")
@@ -107,15 +127,30 @@ public class Dashboard {
 				+ "ephemeris" + System.getProperty("file.separator")
 				);
 
+		/* **** OreKit Settings **** */
+		Dashboard.setOrekitData(OrekitConfiguration.DataSource.DIRECTORY, null, 0.);
+
 		/* **** Orbit Settings **** */
 		Dashboard.setOrbitalParameters(new OrbitWrapper.OrbitalParameters());
 
+		/* **** Environment Settings **** */
+		Dashboard.setMagneticFieldGrid(false, 2.0, 400., 700., 50., null);
+		Dashboard.setEphemerisCache(false, 3600.);
+		Dashboard.setRotatingFrameCache(false, 60.);
+		Dashboard.setDensityTable(false, 1e-3);
+		Dashboard.setGravityField(6, 6, null);
+
 		/* **** Dynamic Settings **** */
 		Dashboard.setInitialAttitudeQuaternion(new Quaternion(1,0,0,0));
 		Dashboard.setInitialSpin(Vector3D.ZERO);
 		Dashboard.setInitialRotAcceleration(Vector3D.ZERO);
 		Dashboard.setCommandTorqueProvider(TorqueProviderEnum.SCENARIO);
 		Dashboard.setTorqueScenario(new ArrayList<Step>());
+		Dashboard.setTorqueScenarioFile(null, 60., 10.);
+		Dashboard.setTorqueLogs(null, null);
+		Dashboard.setTorqueDisturbances(true);
+		Dashboard.setDisturbanceParameters(2.2, 1.5,
+				new Vector3D(1e-3, 1e-3, 1e-3), new Vector3D(1e-3, 1e-3, 1e-3));
 
 		/* **** Structure Settings **** */
 		Dashboard.setSatBoxSizeWithNoSolarPanel(new double[]{0.01, 0.01, 0.01});
@@ -124,12 +159,27 @@ public class Dashboard {
 
 		/* **** Structure Settings **** */
 		Dashboard.setMagnetometerNoiseIntensity(1e2);
+		Dashboard.setMagneticFieldUpdate(0.0, 10.0);
 		Dashboard.setGyroNoiseIntensity(1e-3);
+		Dashboard.setMagnetometerNoiseModel(0., 0.);
+		Dashboard.setGyroNoiseModel(0., 0.);
+		Dashboard.setMagnetometerSampling(0., 0.);
+		Dashboard.setGyroSampling(0., 0.);
+		Dashboard.setInfraredSampling(0., 0.);
+		Dashboard.setInfraredEarthModel(true, 0.);
+		Dashboard.setNoiseGeneration(null, NoiseGenerator.Distribution.UNIFORM);
+
+		/* **** Actuator Settings **** */
+		Dashboard.setMagnetoTorquers(false, 0.2, 0., 0);
+		Dashboard.setReactionWheels(false, 1e-5, 1e-3, 650., Vector3D.ZERO);
 
 
 		/* **** IO Settings **** */
 		Dashboard.setMemCachedConnection(false, "127.0.0.1:11211");
 		Dashboard.setTorqueCommandKey("Simulation_Torque_");
+		Dashboard.setDipoleCommandKey("Simulation_Dipole_");
+		Dashboard.setWheelTorqueCommandKey("Simulation_Wheel_Torque_");
+		Dashboard.setMemCachedJournal(null);
 		Dashboard.setVtsConnection(false);
 
 		/* Checking the overall configuration. */
@@ -206,6 +256,19 @@ public class Dashboard {
 		}
 	}
 
+	/**
+	 * Set the integrator of the rotational state.
+	 * <p>
+	 * The RKMK4 integrator works on the rotation group and allows
+	 * larger integration steps, e.g. 0.5 s to 1 s, for the same
+	 * accuracy.
+	 * @param integrator Integrator in use
+	 * @see AttitudeIntegratorEnum
+	 */
+	public static void setAttitudeIntegrator(AttitudeIntegratorEnum integrator) {
+		Integration.attitudeIntegrator = integrator;
+	}
+
 	/**
 	 * Set the ephemeris time step.
 	 * @param step in seconds and strictly positive.
@@ -231,6 +294,41 @@ public class Dashboard {
 		NumericalSimulator.simulationDuration = duration ; /* s. */
 	}
 
+	/**
+	 * Set the automatic checkpoint of the simulation. The state of the
+	 * simulation is periodically saved in the checkpoint file, replacing
+	 * the previous checkpoint.
+	 * @param period Period of the checkpoint in seconds, 0 to disable it
+	 * @param file The checkpoint file
+	 * @see msp.simulator.utils.checkpoint.Checkpoint
+	 */
+	public static void setCheckpoint(double period, String file) {
+		if (period == 0 || (period > 0 && file != null)) {
+			NumericalSimulator.checkpointPeriod = period;
+			NumericalSimulator.checkpointFile = file;
+		} else {
+			logger.error("Wrong checkpoint - the period should be positive with a "
+					+ "checkpoint file." + " (value = " + period + ", " + file);
+		}
+	}
+
+	/**
+	 * Set the generation of the noise of the sensors and the disturbances.
+	 * @param seed Seed of the simulation, or null to draw a new seed for
+	 * each simulation (the seed in use is logged at initialization)
+	 * @param distribution Distribution of the noise, uniform or normal
+	 * @see NoiseGenerator
+	 */
+	public static void setNoiseGeneration(Long seed, NoiseGenerator.Distribution distribution) {
+		if (distribution != null) {
+			NoiseGenerator.runSeed = seed;
+			NoiseGenerator.distribution = distribution;
+		} else {
+			logger.error("Wrong noise generation - the distribution should be specified."
+					+ " (value = " + seed + ", " + distribution);
+		}
+	}
+
 	/**
 	 * Set the period of work of the ground station, i.e. the time without
 	 * any update.
@@ -251,6 +349,141 @@ public class Dashboard {
 		OrbitWrapper.userOrbitalParameters = param;
 	}
 
+	/**
+	 * Set the ephemeris cache of the Sun and the Moon. Their positions
+	 * are then interpolated between samples of the ephemerides.
+	 * @param active True to use the cache
+	 * @param samplingStep Time step between two samples (s)
+	 * @see CachedCelestialBody
+	 */
+	public static void setEphemerisCache(boolean active, double samplingStep) {
+		if (samplingStep > 0) {
+			CachedCelestialBody.useEphemerisCache = active;
+			CachedCelestialBody.samplingStep = samplingStep;
+		} else {
+			logger.error("Wrong sampling step - need to be strictly positive."
+					+ " (value = " + samplingStep);
+		}
+	}
+
+	/**
+	 * Set the cache of the Earth rotating frame. The transforms from
+	 * the inertial frame are then computed on a time grid and shifted
+	 * to the requested dates.
+	 * @param active True to use the cache
+	 * @param step Time step of the grid (s)
+	 * @see Earth#getRotatingFrame()
+	 */
+	public static void setRotatingFrameCache(boolean active, double step) {
+		if (step > 0) {
+			Earth.useRotatingFrameCache = active;
+			Earth.rotatingFrameCacheStep = step;
+		} else {
+			logger.error("Wrong time step - need to be strictly positive."
+					+ " (value = " + step);
+		}
+	}
+
+	/**
+	 * Set the degree and order of the Earth gravity field. A degree
+	 * of 2 and an order of 0 select the analytical J2 model.
+	 * @param degree Degree of the field
+	 * @param order Order of the field, inferior or equal to the degree
+	 * @param snapshotFile Binary snapshot of the coefficients to save
+	 * and reload, or null to read the ICGEM file
+	 */
+	public static void setGravityField(int degree, int order, String snapshotFile) {
+		if (degree >= 0 && order >= 0 && order <= degree) {
+			GravitationalPotential.degree = degree;
+			GravitationalPotential.order = order;
+			GravitationalPotential.coefficientsSnapshotFile = snapshotFile;
+		} else {
+			logger.error("Wrong gravity field - the order should be inferior or "
+					+ "equal to the degree. (value = " + degree + "x" + order);
+		}
+	}
+
+	/**
+	 * Set the density table of the atmosphere. The density used by the
+	 * drag is then interpolated instead of evaluated from the model,
+	 * unless the tolerance can not be reached within the maximum size
+	 * of the table.
+	 * @param active True to use the table, false for exact evaluation
+	 * @param tolerance Accepted relative error of the table
+	 * @see Atmosphere
+	 */
+	public static void setDensityTable(boolean active, double tolerance) {
+		if (tolerance > 0) {
+			Atmosphere.useDensityTable = active;
+			Atmosphere.densityTableTolerance = tolerance;
+		} else {
+			logger.error("Wrong density tolerance - need to be strictly positive."
+					+ " (value = " + tolerance);
+		}
+	}
+
+	/**
+	 * Set the source of the OreKit external data.
+	 * <p>
+	 * The source does not make the startup significantly faster, as
+	 * the parsing of the datasets dominates it: only the EOP window
+	 * reduces the loading time.
+	 * @param source DIRECTORY to crawl the whole data directory, CLASSPATH
+	 * or ARCHIVE to only load the datasets used by the simulator
+	 * @param location The data directory, classpath root or archive file,
+	 * or null for the default location of the source
+	 * @param eopWindow Half width of the Earth orientation parameters window
+	 * kept in the archive around the orbit date, or 0 for the whole series (day)
+	 * @see OrekitConfiguration
+	 */
+	public static void setOrekitData(OrekitConfiguration.DataSource source, String location,
+			double eopWindow) {
+		if (source != null && eopWindow >= 0) {
+			OrekitConfiguration.dataSource = source;
+			OrekitConfiguration.dataLocation = location;
+			OrekitConfiguration.eopWindow = eopWindow;
+		} else {
+			logger.error("Wrong OreKit data source - need to be specified with a "
+					+ "positive EOP window." + " (value = " + source + ", " + eopWindow);
+		}
+	}
+
+	/**
+	 * Set the precomputed grid of the geomagnetic field. Inside its
+	 * altitude band, the field is interpolated in the grid instead of
+	 * being evaluated from the model.
+	 * @param active True to use the grid
+	 * <p>
+	 * The angular step should divide 180 deg, and thus 360 deg, so
+	 * that the nodes of the grid fall on the poles and the antimeridian.
+	 * @param active True to use the grid
+	 * @param angularStep Latitude and longitude step, dividing 180 (deg)
+	 * @param altitudeMin Lowest altitude of the band (km)
+	 * @param altitudeMax Highest altitude of the band (km)
+	 * @param altitudeStep Altitude step (km)
+	 * @param cacheFile Binary file to save and reload the grid, or null
+	 */
+	public static void setMagneticFieldGrid(boolean active, double angularStep,
+			double altitudeMin, double altitudeMax, double altitudeStep, String cacheFile) {
+		double latitudeIntervals = 180. / angularStep;
+		if (angularStep > 0 
+				&& FastMath.abs(latitudeIntervals - FastMath.rint(latitudeIntervals)) 
+				<= 1e-9 * latitudeIntervals
+				&& altitudeStep > 0 
+				&& altitudeMax >= altitudeMin) {
+			EarthMagneticField.useFieldGrid = active;
+			EarthMagneticField.gridAngularStep = angularStep;
+			EarthMagneticField.gridAltitudeBand = new double[] {altitudeMin, altitudeMax};
+			EarthMagneticField.gridAltitudeStep = altitudeStep;
+			EarthMagneticField.gridCacheFile = cacheFile;
+		} else {
+			logger.error("Wrong magnetic field grid - the angular step should divide "
+					+ "180 deg and the altitude band be ordered with a positive step."
+					+ " (value = " + angularStep + ", [" + altitudeMin + ", " 
+					+ altitudeMax + "], " + altitudeStep + ")");
+		}
+	}
+
 	/**
 	 * Set the size of the satellite box without solar panel.
 	 * @param xyzSize a three-dimension array (x, y, z) in meter.
@@ -317,6 +550,52 @@ public class Dashboard {
 		Torques.commandTorqueProvider = commandTorqueProvider;
 	}
 
+	/**
+	 * Set the torque disturbances in use by the simulator.
+	 * <p>
+	 * The physical models share the environment computed once per
+	 * integration stage, so that enabling several models does not
+	 * multiply the cost of the stage.
+	 * @param randomNoise True to add the random noise disturbance
+	 * @param models Physical disturbance models among GRAVITY, 
+	 * ATMOSPHERIC, MAGNETIC and SOLAR_PRESSURE
+	 */
+	public static void setTorqueDisturbances(boolean randomNoise, TorqueProviderEnum... models) {
+		for (TorqueProviderEnum model : models) {
+			if (model.getIndex() == 0) {
+				logger.error("Wrong disturbance model - " + model + " is a command provider.");
+				return;
+			}
+		}
+		Torques.randomDisturbances = randomNoise;
+		Torques.disturbanceModels = models.clone();
+	}
+
+	/**
+	 * Set the parameters of the physical disturbance models.
+	 * @param dragCoefficient Drag coefficient of the satellite
+	 * @param reflectivityCoefficient Radiation pressure coefficient of the
+	 * satellite, from 1 (absorbing) to 2 (reflecting)
+	 * @param pressureCenter Position of the center of pressure from the
+	 * center of mass in the satellite frame (m)
+	 * @param residualDipole Residual magnetic dipole of the satellite in the
+	 * satellite frame (A.m^2)
+	 */
+	public static void setDisturbanceParameters(double dragCoefficient,
+			double reflectivityCoefficient, Vector3D pressureCenter, Vector3D residualDipole) {
+		if (dragCoefficient < 0 || reflectivityCoefficient < 0) {
+			logger.error("Wrong disturbance parameters - the coefficients should be positive."
+					+ " (drag = " + dragCoefficient
+					+ ", reflectivity = " + reflectivityCoefficient + ")");
+			return;
+		}
+		AerodynamicTorque.dragCoefficient = dragCoefficient;
+		AerodynamicTorque.pressureCenter = pressureCenter;
+		SolarPressureTorque.reflectivityCoefficient = reflectivityCoefficient;
+		SolarPressureTorque.pressureCenter = pressureCenter;
+		ResidualDipoleTorque.residualDipole = residualDipole;
+	}
+
 	/**
 	 * Set the torque over time scenario provider.
 	 * <p>
@@ -350,6 +629,43 @@ public class Dashboard {
 		}
 	}
 
+	/**
+	 * Set the torque scenario file streamed by the scenario file provider.
+	 * <p>
+	 * The torques of the file are given in N.m and the initial rotational 
+	 * acceleration is not corrected.
+	 * @param file Path of the file, in the CSV or the binary format
+	 * @param lookAhead Duration of the commands read in advance (s)
+	 * @param retention Duration the ended commands are kept in memory (s)
+	 * @see msp.simulator.dynamic.torques.TorqueScenarioFile
+	 */
+	public static void setTorqueScenarioFile(String file, double lookAhead, double retention) {
+		StreamedTorqueScenarioProvider.scenarioFile = file;
+		if (lookAhead >= 0 && retention >= 0) {
+			StreamedTorqueScenarioProvider.lookAhead = lookAhead;
+			StreamedTorqueScenarioProvider.retention = retention;
+		} else {
+			logger.error("Wrong torque scenario file window - need to be positive."
+					+ " (value = " + lookAhead + ", " + retention);
+		}
+	}
+
+	/**
+	 * Set the torque logs of the MemCached and the replay torque providers.
+	 * <p>
+	 * A log recorded by the MemCached provider, e.g. during a hardware 
+	 * in the loop session, can be replayed afterwards without MemCached
+	 * with the same configuration of the simulation.
+	 * @param recordFile Log recording the torques acquired through 
+	 * MemCached, or null to disable the recording
+	 * @param replayFile Log replayed by the replay provider
+	 * @see msp.simulator.dynamic.torques.TorqueLog
+	 */
+	public static void setTorqueLogs(String recordFile, String replayFile) {
+		MemCachedTorqueProvider.torqueLogFile = recordFile;
+		ReplayTorqueProvider.replayFile = replayFile;
+	}
+
 	/**
 	 * Set the normally distributed noise intensity of the magnetometer.
 	 * @param noiseIntensity order of intensity
@@ -358,6 +674,19 @@ public class Dashboard {
 		Magnetometer.defaultMagnetoNoiseIntensity = noiseIntensity;
 	}
 
+	/**
+	 * Set the evaluation schedule of the geomagnetic model used
+	 * by the magnetometer.
+	 * @param updatePeriod Maximum period between two evaluations
+	 * of the model, the field being extrapolated in between. Zero
+	 * evaluates the model at each step. (s)
+	 * @param tolerance Accepted extrapolation error (nT)
+	 */
+	public static void setMagneticFieldUpdate(double updatePeriod, double tolerance) {
+		Magnetometer.defaultFieldUpdatePeriod = updatePeriod;
+		Magnetometer.defaultFieldTolerance = tolerance;
+	}
+
 	/**
 	 * Set the normally distributed noise intensity of the gyrometer.
 	 * @param noiseIntensity order of intensity
@@ -366,6 +695,146 @@ public class Dashboard {
 		Gyrometer.defaultGyroNoiseIntensity = noiseIntensity;
 	}
 
+	/**
+	 * Set the bias and the quantization of the gyrometer measures,
+	 * in addition to the white noise.
+	 * @param biasWalk Intensity of the bias random walk (rad/s^2/sqrt(s))
+	 * @param quantum Quantization step of the measures, or 0 (rad/s^2)
+	 */
+	public static void setGyroNoiseModel(double biasWalk, double quantum) {
+		if (biasWalk >= 0 && quantum >= 0) {
+			Gyrometer.defaultGyroBiasWalk = biasWalk;
+			Gyrometer.defaultGyroQuantum = quantum;
+		} else {
+			logger.error("Wrong gyrometer noise model - need to be positive."
+					+ " (value = " + biasWalk + ", " + quantum);
+		}
+	}
+
+	/**
+	 * Set the sample rate and the latency of the magnetometer.
+	 * @param sampleRate Sample rate, or 0 to sample once per integration step (Hz)
+	 * @param latency Delay between a sample and its availability (s)
+	 */
+	public static void setMagnetometerSampling(double sampleRate, double latency) {
+		if (sampleRate >= 0 && latency >= 0) {
+			Magnetometer.defaultSampleRate = sampleRate;
+			Magnetometer.defaultLatency = latency;
+		} else {
+			logger.error("Wrong magnetometer sampling - need to be positive."
+					+ " (value = " + sampleRate + ", " + latency);
+		}
+	}
+
+	/**
+	 * Set the sample rate and the latency of the gyrometer.
+	 * @param sampleRate Sample rate, or 0 to sample once per integration step (Hz)
+	 * @param latency Delay between a sample and its availability (s)
+	 */
+	public static void setGyroSampling(double sampleRate, double latency) {
+		if (sampleRate >= 0 && latency >= 0) {
+			Gyrometer.defaultSampleRate = sampleRate;
+			Gyrometer.defaultLatency = latency;
+		} else {
+			logger.error("Wrong gyrometer sampling - need to be positive."
+					+ " (value = " + sampleRate + ", " + latency);
+		}
+	}
+
+	/**
+	 * Set the sample rate and the latency of the infrared sensors.
+	 * @param sampleRate Sample rate, or 0 to sample once per integration step (Hz)
+	 * @param latency Delay between a sample and its availability (s)
+	 */
+	public static void setInfraredSampling(double sampleRate, double latency) {
+		if (sampleRate >= 0 && latency >= 0) {
+			InfraredSensor.defaultSampleRate = sampleRate;
+			InfraredSensor.defaultLatency = latency;
+		} else {
+			logger.error("Wrong infrared sampling - need to be positive."
+					+ " (value = " + sampleRate + ", " + latency);
+		}
+	}
+
+	/**
+	 * Set the model of the Earth seen by the infrared sensors.
+	 * @param earthCoverage True to weight the readings by the fraction 
+	 * of the Earth disc in front of each face
+	 * @param albedo Reading added by the sunlit Earth at the zenith of
+	 * the sub-satellite point, or 0 to ignore the albedo
+	 */
+	public static void setInfraredEarthModel(boolean earthCoverage, double albedo) {
+		InfraredSensor.earthCoverage = earthCoverage;
+		if (albedo >= 0) {
+			InfraredSensor.albedo = albedo;
+		} else {
+			logger.error("Wrong infrared albedo - need to be positive."
+					+ " (value = " + albedo);
+		}
+	}
+
+	/**
+	 * Set the bias and the quantization of the magnetometer measures,
+	 * in addition to the white noise.
+	 * @param biasWalk Intensity of the bias random walk (nT/sqrt(s))
+	 * @param quantum Quantization step of the measures, or 0 (nT)
+	 */
+	public static void setMagnetometerNoiseModel(double biasWalk, double quantum) {
+		if (biasWalk >= 0 && quantum >= 0) {
+			Magnetometer.defaultMagnetoBiasWalk = biasWalk;
+			Magnetometer.defaultMagnetoQuantum = quantum;
+		} else {
+			logger.error("Wrong magnetometer noise model - need to be positive."
+					+ " (value = " + biasWalk + ", " + quantum);
+		}
+	}
+
+	/**
+	 * Set the magnetorquers of the satellite.
+	 * @param active True to register the magnetorquer torque in the dynamic
+	 * @param maxDipole Maximum dipole of each magnetorquer (A.m^2)
+	 * @param pwmPeriod Period of the PWM, or 0 to apply the mean dipole
+	 * of the duty cycle (s)
+	 * @param pwmResolution Number of levels of the duty cycle, or 0 for
+	 * a continuous duty cycle
+	 */
+	public static void setMagnetoTorquers(boolean active, double maxDipole,
+			double pwmPeriod, int pwmResolution) {
+		if (maxDipole > 0 && pwmPeriod >= 0 && pwmResolution >= 0) {
+			MagnetoTorquers.enabled = active;
+			MagnetoTorquers.maxDipole = maxDipole;
+			MagnetoTorquers.pwmPeriod = pwmPeriod;
+			MagnetoTorquers.pwmResolution = pwmResolution;
+		} else {
+			logger.error("Wrong magnetorquers - need to be positive."
+					+ " (value = " + maxDipole + ", " + pwmPeriod + ", " + pwmResolution);
+		}
+	}
+
+	/**
+	 * Set the reaction wheels of the satellite, aligned with the axes
+	 * of the satellite frame.
+	 * @param active True to integrate the reaction wheels in the dynamic
+	 * @param wheelInertia Inertia of each wheel around its axis (kg.m^2)
+	 * @param maxTorque Maximum motor torque of each wheel (N.m)
+	 * @param maxSpeed Maximum speed of each wheel (rad/s)
+	 * @param initialSpeed Initial speed of the wheels relatively to the
+	 * satellite (rad/s)
+	 */
+	public static void setReactionWheels(boolean active, double wheelInertia,
+			double maxTorque, double maxSpeed, Vector3D initialSpeed) {
+		if (wheelInertia > 0 && maxTorque >= 0 && maxSpeed >= 0) {
+			ReactionWheels.enabled = active;
+			ReactionWheels.wheelInertia = wheelInertia;
+			ReactionWheels.maxTorque = maxTorque;
+			ReactionWheels.maxSpeed = maxSpeed;
+			ReactionWheels.initialSpeed = initialSpeed;
+		} else {
+			logger.error("Wrong reaction wheels - need to be positive."
+					+ " (value = " + wheelInertia + ", " + maxTorque + ", " + maxSpeed);
+		}
+	}
+
 	/* ********************************************************* */
 	/* *****************		 IO SETTINGS		 ****************** */
 	/* ********************************************************* */
@@ -390,6 +859,40 @@ public class Dashboard {
 		MemCachedTorqueProvider.torqueCommandKey = key;
 	}
 
+	/**
+	 * Set the MemCached hash table key corresponding to the dipole
+	 * command of the magnetorquers.
+	 * @param key Description of the value
+	 */
+	public static void setDipoleCommandKey(String key) {
+		MagnetoTorquers.dipoleCommandKey = key;
+	}
+
+	/**
+	 * Set the MemCached hash table key corresponding to the motor
+	 * torque command of the reaction wheels.
+	 * @param key Description of the value
+	 */
+	public static void setWheelTorqueCommandKey(String key) {
+		ReactionWheels.torqueCommandKey = key;
+	}
+
+	/**
+	 * Set the journal of the MemCached operations.
+	 * <p>
+	 * Each get and set on the MemCached common memory is then recorded
+	 * with its simulation time, wall time and duration, e.g. to analyze
+	 * a hardware in the loop session afterwards. The duration of a set
+	 * is only its enqueue time, as the values are set asynchronously.
+	 * The journal is not read by the REPLAY torque provider, which
+	 * replays the torque log recorded with {@link #setTorqueLogs}.
+	 * @param file Path of the journal, or null to disable the journal
+	 * @see msp.simulator.satellite.io.MemcachedJournal
+	 */
+	public static void setMemCachedJournal(String file) {
+		IO.memcachedJournalFile = file;
+	}
+
 	/**
 	 * Setting the connection to the VTS socket.
 	 * @param active true to activate the connection.
@@ -453,6 +956,32 @@ public class Dashboard {
 		}
 		mainStatus &= status;
 
+		/* Check */
+		/* When a scenario file provider is set, the file should be readable. */
+		status = (Torques.commandTorqueProvider != TorqueProviderEnum.SCENARIO_FILE)
+				||
+				(StreamedTorqueScenarioProvider.scenarioFile != null
+				&& Files.isReadable(Paths.get(StreamedTorqueScenarioProvider.scenarioFile)));
+		if (!status) {
+			logger.error("Activating the torque scenario file provider failed: "
+					+ "The file is not readable. ({})",
+					StreamedTorqueScenarioProvider.scenarioFile);
+		}
+		mainStatus &= status;
+
+		/* Check */
+		/* When a replay provider is set, the torque log should be readable. */
+		status = (Torques.commandTorqueProvider != TorqueProviderEnum.REPLAY)
+				||
+				(ReplayTorqueProvider.replayFile != null
+				&& Files.isReadable(Paths.get(ReplayTorqueProvider.replayFile)));
+		if (!status) {
+			logger.error("Activating the replay torque provider failed: "
+					+ "The torque log is not readable. ({})",
+					ReplayTorqueProvider.replayFile);
+		}
+		mainStatus &= status;
+
 		/* Check */
 		/* The command torque provider should have an index of 0. */
 		status = (Torques.commandTorqueProvider.getIndex() == 0);
@@ -503,6 +1032,41 @@ public class Dashboard {
 		}
 		mainStatus &= status;
 
+		/* Check */
+		/* The magnetic field update period and tolerance should be positive. */
+		status = Magnetometer.defaultFieldUpdatePeriod >= 0 
+				&& 
+				Magnetometer.defaultFieldTolerance > 0 ;
+		if (!status) {
+			logger.error("The magnetic field update period should be positive "
+					+ "and its tolerance strictly positive."
+					+ "\n"
+					+ "\t\tPeriod: {} s. - Tolerance: {} nT.",
+					Magnetometer.defaultFieldUpdatePeriod,
+					Magnetometer.defaultFieldTolerance);
+		}
+		mainStatus &= status;
+
+		/* Check */
+		/* The geomagnetic field grid should have a regular and non-empty layout. */
+		status = !EarthMagneticField.useFieldGrid
+				||
+				(EarthMagneticField.gridAngularStep > 0
+						&& FastMath.abs(FastMath.IEEEremainder(
+								180., EarthMagneticField.gridAngularStep)) < 1e-9
+						&& EarthMagneticField.gridAltitudeStep > 0
+						&& EarthMagneticField.gridAltitudeBand[0] 
+								< EarthMagneticField.gridAltitudeBand[1]);
+		if (!status) {
+			logger.error("Wrong geomagnetic field grid: the angular step should divide "
+					+ "180 deg. and the altitude band should be increasing."
+					+ "\n"
+					+ "\t\tStep: {} deg. - Band: {} km.",
+					EarthMagneticField.gridAngularStep,
+					Arrays.toString(EarthMagneticField.gridAltitudeBand));
+		}
+		mainStatus &= status;
+
 		/* Overall check status. */
 		if (!mainStatus) {
 			logger.error("User Configuration Check Failed.");
@@ -14,60 +14,546 @@
 
 package msp.simulator.utils.architecture;
 
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.text.ParseException;
+import java.time.LocalDateTime;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
 
+import org.hipparchus.exception.DummyLocalizable;
+import org.hipparchus.util.FastMath;
+import org.orekit.bodies.JPLEphemeridesLoader;
+import org.orekit.data.DataLoader;
+import org.orekit.data.DataProvider;
 import org.orekit.data.DataProvidersManager;
 import org.orekit.data.DirectoryCrawler;
 import org.orekit.errors.OrekitException;
+import org.orekit.errors.OrekitMessages;
+import org.orekit.forces.gravity.potential.GravityFieldFactory;
+import org.orekit.frames.FramesFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import msp.simulator.environment.orbit.OrbitWrapper;
 import msp.simulator.utils.logs.CustomLoggingTools;
 
 /**
  * This class provides methods to configure OreKit.
  * It especially provide external data samplings for the good computation
  * of some models like Atmosphere, CelestialBodies etc...
- * 
+ * <p>
+ * The data can be provided from:<p>
+ * - DIRECTORY: the whole orekit-data directory (default),<p>
+ * - CLASSPATH: only the datasets used by the simulator among the
+ * orekit-data resources of the classpath,<p>
+ * - ARCHIVE: a compact zip archive of the used datasets, built from
+ * the data directory if it does not exist yet. The Earth orientation 
+ * parameters can also be limited to a window around the date of the
+ * orbit, the archive being rebuilt when the date leaves the window.
+ * <p>
+ * The sources only change how the datasets are found: the startup
+ * time is dominated by the parsing of the datasets, and it is about
+ * the same whatever the source. Only the window of Earth orientation
+ * parameters reduces the loading, by reducing what is parsed.
+ *
  * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
  */
 public final class OrekitConfiguration {
 
+	/** Source of the OreKit external data. */
+	public enum DataSource {
+		/** Crawl the whole data directory. */
+		DIRECTORY,
+		/** Load the used datasets from the classpath resources. */
+		CLASSPATH,
+		/** Load the used datasets from a compact zip archive. */
+		ARCHIVE
+	}
+
+	/* ******* Public Static Attributes ******* */
+
+	/** Source of the external data. */
+	public static DataSource dataSource = DataSource.DIRECTORY;
+
+	/** Location of the external data: the directory, the classpath
+	 * root or the archive file depending on the source. A null value
+	 * uses the default location of the source.
+	 */
+	public static String dataLocation = null;
+
+	/** Half width of the Earth orientation parameters window kept in
+	 * the archive around the date of the orbit, or 0 to keep the
+	 * whole series. (day)
+	 */
+	public static double eopWindow = 0.;
+
+	/* **************************************** */
+
 	/** The Logger of the instance. */
 	private static final Logger logger = LoggerFactory.getLogger(OrekitConfiguration.class);
-	
+
 	/**
-	 * The directory location of the external data.
+	 * The default directory location of the external data.
 	 */
-	private static final File orekitDataDir = 
-			new File("src/main/resources/orekit-data/");
-	
+	private static final String orekitDataDir = "src/main/resources/orekit-data/";
+
+	/** Name of the external data directory in the classpath. */
+	private static final String orekitDataResource = "orekit-data";
+
+	/** Default name of the compact archive. */
+	private static final String orekitDataArchive = "orekit-data-compact.zip";
+
+	/** Head of the comment of the archive, followed by the EOP window. */
+	private static final String ARCHIVE_COMMENT = "MSP-OREKIT-DATA";
+
+	/** Modified julian day of the 1970-01-01 epoch. */
+	private static final double MJD_UNIX_EPOCH = 40587.;
+
 	/** Version of the GeoLagnetic Field data: WMM2015. */
 	public static final int GeoMagneticDataYear = 2015;
-    
+
+	/** File names of the datasets used by the simulator. */
+	private static final Pattern[] usedDatasets = new Pattern[] {
+			/* Time scales. */
+			Pattern.compile("^tai-utc\\.dat$"),
+			Pattern.compile("^UTC-TAI\\.history$"),
+			/* Earth orientation parameters of the IERS 2010 conventions. */
+			Pattern.compile(FramesFactory.RAPID_DATA_PREDICITON_COLUMNS_2000_FILENAME),
+			Pattern.compile(FramesFactory.RAPID_DATA_PREDICITON_XML_2000_FILENAME),
+			Pattern.compile(FramesFactory.EOPC04_2000_FILENAME),
+			Pattern.compile(FramesFactory.BULLETINB_2000_FILENAME),
+			Pattern.compile(FramesFactory.BULLETINA_FILENAME),
+			/* Gravity field. */
+			Pattern.compile(GravityFieldFactory.ICGEM_FILENAME),
+			/* Geomagnetic field. */
+			Pattern.compile("^WMM\\.COF$"),
+			/* Celestial bodies. */
+			Pattern.compile(JPLEphemeridesLoader.DEFAULT_DE_SUPPORTED_NAMES),
+			Pattern.compile(JPLEphemeridesLoader.DEFAULT_INPOP_SUPPORTED_NAMES)
+	};
+
+	/** Source and location of the current configuration, if any. */
+	private static String currentConfiguration = null;
+
+	/** Archive opened by the current configuration, if any. */
+	private static ZipFile currentArchive = null;
+
 	/** Private constructor.
      * <p>This class is a utility class, it should neither have a public
      * nor a default constructor. This private constructor prevents
      * the compiler from generating one automatically.</p>
      */
 	private OrekitConfiguration() {}
-	
+
 	/**
 	 * Process the configuration of Orekit:<p>
-	 * - Set the Data Directory.
+	 * - Set the Data Provider according to the data source.
+	 * <p>
+	 * The configuration is only processed once as long as the
+	 * source and the location do not change.
 	 */
-	public static void processConfiguration() {
+	public static synchronized void processConfiguration() {
+		String configuration = OrekitConfiguration.dataSource + ":"
+				+ OrekitConfiguration.dataLocation + ":"
+				+ OrekitConfiguration.getEopWindow()[0];
+		if (configuration.equals(OrekitConfiguration.currentConfiguration)) {
+			return;
+		}
+
 		DataProvidersManager dataManager = DataProvidersManager.getInstance();
+		if (OrekitConfiguration.currentConfiguration != null) {
+			dataManager.clearProviders();
+			OrekitConfiguration.currentConfiguration = null;
+		}
+		OrekitConfiguration.closeArchive();
+
 		try {
-			OrekitConfiguration.logger.info(CustomLoggingTools.indentMsg(logger,
-					"Setting Orekit External Data directory to:\n\t"
-					+ OrekitConfiguration.orekitDataDir.getAbsolutePath()
-					));
-			dataManager.addProvider(new DirectoryCrawler(OrekitConfiguration.orekitDataDir));
+			DataProvider provider;
+			switch (OrekitConfiguration.dataSource) {
+			case CLASSPATH:
+				provider = OrekitConfiguration.buildClasspathProvider();
+				break;
+			case ARCHIVE:
+				provider = OrekitConfiguration.buildArchiveProvider();
+				break;
+			case DIRECTORY:
+			default:
+				File directory = OrekitConfiguration.resolveDataDirectory();
+				OrekitConfiguration.logger.info(CustomLoggingTools.indentMsg(logger,
+						"Setting Orekit External Data directory to:\n\t"
+								+ directory.getAbsolutePath()
+						));
+				provider = new DirectoryCrawler(directory);
+				break;
+			}
+			dataManager.addProvider(provider);
+			OrekitConfiguration.currentConfiguration = configuration;
 
-		} catch (OrekitException e) {
+		} catch (OrekitException | IOException e) {
 			e.printStackTrace();
 		}
 	}
 
+	/**
+	 * Close the archive of the current configuration, if any, once
+	 * its provider is no longer registered.
+	 */
+	private static void closeArchive() {
+		if (OrekitConfiguration.currentArchive != null) {
+			try {
+				OrekitConfiguration.currentArchive.close();
+			} catch (IOException e) {
+				logger.error("Orekit data archive could not be closed: " + e.getMessage());
+			}
+			OrekitConfiguration.currentArchive = null;
+		}
+	}
+
+	/**
+	 * Resolve the data directory: the user location if any, then
+	 * the default directory relative to the working directory or
+	 * to its simulator sub-directory, and finally the resources
+	 * of the classpath when they are not packaged.
+	 * @return The data directory
+	 * @throws OrekitException if no directory can be found
+	 */
+	public static File resolveDataDirectory() throws OrekitException {
+		if (OrekitConfiguration.dataLocation != null
+				&& OrekitConfiguration.dataSource == DataSource.DIRECTORY) {
+			return new File(OrekitConfiguration.dataLocation);
+		}
+
+		File[] candidates = new File[] {
+				new File(orekitDataDir),
+				new File("simulator", orekitDataDir)
+		};
+		for (File candidate : candidates) {
+			if (candidate.isDirectory()) {
+				return candidate;
+			}
+		}
+
+		URL url = OrekitConfiguration.class.getClassLoader().getResource(orekitDataResource);
+		if (url != null && "file".equals(url.getProtocol())) {
+			try {
+				return new File(url.toURI());
+			} catch (URISyntaxException e) {
+				e.printStackTrace();
+			}
+		}
+
+		throw new OrekitException(OrekitMessages.UNABLE_TO_FIND_FILE,
+				new File(orekitDataDir).getAbsolutePath());
+	}
+
+	/**
+	 * Build a provider of the used datasets among the classpath resources.
+	 * @return The classpath provider
+	 * @throws OrekitException if the datasets can not be listed
+	 * @throws IOException if the resources can not be read
+	 */
+	private static DataProvider buildClasspathProvider() throws OrekitException, IOException {
+		String root = (OrekitConfiguration.dataLocation == null) ?
+				orekitDataResource : OrekitConfiguration.dataLocation;
+		URL url = OrekitConfiguration.class.getClassLoader().getResource(root);
+		if (url == null) {
+			throw new OrekitException(OrekitMessages.UNABLE_TO_FIND_RESOURCE, root);
+		}
+
+		List<String> names = new ArrayList<String>();
+		if ("jar".equals(url.getProtocol())) {
+			JarURLConnection connection = (JarURLConnection) url.openConnection();
+			try (JarFile jar = connection.getJarFile()) {
+				Enumeration<JarEntry> entries = jar.entries();
+				while (entries.hasMoreElements()) {
+					JarEntry entry = entries.nextElement();
+					if (!entry.isDirectory() && entry.getName().startsWith(root + "/")
+							&& OrekitConfiguration.isUsedDataset(entry.getName())) {
+						names.add(entry.getName());
+					}
+				}
+			}
+		} else {
+			try {
+				Path rootPath = Paths.get(url.toURI());
+				for (Path path : OrekitConfiguration.listUsedDatasets(rootPath)) {
+					names.add(root + "/" + rootPath.relativize(path).toString()
+					.replace(File.separatorChar, '/'));
+				}
+			} catch (URISyntaxException e) {
+				throw new IOException(e);
+			}
+		}
+
+		OrekitConfiguration.logger.info(CustomLoggingTools.indentMsg(logger,
+				"Setting Orekit External Data from the classpath:\n\t"
+						+ names));
+		final ClassLoader classLoader = OrekitConfiguration.class.getClassLoader();
+		return new DatasetProvider(names, name -> {
+			InputStream in = classLoader.getResourceAsStream(name);
+			if (in == null) {
+				throw new IOException("Resource not found: " + name);
+			}
+			return in;
+		});
+	}
+
+	/**
+	 * Build a provider of the compact archive, creating the archive
+	 * from the data directory if needed.
+	 * @return The archive provider
+	 * @throws OrekitException if the data directory can not be found
+	 * @throws IOException if the archive can not be built
+	 */
+	private static DataProvider buildArchiveProvider() throws OrekitException, IOException {
+		File archive = new File((OrekitConfiguration.dataLocation == null) ?
+				orekitDataArchive : OrekitConfiguration.dataLocation);
+
+		double[] window = OrekitConfiguration.getEopWindow();
+		if (!OrekitConfiguration.archiveCovers(archive, window)) {
+			File directory = OrekitConfiguration.resolveDataDirectory();
+			OrekitConfiguration.logger.info(CustomLoggingTools.indentMsg(logger,
+					"Building the Orekit data archive from " + directory));
+			OrekitConfiguration.buildDataArchive(directory, archive, window[0], window[1]);
+		}
+
+		OrekitConfiguration.logger.info(CustomLoggingTools.indentMsg(logger,
+				"Setting Orekit External Data archive to:\n\t"
+						+ archive.getAbsolutePath()));
+
+		/* The archive stays open as long as the provider is registered,
+		 * and is closed when the providers are replaced. */
+		final ZipFile zip = new ZipFile(archive);
+		OrekitConfiguration.currentArchive = zip;
+		List<String> names = new ArrayList<String>();
+		Enumeration<? extends ZipEntry> entries = zip.entries();
+		while (entries.hasMoreElements()) {
+			ZipEntry entry = entries.nextElement();
+			if (!entry.isDirectory()) {
+				names.add(entry.getName());
+			}
+		}
+		return new DatasetProvider(names, name -> zip.getInputStream(zip.getEntry(name)));
+	}
+
+	/**
+	 * Compute the window of Earth orientation parameters needed by
+	 * the simulation.
+	 * @return {first, last} modified julian day of the window
+	 */
+	private static double[] getEopWindow() {
+		if (OrekitConfiguration.eopWindow <= 0.) {
+			return new double[] {Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY};
+		}
+		double center = LocalDateTime.parse(
+				OrbitWrapper.userOrbitalParameters.getDateUtc())
+				.toLocalDate().toEpochDay() + MJD_UNIX_EPOCH;
+		return new double[] {
+				FastMath.floor(center - OrekitConfiguration.eopWindow),
+				FastMath.ceil(center + OrekitConfiguration.eopWindow)
+		};
+	}
+
+	/**
+	 * Check if an archive exists and covers a window of Earth
+	 * orientation parameters.
+	 * @param archive The archive
+	 * @param window {first, last} modified julian day of the window
+	 * @return True if the archive can be used
+	 * @throws IOException if the archive can not be read
+	 */
+	private static boolean archiveCovers(File archive, double[] window) throws IOException {
+		if (!archive.isFile()) {
+			return false;
+		}
+		try (ZipFile zip = new ZipFile(archive)) {
+			String comment = zip.getComment();
+			if (comment == null || !comment.startsWith(ARCHIVE_COMMENT)) {
+				return false;
+			}
+			String[] bounds = comment.substring(ARCHIVE_COMMENT.length()).trim().split(" ");
+			return Double.parseDouble(bounds[0]) <= window[0]
+					&& Double.parseDouble(bounds[1]) >= window[1];
+		}
+	}
+
+	/**
+	 * Build a compact zip archive of the datasets used by the
+	 * simulator from a data directory, with the whole series of
+	 * Earth orientation parameters.
+	 * @param directory The source data directory
+	 * @param archive The archive to create
+	 * @throws IOException if the archive can not be written
+	 */
+	public static void buildDataArchive(File directory, File archive) throws IOException {
+		OrekitConfiguration.buildDataArchive(directory, archive,
+				Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+	}
+
+	/**
+	 * Build a compact zip archive of the datasets used by the
+	 * simulator from a data directory.
+	 * <p>
+	 * The rapid data columns of Earth orientation parameters are
+	 * limited to the given window of modified julian days, the
+	 * other datasets are copied as they are.
+	 * @param directory The source data directory
+	 * @param archive The archive to create
+	 * @param firstDay First modified julian day of the window
+	 * @param lastDay Last modified julian day of the window
+	 * @throws IOException if the archive can not be written
+	 */
+	public static void buildDataArchive(File directory, File archive,
+			double firstDay, double lastDay) throws IOException {
+		Path rootPath = directory.toPath();
+		Pattern eopColumns = Pattern.compile(
+				FramesFactory.RAPID_DATA_PREDICITON_COLUMNS_2000_FILENAME);
+		if (archive.getAbsoluteFile().getParentFile() != null) {
+			archive.getAbsoluteFile().getParentFile().mkdirs();
+		}
+		try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(archive))) {
+			for (Path path : OrekitConfiguration.listUsedDatasets(rootPath)) {
+				zip.putNextEntry(new ZipEntry(rootPath.relativize(path).toString()
+						.replace(File.separatorChar, '/')));
+				boolean trim = !Double.isInfinite(firstDay) 
+						&& eopColumns.matcher(path.getFileName().toString()).matches();
+				if (trim) {
+					try (Stream<String> lines = Files.lines(path, StandardCharsets.US_ASCII)) {
+						for (String line : (Iterable<String>) lines::iterator) {
+							String day = (line.length() < 15) ? "" : line.substring(7, 15).trim();
+							if (day.isEmpty() || (Double.parseDouble(day) >= firstDay
+									&& Double.parseDouble(day) <= lastDay)) {
+								zip.write((line + "\n").getBytes(StandardCharsets.US_ASCII));
+							}
+						}
+					}
+				} else {
+					Files.copy(path, zip);
+				}
+				zip.closeEntry();
+			}
+			zip.setComment(ARCHIVE_COMMENT + " " + firstDay + " " + lastDay);
+		}
+	}
+
+	/**
+	 * List the used datasets of a directory tree.
+	 * @param rootPath Root of the tree
+	 * @return The paths of the used datasets
+	 * @throws IOException if the directory can not be walked
+	 */
+	private static List<Path> listUsedDatasets(Path rootPath) throws IOException {
+		try (Stream<Path> paths = Files.walk(rootPath)) {
+			return paths
+					.filter(Files::isRegularFile)
+					.filter(p -> OrekitConfiguration.isUsedDataset(p.getFileName().toString()))
+					.sorted()
+					.collect(Collectors.toList());
+		}
+	}
+
+	/**
+	 * Check if a data file is used by the simulator.
+	 * @param path Path or name of the file
+	 * @return True if the file name matches a used dataset
+	 */
+	private static boolean isUsedDataset(String path) {
+		String name = path.substring(path.lastIndexOf('/') + 1);
+		if (name.endsWith(".gz")) {
+			name = name.substring(0, name.length() - 3);
+		}
+		for (Pattern pattern : usedDatasets) {
+			if (pattern.matcher(name).matches()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Provider of a known list of datasets.
+	 * <p>
+	 * Unlike the crawlers of OreKit, the datasets are matched on their
+	 * file name only, whatever their location in the classpath or in
+	 * the archive, and they are read through a buffered stream.
+	 */
+	private static class DatasetProvider implements DataProvider {
+
+		/** Opens a dataset from its name. */
+		@FunctionalInterface
+		private interface Opener {
+			/**
+			 * @param name Name of the dataset
+			 * @return The raw stream of the dataset
+			 * @throws IOException if the dataset can not be opened
+			 */
+			InputStream open(String name) throws IOException;
+		}
+
+		/** Names of the datasets. */
+		private final List<String> names;
+
+		/** Opener of the datasets. */
+		private final Opener opener;
+
+		/**
+		 * @param names Names of the datasets
+		 * @param opener Opener of the datasets
+		 */
+		DatasetProvider(List<String> names, Opener opener) {
+			this.names = names;
+			this.opener = opener;
+		}
+
+		/** {@inheritDoc} */
+		@Override
+		public boolean feed(Pattern supported, DataLoader visitor) throws OrekitException {
+			boolean loaded = false;
+			for (String name : this.names) {
+				if (!visitor.stillAcceptsData()) {
+					break;
+				}
+				String baseName = name.substring(name.lastIndexOf('/') + 1);
+				Matcher gzipMatcher = GZIP_FILE_PATTERN.matcher(baseName);
+				boolean gzip = gzipMatcher.matches();
+				if (gzip) {
+					baseName = gzipMatcher.group(1);
+				}
+				if (supported.matcher(baseName).matches()) {
+					try (InputStream raw = this.opener.open(name)) {
+						InputStream in = new BufferedInputStream(
+								gzip ? new GZIPInputStream(raw) : raw);
+						visitor.loadData(in, name);
+						loaded = true;
+					} catch (IOException | ParseException e) {
+						throw new OrekitException(e, new DummyLocalizable(e.getMessage()));
+					}
+				}
+			}
+			return loaded;
+		}
+	}
+
 }
@@ -0,0 +1,158 @@
+/* Copyright 20017-2018 Melbourne Space Program
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package msp.simulator.utils.checkpoint;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * This class provides the tools to save the state of a simulation
+ * in a compact binary checkpoint and to restore it.
+ * <p>
+ * A checkpoint only holds the evolving state of the simulation: it 
+ * should be restored in a simulation built with the same user
+ * configuration. The checkpoint is compressed and written in a
+ * temporary file first so that a previous checkpoint is never lost
+ * if the process is interrupted while saving.
+ *
+ * @see Checkpointable
+ * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
+ */
+public final class Checkpoint {
+
+	/** Identifier at the head of a checkpoint. */
+	private static final int MAGIC = 0x434B5054;
+
+	/** Version of the checkpoint format. */
+	private static final int VERSION = 2;
+
+	/** Private constructor.
+	 * <p>This class is a utility class, it should neither have a public
+	 * nor a default constructor. This private constructor prevents
+	 * the compiler from generating one automatically.</p>
+	 */
+	private Checkpoint() {}
+
+	/**
+	 * Save the state of the simulation in a checkpoint file.
+	 * @param simulation The simulation to save
+	 * @param file The checkpoint file
+	 * @throws IOException if the checkpoint can not be written
+	 */
+	public static void save(Checkpointable simulation, File file) throws IOException {
+		File directory = file.getAbsoluteFile().getParentFile();
+		if (directory != null) {
+			directory.mkdirs();
+		}
+		File temporary = new File(directory, file.getName() + ".tmp");
+		try (OutputStream out = new FileOutputStream(temporary)) {
+			Checkpoint.write(simulation, out);
+		}
+		Files.move(temporary.toPath(), file.toPath(), 
+				StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Restore the state of the simulation from a checkpoint file.
+	 * @param simulation The simulation to restore
+	 * @param file The checkpoint file
+	 * @throws IOException if the checkpoint can not be read
+	 */
+	public static void restore(Checkpointable simulation, File file) throws IOException {
+		try (InputStream in = new FileInputStream(file)) {
+			Checkpoint.read(simulation, in);
+		}
+	}
+
+	/**
+	 * Save the state of the simulation in memory.
+	 * @param simulation The simulation to save
+	 * @return The checkpoint
+	 * @throws IOException if the checkpoint can not be written
+	 */
+	public static byte[] toBytes(Checkpointable simulation) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		Checkpoint.write(simulation, out);
+		return out.toByteArray();
+	}
+
+	/**
+	 * Restore the state of the simulation from memory.
+	 * @param simulation The simulation to restore
+	 * @param checkpoint The checkpoint
+	 * @throws IOException if the checkpoint can not be read
+	 */
+	public static void fromBytes(Checkpointable simulation, byte[] checkpoint) 
+			throws IOException {
+		Checkpoint.read(simulation, new ByteArrayInputStream(checkpoint));
+	}
+
+	/**
+	 * Write the checkpoint in a stream.
+	 * @param simulation The simulation to save
+	 * @param stream The destination stream
+	 * @throws IOException if the checkpoint can not be written
+	 */
+	private static void write(Checkpointable simulation, OutputStream stream) 
+			throws IOException {
+		GZIPOutputStream zip = new GZIPOutputStream(new BufferedOutputStream(stream));
+		ObjectOutputStream out = new ObjectOutputStream(zip);
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		simulation.writeCheckpoint(out);
+		out.flush();
+		zip.finish();
+		zip.flush();
+	}
+
+	/**
+	 * Read the checkpoint from a stream.
+	 * @param simulation The simulation to restore
+	 * @param stream The source stream
+	 * @throws IOException if the checkpoint can not be read or is not valid
+	 */
+	private static void read(Checkpointable simulation, InputStream stream) 
+			throws IOException {
+		ObjectInputStream in = new ObjectInputStream(
+				new GZIPInputStream(new BufferedInputStream(stream)));
+		if (in.readInt() != MAGIC) {
+			throw new IOException("Not a simulation checkpoint.");
+		}
+		int version = in.readInt();
+		if (version != VERSION) {
+			throw new IOException("Unsupported checkpoint version: " + version);
+		}
+		try {
+			simulation.readCheckpoint(in);
+		} catch (ClassNotFoundException e) {
+			throw new IOException("Corrupted checkpoint: " + e.getMessage(), e);
+		}
+	}
+
+}
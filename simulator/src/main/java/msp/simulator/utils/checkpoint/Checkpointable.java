@@ -0,0 +1,50 @@
+/* Copyright 20017-2018 Melbourne Space Program
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package msp.simulator.utils.checkpoint;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/**
+ * This interface is implemented by the modules of the simulation
+ * holding a state that evolves along the simulation.
+ * <p>
+ * The state is written in and read back from the checkpoint in
+ * the same order, the configuration of the module itself being
+ * rebuilt from the user configuration.
+ *
+ * @see Checkpoint
+ * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
+ */
+public interface Checkpointable {
+
+	/**
+	 * Write the current state of the module.
+	 * @param out The checkpoint stream
+	 * @throws IOException if the state can not be written
+	 */
+	public void writeCheckpoint(ObjectOutput out) throws IOException;
+
+	/**
+	 * Restore the state of the module as written by 
+	 * {@link #writeCheckpoint(ObjectOutput)}.
+	 * @param in The checkpoint stream
+	 * @throws IOException if the state can not be read
+	 * @throws ClassNotFoundException if a stored object is unknown
+	 */
+	public void readCheckpoint(ObjectInput in) throws IOException, ClassNotFoundException;
+
+}
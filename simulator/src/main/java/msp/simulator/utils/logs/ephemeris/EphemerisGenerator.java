@@ -17,6 +17,11 @@ package msp.simulator.utils.logs.ephemeris;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.GregorianCalendar;
@@ -34,6 +39,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import msp.simulator.satellite.Satellite;
+import msp.simulator.utils.checkpoint.Checkpointable;
 import msp.simulator.utils.logs.CustomLoggingTools;
 
 /**
@@ -43,7 +49,7 @@ import msp.simulator.utils.logs.CustomLoggingTools;
  *
  * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
  */
-public class EphemerisGenerator {
+public class EphemerisGenerator implements Checkpointable {
 
 	/** Instance of the Logger of the class. */
 	private static final Logger logger = 
@@ -169,6 +175,94 @@ public class EphemerisGenerator {
 		}
 	}
 
+	/**
+	 * Resume the ephemeris in existing files: the lines written after
+	 * the given offsets are discarded and the next steps are appended.
+	 * @param oem The OEM ephemeris file
+	 * @param oemOffset Length of the OEM ephemeris to keep (bytes)
+	 * @param aem The AEM ephemeris file
+	 * @param aemOffset Length of the AEM ephemeris to keep (bytes)
+	 * @throws IOException if the files can not be resumed
+	 */
+	public void resume(File oem, long oemOffset, File aem, long aemOffset) throws IOException {
+		if (oem.length() < oemOffset || aem.length() < aemOffset) {
+			throw new IOException("The ephemeris files are shorter than the checkpoint.");
+		}
+		this.fileOEM = oem;
+		this.fileAEM = aem;
+
+		/* Truncating the files to the offsets. */
+		try (RandomAccessFile raf = new RandomAccessFile(this.fileOEM, "rw")) {
+			raf.setLength(oemOffset);
+		}
+		try (RandomAccessFile raf = new RandomAccessFile(this.fileAEM, "rw")) {
+			raf.setLength(aemOffset);
+		}
+
+		/* Appending the next steps. */
+		this.writerOEM = new FileWriter(this.fileOEM, true);
+		this.writerAEM = new FileWriter(this.fileAEM, true);
+	}
+
+	/**
+	 * Branch the ephemeris: the steps written so far are copied into
+	 * new files, prefixed by the branch name, and the next steps are
+	 * appended to these files.
+	 * @param branchName Name of the branch
+	 * @throws IOException if the files can not be copied
+	 */
+	public void branch(String branchName) throws IOException {
+		this.stop();
+
+		File oem = new File(this.fileOEM.getParentFile(), 
+				branchName + "-" + this.fileOEM.getName());
+		File aem = new File(this.fileAEM.getParentFile(), 
+				branchName + "-" + this.fileAEM.getName());
+		Files.copy(this.fileOEM.toPath(), oem.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		Files.copy(this.fileAEM.toPath(), aem.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+		this.resume(oem, oem.length(), aem, aem.length());
+	}
+
+	/** 
+	 * {@inheritDoc}
+	 * <p>
+	 * Only the location of the ephemeris and their current length
+	 * are saved, the steps being flushed as soon as written.
+	 */
+	@Override
+	public void writeCheckpoint(ObjectOutput out) throws IOException {
+		out.writeUTF(this.fileOEM.getAbsolutePath());
+		out.writeLong(this.fileOEM.length());
+		out.writeUTF(this.fileAEM.getAbsolutePath());
+		out.writeLong(this.fileAEM.length());
+	}
+
+	/** 
+	 * {@inheritDoc}
+	 * <p>
+	 * If the ephemeris of the checkpoint can not be resumed, new
+	 * ephemeris files are started.
+	 */
+	@Override
+	public void readCheckpoint(ObjectInput in) throws IOException, ClassNotFoundException {
+		File oem = new File(in.readUTF());
+		long oemOffset = in.readLong();
+		File aem = new File(in.readUTF());
+		long aemOffset = in.readLong();
+
+		if (this.writerOEM != null) {
+			this.stop();
+		}
+		try {
+			this.resume(oem, oemOffset, aem, aemOffset);
+		} catch (IOException e) {
+			logger.warn("Resuming the ephemeris failed, new files are started: "
+					+ e.getMessage());
+			this.start();
+		}
+	}
+
 	/**
 	 * Stopping the generation of the ephemeris.
 	 */
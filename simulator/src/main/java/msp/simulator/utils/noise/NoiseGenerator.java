@@ -0,0 +1,228 @@
+/* Copyright 20017-2018 Melbourne Space Program
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package msp.simulator.utils.noise;
+
+import java.io.Serializable;
+
+import org.hipparchus.util.FastMath;
+
+/**
+ * This class implements the random generator owned by a noise source
+ * of the simulation.
+ * <p>
+ * The generator is a SplitMix64 sequence, the algorithm of the JDK
+ * SplittableRandom: its state is a single long, so it is fast, free of
+ * any lock and fully captured in a checkpoint. The seed of a source is
+ * derived from the seed of the simulation and the name of the source,
+ * so each source draws an independent stream which does not depend on
+ * the other sources, and a simulation can be replayed from its seed.
+ * The seed is given to each source by the simulation once its modules
+ * are built, so that simulations built concurrently do not share it.
+ * <p>
+ * The noise is either uniform in [-intensity, intensity], or normal
+ * with the intensity as standard deviation.
+ *
+ * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
+ */
+public class NoiseGenerator implements Serializable {
+
+	/** Distribution of the noise. */
+	public enum Distribution {
+		/** Uniform noise in [-intensity, intensity]. */
+		UNIFORM,
+		/** Normal noise of standard deviation the intensity. */
+		GAUSSIAN
+	}
+
+	/* ******* Public Static Attributes ******* */
+
+	/** Seed of the simulation, or null to draw a new seed for 
+	 * each simulation. */
+	public static Long runSeed = null;
+
+	/** Distribution of the noise of the sources. */
+	public static Distribution distribution = Distribution.UNIFORM;
+
+	/* **************************************** */
+
+	/** Generated Serial Version UID. */
+	private static final long serialVersionUID = -2771633856004924137L;
+
+	/** Golden gamma of the SplitMix64 sequence. */
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	/** Scale of the 53-bit doubles. */
+	private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+	/** Last seed drawn, mixed into the next one. */
+	private static long lastSeed = 0;
+
+	/** Name of the noise source. */
+	private final String source;
+
+	/** Distribution of the noise. */
+	private final Distribution noiseDistribution;
+
+	/** Current state of the sequence. */
+	private long state;
+
+	/** Second normal deviate of the last pair, if any. */
+	private double nextGaussian;
+
+	/** True if the second normal deviate is available. */
+	private boolean hasNextGaussian;
+
+	/**
+	 * Create the generator of a noise source, seeded with 0 until
+	 * the seed of the simulation is set.
+	 * @param source Name of the noise source, unique in the simulation
+	 * @see #setSeed(long)
+	 */
+	public NoiseGenerator(String source) {
+		this.source = source;
+		this.noiseDistribution = NoiseGenerator.distribution;
+		this.setSeed(0);
+	}
+
+	/**
+	 * Draw the seed of a new simulation, i.e. the run seed if defined
+	 * or a new random seed otherwise.
+	 * @return The seed of the simulation
+	 */
+	public static synchronized long newSimulationSeed() {
+		if (NoiseGenerator.runSeed != null) {
+			return NoiseGenerator.runSeed;
+		}
+		NoiseGenerator.lastSeed = 
+				mix64(System.nanoTime() ^ mix64(NoiseGenerator.lastSeed));
+		return NoiseGenerator.lastSeed;
+	}
+
+	/**
+	 * Reset the generator to the beginning of its stream for 
+	 * the given simulation seed.
+	 * @param seed Seed of the simulation
+	 */
+	public void setSeed(long seed) {
+		this.state = mix64(seed + mix64(this.source.hashCode() * GOLDEN_GAMMA));
+		this.hasNextGaussian = false;
+	}
+
+	/**
+	 * @return The next pseudo-random long.
+	 */
+	public long nextLong() {
+		this.state += GOLDEN_GAMMA;
+		return mix64(this.state);
+	}
+
+	/**
+	 * @return The next pseudo-random double, uniform in [0, 1).
+	 */
+	public double nextDouble() {
+		return (this.nextLong() >>> 11) * DOUBLE_UNIT;
+	}
+
+	/**
+	 * Return the next normal deviate (Marsaglia polar method).
+	 * @return The next pseudo-random double, normal of mean 0 and 
+	 * standard deviation 1.
+	 */
+	public double nextGaussian() {
+		if (this.hasNextGaussian) {
+			this.hasNextGaussian = false;
+			return this.nextGaussian;
+		}
+		double v1, v2, s;
+		do {
+			v1 = 2 * this.nextDouble() - 1;
+			v2 = 2 * this.nextDouble() - 1;
+			s = v1 * v1 + v2 * v2;
+		} while (s >= 1 || s == 0);
+		double multiplier = FastMath.sqrt(-2 * FastMath.log(s) / s);
+		this.nextGaussian = v2 * multiplier;
+		this.hasNextGaussian = true;
+		return v1 * multiplier;
+	}
+
+	/**
+	 * Return the next noise sample of the given intensity, 
+	 * following the distribution of the generator.
+	 * @param intensity Intensity of the noise
+	 * @return The noise sample
+	 */
+	public double nextNoise(double intensity) {
+		switch (this.noiseDistribution) {
+		case GAUSSIAN:
+			return this.nextGaussian() * intensity;
+		case UNIFORM:
+		default:
+			return 2 * (this.nextDouble() - 0.5) * intensity;
+		}
+	}
+
+	/**
+	 * Fill the buffer with noise samples of unit intensity, following
+	 * the distribution of the generator. The samples are the ones 
+	 * successively returned by {@link #nextNoise(double)}.
+	 * @param buffer Buffer to fill
+	 */
+	public void fillNoise(double[] buffer) {
+		switch (this.noiseDistribution) {
+		case GAUSSIAN:
+			this.fillGaussian(buffer);
+			break;
+		case UNIFORM:
+		default:
+			/* Same sequence as nextDouble() with the state in a local. */
+			long z = this.state;
+			for (int i = 0; i < buffer.length; i++) {
+				z += GOLDEN_GAMMA;
+				buffer[i] = 2 * ((mix64(z) >>> 11) * DOUBLE_UNIT - 0.5);
+			}
+			this.state = z;
+			break;
+		}
+	}
+
+	/**
+	 * Fill the buffer with normal deviates of mean 0 and standard 
+	 * deviation 1.
+	 * @param buffer Buffer to fill
+	 */
+	public void fillGaussian(double[] buffer) {
+		for (int i = 0; i < buffer.length; i++) {
+			buffer[i] = this.nextGaussian();
+		}
+	}
+
+	/**
+	 * @return The distribution of the noise.
+	 */
+	public Distribution getDistribution() {
+		return this.noiseDistribution;
+	}
+
+	/**
+	 * Mixing function of the SplitMix64 sequence.
+	 * @param z Input
+	 * @return Mixed bits
+	 */
+	private static long mix64(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+}
@@ -0,0 +1,200 @@
+/* Copyright 20017-2018 Melbourne Space Program
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package msp.simulator.utils.noise;
+
+import java.io.Serializable;
+
+import org.hipparchus.util.FastMath;
+import org.orekit.time.AbsoluteDate;
+
+/**
+ * This class models the noise of a sensor, i.e. a white noise, 
+ * a bias following a random walk and the quantization of the
+ * measurements, applied component by component.
+ * <p>
+ * The random samples are drawn in bulk into preallocated blocks
+ * and consumed by the measurements, so corrupting a measurement 
+ * neither allocates nor calls the generator for each component.
+ * Measurements are stored in primitive arrays, one sample after
+ * the other, so an oversampled sensor can corrupt a whole block of
+ * samples at once.
+ *
+ * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
+ */
+public class SensorNoise implements Serializable {
+
+	/* ******* Public Static Attributes ******* */
+
+	/** Number of samples drawn at once by a sensor noise. */
+	public static int blockSize = 256;
+
+	/* **************************************** */
+
+	/** Generated Serial Version UID. */
+	private static final long serialVersionUID = 7207734914716541587L;
+
+	/** Generator of the random samples. */
+	private final NoiseGenerator generator;
+
+	/** Number of components of a measurement. */
+	private final int dimension;
+
+	/** Intensity of the white noise. */
+	private final double whiteIntensity;
+
+	/** Intensity of the bias random walk. (unit/sqrt(s)) */
+	private final double biasWalkIntensity;
+
+	/** Quantization step of the measurements, or 0. */
+	private final double quantum;
+
+	/** Block of white noise samples of unit intensity. */
+	private final double[] whiteBlock;
+
+	/** Next white noise sample in the block. */
+	private int whiteCursor;
+
+	/** Block of normal samples of the bias random walk. */
+	private final double[] walkBlock;
+
+	/** Next random walk sample in the block. */
+	private int walkCursor;
+
+	/** Current bias of each component. */
+	private final double[] bias;
+
+	/** Date of the last corrupted measurement. */
+	private AbsoluteDate lastDate;
+
+	/**
+	 * Create the noise of a sensor.
+	 * @param source Name of the noise source, unique in the simulation
+	 * @param dimension Number of components of a measurement
+	 * @param whiteIntensity Intensity of the white noise
+	 * @param biasWalkIntensity Intensity of the bias random walk (unit/sqrt(s))
+	 * @param quantum Quantization step of the measurements, or 0
+	 */
+	public SensorNoise(String source, int dimension, double whiteIntensity, 
+			double biasWalkIntensity, double quantum) {
+		this.generator = new NoiseGenerator(source);
+		this.dimension = dimension;
+		this.whiteIntensity = whiteIntensity;
+		this.biasWalkIntensity = biasWalkIntensity;
+		this.quantum = quantum;
+
+		int length = FastMath.max(1, SensorNoise.blockSize) * dimension;
+		this.whiteBlock = (whiteIntensity != 0) ? new double[length] : null;
+		this.whiteCursor = length;
+		this.walkBlock = (biasWalkIntensity != 0) ? new double[length] : null;
+		this.walkCursor = length;
+		this.bias = new double[dimension];
+		this.lastDate = null;
+	}
+
+	/**
+	 * Corrupt a measurement in place. The bias walks for the 
+	 * duration elapsed since the previous measurement.
+	 * @param measure The measurement
+	 * @param date Date of the measurement
+	 */
+	public void corrupt(double[] measure, AbsoluteDate date) {
+		double elapsed = (this.lastDate == null) ? 0 : 
+			FastMath.max(0, date.durationFrom(this.lastDate));
+		this.lastDate = date;
+		this.corrupt(measure, 0, 1, elapsed);
+	}
+
+	/**
+	 * Corrupt a block of successive samples in place.
+	 * @param samples The samples, one measurement after the other
+	 * @param offset Index of the first sample in the array
+	 * @param count Number of samples
+	 * @param period Time between two samples, for the bias walk (s)
+	 */
+	public void corrupt(double[] samples, int offset, int count, double period) {
+		final int end = offset + count * this.dimension;
+
+		/* Bias random walk. */
+		if (this.walkBlock != null) {
+			final double walkStep = this.biasWalkIntensity * FastMath.sqrt(period);
+			for (int index = offset; index < end; ) {
+				for (int k = 0; k < this.dimension; k++, index++) {
+					if (this.walkCursor == this.walkBlock.length) {
+						this.generator.fillGaussian(this.walkBlock);
+						this.walkCursor = 0;
+					}
+					this.bias[k] += walkStep * this.walkBlock[this.walkCursor++];
+					samples[index] += this.bias[k];
+				}
+			}
+		}
+
+		/* White noise, consumed by runs of contiguous samples. */
+		if (this.whiteBlock != null) {
+			final double[] white = this.whiteBlock;
+			final double intensity = this.whiteIntensity;
+			for (int index = offset; index < end; ) {
+				if (this.whiteCursor == white.length) {
+					this.generator.fillNoise(white);
+					this.whiteCursor = 0;
+				}
+				final int cursor = this.whiteCursor;
+				final int n = FastMath.min(end - index, white.length - cursor);
+				for (int j = 0; j < n; j++) {
+					samples[index + j] += white[cursor + j] * intensity;
+				}
+				this.whiteCursor += n;
+				index += n;
+			}
+		}
+
+		/* Quantization. */
+		if (this.quantum > 0) {
+			final double quantum = this.quantum;
+			for (int index = offset; index < end; index++) {
+				samples[index] = quantum * FastMath.rint(samples[index] / quantum);
+			}
+		}
+	}
+
+	/**
+	 * Reset the random generator for the given simulation seed. 
+	 * The samples already drawn are discarded, the bias is kept.
+	 * @param seed Seed of the simulation
+	 */
+	public void setSeed(long seed) {
+		this.generator.setSeed(seed);
+		if (this.whiteBlock != null) {
+			this.whiteCursor = this.whiteBlock.length;
+		}
+		if (this.walkBlock != null) {
+			this.walkCursor = this.walkBlock.length;
+		}
+	}
+
+	/**
+	 * @return A copy of the current bias of each component.
+	 */
+	public double[] getBias() {
+		return this.bias.clone();
+	}
+
+	/**
+	 * @return The intensity of the white noise.
+	 */
+	public double getWhiteIntensity() {
+		return this.whiteIntensity;
+	}
+}
@@ -0,0 +1,116 @@
+/* Copyright 20017-2018 Melbourne Space Program
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package msp.simulator.benchmark;
+
+import org.hipparchus.geometry.euclidean.threed.Rotation;
+import org.hipparchus.geometry.euclidean.threed.Vector3D;
+
+import msp.simulator.NumericalSimulator;
+import msp.simulator.dynamic.propagation.integration.AttitudeIntegratorEnum;
+import msp.simulator.satellite.assembly.Assembly;
+import msp.simulator.user.Dashboard;
+
+/**
+ * Benchmark of the integrators of the rotational state.
+ * <p>
+ * A torque free asymmetric satellite spins close to its intermediate
+ * axis, which is the most demanding case for the attitude kinematic.
+ * The Wilcox integration at the default step is compared to the
+ * RKMK4 integration at larger steps. The conservation of the norm of
+ * the angular momentum, of the rotational energy and of the inertial
+ * direction of the angular momentum is given through
+ * {@link Assembly#getAngularMomentum()}, and the final attitude is
+ * compared to a RKMK4 integration at a fine step.
+ * <p>
+ * Arguments: [duration (s)]
+ *
+ * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
+ */
+public class AttitudeIntegratorBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		long duration = args.length > 0 ? Long.parseLong(args[0]) : 600;
+
+		System.out.println("Attitude Integrator Benchmark - " + duration + " s. simulated");
+
+		/* Reference and warm up. The reference step is exact in binary
+		 * so that the simulation ends at the same date. */
+		Rotation reference = run(duration, AttitudeIntegratorEnum.RKMK4, 0.125, null);
+		run(duration, AttitudeIntegratorEnum.WILCOX, 0.1, null);
+
+		run(duration, AttitudeIntegratorEnum.WILCOX, 0.1, reference);
+		run(duration, AttitudeIntegratorEnum.WILCOX, 0.5, reference);
+		run(duration, AttitudeIntegratorEnum.RKMK4, 0.1, reference);
+		run(duration, AttitudeIntegratorEnum.RKMK4, 0.5, reference);
+		run(duration, AttitudeIntegratorEnum.RKMK4, 1.0, reference);
+	}
+
+	private static Rotation run(long duration, AttitudeIntegratorEnum integrator,
+			double step, Rotation reference) throws Exception {
+		Dashboard.setDefaultConfiguration();
+		Dashboard.setRealTimeProcessing(false);
+		Dashboard.setSimulationDuration(duration);
+		Dashboard.setIntegrationTimeStep(step);
+		Dashboard.setAttitudeIntegrator(integrator);
+		Dashboard.setSatelliteInertiaMatrix(new double[][] {
+			{0.010, 0.000, 0.000},
+			{0.000, 0.015, 0.000},
+			{0.000, 0.000, 0.020}
+		});
+		Dashboard.setInitialSpin(new Vector3D(0.01, 0.3, 0.01));
+		Dashboard.setTorqueDisturbances(false);
+
+		NumericalSimulator simulation = new NumericalSimulator();
+		simulation.initialize();
+		Assembly assembly = simulation.getSatellite().getAssembly();
+		Vector3D h0 = assembly.getAngularMomentum();
+		double e0 = energy(assembly);
+		Vector3D inertialH0 = inertialMomentum(simulation, h0);
+
+		long t0 = System.nanoTime();
+		simulation.processUntil(duration);
+		long time = System.nanoTime() - t0;
+
+		Vector3D h1 = assembly.getAngularMomentum();
+		double e1 = energy(assembly);
+		Vector3D inertialH1 = inertialMomentum(simulation, h1);
+		Rotation attitude = simulation.getSatellite().getStates().getCurrentState()
+				.getAttitude().getRotation();
+		simulation.exit();
+
+		if (reference != null) {
+			System.out.println("  " + integrator + " " + step + " s. : " + time / 1e6 + " ms. "
+					+ "Momentum drift: " + (h1.getNorm() - h0.getNorm()) / h0.getNorm()
+					+ " - Energy drift: " + (e1 - e0) / e0
+					+ " - Inertial momentum drift: "
+					+ inertialH1.subtract(inertialH0).getNorm() / inertialH0.getNorm()
+					+ " - Attitude error: "
+					+ Rotation.distance(attitude, reference) + " rad.");
+		}
+		return attitude;
+	}
+
+	/** Rotational energy of the satellite. */
+	private static double energy(Assembly assembly) {
+		Vector3D spin = assembly.getStates().getCurrentState().getAttitude().getSpin();
+		return 0.5 * spin.dotProduct(assembly.getAngularMomentum());
+	}
+
+	/** Angular momentum expressed in the inertial frame. */
+	private static Vector3D inertialMomentum(NumericalSimulator simulation, Vector3D momentum) {
+		return simulation.getSatellite().getStates().getCurrentState()
+				.getAttitude().getRotation().applyInverseTo(momentum);
+	}
+}
@@ -0,0 +1,153 @@
+/* Copyright 20017-2018 Melbourne Space Program
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package msp.simulator.benchmark;
+
+import java.util.ArrayList;
+
+import org.hipparchus.geometry.euclidean.threed.Vector3D;
+import org.orekit.propagation.SpacecraftState;
+
+import msp.simulator.NumericalSimulator;
+import msp.simulator.dynamic.torques.TorqueContext;
+import msp.simulator.dynamic.torques.TorqueProvider;
+import msp.simulator.dynamic.torques.TorqueProviderEnum;
+import msp.simulator.dynamic.torques.disturbances.AerodynamicTorque;
+import msp.simulator.dynamic.torques.disturbances.GravityGradientTorque;
+import msp.simulator.dynamic.torques.disturbances.ResidualDipoleTorque;
+import msp.simulator.dynamic.torques.disturbances.SolarPressureTorque;
+import msp.simulator.environment.Environment;
+import msp.simulator.satellite.assembly.SatelliteBody;
+import msp.simulator.user.Dashboard;
+
+/**
+ * Benchmark of the physical disturbance torques.
+ * <p>
+ * The simulation is first processed with the random disturbance
+ * only, then with each physical model alone and with all of them.
+ * The four models are then evaluated on the states of the
+ * simulation, sharing a single context or each computing the
+ * whole environment of the stage by itself.
+ * <p>
+ * Arguments: [duration (s)] [repetitions of the evaluation]
+ *
+ * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
+ */
+public class DisturbanceBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		long duration = args.length > 0 ? Long.parseLong(args[0]) : 600;
+		int repetitions = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+		TorqueProviderEnum[] models = new TorqueProviderEnum[] {
+				TorqueProviderEnum.GRAVITY, TorqueProviderEnum.ATMOSPHERIC,
+				TorqueProviderEnum.MAGNETIC, TorqueProviderEnum.SOLAR_PRESSURE };
+
+		System.out.println("Disturbance Benchmark - " + duration + " s. simulated");
+
+		/* Warm up. */
+		run(duration, true);
+		System.out.println("  Random      : " + run(duration, true).time / 1e6 + " ms.");
+		for (TorqueProviderEnum model : models) {
+			System.out.println("  " + String.format("%-12s", model) + ": "
+					+ run(duration, true, model).time / 1e6 + " ms.");
+		}
+		Run all = run(duration, true, models);
+		System.out.println("  All         : " + all.time / 1e6 + " ms.");
+
+		/* Evaluation of the models on the states of the simulation. */
+		Environment environment = all.simulation.getEnvironment();
+		SatelliteBody body = all.simulation.getSatellite().getAssembly().getBody();
+		TorqueContext shared = new TorqueContext(environment);
+		TorqueProvider[] sharing = create(new TorqueContext[] {
+				shared, shared, shared, shared }, environment, body);
+		TorqueContext[] contexts = new TorqueContext[] {
+				new TorqueContext(environment), new TorqueContext(environment),
+				new TorqueContext(environment), new TorqueContext(environment) };
+		TorqueProvider[] independent = create(contexts, environment, body);
+
+		double[] checksums = new double[2];
+		long[] times = new long[] {Long.MAX_VALUE, Long.MAX_VALUE};
+		for (int r = 0; r < repetitions; r++) {
+			long t0 = System.nanoTime();
+			checksums[0] = 0;
+			for (SpacecraftState state : all.states) {
+				shared.update(state);
+				for (TorqueProvider provider : sharing) {
+					checksums[0] += provider.getTorque(state.getDate()).getNorm();
+				}
+			}
+			long t1 = System.nanoTime();
+			checksums[1] = 0;
+			for (SpacecraftState state : all.states) {
+				for (int i = 0; i < independent.length; i++) {
+					contexts[i].update(state);
+					contexts[i].getNadir();
+					contexts[i].getSunDirection();
+					contexts[i].getDensity();
+					contexts[i].getAirVelocity();
+					contexts[i].getMagneticField();
+					checksums[1] += independent[i].getTorque(state.getDate()).getNorm();
+				}
+			}
+			long t2 = System.nanoTime();
+			times[0] = Math.min(times[0], t1 - t0);
+			times[1] = Math.min(times[1], t2 - t1);
+		}
+		int n = all.states.size();
+		System.out.println("  Shared      : " + (double) times[0] / n + " ns/stage.");
+		System.out.println("  Independent : " + (double) times[1] / n + " ns/stage.");
+		System.out.println("  Identical   : " + (checksums[0] == checksums[1])
+				+ " (" + checksums[0] / n + " N.m)");
+	}
+
+	private static TorqueProvider[] create(TorqueContext[] contexts, Environment environment,
+			SatelliteBody body) {
+		return new TorqueProvider[] {
+				new GravityGradientTorque(contexts[0],
+						environment.getSolarSystem().getEarth().getAttractCoeffMu(),
+						body.getInertiaMatrix()),
+				new AerodynamicTorque(contexts[1], body.getSatBoxSize()),
+				new ResidualDipoleTorque(contexts[2]),
+				new SolarPressureTorque(contexts[3], body.getSatBoxSize())
+		};
+	}
+
+	private static Run run(long duration, boolean random, TorqueProviderEnum... models)
+			throws Exception {
+		Dashboard.setDefaultConfiguration();
+		Dashboard.setRealTimeProcessing(false);
+		Dashboard.setSimulationDuration(duration);
+		Dashboard.setInitialSpin(new Vector3D(0.01, 0.02, -0.01));
+		Dashboard.setTorqueDisturbances(random, models);
+
+		Run run = new Run();
+		run.simulation = new NumericalSimulator();
+		run.simulation.initialize();
+		long t0 = System.nanoTime();
+		for (long i = 0; i < 10 * duration; i++) {
+			run.simulation.processUntil(0.1 * (i + 1));
+			run.states.add(run.simulation.getSatellite().getStates().getCurrentState());
+		}
+		run.time = System.nanoTime() - t0;
+		run.simulation.exit();
+		return run;
+	}
+
+	private static class Run {
+		NumericalSimulator simulation;
+		ArrayList<SpacecraftState> states = new ArrayList<SpacecraftState>();
+		long time;
+	}
+}
@@ -0,0 +1,111 @@
+/* Copyright 20017-2018 Melbourne Space Program
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package msp.simulator.benchmark;
+
+import org.hipparchus.geometry.euclidean.threed.Rotation;
+import org.hipparchus.geometry.euclidean.threed.Vector3D;
+import org.hipparchus.util.FastMath;
+import org.orekit.frames.Frame;
+import org.orekit.frames.FramesFactory;
+import org.orekit.frames.Transform;
+import org.orekit.time.AbsoluteDate;
+import org.orekit.time.TimeScalesFactory;
+
+import msp.simulator.environment.solarSystem.Earth;
+import msp.simulator.utils.architecture.OrekitConfiguration;
+
+/**
+ * Benchmark of the Earth rotating frame cache.
+ * <p>
+ * The transforms from EME2000 to the Earth rotating frame are
+ * requested at each stage of a fourth order Runge-Kutta integration
+ * over a full day, first with the IERS frame then with the cached
+ * one, and the execution times and the differences are compared.
+ * <p>
+ * Arguments: [duration (s)] [integration step (s)]
+ *
+ * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
+ */
+public class EarthFrameBenchmark {
+
+	/** Radius of the test point, i.e. a low Earth orbit. (m) */
+	private static final double ORBIT_RADIUS = 6.95e6;
+
+	public static void main(String[] args) throws Exception {
+		double duration = args.length > 0 ? Double.parseDouble(args[0]) : 86400.;
+		double step = args.length > 1 ? Double.parseDouble(args[1]) : 0.1;
+
+		OrekitConfiguration.processConfiguration();
+		AbsoluteDate start = new AbsoluteDate(2018, 12, 21, 22, 23, 0.,
+				TimeScalesFactory.getUTC());
+		Frame eme2000 = FramesFactory.getEME2000();
+
+		Earth.useRotatingFrameCache = false;
+		Frame itrf = new Earth().getRotatingFrame();
+		Earth.useRotatingFrameCache = true;
+		Frame cached = new Earth().getRotatingFrame();
+		Earth.useRotatingFrameCache = false;
+
+		/* Warm up both paths. */
+		run(eme2000, itrf, start, FastMath.min(duration, 3600.), step);
+		run(eme2000, cached, start, FastMath.min(duration, 3600.), step);
+
+		long t0 = System.nanoTime();
+		double checksumItrf = run(eme2000, itrf, start, duration, step);
+		long t1 = System.nanoTime();
+		double checksumCached = run(eme2000, cached, start, duration, step);
+		long t2 = System.nanoTime();
+
+		/* Accuracy of the cache on a coarser sampling. */
+		double maxPositionError = 0;
+		double maxAngleError = 0;
+		Vector3D point = new Vector3D(ORBIT_RADIUS, 0, 0);
+		for (double t = 0; t <= duration; t += 7.3) {
+			AbsoluteDate date = start.shiftedBy(t);
+			Transform ref = eme2000.getTransformTo(itrf, date);
+			Transform tst = eme2000.getTransformTo(cached, date);
+			maxPositionError = FastMath.max(maxPositionError,
+					ref.transformPosition(point).distance(tst.transformPosition(point)));
+			maxAngleError = FastMath.max(maxAngleError,
+					Rotation.distance(ref.getRotation(), tst.getRotation()));
+		}
+
+		System.out.println("Earth Frame Benchmark - " + duration + " s. at " + step + " s.");
+		System.out.println("  IERS frame   : " + (t1 - t0) / 1e6 + " ms.");
+		System.out.println("  Cached frame : " + (t2 - t1) / 1e6 + " ms.");
+		System.out.println("  Speedup      : " + (double) (t1 - t0) / (t2 - t1));
+		System.out.println("  Max. error   : " + maxPositionError + " m. at "
+				+ ORBIT_RADIUS + " m. / " + maxAngleError + " rad.");
+		System.out.println("  Checksum     : " + (checksumItrf - checksumCached));
+	}
+
+	/**
+	 * Request the transforms at the dates of the RK4 stages.
+	 * @return A checksum preventing the elimination of the loop
+	 */
+	private static double run(Frame from, Frame to, AbsoluteDate start,
+			double duration, double step) throws Exception {
+		double checksum = 0;
+		long nSteps = (long) (duration / step);
+		for (long i = 0; i < nSteps; i++) {
+			AbsoluteDate date = start.shiftedBy(i * step);
+			checksum += FastMath.abs(from.getTransformTo(to, date).getRotation().getQ0());
+			checksum += FastMath.abs(from.getTransformTo(to, date.shiftedBy(step / 2)).getRotation().getQ0());
+			checksum += FastMath.abs(from.getTransformTo(to, date.shiftedBy(step / 2)).getRotation().getQ0());
+			checksum += FastMath.abs(from.getTransformTo(to, date.shiftedBy(step)).getRotation().getQ0());
+		}
+		return checksum;
+	}
+}
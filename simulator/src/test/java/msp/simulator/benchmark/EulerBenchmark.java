@@ -0,0 +1,129 @@
+/* Copyright 20017-2018 Melbourne Space Program
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package msp.simulator.benchmark;
+
+import java.util.Random;
+
+import org.hipparchus.geometry.euclidean.threed.Rotation;
+import org.hipparchus.geometry.euclidean.threed.RotationConvention;
+import org.hipparchus.geometry.euclidean.threed.Vector3D;
+import org.hipparchus.linear.MatrixUtils;
+import org.hipparchus.linear.RealMatrix;
+
+import msp.simulator.dynamic.propagation.integration.RotAccProvider;
+import msp.simulator.satellite.assembly.InertiaTensor;
+import msp.simulator.satellite.assembly.SatelliteBody;
+
+/**
+ * Benchmark of the Euler equations of the rotational dynamic.
+ * <p>
+ * The former kernel, using the diagonal terms only, is compared to
+ * the inertia tensor with a diagonal matrix, taking the diagonal
+ * fast path, and with the same matrix expressed in a rotated frame,
+ * taking the full tensor path. The full path is checked against the
+ * diagonal one through the rotation of the frame.
+ * <p>
+ * Arguments: [calls] [repetitions]
+ *
+ * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
+ */
+public class EulerBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		int calls = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		int repetitions = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+		/* Diagonal and rotated inertia matrices. */
+		double[][] diagonal = SatelliteBody.satInertiaMatrix;
+		Rotation rotation = new Rotation(new Vector3D(1, 2, 3), 0.7,
+				RotationConvention.VECTOR_OPERATOR);
+		RealMatrix r = MatrixUtils.createRealMatrix(rotation.getMatrix());
+		double[][] full = r.multiply(MatrixUtils.createRealMatrix(diagonal))
+				.multiply(r.transpose()).getData();
+		InertiaTensor diagonalTensor = new InertiaTensor(diagonal);
+		InertiaTensor fullTensor = new InertiaTensor(full);
+
+		/* Inputs. */
+		Random random = new Random(1);
+		int n = 1024;
+		double[][] torques = new double[n][];
+		Vector3D[] spins = new Vector3D[n];
+		for (int i = 0; i < n; i++) {
+			torques[i] = new double[] {1e-4 * random.nextGaussian(),
+					1e-4 * random.nextGaussian(), 1e-4 * random.nextGaussian()};
+			spins[i] = new Vector3D(random.nextGaussian(), random.nextGaussian(),
+					random.nextGaussian()).scalarMultiply(0.1);
+		}
+
+		long[] times = new long[] {Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE};
+		double[] checksums = new double[3];
+		for (int rep = 0; rep < repetitions; rep++) {
+			for (int k = 0; k < 3; k++) {
+				double checksum = 0;
+				long t0 = System.nanoTime();
+				for (int i = 0; i < calls; i++) {
+					int j = i & (n - 1);
+					double[] rotAcc;
+					if (k == 0) {
+						rotAcc = formerKernel(torques[j], spins[j], diagonal);
+					} else {
+						rotAcc = RotAccProvider.computeEulerEquations(torques[j], spins[j],
+								k == 1 ? diagonalTensor : fullTensor);
+					}
+					checksum += rotAcc[0] + rotAcc[1] + rotAcc[2];
+				}
+				times[k] = Math.min(times[k], System.nanoTime() - t0);
+				checksums[k] = checksum;
+			}
+		}
+
+		/* Full path against the diagonal path in the rotated frame. */
+		double maxError = 0;
+		for (int i = 0; i < n; i++) {
+			Vector3D torque = new Vector3D(torques[i]);
+			Vector3D expected = rotation.applyTo(new Vector3D(
+					RotAccProvider.computeEulerEquations(
+							rotation.applyInverseTo(torque).toArray(),
+							rotation.applyInverseTo(spins[i]), diagonalTensor)));
+			Vector3D actual = new Vector3D(RotAccProvider.computeEulerEquations(
+					torques[i], spins[i], fullTensor));
+			maxError = Math.max(maxError,
+					actual.subtract(expected).getNorm() / expected.getNorm());
+		}
+
+		System.out.println("Euler Equations Benchmark - " + calls + " calls");
+		System.out.println("  Former      : " + (double) times[0] / calls + " ns/call.");
+		System.out.println("  Diagonal    : " + (double) times[1] / calls + " ns/call.");
+		System.out.println("  Full tensor : " + (double) times[2] / calls + " ns/call.");
+		System.out.println("  Rotated frame relative error: " + maxError
+				+ " (" + checksums[0] + ", " + checksums[1] + ", " + checksums[2] + ")");
+	}
+
+	/** Former kernel, using the diagonal terms and dividing by I1. */
+	private static double[] formerKernel(double[] torque, Vector3D spin,
+			double[][] inertiaMatrix) {
+		double[] rotAcc = new double[3];
+		double W1 = spin.getX();
+		double W2 = spin.getY();
+		double W3 = spin.getZ();
+		double I1 = inertiaMatrix[0][0];
+		double I2 = inertiaMatrix[1][1];
+		double I3 = inertiaMatrix[2][2];
+		rotAcc[0] = (torque[0] - (I3 - I2) * W2 * W3) / I1;
+		rotAcc[1] = (torque[1] - (I1 - I3) * W3 * W1) / I1;
+		rotAcc[2] = (torque[2] - (I2 - I1) * W1 * W2) / I1;
+		return rotAcc;
+	}
+}
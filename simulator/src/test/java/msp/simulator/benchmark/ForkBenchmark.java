@@ -0,0 +1,79 @@
+/* Copyright 20017-2018 Melbourne Space Program
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package msp.simulator.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import msp.simulator.NumericalSimulator;
+import msp.simulator.SimulationBranch;
+import msp.simulator.user.Dashboard;
+
+/**
+ * Benchmark of the fork of a simulation in several branches.
+ * <p>
+ * The branches differ by the seed of their noise generators. They
+ * are first processed as independent simulations, one after the
+ * other, then forked from a simulation processed until the fork
+ * offset. The continuation of the forked simulation by a branch
+ * without variation is checked by
+ * {@link msp.simulator.test.TestCheckpoint#testForkContinuation()}.
+ * <p>
+ * Arguments: [duration (s)] [fork offset (s)] [branches] [threads]
+ *
+ * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
+ */
+public class ForkBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		long duration = args.length > 0 ? Long.parseLong(args[0]) : 600;
+		double offset = args.length > 1 ? Double.parseDouble(args[1]) : 500.;
+		int nBranches = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+		int threads = args.length > 3 ? Integer.parseInt(args[3]) :
+			Runtime.getRuntime().availableProcessors();
+
+		Dashboard.setDefaultConfiguration();
+		Dashboard.setRealTimeProcessing(false);
+		Dashboard.setSimulationDuration(duration);
+
+		List<SimulationBranch> branches = new ArrayList<SimulationBranch>();
+		for (int i = 0; i < nBranches; i++) {
+			branches.add(new SimulationBranch("B" + i, null, Long.valueOf(i)));
+		}
+
+		/* Independent simulations. */
+		long t0 = System.nanoTime();
+		for (int i = 0; i < nBranches; i++) {
+			NumericalSimulator simulation = new NumericalSimulator();
+			simulation.launch();
+		}
+		long t1 = System.nanoTime();
+
+		/* Forked simulations. */
+		NumericalSimulator trunk = new NumericalSimulator();
+		trunk.initialize();
+		trunk.processUntil(offset);
+		List<NumericalSimulator> forked = trunk.fork(branches, threads);
+		long t2 = System.nanoTime();
+		trunk.exit();
+
+		System.out.println("Fork Benchmark - " + nBranches + " branches of " + duration
+				+ " s. forked at " + offset + " s. on " + threads + " threads");
+		System.out.println("  Independent : " + (t1 - t0) / 1e6 + " ms.");
+		System.out.println("  Forked      : " + (t2 - t1) / 1e6 + " ms.");
+		System.out.println("  Speedup     : " + (double) (t1 - t0) / (t2 - t1));
+		System.out.println("  Branches    : " + forked.size());
+	}
+}
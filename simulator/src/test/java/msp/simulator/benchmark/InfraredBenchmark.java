@@ -0,0 +1,110 @@
+/* Copyright 20017-2018 Melbourne Space Program
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package msp.simulator.benchmark;
+
+import org.hipparchus.geometry.euclidean.threed.Vector3D;
+import org.hipparchus.util.FastMath;
+import org.orekit.utils.Constants;
+
+import msp.simulator.satellite.sensors.EarthSensingGeometry;
+import msp.simulator.satellite.sensors.InfraredArray;
+import msp.simulator.satellite.sensors.InfraredSensor;
+
+/**
+ * Benchmark of the evaluation of the infrared sensors.
+ * <p>
+ * The six faces of the satellite are evaluated for a set of Nadir
+ * vectors, first one sensor after the other, then in a single pass
+ * by an infrared array. The largest difference between both
+ * evaluations is reported.
+ * <p>
+ * Arguments: [evaluations] [Nadir vectors]
+ *
+ * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
+ */
+public class InfraredBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		int evaluations = args.length > 0 ? Integer.parseInt(args[0]) : 2000000;
+		int nVectors = args.length > 1 ? Integer.parseInt(args[1]) : 1024;
+
+		InfraredSensor[] sensors = new InfraredSensor[] {
+				new InfraredSensor(Vector3D.PLUS_I), new InfraredSensor(Vector3D.MINUS_I),
+				new InfraredSensor(Vector3D.PLUS_J), new InfraredSensor(Vector3D.MINUS_J),
+				new InfraredSensor(Vector3D.PLUS_K), new InfraredSensor(Vector3D.MINUS_K)
+		};
+		InfraredArray array = new InfraredArray("Infrared",
+				new EarthSensingGeometry(Constants.WGS84_EARTH_EQUATORIAL_RADIUS, null), sensors);
+
+		Vector3D[] nadirs = new Vector3D[nVectors];
+		for (int i = 0; i < nVectors; i++) {
+			double theta = FastMath.acos(1 - 2 * (i + 0.5) / nVectors);
+			double phi = i * FastMath.PI * (3 - FastMath.sqrt(5));
+			nadirs[i] = new Vector3D(phi, FastMath.PI / 2 - theta);
+		}
+		double[] readings = new double[6];
+
+		/* Warm up both paths. */
+		perSensor(sensors, nadirs, evaluations / 10, readings);
+		batched(array, nadirs, evaluations / 10, readings);
+
+		long t0 = System.nanoTime();
+		double checksumSensor = perSensor(sensors, nadirs, evaluations, readings);
+		long t1 = System.nanoTime();
+		double checksumArray = batched(array, nadirs, evaluations, readings);
+		long t2 = System.nanoTime();
+
+		double maxError = 0;
+		double[] expected = new double[6];
+		for (Vector3D nadir : nadirs) {
+			for (int k = 0; k < 6; k++) {
+				expected[k] = sensors[k].calculateInfraredReading(nadir);
+			}
+			array.evaluate(nadir, readings);
+			for (int k = 0; k < 6; k++) {
+				maxError = FastMath.max(maxError, FastMath.abs(readings[k] - expected[k]));
+			}
+		}
+
+		System.out.println("Infrared Benchmark - " + evaluations + " evaluations of 6 faces");
+		System.out.println("  Per sensor : " + (t1 - t0) / 1e6 + " ms. (" + checksumSensor + ")");
+		System.out.println("  Batched    : " + (t2 - t1) / 1e6 + " ms. (" + checksumArray + ")");
+		System.out.println("  Speedup    : " + (double) (t1 - t0) / (t2 - t1));
+		System.out.println("  Max error  : " + maxError);
+	}
+
+	private static double perSensor(InfraredSensor[] sensors, Vector3D[] nadirs,
+			int evaluations, double[] readings) {
+		double checksum = 0;
+		for (int i = 0; i < evaluations; i++) {
+			Vector3D nadir = nadirs[i % nadirs.length];
+			for (int k = 0; k < sensors.length; k++) {
+				readings[k] = sensors[k].calculateInfraredReading(nadir);
+			}
+			checksum += readings[i % 6];
+		}
+		return checksum;
+	}
+
+	private static double batched(InfraredArray array, Vector3D[] nadirs,
+			int evaluations, double[] readings) {
+		double checksum = 0;
+		for (int i = 0; i < evaluations; i++) {
+			array.evaluate(nadirs[i % nadirs.length], readings);
+			checksum += readings[i % 6];
+		}
+		return checksum;
+	}
+}
@@ -0,0 +1,107 @@
+/* Copyright 20017-2018 Melbourne Space Program
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package msp.simulator.benchmark;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import msp.simulator.satellite.io.MemcachedJournal;
+import msp.simulator.satellite.io.MemcachedRawTranscoder;
+
+/**
+ * Benchmark of the journal of the MemCached operations.
+ * <p>
+ * The operations of a hardware in the loop session are recorded
+ * without any MemCached server: the sensor channels are set and
+ * the torque command is got at each step. The cost of a record
+ * is reported and the journal is read back to check its content.
+ * <p>
+ * Arguments: [steps]
+ *
+ * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
+ */
+public class JournalBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		int steps = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		String[] sets = new String[] {
+				"Simulation_Magnetometer_X", "Simulation_Magnetometer_Y",
+				"Simulation_Magnetometer_Z", "Simulation_Gyro_X",
+				"Simulation_Gyro_Y", "Simulation_Gyro_Z" };
+		String[] gets = new String[] {
+				"Simulation_Torque_X", "Simulation_Torque_Y", "Simulation_Torque_Z" };
+
+		Path path = Files.createTempFile("memcached", ".jrn");
+		byte[][] values = new byte[16][];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = MemcachedRawTranscoder.toRawByteArray(1e-3 * i);
+		}
+
+		/* Warm up and measure. */
+		double sum = 0;
+		long operations = 0;
+		long elapsed = 0;
+		for (int run = 0; run < 2; run++) {
+			MemcachedJournal journal = new MemcachedJournal(path);
+			long t0 = System.nanoTime();
+			for (int i = 0; i < steps; i++) {
+				double time = 0.1 * i;
+				for (int k = 0; k < sets.length; k++) {
+					journal.record(MemcachedJournal.SET, sets[k], time, System.nanoTime(),
+							values[(i + k) & 15]);
+				}
+				for (int k = 0; k < gets.length; k++) {
+					journal.record(MemcachedJournal.GET, gets[k], time, System.nanoTime(),
+							values[(i * k) & 15]);
+				}
+			}
+			journal.close();
+			elapsed = System.nanoTime() - t0;
+			operations = (long) steps * (sets.length + gets.length);
+		}
+		for (int i = 0; i < steps; i++) {
+			for (int k = 0; k < sets.length; k++) {
+				sum += 1e-3 * ((i + k) & 15);
+			}
+			for (int k = 0; k < gets.length; k++) {
+				sum += 1e-3 * ((i * k) & 15);
+			}
+		}
+
+		/* Read back. */
+		final double[] checksum = new double[1];
+		final long[] count = new long[1];
+		long t1 = System.nanoTime();
+		MemcachedJournal.read(path, new MemcachedJournal.Listener() {
+			@Override
+			public void operation(byte operation, String key, double simulationTime,
+					long wallTime, long duration, byte[] value) {
+				checksum[0] += ByteBuffer.wrap(value).getDouble();
+				count[0]++;
+			}
+		});
+		long t2 = System.nanoTime();
+
+		System.out.println("MemCached Journal Benchmark - " + operations + " operations.");
+		System.out.println("  Journal     : " + Files.size(path) / 1024 + " kB");
+		System.out.println("  Record      : " + (double) elapsed / operations + " ns/op.");
+		System.out.println("  Read back   : " + (t2 - t1) / 1e6 + " ms. - "
+				+ count[0] + " operations");
+		System.out.println("  Identical   : " + (count[0] == operations && checksum[0] == sum));
+
+		Files.delete(path);
+	}
+}
@@ -0,0 +1,132 @@
+/* Copyright 20017-2018 Melbourne Space Program
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package msp.simulator.benchmark;
+
+import java.util.ArrayList;
+
+import org.hipparchus.geometry.euclidean.threed.Vector3D;
+import org.orekit.propagation.SpacecraftState;
+
+import msp.simulator.NumericalSimulator;
+import msp.simulator.dynamic.torques.TorqueContext;
+import msp.simulator.dynamic.torques.disturbances.ResidualDipoleTorque;
+import msp.simulator.satellite.actuators.MagnetoTorquers;
+import msp.simulator.user.Dashboard;
+
+/**
+ * Benchmark of the magnetorquers.
+ * <p>
+ * The simulation is processed without and with the magnetorquers
+ * driven by a constant dipole command. The torque of the dipole is
+ * then evaluated on the states of the simulation, by the
+ * magnetorquers reusing the field of the magnetometer and by a
+ * dipole model evaluating the geomagnetic field at each stage.
+ * <p>
+ * Arguments: [duration (s)] [repetitions of the evaluation]
+ *
+ * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
+ */
+public class MagnetorquerBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		long duration = args.length > 0 ? Long.parseLong(args[0]) : 600;
+		int repetitions = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+		Vector3D dipole = new Vector3D(0.05, -0.1, 0.15);
+
+		System.out.println("Magnetorquer Benchmark - " + duration + " s. simulated");
+
+		/* Warm up. */
+		run(duration, false, dipole);
+		System.out.println("  Without     : " + run(duration, false, dipole).time / 1e6 + " ms.");
+		Run with = run(duration, true, dipole);
+		System.out.println("  With        : " + with.time / 1e6 + " ms.");
+
+		/* Evaluation of the torque on the states of the simulation. */
+		MagnetoTorquers magnetoTorquers =
+				with.simulation.getSatellite().getActuators().getMagnetoTorquers();
+		TorqueContext context = new TorqueContext(with.simulation.getEnvironment());
+		ResidualDipoleTorque.residualDipole = dipole;
+		ResidualDipoleTorque model = new ResidualDipoleTorque(context);
+
+		double[] torque = new double[3];
+		double[] checksums = new double[2];
+		long[] times = new long[] {Long.MAX_VALUE, Long.MAX_VALUE};
+		for (int r = 0; r < repetitions; r++) {
+			long t0 = System.nanoTime();
+			checksums[0] = 0;
+			for (SpacecraftState state : with.states) {
+				torque[0] = 0;
+				torque[1] = 0;
+				torque[2] = 0;
+				magnetoTorquers.addTorque(state, torque);
+				checksums[0] += torque[0] + torque[1] + torque[2];
+			}
+			long t1 = System.nanoTime();
+			checksums[1] = 0;
+			for (SpacecraftState state : with.states) {
+				torque[0] = 0;
+				torque[1] = 0;
+				torque[2] = 0;
+				model.addTorque(state, torque);
+				checksums[1] += torque[0] + torque[1] + torque[2];
+			}
+			long t2 = System.nanoTime();
+			times[0] = Math.min(times[0], t1 - t0);
+			times[1] = Math.min(times[1], t2 - t1);
+		}
+
+		/* Both models at the current state of the simulation. */
+		SpacecraftState current = with.simulation.getSatellite().getStates().getCurrentState();
+		context.update(current);
+		Vector3D reference = model.getTorque(current.getDate());
+		Vector3D actuated = magnetoTorquers.getTorque(current.getDate());
+
+		int n = with.states.size();
+		System.out.println("  Magnetorquer: " + (double) times[0] / n + " ns/stage.");
+		System.out.println("  Field model : " + (double) times[1] / n + " ns/stage.");
+		System.out.println("  Dipole      : " + magnetoTorquers.getDipole());
+		System.out.println("  Relative gap: "
+				+ actuated.subtract(reference).getNorm() / reference.getNorm());
+	}
+
+	private static Run run(long duration, boolean magnetoTorquers, Vector3D dipole)
+			throws Exception {
+		Dashboard.setDefaultConfiguration();
+		Dashboard.setRealTimeProcessing(false);
+		Dashboard.setSimulationDuration(duration);
+		Dashboard.setInitialSpin(new Vector3D(0.01, 0.02, -0.01));
+		Dashboard.setMagnetoTorquers(magnetoTorquers, 0.2, 0., 0);
+
+		Run run = new Run();
+		run.simulation = new NumericalSimulator();
+		run.simulation.initialize();
+		run.simulation.getSatellite().getActuators().getMagnetoTorquers()
+		.setDipoleCommand(dipole);
+		long t0 = System.nanoTime();
+		for (long i = 0; i < 10 * duration; i++) {
+			run.simulation.processUntil(0.1 * (i + 1));
+			run.states.add(run.simulation.getSatellite().getStates().getCurrentState());
+		}
+		run.time = System.nanoTime() - t0;
+		run.simulation.exit();
+		return run;
+	}
+
+	private static class Run {
+		NumericalSimulator simulation;
+		ArrayList<SpacecraftState> states = new ArrayList<SpacecraftState>();
+		long time;
+	}
+}
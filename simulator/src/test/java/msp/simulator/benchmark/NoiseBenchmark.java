@@ -0,0 +1,139 @@
+/* Copyright 20017-2018 Melbourne Space Program
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package msp.simulator.benchmark;
+
+import org.hipparchus.geometry.euclidean.threed.Vector3D;
+import org.hipparchus.util.FastMath;
+
+import msp.simulator.utils.noise.NoiseGenerator;
+import msp.simulator.utils.noise.SensorNoise;
+
+/**
+ * Benchmark of the bulk generation of the sensor noise.
+ * <p>
+ * A three-axis sensor oversampled at 1 kHz is read block by block,
+ * first as one noisy vector per sample, as the sensors did, then in
+ * a primitive array corrupted by a sensor noise. The statistics of the bias random
+ * walk and of the quantization are then checked.
+ * <p>
+ * Arguments: [duration (s)] [samples per block]
+ *
+ * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
+ */
+public class NoiseBenchmark {
+
+	/** Sample period of the sensor. (s) */
+	private static final double PERIOD = 1e-3;
+
+	public static void main(String[] args) throws Exception {
+		double duration = args.length > 0 ? Double.parseDouble(args[0]) : 20000.;
+		int block = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+
+		int nBlocks = (int) (duration / (block * PERIOD));
+		Vector3D value = new Vector3D(0.1, 0.2, 0.3);
+
+		/* Warm up both paths. */
+		scalar(new NoiseGenerator("warmup"), value, nBlocks / 10, block);
+		bulk(new SensorNoise("warmup", 3, 1e-3, 0, 0), value, nBlocks / 10, block);
+
+		long t0 = System.nanoTime();
+		double checksumScalar = scalar(new NoiseGenerator("gyro"), value, nBlocks, block);
+		long t1 = System.nanoTime();
+		double checksumBulk = bulk(new SensorNoise("gyro", 3, 1e-3, 0, 0), value, nBlocks, block);
+		long t2 = System.nanoTime();
+
+		/* Bias random walk: standard deviation of the final bias over the runs. */
+		int runs = 2000;
+		double walk = 1e-4;
+		double[] samples = new double[3 * block];
+		double sum2 = 0;
+		for (int r = 0; r < runs; r++) {
+			SensorNoise noise = new SensorNoise("walk" + r, 3, 0, walk, 0);
+			for (int b = 0; b < 100; b++) {
+				noise.corrupt(samples, 0, block, PERIOD);
+			}
+			double[] bias = noise.getBias();
+			sum2 += bias[0] * bias[0] + bias[1] * bias[1] + bias[2] * bias[2];
+		}
+		double walkTime = 100 * block * PERIOD;
+
+		/* Quantization: every sample is a multiple of the step. */
+		double quantum = 1e-2;
+		SensorNoise quantized = new SensorNoise("quantum", 3, 1e-1, 0, quantum);
+		java.util.Arrays.fill(samples, 0.123456);
+		quantized.corrupt(samples, 0, block, PERIOD);
+		double maxResidual = 0;
+		for (double sample : samples) {
+			maxResidual = FastMath.max(maxResidual, 
+					FastMath.abs(sample / quantum - FastMath.rint(sample / quantum)));
+		}
+
+		long n = (long) nBlocks * block;
+		System.out.println("Noise Benchmark - " + n + " samples by blocks of " + block);
+		System.out.println("  Scalar     : " + (t1 - t0) / 1e6 + " ms. ("
+				+ (t1 - t0) / (double) n + " ns/sample)");
+		System.out.println("  Bulk       : " + (t2 - t1) / 1e6 + " ms. ("
+				+ (t2 - t1) / (double) n + " ns/sample)");
+		System.out.println("  Speedup    : " + (double) (t1 - t0) / (t2 - t1));
+		System.out.println("  Checksum   : " + (checksumScalar - checksumBulk));
+		System.out.println("  Bias walk  : std " + FastMath.sqrt(sum2 / (3 * runs))
+				+ " expected " + walk * FastMath.sqrt(walkTime));
+		System.out.println("  Quantum    : max residual " + maxResidual);
+	}
+
+	/**
+	 * Corrupt the samples one by one with a new noise vector.
+	 * @return A checksum preventing the elimination of the loop
+	 */
+	private static double scalar(NoiseGenerator generator, Vector3D value, 
+			int nBlocks, int block) {
+		double checksum = 0;
+		Vector3D[] samples = new Vector3D[block];
+		for (int b = 0; b < nBlocks; b++) {
+			for (int i = 0; i < block; i++) {
+				Vector3D noise = new Vector3D(
+						generator.nextNoise(1e-3),
+						generator.nextNoise(1e-3),
+						generator.nextNoise(1e-3));
+				samples[i] = value.add(noise);
+			}
+			for (int i = 0; i < block; i++) {
+				checksum += samples[i].getX();
+			}
+		}
+		return checksum;
+	}
+
+	/**
+	 * Corrupt the samples block by block.
+	 * @return A checksum preventing the elimination of the loop
+	 */
+	private static double bulk(SensorNoise noise, Vector3D value, int nBlocks, int block) {
+		double checksum = 0;
+		double[] samples = new double[3 * block];
+		for (int b = 0; b < nBlocks; b++) {
+			for (int i = 0; i < block; i++) {
+				samples[3 * i] = value.getX();
+				samples[3 * i + 1] = value.getY();
+				samples[3 * i + 2] = value.getZ();
+			}
+			noise.corrupt(samples, 0, block, PERIOD);
+			for (int i = 0; i < block; i++) {
+				checksum += samples[3 * i];
+			}
+		}
+		return checksum;
+	}
+}
@@ -0,0 +1,134 @@
+/* Copyright 20017-2018 Melbourne Space Program
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package msp.simulator.benchmark;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.hipparchus.geometry.euclidean.threed.Vector3D;
+import org.orekit.time.AbsoluteDate;
+
+import msp.simulator.dynamic.torques.TorqueOverTimeScenarioProvider;
+import msp.simulator.dynamic.torques.TorqueOverTimeScenarioProvider.Step;
+
+/**
+ * Benchmark of the lookup of the torque in a scenario over time.
+ * <p>
+ * A scenario of many short steps, some of them overlapping, is read
+ * at the dates of the stages of a fixed step integrator, first by a 
+ * scan of the list of steps, as the provider did, then by the 
+ * provider. The number of dates where both torques differ is 
+ * reported.
+ * <p>
+ * Arguments: [steps] [integration step (s)]
+ *
+ * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
+ */
+public class ScenarioBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		int nSteps = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+		double h = args.length > 1 ? Double.parseDouble(args[1]) : 0.1;
+
+		Random random = new Random(1);
+		ArrayList<Step> scenario = new ArrayList<Step>();
+		double start = 0;
+		for (int i = 0; i < nSteps; i++) {
+			start += 2 * random.nextDouble();
+			Vector3D axis = new Vector3D(random.nextInt(3) - 1, 
+					random.nextInt(3) - 1, random.nextInt(3) - 1);
+			scenario.add(new Step(start, 3 * random.nextDouble(), axis));
+		}
+		double duration = start + 5;
+		AbsoluteDate startDate = AbsoluteDate.J2000_EPOCH;
+		TorqueOverTimeScenarioProvider provider = 
+				new TorqueOverTimeScenarioProvider(startDate, scenario);
+
+		/* Warm up both paths. */
+		scan(scenario, startDate, startDate.shiftedBy(duration / 10), h);
+		lookup(provider, startDate, startDate.shiftedBy(duration / 10), h);
+
+		long t0 = System.nanoTime();
+		double checksumScan = scan(scenario, startDate, startDate.shiftedBy(duration), h);
+		long t1 = System.nanoTime();
+		double checksumLookup = lookup(provider, startDate, startDate.shiftedBy(duration), h);
+		long t2 = System.nanoTime();
+
+		/* Both torques at the stages, then at random dates. */
+		int mismatches = 0;
+		for (double t = -1; t < duration; t += h / 2) {
+			mismatches += check(provider, scenario, startDate, startDate.shiftedBy(t));
+		}
+		for (int i = 0; i < 100000; i++) {
+			double t = duration * random.nextDouble();
+			mismatches += check(provider, scenario, startDate, startDate.shiftedBy(t));
+		}
+
+		System.out.println("Scenario Benchmark - " + nSteps + " steps over " 
+				+ (int) duration + " s. read every " + h + " s.");
+		System.out.println("  Scan       : " + (t1 - t0) / 1e6 + " ms. (" + checksumScan + ")");
+		System.out.println("  Lookup     : " + (t2 - t1) / 1e6 + " ms. (" + checksumLookup + ")");
+		System.out.println("  Speedup    : " + (double) (t1 - t0) / (t2 - t1));
+		System.out.println("  Mismatches : " + mismatches);
+	}
+
+	private static double scan(ArrayList<Step> scenario, AbsoluteDate startDate, 
+			AbsoluteDate endDate, double h) {
+		double checksum = 0;
+		for (AbsoluteDate date = startDate; date.compareTo(endDate) < 0; date = date.shiftedBy(h)) {
+			checksum += reference(scenario, startDate, date).getX();
+			checksum += reference(scenario, startDate, date.shiftedBy(h / 2)).getY();
+			checksum += reference(scenario, startDate, date.shiftedBy(h / 2)).getY();
+			checksum += reference(scenario, startDate, date.shiftedBy(h)).getZ();
+		}
+		return checksum;
+	}
+
+	private static double lookup(TorqueOverTimeScenarioProvider provider, 
+			AbsoluteDate startDate, AbsoluteDate endDate, double h) {
+		double checksum = 0;
+		for (AbsoluteDate date = startDate; date.compareTo(endDate) < 0; date = date.shiftedBy(h)) {
+			checksum += provider.getTorque(date).getX();
+			checksum += provider.getTorque(date.shiftedBy(h / 2)).getY();
+			checksum += provider.getTorque(date.shiftedBy(h / 2)).getY();
+			checksum += provider.getTorque(date.shiftedBy(h)).getZ();
+		}
+		return checksum;
+	}
+
+	private static int check(TorqueOverTimeScenarioProvider provider, 
+			ArrayList<Step> scenario, AbsoluteDate startDate, AbsoluteDate date) {
+		return provider.getTorque(date).equals(reference(scenario, startDate, date)) ? 0 : 1;
+	}
+
+	/**
+	 * Torque of the first step of the list applying at the date.
+	 * @param scenario List of the steps
+	 * @param startDate Start date of the scenario
+	 * @param date Current date
+	 * @return The scaled torque
+	 */
+	private static Vector3D reference(ArrayList<Step> scenario, AbsoluteDate startDate, 
+			AbsoluteDate date) {
+		double offset = date.durationFrom(startDate);
+		for (Step step : scenario) {
+			if (step.getStart() <= offset && step.getStart() + step.getDuration() > offset) {
+				return step.getRotVector().scalarMultiply(
+						TorqueOverTimeScenarioProvider.getTorqueIntensity());
+			}
+		}
+		return Vector3D.ZERO;
+	}
+}
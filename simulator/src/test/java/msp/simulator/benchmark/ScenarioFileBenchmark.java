@@ -0,0 +1,103 @@
+/* Copyright 20017-2018 Melbourne Space Program
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package msp.simulator.benchmark;
+
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.hipparchus.geometry.euclidean.threed.Vector3D;
+import org.orekit.time.AbsoluteDate;
+
+import msp.simulator.dynamic.torques.StreamedTorqueScenarioProvider;
+import msp.simulator.dynamic.torques.TorqueScenarioFile;
+
+/**
+ * Benchmark of the streaming of a torque scenario file.
+ * <p>
+ * A torque history of many short commands is written as a CSV
+ * file, converted into the binary format, and both files are
+ * streamed at the dates of the stages of a fixed step integrator.
+ * The torques provided from both files are compared and the
+ * largest window of commands held in memory is reported.
+ * <p>
+ * Arguments: [commands] [integration step (s)]
+ *
+ * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
+ */
+public class ScenarioFileBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		int nCommands = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		double h = args.length > 1 ? Double.parseDouble(args[1]) : 0.1;
+
+		Path csv = Files.createTempFile("torque-scenario", ".csv");
+		Path binary = Files.createTempFile("torque-scenario", ".bin");
+		Random random = new Random(1);
+		double start = 0;
+		try (BufferedWriter out = Files.newBufferedWriter(csv, StandardCharsets.US_ASCII)) {
+			for (int i = 0; i < nCommands; i++) {
+				start += 0.6 * random.nextDouble();
+				out.write(start + "," + 0.5 * random.nextDouble() + "," + 1e-3 * random.nextGaussian()
+						+ "," + 1e-3 * random.nextGaussian() + "," + 1e-3 * random.nextGaussian());
+				out.newLine();
+			}
+		}
+		double duration = start + 1;
+		AbsoluteDate startDate = AbsoluteDate.J2000_EPOCH;
+
+		long t0 = System.nanoTime();
+		TorqueScenarioFile.convert(csv, binary);
+		long t1 = System.nanoTime();
+		StreamedTorqueScenarioProvider fromCsv = new StreamedTorqueScenarioProvider(startDate, csv);
+		int[] windowCsv = new int[1];
+		double checksumCsv = stream(fromCsv, startDate, duration, h, windowCsv);
+		long t2 = System.nanoTime();
+		StreamedTorqueScenarioProvider fromBinary = new StreamedTorqueScenarioProvider(startDate, binary);
+		int[] windowBinary = new int[1];
+		double checksumBinary = stream(fromBinary, startDate, duration, h, windowBinary);
+		long t3 = System.nanoTime();
+
+		System.out.println("Scenario File Benchmark - " + nCommands + " commands over "
+				+ (int) duration + " s. read every " + h + " s.");
+		System.out.println("  CSV file    : " + Files.size(csv) / 1024 + " kB");
+		System.out.println("  Binary file : " + Files.size(binary) / 1024 + " kB");
+		System.out.println("  Conversion  : " + (t1 - t0) / 1e6 + " ms.");
+		System.out.println("  CSV         : " + (t2 - t1) / 1e6 + " ms. (" + checksumCsv 
+				+ ") - max window " + windowCsv[0]);
+		System.out.println("  Binary      : " + (t3 - t2) / 1e6 + " ms. (" + checksumBinary
+				+ ") - max window " + windowBinary[0]);
+		System.out.println("  Identical   : " + (checksumCsv == checksumBinary));
+
+		Files.delete(csv);
+		Files.delete(binary);
+	}
+
+	private static double stream(StreamedTorqueScenarioProvider provider, AbsoluteDate startDate,
+			double duration, double h, int[] maxWindow) {
+		double checksum = 0;
+		long steps = (long) (duration / h);
+		for (long i = 0; i < steps; i++) {
+			AbsoluteDate date = startDate.shiftedBy(i * h);
+			Vector3D torque = provider.getTorque(date);
+			checksum += torque.getX() + provider.getTorque(date.shiftedBy(h / 2)).getY()
+					+ provider.getTorque(date.shiftedBy(h)).getZ();
+			maxWindow[0] = Math.max(maxWindow[0], provider.getWindowSize());
+		}
+		return checksum;
+	}
+}
@@ -0,0 +1,77 @@
+/* Copyright 20017-2018 Melbourne Space Program
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package msp.simulator.benchmark;
+
+import org.orekit.frames.FramesFactory;
+import org.orekit.time.TimeScalesFactory;
+import org.orekit.utils.IERSConventions;
+
+import msp.simulator.NumericalSimulator;
+import msp.simulator.environment.geomagneticField.EarthMagneticField;
+import msp.simulator.environment.gravitationalPotential.GravitationalPotential;
+import msp.simulator.user.Dashboard;
+import msp.simulator.utils.architecture.OrekitConfiguration;
+
+/**
+ * Benchmark of the startup of the simulator.
+ * <p>
+ * The OreKit data are configured from the given source, then the
+ * time scales, the Earth orientation parameters, the gravity field
+ * and the geomagnetic field are loaded one after the other, and the
+ * simulator is finally initialized. As the data are loaded once per
+ * process, each source should be benchmarked in a fresh JVM.
+ * <p>
+ * Arguments: [DIRECTORY|CLASSPATH|ARCHIVE] [location] [EOP window (day)]
+ *
+ * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
+ */
+public class StartupBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		OrekitConfiguration.DataSource source = args.length > 0 ?
+				OrekitConfiguration.DataSource.valueOf(args[0]) :
+					OrekitConfiguration.DataSource.DIRECTORY;
+		String location = args.length > 1 && !args[1].equals("-") ? args[1] : null;
+		double eopWindow = args.length > 2 ? Double.parseDouble(args[2]) : 0.;
+
+		long t0 = System.nanoTime();
+		Dashboard.setDefaultConfiguration();
+		Dashboard.setOrekitData(source, location, eopWindow);
+		OrekitConfiguration.processConfiguration();
+		long t1 = System.nanoTime();
+		TimeScalesFactory.getUTC();
+		long t2 = System.nanoTime();
+		FramesFactory.getITRF(IERSConventions.IERS_2010, true);
+		long t3 = System.nanoTime();
+		new GravitationalPotential().getNormalizedSphericalHarmonicCoeffProvider();
+		long t4 = System.nanoTime();
+		new EarthMagneticField().getField();
+		long t5 = System.nanoTime();
+		NumericalSimulator simulator = new NumericalSimulator();
+		simulator.initialize();
+		long t6 = System.nanoTime();
+
+		System.out.println("Startup Benchmark - " + source
+				+ (location == null ? "" : " (" + location + ")")
+				+ (eopWindow > 0 ? " - EOP window " + eopWindow + " days" : ""));
+		System.out.println("  Configuration  : " + (t1 - t0) / 1e6 + " ms.");
+		System.out.println("  Time scales    : " + (t2 - t1) / 1e6 + " ms.");
+		System.out.println("  EOP            : " + (t3 - t2) / 1e6 + " ms.");
+		System.out.println("  Gravity field  : " + (t4 - t3) / 1e6 + " ms.");
+		System.out.println("  Magnetic field : " + (t5 - t4) / 1e6 + " ms.");
+		System.out.println("  Simulator      : " + (t6 - t5) / 1e6 + " ms.");
+		System.out.println("  Total          : " + (t6 - t0) / 1e6 + " ms.");
+	}
+}
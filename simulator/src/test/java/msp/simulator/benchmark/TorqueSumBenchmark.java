@@ -0,0 +1,137 @@
+/* Copyright 20017-2018 Melbourne Space Program
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package msp.simulator.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+
+import org.hipparchus.geometry.euclidean.threed.Vector3D;
+import org.orekit.propagation.SpacecraftState;
+import org.orekit.time.AbsoluteDate;
+
+import msp.simulator.NumericalSimulator;
+import msp.simulator.dynamic.propagation.integration.RotAccProvider;
+import msp.simulator.dynamic.torques.TorqueContext;
+import msp.simulator.dynamic.torques.TorqueOverTimeScenarioProvider;
+import msp.simulator.dynamic.torques.TorqueOverTimeScenarioProvider.Step;
+import msp.simulator.dynamic.torques.TorqueProvider;
+import msp.simulator.dynamic.torques.disturbances.GravityGradientTorque;
+import msp.simulator.dynamic.torques.disturbances.SimpleTorqueDisturbances;
+import msp.simulator.satellite.assembly.SatelliteBody;
+import msp.simulator.user.Dashboard;
+
+/**
+ * Benchmark of the summation of the torques at each stage.
+ * <p>
+ * The rotational acceleration is computed on the states of a
+ * simulation from a scenario, the gravity gradient and the random
+ * disturbance, first accumulated in place by the stage providers
+ * then through their Vector3D date-based interface. The time and
+ * the memory allocated per stage are reported.
+ * <p>
+ * Arguments: [duration (s)] [repetitions]
+ *
+ * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
+ */
+public class TorqueSumBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		long duration = args.length > 0 ? Long.parseLong(args[0]) : 300;
+		int repetitions = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+		Dashboard.setDefaultConfiguration();
+		Dashboard.setRealTimeProcessing(false);
+		Dashboard.setSimulationDuration(duration);
+		Dashboard.setInitialSpin(new Vector3D(0.01, 0.02, -0.01));
+		NumericalSimulator simulation = new NumericalSimulator();
+		simulation.initialize();
+		ArrayList<SpacecraftState> states = new ArrayList<SpacecraftState>();
+		for (long i = 0; i < 10 * duration; i++) {
+			simulation.processUntil(0.1 * (i + 1));
+			states.add(simulation.getSatellite().getStates().getCurrentState());
+		}
+		simulation.exit();
+
+		SatelliteBody body = simulation.getSatellite().getAssembly().getBody();
+		AbsoluteDate start = states.get(0).getDate();
+		ArrayList<Step> scenario = new ArrayList<Step>();
+		for (int i = 0; i < 100; i++) {
+			scenario.add(new Step(3. * i, 2., new Vector3D(1e-4 * i, -1e-4, 2e-4)));
+		}
+
+		RotAccProvider accumulated = create(simulation, body, start, scenario, false);
+		RotAccProvider legacy = create(simulation, body, start, scenario, true);
+
+		com.sun.management.ThreadMXBean threads =
+				(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long thread = Thread.currentThread().getId();
+		long[] times = new long[] {Long.MAX_VALUE, Long.MAX_VALUE};
+		long[] bytes = new long[2];
+		double[] checksums = new double[2];
+		RotAccProvider[] providers = new RotAccProvider[] {accumulated, legacy};
+		for (int r = 0; r < repetitions; r++) {
+			for (int k = 0; k < 2; k++) {
+				long b0 = threads.getThreadAllocatedBytes(thread);
+				long t0 = System.nanoTime();
+				double checksum = 0;
+				for (SpacecraftState state : states) {
+					double[] rotAcc = providers[k].getAdditionalState(state);
+					checksum += rotAcc[0] + rotAcc[1] + rotAcc[2];
+				}
+				long t1 = System.nanoTime();
+				bytes[k] = threads.getThreadAllocatedBytes(thread) - b0;
+				times[k] = Math.min(times[k], t1 - t0);
+				checksums[k] = checksum;
+			}
+		}
+
+		int n = states.size();
+		System.out.println("Torque Sum Benchmark - " + n + " stages");
+		System.out.println("  Accumulated : " + (double) times[0] / n + " ns/stage. "
+				+ bytes[0] / n + " bytes/stage.");
+		System.out.println("  Vector3D    : " + (double) times[1] / n + " ns/stage. "
+				+ bytes[1] / n + " bytes/stage.");
+		System.out.println("  Identical   : " + (checksums[0] == checksums[1]));
+	}
+
+	private static RotAccProvider create(NumericalSimulator simulation, SatelliteBody body,
+			AbsoluteDate start, ArrayList<Step> scenario, boolean legacy) {
+		TorqueContext context = new TorqueContext(simulation.getEnvironment());
+		SimpleTorqueDisturbances noise = new SimpleTorqueDisturbances();
+		noise.setSeed(1);
+		TorqueProvider[] models = new TorqueProvider[] {
+				new TorqueOverTimeScenarioProvider(start, scenario),
+				new GravityGradientTorque(context,
+						simulation.getEnvironment().getSolarSystem().getEarth().getAttractCoeffMu(),
+						body.getInertiaMatrix()),
+				noise
+		};
+		ArrayList<TorqueProvider> providers = new ArrayList<TorqueProvider>();
+		for (final TorqueProvider model : models) {
+			if (legacy) {
+				/* Hide the stage interface of the model. */
+				providers.add(new TorqueProvider() {
+					@Override
+					public Vector3D getTorque(AbsoluteDate date) {
+						return model.getTorque(date);
+					}
+				});
+			} else {
+				providers.add(model);
+			}
+		}
+		return new RotAccProvider(providers, body, context);
+	}
+}
@@ -0,0 +1,78 @@
+/* Copyright 20017-2018 Melbourne Space Program
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package msp.simulator.benchmark;
+
+import org.hipparchus.geometry.euclidean.threed.Vector3D;
+
+import msp.simulator.NumericalSimulator;
+import msp.simulator.satellite.assembly.Assembly;
+import msp.simulator.user.Dashboard;
+
+/**
+ * Benchmark of the reaction wheels.
+ * <p>
+ * The satellite is simulated free of any external torque, without
+ * and with reaction wheels driven by a constant motor torque. The
+ * wheel speeds are integrated in the same pass as the spin, and the
+ * total angular momentum should keep its norm while it is exchanged
+ * between the body and the wheels.
+ * <p>
+ * Arguments: [duration (s)]
+ *
+ * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
+ */
+public class WheelBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		long duration = args.length > 0 ? Long.parseLong(args[0]) : 600;
+
+		System.out.println("Reaction Wheel Benchmark - " + duration + " s. simulated");
+
+		/* Warm up. */
+		run(duration, false);
+		run(duration, false);
+		run(duration, true);
+	}
+
+	private static void run(long duration, boolean wheels) throws Exception {
+		Dashboard.setDefaultConfiguration();
+		Dashboard.setRealTimeProcessing(false);
+		Dashboard.setSimulationDuration(duration);
+		Dashboard.setInitialSpin(new Vector3D(0.01, 0.02, -0.01));
+		Dashboard.setTorqueDisturbances(false);
+		Dashboard.setReactionWheels(wheels, 1e-3, 1e-4, 650., new Vector3D(100., 0., -50.));
+
+		NumericalSimulator simulation = new NumericalSimulator();
+		simulation.initialize();
+		simulation.getSatellite().getActuators().getReactionWheels()
+		.setTorqueCommand(new Vector3D(2e-5, -1e-5, 3e-5));
+		Assembly assembly = simulation.getSatellite().getAssembly();
+		double h0 = assembly.getAngularMomentum().getNorm();
+
+		long t0 = System.nanoTime();
+		for (long i = 0; i < 10 * duration; i++) {
+			simulation.processUntil(0.1 * (i + 1));
+		}
+		long time = System.nanoTime() - t0;
+		double h1 = assembly.getAngularMomentum().getNorm();
+		simulation.exit();
+
+		System.out.println("  " + (wheels ? "Wheels " : "No wheel") + " : " + time / 1e6 + " ms. "
+				+ "Momentum drift: " + (h1 - h0) / h0
+				+ (wheels ? " - Wheel speed: "
+						+ simulation.getSatellite().getActuators().getReactionWheels().getSpeed()
+						: ""));
+	}
+}
@@ -0,0 +1,22 @@
+/* Copyright 20017-2018 Melbourne Space Program
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * Stand-alone benchmarks of the simulator components.
+ * <p>
+ * Each benchmark is run through its main method and is
+ * not part of the unit tests.
+ * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
+ */
+package msp.simulator.benchmark;
@@ -4,7 +4,10 @@ import org.hipparchus.geometry.euclidean.threed.*;
 import org.hipparchus.util.FastMath;
 import org.junit.Assert;
 import org.junit.Test;
+import org.orekit.utils.Constants;
 
+import msp.simulator.satellite.sensors.EarthSensingGeometry;
+import msp.simulator.satellite.sensors.InfraredArray;
 import msp.simulator.satellite.sensors.InfraredSensor;
 
 public class TestInfraredSensor {
@@ -77,6 +80,63 @@ public class TestInfraredSensor {
 		Assert.assertEquals(expectedAnswer6, sensor3.getAngle(), 1e-6);
 	}
 
+	@Test
+	public void testInfraredArrayAccuracy() {
+		InfraredSensor[] sensors = new InfraredSensor[] {
+				new InfraredSensor(Vector3D.PLUS_I), new InfraredSensor(Vector3D.MINUS_I),
+				new InfraredSensor(Vector3D.PLUS_J), new InfraredSensor(Vector3D.MINUS_J),
+				new InfraredSensor(Vector3D.PLUS_K), new InfraredSensor(Vector3D.MINUS_K)
+		};
+		InfraredArray array = new InfraredArray("Infrared",
+				new EarthSensingGeometry(Constants.WGS84_EARTH_EQUATORIAL_RADIUS, null), sensors);
+		double[] readings = new double[6];
+		double maxError = 0;
+
+		/* Nadir vectors spread over the sphere, not normalized. */
+		for (int i = 0; i < 5000; i++) {
+			double theta = FastMath.acos(1 - 2 * (i + 0.5) / 5000);
+			double phi = i * FastMath.PI * (3 - FastMath.sqrt(5));
+			Vector3D nadir = new Vector3D(phi, FastMath.PI / 2 - theta).scalarMultiply(1 + i % 7);
+
+			array.evaluate(nadir, readings);
+			for (int k = 0; k < 6; k++) {
+				double angle = FastMath.acos(Vector3D.dotProduct(nadir, 
+						sensors[k].getSideNormal()) / nadir.getNorm());
+				double expected = referencePolynomial(angle);
+				maxError = FastMath.max(maxError, FastMath.abs(readings[k] - expected));
+				Assert.assertEquals(sensors[k].calculateInfraredReading(nadir), readings[k], 1e-12);
+			}
+		}
+		Assert.assertEquals(0, maxError, 1e-12);
+	}
+
+	@Test
+	public void testEarthCoverage() {
+		double rho = FastMath.asin(6378137. / 6978137.);
+		Assert.assertEquals(1., EarthSensingGeometry.coverage(0, rho), 0);
+		Assert.assertEquals(1., EarthSensingGeometry.coverage(FastMath.PI / 2 - rho, rho), 0);
+		Assert.assertEquals(0.5, EarthSensingGeometry.coverage(FastMath.PI / 2, rho), 1e-15);
+		Assert.assertEquals(0., EarthSensingGeometry.coverage(FastMath.PI / 2 + rho, rho), 0);
+		Assert.assertEquals(0., EarthSensingGeometry.coverage(FastMath.PI, rho), 0);
+		Assert.assertEquals(1., EarthSensingGeometry.coverage(FastMath.PI / 2 - 0.1, rho)
+				+ EarthSensingGeometry.coverage(FastMath.PI / 2 + 0.1, rho), 1e-15);
+	}
+
+	/**
+	 * Ninth-order polynomial of the infrared sensor in its power form,
+	 * used as the reference of the Horner evaluation.
+	 * 
+	 * @param x Angle to Nadir
+	 * @return The corresponding infrared reading
+	 */
+	private static double referencePolynomial(double x) {
+		return 0.007330053825571 * FastMath.pow(x, 9) - 0.090570226260328 * FastMath.pow(x, 8)
+				+ 0.445759574332216 * FastMath.pow(x, 7) - 1.123946349873612 * FastMath.pow(x, 6)
+				+ 1.594507643864135 * FastMath.pow(x, 5) - 1.440516312413851 * FastMath.pow(x, 4)
+				+ 1.178825031933260 * FastMath.pow(x, 3) - 1.078355217581003 * FastMath.pow(x, 2)
+				+ 0.182686213443513 * x + 0.987208931556143;
+	}
+
 	/**
 	 * Calculates the Nadir vector based upon readings obtained from the side
 	 * sensors
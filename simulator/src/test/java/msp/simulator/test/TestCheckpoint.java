@@ -0,0 +1,159 @@
+/* Copyright 20017-2018 Melbourne Space Program
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package msp.simulator.test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hipparchus.geometry.euclidean.threed.Vector3D;
+import org.junit.Assert;
+import org.junit.Test;
+import org.orekit.errors.OrekitException;
+import org.orekit.propagation.SpacecraftState;
+
+import msp.simulator.NumericalSimulator;
+import msp.simulator.SimulationBranch;
+import msp.simulator.dynamic.propagation.integration.SecondaryStates;
+import msp.simulator.dynamic.torques.TorqueOverTimeScenarioProvider.Step;
+import msp.simulator.dynamic.torques.TorqueProviderEnum;
+import msp.simulator.user.Dashboard;
+import msp.simulator.utils.checkpoint.Checkpoint;
+import msp.simulator.utils.noise.NoiseGenerator;
+
+/**
+ * JUnit Tests of the checkpoint and resume of a simulation.
+ *
+ * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
+ */
+public class TestCheckpoint {
+
+	/**
+	 * Configure a spinning simulation without command torque, whose
+	 * noise is drawn from a fixed seed.
+	 * @param duration Duration of the simulation (s)
+	 */
+	private static void configure(long duration) {
+		Dashboard.setDefaultConfiguration();
+		Dashboard.setRealTimeProcessing(false);
+		Dashboard.setSimulationDuration(duration);
+		Dashboard.setIntegrationTimeStep(0.1);
+		Dashboard.setNoiseGeneration(1L, NoiseGenerator.Distribution.UNIFORM);
+		Dashboard.setInitialSpin(new Vector3D(0.01, 0.02, -0.01));
+		Dashboard.setCommandTorqueProvider(TorqueProviderEnum.SCENARIO);
+		Dashboard.setTorqueScenario(new ArrayList<Step>());
+	}
+
+	/**
+	 * Check that a simulation resumed from a checkpoint reaches
+	 * exactly the same state as the uninterrupted simulation.
+	 * @throws Exception when the simulation or the checkpoint fails
+	 */
+	@Test
+	public void testCheckpointResume() throws Exception {
+		long checkpointOffset = 10;
+		long duration = 20;
+
+		/* Uninterrupted simulation. */
+		configure(duration);
+		NumericalSimulator uninterrupted = new NumericalSimulator();
+		uninterrupted.initialize();
+		uninterrupted.process();
+		uninterrupted.exit();
+		SpacecraftState expected =
+				uninterrupted.getSatellite().getStates().getCurrentState();
+
+		/* Simulation checkpointed after N steps. */
+		File checkpoint = File.createTempFile("checkpoint", ".bin");
+		checkpoint.deleteOnExit();
+		configure(checkpointOffset);
+		NumericalSimulator first = new NumericalSimulator();
+		first.initialize();
+		first.process();
+		Checkpoint.save(first, checkpoint);
+		first.exit();
+
+		/* Resumed simulation, whose fresh seed is replaced by the checkpointed one. */
+		configure(duration);
+		Dashboard.setNoiseGeneration(2L, NoiseGenerator.Distribution.UNIFORM);
+		NumericalSimulator resumed = new NumericalSimulator();
+		resumed.initialize(checkpoint);
+		Assert.assertEquals(first.getNoiseSeed(), resumed.getNoiseSeed());
+		resumed.process();
+		resumed.exit();
+		SpacecraftState actual = resumed.getSatellite().getStates().getCurrentState();
+
+		assertSameState(expected, actual);
+	}
+
+	/**
+	 * Check that a branch forked without variation reaches exactly
+	 * the same state as the continuation of the forked simulation.
+	 * @throws Exception when the simulation or the fork fails
+	 */
+	@Test
+	public void testForkContinuation() throws Exception {
+		configure(20);
+		NumericalSimulator trunk = new NumericalSimulator();
+		trunk.initialize();
+		trunk.processUntil(10);
+
+		List<SimulationBranch> identical = new ArrayList<SimulationBranch>();
+		identical.add(new SimulationBranch("SAME", null, null));
+		SpacecraftState branchState = trunk.fork(identical, 1).get(0)
+				.getSatellite().getStates().getCurrentState();
+
+		trunk.process();
+		trunk.exit();
+		SpacecraftState trunkState = trunk.getSatellite().getStates().getCurrentState();
+
+		assertSameState(trunkState, branchState);
+	}
+
+	/**
+	 * Assert that two states are bit-identical.
+	 * @param expected Expected state
+	 * @param actual Actual state
+	 * @throws OrekitException if the additional states are missing
+	 */
+	static void assertSameState(SpacecraftState expected, SpacecraftState actual)
+			throws OrekitException {
+		Assert.assertEquals(expected.getDate(), actual.getDate());
+		Assert.assertArrayEquals(
+				expected.getPVCoordinates().getPosition().toArray(),
+				actual.getPVCoordinates().getPosition().toArray(),
+				0.);
+		Assert.assertArrayEquals(
+				expected.getPVCoordinates().getVelocity().toArray(),
+				actual.getPVCoordinates().getVelocity().toArray(),
+				0.);
+		Assert.assertArrayEquals(
+				new double[] {
+						expected.getAttitude().getRotation().getQ0(),
+						expected.getAttitude().getRotation().getQ1(),
+						expected.getAttitude().getRotation().getQ2(),
+						expected.getAttitude().getRotation().getQ3()},
+				new double[] {
+						actual.getAttitude().getRotation().getQ0(),
+						actual.getAttitude().getRotation().getQ1(),
+						actual.getAttitude().getRotation().getQ2(),
+						actual.getAttitude().getRotation().getQ3()},
+				0.);
+		Assert.assertArrayEquals(
+				expected.getAdditionalState(SecondaryStates.key),
+				actual.getAdditionalState(SecondaryStates.key),
+				0.);
+	}
+}
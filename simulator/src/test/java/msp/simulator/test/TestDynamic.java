@@ -17,7 +17,11 @@ package msp.simulator.test;
 import java.util.ArrayList;
 
 import org.hipparchus.complex.Quaternion;
+import org.hipparchus.geometry.euclidean.threed.Rotation;
+import org.hipparchus.geometry.euclidean.threed.RotationConvention;
 import org.hipparchus.geometry.euclidean.threed.Vector3D;
+import org.hipparchus.linear.MatrixUtils;
+import org.hipparchus.linear.RealMatrix;
 import org.hipparchus.util.FastMath;
 import org.junit.Assert;
 import org.junit.Test;
@@ -27,11 +31,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import msp.simulator.NumericalSimulator;
+import msp.simulator.dynamic.propagation.integration.AttitudeIntegratorEnum;
 import msp.simulator.dynamic.propagation.integration.RotAccProvider;
 import msp.simulator.dynamic.propagation.integration.SecondaryStates;
 import msp.simulator.dynamic.torques.TorqueOverTimeScenarioProvider;
 import msp.simulator.dynamic.torques.TorqueOverTimeScenarioProvider.Step;
 import msp.simulator.dynamic.torques.TorqueProviderEnum;
+import msp.simulator.satellite.assembly.Assembly;
+import msp.simulator.satellite.assembly.InertiaTensor;
 import msp.simulator.user.Dashboard;
 import msp.simulator.utils.logs.CustomLoggingTools;
 
@@ -189,4 +196,125 @@ public class TestDynamic {
 				delta);
 	}
 
+	/**
+	 * Check the Euler equations of a diagonal inertia tensor whose
+	 * principal moments are all different against the equations
+	 * written by hand:
+	 * <p>
+	 * I1.dw1/dt = M1 - (I3 - I2).w2.w3 (and circular permutations)
+	 */
+	@Test
+	public void testEulerEquationsDiagonal() {
+		double I1 = 2., I2 = 3., I3 = 5.;
+		double[][] inertiaMatrix = new double[][] {
+			{I1, 0., 0.},
+			{0., I2, 0.},
+			{0., 0., I3}
+		};
+		Vector3D torque = new Vector3D(0.1, -0.2, 0.3);
+		Vector3D spin = new Vector3D(0.4, -0.5, 0.6);
+
+		double[] expectedRotAcc = new double[] {
+				(torque.getX() - (I3 - I2) * spin.getY() * spin.getZ()) / I1,
+				(torque.getY() - (I1 - I3) * spin.getZ() * spin.getX()) / I2,
+				(torque.getZ() - (I2 - I1) * spin.getX() * spin.getY()) / I3
+		};
+
+		Assert.assertTrue(new InertiaTensor(inertiaMatrix).isDiagonal());
+		Assert.assertArrayEquals(
+				expectedRotAcc,
+				RotAccProvider.computeEulerEquations(torque, spin, inertiaMatrix),
+				1e-15);
+	}
+
+	/**
+	 * Check the Euler equations of a full inertia tensor against the
+	 * diagonal tensor it is built from in a rotated frame:
+	 * <p>
+	 * I = R.D.R^T, then dw/dt = R.(dw/dt)_D(R^T.M, R^T.w)
+	 */
+	@Test
+	public void testEulerEquationsFullTensor() {
+		double[][] diagonal = new double[][] {
+			{2., 0., 0.},
+			{0., 3., 0.},
+			{0., 0., 5.}
+		};
+		Rotation rotation = new Rotation(new Vector3D(1, 2, 3), 0.7,
+				RotationConvention.VECTOR_OPERATOR);
+		RealMatrix r = MatrixUtils.createRealMatrix(rotation.getMatrix());
+		double[][] full = r.multiply(MatrixUtils.createRealMatrix(diagonal))
+				.multiply(r.transpose()).getData();
+		InertiaTensor diagonalTensor = new InertiaTensor(diagonal);
+		InertiaTensor fullTensor = new InertiaTensor(full);
+		Assert.assertFalse(fullTensor.isDiagonal());
+
+		Vector3D torque = new Vector3D(0.1, -0.2, 0.3);
+		Vector3D spin = new Vector3D(0.4, -0.5, 0.6);
+
+		Vector3D expectedRotAcc = rotation.applyTo(new Vector3D(
+				RotAccProvider.computeEulerEquations(
+						rotation.applyInverseTo(torque).toArray(),
+						rotation.applyInverseTo(spin),
+						diagonalTensor)));
+		double[] actualRotAcc = RotAccProvider.computeEulerEquations(
+				torque.toArray(), spin, fullTensor);
+
+		Assert.assertArrayEquals(
+				expectedRotAcc.toArray(),
+				actualRotAcc,
+				1e-12);
+	}
+
+	/**
+	 * Check the conservation of the angular momentum and of the
+	 * rotational energy of a torque free asymmetric satellite spinning
+	 * close to its intermediate axis, when integrated by the RKMK4
+	 * integrator at large steps.
+	 * @throws Exception when initialization of simulation fails
+	 */
+	@Test
+	public void testLieGroupIntegratorConservation() throws Exception {
+		long duration = 120;
+		for (double step : new double[] {0.5, 1.0}) {
+			Dashboard.setDefaultConfiguration();
+			Dashboard.setRealTimeProcessing(false);
+			Dashboard.setSimulationDuration(duration);
+			Dashboard.setIntegrationTimeStep(step);
+			Dashboard.setAttitudeIntegrator(AttitudeIntegratorEnum.RKMK4);
+			Dashboard.setSatelliteInertiaMatrix(new double[][] {
+				{0.010, 0.000, 0.000},
+				{0.000, 0.015, 0.000},
+				{0.000, 0.000, 0.020}
+			});
+			Dashboard.setInitialSpin(new Vector3D(0.01, 0.3, 0.01));
+			Dashboard.setTorqueDisturbances(false);
+			Dashboard.setCommandTorqueProvider(TorqueProviderEnum.SCENARIO);
+			Dashboard.setTorqueScenario(new ArrayList<Step>());
+
+			NumericalSimulator simu = new NumericalSimulator();
+			simu.initialize();
+			Assembly assembly = simu.getSatellite().getAssembly();
+			Vector3D h0 = assembly.getAngularMomentum();
+			double e0 = 0.5 * assembly.getStates().getCurrentState()
+					.getAttitude().getSpin().dotProduct(h0);
+
+			simu.process();
+			simu.exit();
+
+			SpacecraftState finalState = simu.getSatellite().getStates().getCurrentState();
+			Assert.assertEquals(duration,
+					finalState.getDate().durationFrom(
+							simu.getSatellite().getStates().getInitialState().getDate()),
+					1e-9);
+			Vector3D h1 = assembly.getAngularMomentum();
+			double e1 = 0.5 * finalState.getAttitude().getSpin().dotProduct(h1);
+
+			/* The satellite flips around its intermediate axis in this period,
+			 * so the attitude and the spin vary widely. */
+			Assert.assertEquals(0., (h1.getNorm() - h0.getNorm()) / h0.getNorm(), 1e-6);
+			Assert.assertEquals(0., (e1 - e0) / e0, 1e-6);
+		}
+	}
+
 }
@@ -0,0 +1,76 @@
+/* Copyright 20017-2018 Melbourne Space Program
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package msp.simulator.test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import msp.simulator.satellite.io.MemcachedJournal;
+
+/**
+ * JUnit Tests of the journal of the MemCached operations.
+ *
+ * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
+ */
+public class TestJournal {
+
+	/**
+	 * Check that long values and long operations are read back
+	 * exactly, as well as the records following them.
+	 * @throws Exception when the journal can not be written or read
+	 */
+	@Test
+	public void testLongValueAndDuration() throws Exception {
+		Path path = Files.createTempFile("memcached", ".jrn");
+		path.toFile().deleteOnExit();
+
+		byte[] large = new byte[40000];
+		for (int i = 0; i < large.length; i++) {
+			large[i] = (byte) i;
+		}
+		byte[] small = new byte[] {1, 2, 3};
+		long stall = 3000000000L;
+
+		try (MemcachedJournal journal = new MemcachedJournal(path)) {
+			journal.record(MemcachedJournal.SET, "Large", 0.1, System.nanoTime(), large);
+			journal.record(MemcachedJournal.GET, "Stalled", 0.2, System.nanoTime() - stall, null);
+			journal.record(MemcachedJournal.GET, "Small", 0.3, System.nanoTime(), small);
+		}
+
+		final List<Object[]> records = new ArrayList<Object[]>();
+		MemcachedJournal.read(path, new MemcachedJournal.Listener() {
+			@Override
+			public void operation(byte operation, String key, double simulationTime,
+					long wallTime, long duration, byte[] value) {
+				records.add(new Object[] {operation, key, simulationTime, duration, value});
+			}
+		});
+
+		Assert.assertEquals(3, records.size());
+		Assert.assertEquals("Large", records.get(0)[1]);
+		Assert.assertArrayEquals(large, (byte[]) records.get(0)[4]);
+		Assert.assertEquals("Stalled", records.get(1)[1]);
+		Assert.assertNull(records.get(1)[4]);
+		Assert.assertTrue((Long) records.get(1)[3] >= stall);
+		Assert.assertEquals("Small", records.get(2)[1]);
+		Assert.assertEquals(0.3, (Double) records.get(2)[2], 0.);
+		Assert.assertArrayEquals(small, (byte[]) records.get(2)[4]);
+	}
+}
@@ -0,0 +1,129 @@
+/* Copyright 20017-2018 Melbourne Space Program
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package msp.simulator.test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.hipparchus.geometry.euclidean.threed.Vector3D;
+import org.junit.Assert;
+import org.junit.Test;
+
+import msp.simulator.dynamic.torques.TorqueLog;
+
+/**
+ * JUnit Tests of the recorded torque logs.
+ *
+ * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
+ */
+public class TestTorqueLog {
+
+	/** Period of the acquisitions. (s) */
+	private static final double PERIOD = 0.1;
+
+	/**
+	 * Check the record found at the offsets around a missing
+	 * acquisition, as well as before the first and after the last one.
+	 * @throws Exception when the log can not be written or read
+	 */
+	@Test
+	public void testIndexOfMissingRecord() throws Exception {
+		Path path = this.createTempFile();
+		try (TorqueLog.Recorder recorder = new TorqueLog.Recorder(path, PERIOD)) {
+			for (int i = 0; i < 10; i++) {
+				if (i != 4) {
+					recorder.record(1.0 + i * PERIOD, new Vector3D(i, 0, 0));
+				}
+			}
+		}
+
+		TorqueLog log = new TorqueLog(path);
+		Assert.assertEquals(9, log.size());
+		Assert.assertEquals(PERIOD, log.getPeriod(), 0.);
+
+		Assert.assertEquals(-1, log.indexOf(0.5));
+		Assert.assertEquals(0, log.indexOf(1.0));
+		Assert.assertEquals(3, log.indexOf(1.35));
+		/* The record of the missing acquisition stays in effect. */
+		Assert.assertEquals(3.0, log.getTorque(log.indexOf(1.4)).getX(), 0.);
+		Assert.assertEquals(3.0, log.getTorque(log.indexOf(1.45)).getX(), 0.);
+		Assert.assertEquals(5.0, log.getTorque(log.indexOf(1.5)).getX(), 0.);
+		Assert.assertEquals(9.0, log.getTorque(log.indexOf(1.9)).getX(), 0.);
+		Assert.assertEquals(8, log.indexOf(10.));
+	}
+
+	/**
+	 * Check that a recorder resumed at a checkpointed position keeps
+	 * the records before it and replaces the ones after it, while a
+	 * new recorder replaces the whole log.
+	 * @throws Exception when the log can not be written or read
+	 */
+	@Test
+	public void testResume() throws Exception {
+		Path path = this.createTempFile();
+		long checkpoint;
+		try (TorqueLog.Recorder recorder = new TorqueLog.Recorder(path, PERIOD)) {
+			for (int i = 0; i < 3; i++) {
+				recorder.record(i * PERIOD, new Vector3D(0, i, 0));
+			}
+			recorder.flush();
+			checkpoint = recorder.getPosition();
+			for (int i = 3; i < 6; i++) {
+				recorder.record(i * PERIOD, new Vector3D(0, i, 0));
+			}
+		}
+
+		try (TorqueLog.Recorder recorder = new TorqueLog.Recorder(path, PERIOD)) {
+			recorder.resume(checkpoint);
+			for (int i = 3; i < 5; i++) {
+				recorder.record(i * PERIOD, new Vector3D(0, -i, 0));
+			}
+		}
+
+		TorqueLog log = new TorqueLog(path);
+		Assert.assertEquals(5, log.size());
+		for (int i = 0; i < 3; i++) {
+			Assert.assertEquals(i, log.getTorque(i).getY(), 0.);
+		}
+		for (int i = 3; i < 5; i++) {
+			Assert.assertEquals(-i, log.getTorque(i).getY(), 0.);
+		}
+
+		try (TorqueLog.Recorder recorder = new TorqueLog.Recorder(path, PERIOD)) {
+			recorder.resume(Files.size(path) + 1);
+			Assert.fail("Resumed past the end of the log");
+		} catch (IOException e) {
+			Assert.assertTrue(e.getMessage().startsWith("Torque log shorter than"));
+		}
+
+		try (TorqueLog.Recorder recorder = new TorqueLog.Recorder(path, PERIOD)) {
+			recorder.record(0., Vector3D.PLUS_K);
+		}
+		log = new TorqueLog(path);
+		Assert.assertEquals(1, log.size());
+		Assert.assertEquals(Vector3D.PLUS_K, log.getTorque(0));
+	}
+
+	/**
+	 * @return A temporary file deleted on exit.
+	 * @throws IOException when the file can not be created
+	 */
+	private Path createTempFile() throws IOException {
+		Path path = Files.createTempFile("torque", ".log");
+		path.toFile().deleteOnExit();
+		return path;
+	}
+}
@@ -0,0 +1,118 @@
+/* Copyright 20017-2018 Melbourne Space Program
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package msp.simulator.test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import msp.simulator.dynamic.torques.TorqueScenarioFile;
+
+/**
+ * JUnit Tests of the torque scenario files.
+ *
+ * @author Florian CHAUBEYRE <chaubeyre.f@gmail.com>
+ */
+public class TestTorqueScenarioFile {
+
+	/** Commands of the test scenario: start, duration, torque x, y, z. */
+	private static final double[][] COMMANDS = new double[][] {
+		{0.0, 1.0, 1e-3, -2e-3, 3e-3},
+		{1.0, 0.5, 0.0, 0.0, 0.0},
+		{2.5, 2.0, -4e-4, 5e-4, -6e-4},
+	};
+
+	/**
+	 * Check that a CSV scenario converted into the binary format and
+	 * back reads the same commands.
+	 * @throws Exception when the files can not be written or read
+	 */
+	@Test
+	public void testRoundTrip() throws Exception {
+		Path csv = this.writeCsv();
+		Path binary = this.createTempFile(".bin");
+		Path back = this.createTempFile(".csv");
+
+		Assert.assertEquals(COMMANDS.length, TorqueScenarioFile.convert(csv, binary));
+		Assert.assertEquals(COMMANDS.length, TorqueScenarioFile.convert(binary, back));
+
+		for (Path path : new Path[] {binary, back}) {
+			double[] command = new double[TorqueScenarioFile.RECORD_SIZE];
+			try (TorqueScenarioFile file = new TorqueScenarioFile(path)) {
+				for (double[] expected : COMMANDS) {
+					Assert.assertTrue(file.next(command));
+					Assert.assertArrayEquals(expected, command, 0.);
+				}
+				Assert.assertFalse(file.next(command));
+				Assert.assertEquals(COMMANDS.length, file.getCount());
+			}
+		}
+	}
+
+	/**
+	 * Check that skipping commands resumes at the right one and that
+	 * skipping past the end of a binary scenario fails.
+	 * @throws Exception when the files can not be written or read
+	 */
+	@Test
+	public void testBinarySkip() throws Exception {
+		Path binary = this.createTempFile(".bin");
+		TorqueScenarioFile.convert(this.writeCsv(), binary);
+
+		double[] command = new double[TorqueScenarioFile.RECORD_SIZE];
+		try (TorqueScenarioFile file = new TorqueScenarioFile(binary)) {
+			file.skip(2);
+			Assert.assertTrue(file.next(command));
+			Assert.assertArrayEquals(COMMANDS[2], command, 0.);
+		}
+
+		try (TorqueScenarioFile file = new TorqueScenarioFile(binary)) {
+			file.skip(COMMANDS.length + 1);
+			Assert.fail("Skipped past the end of the scenario");
+		} catch (IOException e) {
+			Assert.assertTrue(e.getMessage().startsWith("Torque scenario shorter than"));
+		}
+	}
+
+	/**
+	 * @return A CSV scenario of the test commands.
+	 * @throws IOException when the file can not be written
+	 */
+	private Path writeCsv() throws IOException {
+		StringBuilder content = new StringBuilder("# start, duration, x, y, z\n");
+		for (double[] command : COMMANDS) {
+			content.append(command[0]).append(',').append(command[1]).append(',')
+				.append(command[2]).append(',').append(command[3]).append(',')
+				.append(command[4]).append('\n');
+		}
+		Path path = this.createTempFile(".csv");
+		Files.write(path, content.toString().getBytes("US-ASCII"));
+		return path;
+	}
+
+	/**
+	 * @param suffix Extension of the file
+	 * @return A temporary file deleted on exit.
+	 * @throws IOException when the file can not be created
+	 */
+	private Path createTempFile(String suffix) throws IOException {
+		Path path = Files.createTempFile("scenario", suffix);
+		path.toFile().deleteOnExit();
+		return path;
+	}
+}